@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.persistence.autoconfigure.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Главный класс приложения системы управления фитнес-центром.
@@ -20,6 +21,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
  *
  * @EnableJpaRepositories включает сканирование и регистрацию JPA репозиториев
  * @EntityScan включает сканирование JPA сущностей в указанных пакетах
+ * @EnableScheduling включает выполнение периодических задач (@Scheduled)
  *
  * @author SafoevDalerIT-13
  * @version 1.0
@@ -28,6 +30,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @SpringBootApplication
 @EnableJpaRepositories("ru.safoev.repositoryinterface")
 @EntityScan("ru.safoev.entity")
+@EnableScheduling
 public class GymSystemApplication {
 
   /**
@@ -0,0 +1,185 @@
+package ru.safoev;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.data.metrics.DefaultRepositoryTagsProvider;
+import org.springframework.boot.data.metrics.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import ru.safoev.dtorecords.DbLimiterStatsDto;
+import ru.safoev.dtorecords.OccupancyDto;
+import ru.safoev.dtorecords.WriteBehindStatsDto;
+import ru.safoev.services.OccupancyService;
+import ru.safoev.services.VisitService;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Конфигурация метрик Micrometer, публикуемых через {@code /actuator/prometheus}.
+ * <p>
+ * Время HTTP-запросов ({@code http.server.requests}), вызовов репозиториев
+ * ({@code spring.data.repository.invocations}), статистика Hibernate ({@code hibernate.*})
+ * и заполненность пула соединений ({@code hikaricp.*}) собираются автоконфигурацией
+ * Spring Boot; вызовы сервисов замеряет {@link ServiceCallMetrics}. Эта конфигурация
+ * добавляет к метрикам запросов и репозиториев тег {@code entity} и публикует
+ * счетчики приложения: ограничителя доступа к базе данных, буфера отложенной записи
+ * посещений и заполненности залов.
+ * </p>
+ *
+ * @Configuration указывает, что этот класс содержит конфигурационные методы Spring
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Configuration
+public class MetricsConfig {
+
+  /**
+   * Значение тега {@code entity} для вызовов, не относящихся к одной сущности.
+   */
+  public static final String NO_ENTITY = "none";
+
+  private static final List<String> ENTITIES = List.of(
+          "subscription", "equipment", "employee", "client", "visit", "rate", "gym");
+
+  /**
+   * Определяет сущность по имени класса сервиса, репозитория или сегменту URI.
+   *
+   * @param name имя класса (например, {@code ClientService}) или сегмент пути (например, {@code client})
+   * @return имя сущности в нижнем регистре или {@value #NO_ENTITY}
+   */
+  public static String entityOf(String name) {
+    String lower = name.toLowerCase(Locale.ROOT);
+    for (String entity : ENTITIES) {
+      if (lower.startsWith(entity)) {
+        return entity;
+      }
+    }
+    return NO_ENTITY;
+  }
+
+  /**
+   * Добавляет к метрике {@code http.server.requests} тег {@code entity} по шаблону URI.
+   * <p>
+   * Для {@code /gym/client/get/{id}} это {@code client}; остальные пути под {@code /gym}
+   * (статистика, заполненность, события) относятся к залам.
+   * </p>
+   *
+   * @return соглашение об именах и тегах наблюдений HTTP-запросов
+   */
+  @Bean
+  public ServerRequestObservationConvention entityServerRequestObservationConvention() {
+    return new DefaultServerRequestObservationConvention() {
+      @Override
+      public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context)
+                .and(KeyValue.of("entity", entityOfPath(context.getPathPattern())));
+      }
+    };
+  }
+
+  /**
+   * Добавляет к метрике {@code spring.data.repository.invocations} тег {@code entity}
+   * по имени интерфейса репозитория.
+   *
+   * @return поставщик тегов вызовов репозиториев
+   */
+  @Bean
+  public RepositoryTagsProvider entityRepositoryTagsProvider() {
+    DefaultRepositoryTagsProvider defaults = new DefaultRepositoryTagsProvider();
+    return invocation -> Tags.of(defaults.repositoryTags(invocation))
+            .and(Tag.of("entity", entityOf(repositoryName(invocation))));
+  }
+
+  /**
+   * Публикует счетчики ограничителя доступа к базе данных, буфера отложенной записи
+   * посещений и общее число посетителей в залах.
+   * <p>
+   * Значения читаются из статистики компонентов в момент сбора метрик.
+   * </p>
+   *
+   * @param limiter ограничитель доступа к базе данных
+   * @param visitService сервис посещений со статистикой буфера отложенной записи
+   * @param occupancyService сервис счетчиков заполненности залов
+   * @return регистратор метрик приложения
+   */
+  @Bean
+  public MeterBinder gymMeterBinder(RepositoryAccessLimiter limiter, VisitService visitService,
+                                    OccupancyService occupancyService) {
+    return registry -> {
+      limiterGauge(registry, limiter, "gym.db.limiter.permits", "Configured permits", DbLimiterStatsDto::permits);
+      limiterGauge(registry, limiter, "gym.db.limiter.permits.available", "Free permits",
+              DbLimiterStatsDto::availablePermits);
+      limiterGauge(registry, limiter, "gym.db.limiter.waiting", "Threads waiting for a permit",
+              DbLimiterStatsDto::waitingThreads);
+      FunctionCounter.builder("gym.db.limiter.acquired", limiter, l -> l.getStats().acquiredCount())
+              .description("Permits granted")
+              .register(registry);
+      FunctionCounter.builder("gym.db.limiter.rejected", limiter, l -> l.getStats().rejectedCount())
+              .description("Calls rejected after the acquire timeout")
+              .register(registry);
+      TimeGauge.builder("gym.db.limiter.wait.max", limiter, TimeUnit.MILLISECONDS,
+                      l -> l.getStats().maxWaitMillis())
+              .description("Longest wait for a permit since start")
+              .register(registry);
+
+      Gauge.builder("gym.visit.write.behind.queue.depth", visitService,
+                      s -> s.getWriteBehindStats().queueDepth())
+              .description("Visit events waiting to be written")
+              .register(registry);
+      writeBehindCounter(registry, visitService, "gym.visit.write.behind.accepted", WriteBehindStatsDto::acceptedEvents);
+      writeBehindCounter(registry, visitService, "gym.visit.write.behind.rejected", WriteBehindStatsDto::rejectedEvents);
+      writeBehindCounter(registry, visitService, "gym.visit.write.behind.written", WriteBehindStatsDto::writtenEvents);
+      writeBehindCounter(registry, visitService, "gym.visit.write.behind.flush.failed",
+              WriteBehindStatsDto::failedFlushCount);
+
+      Gauge.builder("gym.occupancy.visitors", occupancyService,
+                      s -> s.getAllOccupancy().stream().mapToLong(OccupancyDto::currentVisitors).sum())
+              .description("Visitors currently in all gyms")
+              .register(registry);
+    };
+  }
+
+  private static String entityOfPath(String pathPattern) {
+    if (pathPattern == null || !pathPattern.startsWith("/gym")) {
+      return NO_ENTITY;
+    }
+    String[] segments = pathPattern.split("/");
+    String entity = segments.length > 2 ? entityOf(segments[2]) : NO_ENTITY;
+    return entity.equals(NO_ENTITY) ? "gym" : entity;
+  }
+
+  private static String repositoryName(RepositoryMethodInvocation invocation) {
+    return invocation.getRepositoryInterface().getSimpleName();
+  }
+
+  private static void limiterGauge(MeterRegistry registry,
+                                   RepositoryAccessLimiter limiter, String name, String description,
+                                   ToDoubleFunction<DbLimiterStatsDto> value) {
+    Gauge.builder(name, limiter, l -> value.applyAsDouble(l.getStats()))
+            .description(description)
+            .register(registry);
+  }
+
+  private static void writeBehindCounter(MeterRegistry registry,
+                                         VisitService visitService, String name,
+                                         ToDoubleFunction<WriteBehindStatsDto> value) {
+    FunctionCounter.builder(name, visitService, s -> value.applyAsDouble(s.getWriteBehindStats()))
+            .register(registry);
+  }
+}
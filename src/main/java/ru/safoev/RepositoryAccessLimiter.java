@@ -0,0 +1,148 @@
+package ru.safoev;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.safoev.dtorecords.DbLimiterStatsDto;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничитель одновременного доступа к базе данных.
+ * <p>
+ * При выполнении запросов в виртуальных потоках количество одновременно
+ * обрабатываемых запросов не ограничено пулом потоков Tomcat, и тысячи запросов
+ * турникетов и приложения могли бы одновременно ждать соединения из пула HikariCP.
+ * Ограничитель пропускает к репозиториям и транзакционным методам сервисов
+ * не больше {@code gym.db.limiter.permits} потоков; остальные ждут разрешения
+ * в порядке очереди не дольше {@code gym.db.limiter.acquire-timeout}, после чего
+ * запрос отклоняется с {@link RejectedExecutionException} (ответ 503 Service Unavailable).
+ * </p>
+ * <p>
+ * Разрешение берется один раз на внешнем вызове и удерживается до его завершения,
+ * то есть на все время транзакции. Поэтому число разрешений задается немного меньше
+ * размера пула соединений: остаток используется фоновыми задачами, работающими
+ * с базой данных напрямую (например, сбросом буфера отложенной записи посещений).
+ * </p>
+ *
+ * @Aspect указывает, что класс содержит advice, применяемый к бинам Spring
+ * @Order задает выполнение раньше открытия транзакции
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RepositoryAccessLimiter {
+  private static final Logger log = LoggerFactory.getLogger(RepositoryAccessLimiter.class);
+
+  /**
+   * Глубина вложенных вызовов в текущем потоке: разрешение берет только внешний вызов.
+   */
+  private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+  private final boolean enabled;
+  private final int permits;
+  private final long acquireTimeoutNanos;
+  private final Semaphore semaphore;
+  private final LongAdder acquired = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Конструктор ограничителя.
+   *
+   * @param enabled признак включенного ограничения
+   * @param permits максимальное количество потоков, одновременно работающих с базой данных
+   * @param acquireTimeout максимальное время ожидания разрешения
+   */
+  public RepositoryAccessLimiter(@Value("${gym.db.limiter.enabled:true}") boolean enabled,
+                                 @Value("${gym.db.limiter.permits:8}") int permits,
+                                 @Value("${gym.db.limiter.acquire-timeout:2s}") Duration acquireTimeout) {
+    if (permits < 1) {
+      throw new IllegalArgumentException("Database limiter permits must be positive");
+    }
+    this.enabled = enabled;
+    this.permits = permits;
+    this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    this.semaphore = new Semaphore(permits, true);
+  }
+
+  /**
+   * Выполняет вызов репозитория или транзакционного метода сервиса с разрешением ограничителя.
+   *
+   * @param joinPoint перехваченный вызов
+   * @return результат вызова
+   * @throws RejectedExecutionException если разрешение не получено за отведенное время
+   * @throws Throwable исключение перехваченного вызова
+   */
+  @Around("this(org.springframework.data.repository.Repository)"
+          + " || (within(ru.safoev..*) && (@within(org.springframework.transaction.annotation.Transactional)"
+          + " || @annotation(org.springframework.transaction.annotation.Transactional)))")
+  public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+    int[] depth = DEPTH.get();
+    if (!enabled || depth[0] > 0) {
+      return proceed(joinPoint, depth);
+    }
+    long start = System.nanoTime();
+    boolean permitted;
+    try {
+      permitted = semaphore.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException("Interrupted while waiting for database access", e);
+    }
+    if (!permitted) {
+      rejected.increment();
+      log.debug("Rejected {}: all {} database permits busy for {} ms", joinPoint.getSignature().toShortString(),
+              permits, TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos));
+      throw new RejectedExecutionException("Database is busy, retry later");
+    }
+    maxWaitNanos.accumulate(System.nanoTime() - start);
+    acquired.increment();
+    try {
+      return proceed(joinPoint, depth);
+    } finally {
+      semaphore.release();
+    }
+  }
+
+  /**
+   * Возвращает показатели ограничителя.
+   *
+   * @return показатели ограничителя доступа к базе данных
+   */
+  public DbLimiterStatsDto getStats() {
+    return new DbLimiterStatsDto(
+            enabled,
+            permits,
+            semaphore.availablePermits(),
+            semaphore.getQueueLength(),
+            acquired.sum(),
+            rejected.sum(),
+            TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get())
+    );
+  }
+
+  private static Object proceed(ProceedingJoinPoint joinPoint, int[] depth) throws Throwable {
+    depth[0]++;
+    try {
+      return joinPoint.proceed();
+    } finally {
+      depth[0]--;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package ru.safoev;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Фильтр выборочного журналирования HTTP-запросов.
+ * <p>
+ * Вместо записи каждого вызова контроллера в журнал попадает доля
+ * {@code gym.logging.request-sample-rate} запросов (от 0 до 1) на уровне INFO,
+ * а также все запросы с ответом 5xx и запросы дольше
+ * {@code gym.logging.slow-request-threshold} на уровне WARN.
+ * Записываются метод, путь без строки запроса, статус и длительность;
+ * параметры и тело запроса не записываются.
+ * </p>
+ * <p>
+ * Для потоковых ответов (SSE, выгрузки) фильтр видит только первую обработку
+ * запроса, поэтому они журналируются по выборке без учета статуса и длительности.
+ * </p>
+ *
+ * @Component регистрирует фильтр в цепочке фильтров сервлет-контейнера
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Component
+public class SampledRequestLogFilter extends OncePerRequestFilter {
+  private static final Logger log = LoggerFactory.getLogger(SampledRequestLogFilter.class);
+
+  private final double sampleRate;
+  private final long slowRequestNanos;
+
+  /**
+   * Конструктор фильтра.
+   *
+   * @param sampleRate доля запросов, записываемых в журнал (от 0 до 1)
+   * @param slowRequestThreshold длительность, начиная с которой запрос записывается всегда
+   */
+  public SampledRequestLogFilter(@Value("${gym.logging.request-sample-rate:0.01}") double sampleRate,
+                                 @Value("${gym.logging.slow-request-threshold:1s}") Duration slowRequestThreshold) {
+    if (sampleRate < 0 || sampleRate > 1) {
+      throw new IllegalArgumentException("Request log sample rate must be between 0 and 1");
+    }
+    this.sampleRate = sampleRate;
+    this.slowRequestNanos = slowRequestThreshold.toNanos();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+          throws ServletException, IOException {
+    if (!log.isWarnEnabled()) {
+      chain.doFilter(request, response);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      long elapsedNanos = System.nanoTime() - start;
+      int status = response.getStatus();
+      if (!request.isAsyncStarted() && (status >= 500 || elapsedNanos >= slowRequestNanos)) {
+        log.warn("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(), status,
+                elapsedNanos / 1_000_000);
+      } else if (sampleRate > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+        log.info("{} {} -> {} in {} ms{}", request.getMethod(), request.getRequestURI(), status,
+                elapsedNanos / 1_000_000, request.isAsyncStarted() ? " (streaming)" : "");
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package ru.safoev;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityNotFoundException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замер времени вызовов публичных методов сервисов из пакета {@code ru.safoev.services}.
+ * <p>
+ * Каждый вызов записывается в таймер {@value #METRIC_NAME} с тегами {@code service},
+ * {@code method}, {@code entity}, {@code outcome} и {@code exception}. Значения {@code outcome}
+ * соответствуют ответам {@link ru.safoev.foundexception.GlobalExceptionHandler}:
+ * {@code SUCCESS}, {@code NOT_FOUND}, {@code CLIENT_ERROR}, {@code REJECTED} и {@code SERVER_ERROR}.
+ * Вызовы методов сервиса изнутри него же (через {@code this}) не замеряются.
+ * </p>
+ *
+ * @Aspect указывает, что класс содержит advice, применяемый к бинам Spring
+ * @Order задает выполнение после {@link RepositoryAccessLimiter}, поэтому ожидание
+ *        разрешения ограничителя не входит во время вызова, но открытие транзакции входит
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ServiceCallMetrics {
+
+  /**
+   * Имя таймера вызовов сервисов.
+   */
+  public static final String METRIC_NAME = "gym.service.calls";
+
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Конструктор аспекта с внедрением реестра метрик.
+   *
+   * @param meterRegistry реестр метрик Micrometer
+   */
+  @Autowired
+  public ServiceCallMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Выполняет вызов метода сервиса и записывает его длительность и исход.
+   *
+   * @param joinPoint вызов метода сервиса
+   * @return результат метода
+   * @throws Throwable исключение метода без изменений
+   */
+  @Around("within(ru.safoev.services..*) && execution(public * *(..))")
+  public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+    long start = System.nanoTime();
+    Throwable failure = null;
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable e) {
+      failure = e;
+      throw e;
+    } finally {
+      String service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+      Timer.builder(METRIC_NAME)
+              .description("Service method calls")
+              .tag("service", service)
+              .tag("method", joinPoint.getSignature().getName())
+              .tag("entity", MetricsConfig.entityOf(service))
+              .tag("outcome", outcome(failure))
+              .tag("exception", failure != null ? failure.getClass().getSimpleName() : "none")
+              .register(meterRegistry)
+              .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static String outcome(Throwable failure) {
+    if (failure == null) {
+      return "SUCCESS";
+    }
+    if (failure instanceof EntityNotFoundException) {
+      return "NOT_FOUND";
+    }
+    if (failure instanceof IllegalArgumentException || failure instanceof IllegalStateException) {
+      return "CLIENT_ERROR";
+    }
+    if (failure instanceof RejectedExecutionException) {
+      return "REJECTED";
+    }
+    return "SERVER_ERROR";
+  }
+}
@@ -0,0 +1,196 @@
+package ru.safoev.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import ru.safoev.dtorecords.BulkRowDto;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Компонент для потокового чтения тела запроса массовой загрузки в формате CSV или NDJSON.
+ * <p>
+ * В отличие от {@link NdjsonRequests} ошибка разбора отдельной записи не прерывает чтение:
+ * она возвращается как {@link BulkRowDto} с заполненным полем {@code error}.
+ * CSV должен начинаться со строки заголовка с именами полей DTO; пустые поля считаются null.
+ * Дата-время принимается как в ISO-формате, так и в формате PostgreSQL с пробелом
+ * вместо {@code T}, поэтому результат выгрузки CSV можно загрузить повторно.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Component
+public class BulkRequests {
+
+  /**
+   * Тип содержимого CSV.
+   */
+  public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+  private final JsonMapper jsonMapper;
+
+  /**
+   * Конструктор компонента с внедрением JSON-маппера приложения.
+   *
+   * @param jsonMapper маппер, используемый для разбора и преобразования записей
+   */
+  @Autowired
+  public BulkRequests(JsonMapper jsonMapper) {
+    this.jsonMapper = jsonMapper;
+  }
+
+  /**
+   * Возвращает итератор записей, читаемых из потока в формате, заданном типом содержимого.
+   *
+   * @param body поток тела запроса
+   * @param contentType тип содержимого запроса ({@code text/csv} или {@code application/x-ndjson})
+   * @param type класс записи (record DTO)
+   * @param <T> тип записи
+   * @return итератор записей с номерами и ошибками разбора
+   * @throws IllegalArgumentException если заголовок CSV содержит неизвестные поля
+   */
+  public <T> Iterator<BulkRowDto<T>> read(InputStream body, String contentType, Class<T> type) {
+    MediaType mediaType = MediaType.parseMediaType(contentType);
+    Charset charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+    BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset));
+    if (TEXT_CSV.isCompatibleWith(mediaType)) {
+      return csvRows(new CsvRecordReader(reader), type);
+    }
+    return ndjsonRows(reader, type);
+  }
+
+  private <T> Iterator<BulkRowDto<T>> ndjsonRows(BufferedReader reader, Class<T> type) {
+    return new RowIterator<>() {
+      @Override
+      BulkRowDto<T> readNext(long rowNumber) throws IOException {
+        String line;
+        do {
+          line = reader.readLine();
+          if (line == null) {
+            return null;
+          }
+        } while (line.isBlank());
+        try {
+          return new BulkRowDto<>(rowNumber, jsonMapper.readValue(line, type), null);
+        } catch (JacksonException e) {
+          return new BulkRowDto<>(rowNumber, null, "Некорректная запись: " + e.getOriginalMessage());
+        }
+      }
+    };
+  }
+
+  private <T> Iterator<BulkRowDto<T>> csvRows(CsvRecordReader reader, Class<T> type) {
+    List<String> header;
+    try {
+      header = reader.next();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (header == null) {
+      throw new IllegalArgumentException("CSV header is missing");
+    }
+    if (!header.isEmpty() && header.getFirst().startsWith("\uFEFF")) {
+      header.set(0, header.getFirst().substring(1));
+    }
+    Set<String> known = Arrays.stream(type.getRecordComponents())
+            .map(RecordComponent::getName)
+            .collect(Collectors.toSet());
+    List<String> unknown = header.stream()
+            .map(String::trim)
+            .filter(column -> !known.contains(column))
+            .toList();
+    if (!unknown.isEmpty()) {
+      throw new IllegalArgumentException("Unknown CSV columns: " + unknown + ", expected any of " + known);
+    }
+    List<String> columns = header.stream().map(String::trim).toList();
+    Set<String> dateTimeColumns = Arrays.stream(type.getRecordComponents())
+            .filter(component -> component.getType() == LocalDateTime.class)
+            .map(RecordComponent::getName)
+            .collect(Collectors.toSet());
+
+    return new RowIterator<>() {
+      @Override
+      BulkRowDto<T> readNext(long rowNumber) throws IOException {
+        List<String> fields;
+        do {
+          fields = reader.next();
+          if (fields == null) {
+            return null;
+          }
+        } while (fields.size() == 1 && fields.getFirst().isBlank());
+        if (fields.size() != columns.size()) {
+          return new BulkRowDto<>(rowNumber, null,
+                  "Ожидалось полей: " + columns.size() + ", получено: " + fields.size());
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+          String value = fields.get(i);
+          if (value.length() > 10 && value.charAt(10) == ' ' && dateTimeColumns.contains(columns.get(i))) {
+            value = value.substring(0, 10) + 'T' + value.substring(11);
+          }
+          values.put(columns.get(i), value.isEmpty() ? null : value);
+        }
+        try {
+          return new BulkRowDto<>(rowNumber, jsonMapper.convertValue(values, type), null);
+        } catch (JacksonException | IllegalArgumentException e) {
+          return new BulkRowDto<>(rowNumber, null, "Некорректная запись: " + e.getMessage());
+        }
+      }
+    };
+  }
+
+  /**
+   * Итератор с чтением на один элемент вперед и сквозной нумерацией записей.
+   */
+  private abstract static class RowIterator<T> implements Iterator<BulkRowDto<T>> {
+    private BulkRowDto<T> next;
+    private long rowNumber;
+
+    abstract BulkRowDto<T> readNext(long rowNumber) throws IOException;
+
+    @Override
+    public boolean hasNext() {
+      if (next == null) {
+        try {
+          next = readNext(rowNumber + 1);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        if (next != null) {
+          rowNumber++;
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public BulkRowDto<T> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      BulkRowDto<T> row = next;
+      next = null;
+      return row;
+    }
+  }
+}
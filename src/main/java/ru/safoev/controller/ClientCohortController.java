@@ -0,0 +1,112 @@
+package ru.safoev.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.safoev.dtorecords.ClientCohortDto;
+import ru.safoev.dtorecords.CohortRefreshDto;
+import ru.safoev.dtorecords.CohortRetentionDto;
+import ru.safoev.services.ClientCohortService;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * REST контроллер когортной аналитики клиентов.
+ * <p>
+ * Когорта - клиенты, зарегистрированные в одном месяце. Отчеты читаются из таблиц когорт
+ * "client_cohorts" и "client_cohort_months", а не из таблиц клиентов, абонементов и посещений.
+ * Таблицы пересчитываются фоновым заданием (свойство {@code gym.analytics.cohorts.refresh-interval}):
+ * пересчитываются только когорты, данные клиентов которых изменились, поэтому изменения
+ * появляются в отчетах с этой задержкой. Месяцы передаются в формате {@code yyyy-MM}.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ * @see ClientCohortDto
+ * @see CohortRetentionDto
+ * @see ClientCohortService
+ */
+@RestController
+@RequestMapping("/gym/analytics/cohorts")
+public class ClientCohortController {
+  private static final Logger log = LoggerFactory.getLogger(ClientCohortController.class);
+
+  private final ClientCohortService clientCohortService;
+
+  /**
+   * Конструктор контроллера с внедрением зависимости сервиса когорт клиентов.
+   *
+   * @param clientCohortService сервис когорт клиентов
+   */
+  @Autowired
+  public ClientCohortController(ClientCohortService clientCohortService) {
+    this.clientCohortService = clientCohortService;
+  }
+
+  /**
+   * Получает итоги когорт с месяцем регистрации в периоде: размер, сумму продаж
+   * на одного клиента и количество прекращений абонементов.
+   * <p>
+   * Период не может превышать 120 месяцев; месяцы без регистраций в ответ не попадают.
+   * </p>
+   *
+   * @param from первый месяц регистрации (необязательный, по умолчанию за 11 месяцев до {@code to})
+   * @param to последний месяц регистрации (необязательный, по умолчанию текущий)
+   * @return {@link ResponseEntity} со списком {@link ClientCohortDto} и статусом 200 OK
+   * @throws IllegalArgumentException если {@code from} позже {@code to} или период слишком длинный
+   * @see ClientCohortService#getCohorts(YearMonth, YearMonth)
+   */
+  @GetMapping
+  public ResponseEntity<List<ClientCohortDto>> getCohorts(
+          @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+  ) {
+    log.debug("Called getCohorts with from: {}, to: {}", from, to);
+    return ResponseEntity.ok(clientCohortService.getCohorts(from, to));
+  }
+
+  /**
+   * Получает матрицу удержания когорт с месяцем регистрации в периоде: для каждой когорты
+   * и каждого месяца от регистрации по текущий - доли клиентов с посещениями и с абонементом,
+   * долю прекративших абонемент и сумму продаж на одного клиента нарастающим итогом.
+   *
+   * @param from первый месяц регистрации (необязательный, по умолчанию за 11 месяцев до {@code to})
+   * @param to последний месяц регистрации (необязательный, по умолчанию текущий)
+   * @return {@link ResponseEntity} со списком {@link CohortRetentionDto} и статусом 200 OK
+   * @throws IllegalArgumentException если {@code from} позже {@code to} или период слишком длинный
+   * @see ClientCohortService#getRetention(YearMonth, YearMonth)
+   */
+  @GetMapping("/retention")
+  public ResponseEntity<List<CohortRetentionDto>> getRetention(
+          @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+  ) {
+    log.debug("Called getRetention with from: {}, to: {}", from, to);
+    return ResponseEntity.ok(clientCohortService.getRetention(from, to));
+  }
+
+  /**
+   * Пересчитывает когорты, не дожидаясь фонового задания.
+   *
+   * @param full true - перестроить все когорты, false (по умолчанию) - только измененные
+   * @return {@link ResponseEntity} с результатом {@link CohortRefreshDto} и статусом 200 OK
+   * @see ClientCohortService#refresh()
+   * @see ClientCohortService#rebuild()
+   */
+  @PostMapping("/refresh")
+  public ResponseEntity<CohortRefreshDto> refreshCohorts(
+          @RequestParam(value = "full", defaultValue = "false") boolean full
+  ) {
+    log.debug("Called refreshCohorts with full: {}", full);
+    return ResponseEntity.ok(full ? clientCohortService.rebuild() : clientCohortService.refresh());
+  }
+}
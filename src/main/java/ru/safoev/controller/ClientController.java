@@ -7,10 +7,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.safoev.dtorecords.BulkImportReportDto;
 import ru.safoev.dtorecords.ClientDto;
+import ru.safoev.dtorecords.CursorPageDto;
+import ru.safoev.dtorecords.PageDto;
+import ru.safoev.dtorecords.ImportResultDto;
 import ru.safoev.filters.ClientSearchFilter;
 import ru.safoev.services.ClientService;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -34,15 +40,25 @@ public class ClientController {
   private static final Logger log = LoggerFactory.getLogger(ClientController.class);
 
   private final ClientService clientService;
+  private final NdjsonResponses ndjsonResponses;
+  private final BulkRequests bulkRequests;
+  private final NdjsonRequests ndjsonRequests;
 
   /**
    * Конструктор контроллера с внедрением зависимости сервиса клиентов.
    *
    * @param clientService сервис для работы с клиентами
+   * @param ndjsonResponses компонент потоковой отдачи NDJSON
+   * @param bulkRequests компонент чтения запросов массовой загрузки
+   * @param ndjsonRequests компонент потокового чтения NDJSON
    */
   @Autowired
-  public ClientController(ClientService clientService) {
+  public ClientController(ClientService clientService, NdjsonResponses ndjsonResponses,
+                          NdjsonRequests ndjsonRequests, BulkRequests bulkRequests) {
     this.clientService = clientService;
+    this.ndjsonResponses = ndjsonResponses;
+    this.bulkRequests = bulkRequests;
+    this.ndjsonRequests = ndjsonRequests;
   }
 
   /**
@@ -55,7 +71,7 @@ public class ClientController {
    */
   @GetMapping("/get/{id}")
   public ResponseEntity<ClientDto> getClientById(@PathVariable("id") Long id) {
-    log.info("Called getClientById with id: {}", id);
+    log.debug("Called getClientById with id: {}", id);
     return ResponseEntity.ok(clientService.getClientById(id));
   }
 
@@ -67,30 +83,73 @@ public class ClientController {
    */
   @GetMapping("/get/all")
   public ResponseEntity<List<ClientDto>> getAllClients() {
-    log.info("Called getAllClients");
+    log.debug("Called getAllClients");
     return ResponseEntity.ok(clientService.getAllClients());
   }
 
+  /**
+   * Получает страницу клиентов с курсорной пагинацией по идентификатору.
+   *
+   * @param cursor курсор из поля {@code nextCursor} предыдущей страницы (необязательный)
+   * @param size размер страницы от 1 до 1000 (необязательный, по умолчанию 100)
+   * @return {@link ResponseEntity} со страницей {@link CursorPageDto} и статусом 200 OK
+   * @see ClientService#getClientsPage(Long, Integer)
+   */
+  @GetMapping("/get/page")
+  public ResponseEntity<CursorPageDto<ClientDto>> getClientsPage(
+          @RequestParam(name = "cursor", required = false) Long cursor,
+          @RequestParam(name = "size", required = false) Integer size
+  ) {
+    log.debug("Called getClientsPage with cursor: {}, size: {}", cursor, size);
+    return ResponseEntity.ok(clientService.getClientsPage(cursor, size));
+  }
+
+  /**
+   * Выгружает полный список клиентов потоком в формате NDJSON (один JSON-объект на строку).
+   *
+   * @return {@link ResponseEntity} с потоковым телом ответа и статусом 200 OK
+   * @see ClientService#streamAllClients(java.util.function.Consumer)
+   */
+  @GetMapping(value = "/get/stream", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> streamAllClients() {
+    log.debug("Called streamAllClients");
+    return ndjsonResponses.stream(clientService::streamAllClients);
+  }
+
   /**
    * Выполняет поиск клиентов с использованием фильтров и пагинации.
+   * <p>
+   * В запрос попадают только заданные параметры. Текстовые параметры ищутся
+   * без учета регистра по фрагменту значения (короткие фрагменты - по началу значения).
+   * Результаты упорядочены по идентификатору клиента.
+   * </p>
    *
    * @param client_id идентификатор клиента для фильтрации (может быть null)
-   * @param client_email email клиента для фильтрации (может быть null)
-   * @param pageSize размер страницы для пагинации (положительное число)
-   * @param pageNumber номер страницы для пагинации (начинается с 0)
-   * @return {@link ResponseEntity} с отфильтрованным списком {@link ClientDto} и статусом 200 OK
+   * @param client_email фрагмент email клиента для фильтрации (может быть null)
+   * @param client_phone фрагмент телефона клиента для фильтрации (может быть null)
+   * @param client_name фрагмент имени или фамилии клиента (может быть null)
+   * @param query фрагмент имени, фамилии, email или телефона (может быть null)
+   * @param pageSize размер страницы для пагинации (от 1 до 1000, по умолчанию 10)
+   * @param pageNumber номер страницы для пагинации (начинается с 0, по умолчанию 0)
+   * @return {@link ResponseEntity} со страницей {@link PageDto} найденных {@link ClientDto}
+   *         (с общим числом найденных клиентов) и статусом 200 OK
+   * @throws IllegalArgumentException если размер или номер страницы вне допустимого диапазона
    * @see ClientSearchFilter
    * @see ClientService#searchAllClientsByFilter(ClientSearchFilter)
    */
   @GetMapping("/search/filter")
-  public ResponseEntity<List<ClientDto>> searchAllClientsByFilter(
-          @RequestParam("client_id") Long client_id,
-          @RequestParam("client_email") String client_email,
-          @RequestParam("pageSize") Integer pageSize,
-          @RequestParam("pageNumber") Integer pageNumber
+  public ResponseEntity<PageDto<ClientDto>> searchAllClientsByFilter(
+          @RequestParam(value = "client_id", required = false) Long client_id,
+          @RequestParam(value = "client_email", required = false) String client_email,
+          @RequestParam(value = "client_phone", required = false) String client_phone,
+          @RequestParam(value = "client_name", required = false) String client_name,
+          @RequestParam(value = "query", required = false) String query,
+          @RequestParam(value = "pageSize", required = false) Integer pageSize,
+          @RequestParam(value = "pageNumber", required = false) Integer pageNumber
   ) {
-    log.info("Called getAllClientsByFilter");
-    var filter = new ClientSearchFilter(client_id,client_email,pageSize,pageNumber);
+    log.debug("Called getAllClientsByFilter");
+    var filter = new ClientSearchFilter(client_id, client_email, client_phone, client_name, query,
+            pageSize, pageNumber);
     return ResponseEntity.ok(clientService.searchAllClientsByFilter(filter));
   }
 
@@ -104,10 +163,58 @@ public class ClientController {
    */
   @PostMapping("/create")
   public ResponseEntity<ClientDto> createClient(@RequestBody @Valid ClientDto clientDto) {
-    log.info("Called createClient");
+    log.debug("Called createClient");
     return ResponseEntity.status(HttpStatus.CREATED).body(clientService.createClient(clientDto));
   }
 
+  /**
+   * Массовый импорт клиентов (например, при переносе истории клуба из другой системы).
+   * <p>
+   * Тело запроса читается потоком в формате NDJSON (один {@link ClientDto} на строку)
+   * или как JSON-массив. Каждая запись проверяется аннотациями валидации DTO, как при создании
+   * одной записи. Записи сохраняются в одной транзакции пакетными вставками JDBC;
+   * при ошибке в любой записи импорт откатывается целиком, номер записи указывается в сообщении.
+   * Идентификаторы из входных данных игнорируются: новые идентификаторы выдаются
+   * последовательностью. Дата регистрации сохраняется, если она передана.
+   * </p>
+   *
+   * @param body поток тела запроса с записями {@link ClientDto}
+   * @return {@link ResponseEntity} с объектом {@link ImportResultDto} и статусом 201 CREATED
+   * @throws IllegalArgumentException если запись не удалось разобрать, она не проходит валидацию или не сохранилась
+   * @see ClientService#importClients(java.util.Iterator)
+   */
+  @PostMapping(value = "/import", consumes = {"application/x-ndjson", "application/json"})
+  public ResponseEntity<ImportResultDto> importClients(InputStream body) {
+    log.debug("Called importClients");
+    return ResponseEntity.status(HttpStatus.CREATED)
+            .body(clientService.importClients(ndjsonRequests.read(body, ClientDto.class)));
+  }
+
+  /**
+   * Массовая загрузка клиентов (например, при подключении новой франшизы) с отчетом об ошибках по отдельным записям.
+   * <p>
+   * Тело запроса читается потоком в формате CSV (со строкой заголовка из имен полей
+   * {@link ClientDto}) или NDJSON. Каждая запись проверяется аннотациями валидации DTO;
+   * корректные записи загружаются в PostgreSQL командой COPY через промежуточную таблицу.
+   * Клиенты с уже существующим или повторяющимся телефоном отклоняются.
+   * Некорректные записи пропускаются и перечисляются в отчете, не прерывая загрузку.
+   * </p>
+   *
+   * @param body поток тела запроса
+   * @param contentType тип содержимого ({@code text/csv} или {@code application/x-ndjson})
+   * @return {@link ResponseEntity} с отчетом {@link BulkImportReportDto} и статусом 200 OK
+   * @throws IllegalArgumentException если заголовок CSV содержит неизвестные поля
+   * @see ClientService#bulkImportClients(java.util.Iterator)
+   */
+  @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+  public ResponseEntity<BulkImportReportDto> bulkImportClients(
+          InputStream body,
+          @RequestHeader("Content-Type") String contentType
+  ) {
+    log.debug("Called bulkImportClients with content type: {}", contentType);
+    return ResponseEntity.ok(clientService.bulkImportClients(bulkRequests.read(body, contentType, ClientDto.class)));
+  }
+
   /**
    * Обновляет данные существующего клиента.
    *
@@ -120,7 +227,7 @@ public class ClientController {
    */
   @PutMapping("/update/{id}")
   public ResponseEntity<ClientDto> updateClient(@PathVariable("id") Long id, @Valid @RequestBody ClientDto clientDto) {
-    log.info("Called updateClient with id: {}", id);
+    log.debug("Called updateClient with id: {}", id);
     return ResponseEntity.ok(clientService.updateClient(id, clientDto));
   }
 
@@ -134,7 +241,7 @@ public class ClientController {
    */
   @DeleteMapping("/delete/{id}")
   public ResponseEntity<ClientDto> deleteClient(@PathVariable("id") Long id) {
-    log.info("Called deleteClient with id: {}", id);
+    log.debug("Called deleteClient with id: {}", id);
     clientService.deleteClient(id);
     return ResponseEntity.noContent().build();
   }
@@ -0,0 +1,78 @@
+package ru.safoev.controller;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый разбор CSV по RFC 4180: поля разделяются запятой, поля в двойных
+ * кавычках могут содержать запятые, переводы строк и удвоенные кавычки.
+ * Поддерживаются окончания строк LF и CRLF.
+ */
+final class CsvRecordReader {
+
+  private final Reader reader;
+  private int pushedBack = -2;
+
+  CsvRecordReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Читает следующую запись.
+   *
+   * @return список полей или {@code null}, если поток закончился
+   * @throws IllegalArgumentException если поле в кавычках не закрыто до конца потока
+   */
+  List<String> next() throws IOException {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean inQuotes = false;
+    boolean read = false;
+    int c;
+    while ((c = read()) != -1) {
+      read = true;
+      if (inQuotes) {
+        if (c == '"') {
+          int following = read();
+          if (following == '"') {
+            field.append('"');
+          } else {
+            inQuotes = false;
+            pushedBack = following;
+          }
+        } else {
+          field.append((char) c);
+        }
+      } else if (c == '"') {
+        inQuotes = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\n') {
+        fields.add(field.toString());
+        return fields;
+      } else if (c != '\r') {
+        field.append((char) c);
+      }
+    }
+    if (inQuotes) {
+      throw new IllegalArgumentException("Unterminated quoted CSV field at end of input");
+    }
+    if (!read) {
+      return null;
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  private int read() throws IOException {
+    if (pushedBack != -2) {
+      int c = pushedBack;
+      pushedBack = -2;
+      return c;
+    }
+    return reader.read();
+  }
+}
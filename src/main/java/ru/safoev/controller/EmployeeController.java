@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.safoev.dtorecords.CursorPageDto;
 import ru.safoev.dtorecords.EmployeeDto;
 import ru.safoev.services.EmployeeService;
 
@@ -31,15 +33,18 @@ public class EmployeeController {
   private static final Logger log = LoggerFactory.getLogger(EmployeeController.class);
 
   private final EmployeeService employeeService;
+  private final NdjsonResponses ndjsonResponses;
 
   /**
    * Конструктор контроллера с внедрением зависимости сервиса сотрудников.
    *
    * @param employeeService сервис для работы с сотрудниками
+   * @param ndjsonResponses компонент потоковой отдачи NDJSON
    */
   @Autowired
-  public EmployeeController(EmployeeService employeeService) {
+  public EmployeeController(EmployeeService employeeService, NdjsonResponses ndjsonResponses) {
     this.employeeService = employeeService;
+    this.ndjsonResponses = ndjsonResponses;
   }
 
   /**
@@ -52,7 +57,7 @@ public class EmployeeController {
    */
   @GetMapping("/get/{id}")
   public ResponseEntity<EmployeeDto> getEmployeeById(@PathVariable("id") Long id) {
-    log.info("Called getEmployeeById with id: {}", id);
+    log.debug("Called getEmployeeById with id: {}", id);
     return ResponseEntity.ok(employeeService.getEmployeeById(id));
   }
 
@@ -64,10 +69,39 @@ public class EmployeeController {
    */
   @GetMapping("/get/all")
   public ResponseEntity<List<EmployeeDto>> getAllEmployees() {
-    log.info("Called getAllEmployees");
+    log.debug("Called getAllEmployees");
     return ResponseEntity.ok(employeeService.getAllEmployees());
   }
 
+  /**
+   * Получает страницу сотрудников с курсорной пагинацией по идентификатору.
+   *
+   * @param cursor курсор из поля {@code nextCursor} предыдущей страницы (необязательный)
+   * @param size размер страницы от 1 до 1000 (необязательный, по умолчанию 100)
+   * @return {@link ResponseEntity} со страницей {@link CursorPageDto} и статусом 200 OK
+   * @see EmployeeService#getEmployeesPage(Long, Integer)
+   */
+  @GetMapping("/get/page")
+  public ResponseEntity<CursorPageDto<EmployeeDto>> getEmployeesPage(
+          @RequestParam(name = "cursor", required = false) Long cursor,
+          @RequestParam(name = "size", required = false) Integer size
+  ) {
+    log.debug("Called getEmployeesPage with cursor: {}, size: {}", cursor, size);
+    return ResponseEntity.ok(employeeService.getEmployeesPage(cursor, size));
+  }
+
+  /**
+   * Выгружает полный список сотрудников потоком в формате NDJSON (один JSON-объект на строку).
+   *
+   * @return {@link ResponseEntity} с потоковым телом ответа и статусом 200 OK
+   * @see EmployeeService#streamAllEmployees(java.util.function.Consumer)
+   */
+  @GetMapping(value = "/get/stream", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> streamAllEmployees() {
+    log.debug("Called streamAllEmployees");
+    return ndjsonResponses.stream(employeeService::streamAllEmployees);
+  }
+
   /**
    * Создает нового сотрудника.
    *
@@ -78,7 +112,7 @@ public class EmployeeController {
    */
   @PostMapping("/create")
   public ResponseEntity<EmployeeDto> createEmployee(@Valid @RequestBody EmployeeDto employeeDto) {
-    log.info("Called create Employee");
+    log.debug("Called create Employee");
     return ResponseEntity.status(HttpStatus.CREATED).body(employeeService.createEmployees(employeeDto));
   }
 
@@ -93,7 +127,7 @@ public class EmployeeController {
    */
   @PutMapping("/update/{id}")
   public ResponseEntity<EmployeeDto> updateEmployee(@PathVariable("id") Long id, EmployeeDto employeeDto) {
-    log.info("Called updateEmployee with id: {}", id);
+    log.debug("Called updateEmployee with id: {}", id);
     return ResponseEntity.ok(employeeService.updateEmployee(id, employeeDto));
   }
 
@@ -107,7 +141,7 @@ public class EmployeeController {
    */
   @DeleteMapping("/delete/{id}")
   public void deleteEmployee(@PathVariable("id") Long id) {
-    log.info("Called deleteEmployee with id: {}", id);
+    log.debug("Called deleteEmployee with id: {}", id);
     employeeService.deleteEmployee(id);
   }
 }
\ No newline at end of file
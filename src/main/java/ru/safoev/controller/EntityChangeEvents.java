@@ -0,0 +1,146 @@
+package ru.safoev.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.safoev.dtorecords.EntityChangeDto;
+import ru.safoev.enumlists.ChangeAction;
+import ru.safoev.services.EntityChangeBus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Компонент рассылки изменений сущностей в панель управления по Server-Sent Events.
+ * <p>
+ * Получает изменения из {@link EntityChangeBus} после фиксации транзакций и накапливает
+ * их в очереди. С периодом {@code gym.events.push-interval} накопленные изменения
+ * отправляются всем подписчикам одним событием {@code changes} с массивом
+ * {@link EntityChangeDto}. Если для сущности в пакете есть {@link ChangeAction#RELOAD},
+ * остальные ее изменения в пакет не попадают. При переполнении очереди
+ * (свойство {@code gym.events.max-pending}) отдельные изменения отбрасываются
+ * и заменяются событием {@link ChangeAction#RELOAD} для их сущностей.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Component
+public class EntityChangeEvents {
+  private static final Logger log = LoggerFactory.getLogger(EntityChangeEvents.class);
+
+  private static final String EVENT_NAME = "changes";
+
+  private final int maxPending;
+  private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+  private final Queue<EntityChangeDto> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final Set<String> overflowed = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Конструктор компонента с подпиской на шину изменений.
+   *
+   * @param entityChangeBus шина изменений сущностей
+   * @param maxPending максимальное количество изменений, ожидающих отправки
+   */
+  @Autowired
+  public EntityChangeEvents(EntityChangeBus entityChangeBus,
+                            @Value("${gym.events.max-pending:10000}") int maxPending) {
+    this.maxPending = maxPending;
+    entityChangeBus.addListener(this::enqueue);
+  }
+
+  /**
+   * Подписывает клиента на изменения сущностей.
+   *
+   * @return поток событий; время жизни ограничено {@code spring.mvc.async.request-timeout}
+   */
+  public SseEmitter subscribe() {
+    SseEmitter emitter = new SseEmitter();
+    emitters.add(emitter);
+    emitter.onCompletion(() -> emitters.remove(emitter));
+    emitter.onTimeout(() -> emitters.remove(emitter));
+    emitter.onError(e -> emitters.remove(emitter));
+    try {
+      // Комментарий сразу отправляет заголовки, и клиент узнает о подключении
+      emitter.send(SseEmitter.event().comment("connected"));
+    } catch (IOException e) {
+      emitters.remove(emitter);
+      emitter.completeWithError(e);
+    }
+    return emitter;
+  }
+
+  /**
+   * Отправляет подписчикам изменения, накопленные с прошлой рассылки.
+   */
+  @Scheduled(fixedRateString = "${gym.events.push-interval:500ms}")
+  public void pushChanges() {
+    List<EntityChangeDto> batch = drain();
+    if (batch.isEmpty() || emitters.isEmpty()) {
+      return;
+    }
+    for (SseEmitter emitter : emitters) {
+      try {
+        emitter.send(SseEmitter.event().name(EVENT_NAME).data(batch, MediaType.APPLICATION_JSON));
+      } catch (IOException | IllegalStateException e) {
+        log.debug("Dropping entity change subscriber: {}", e.getMessage());
+        emitters.remove(emitter);
+        emitter.completeWithError(e);
+      }
+    }
+  }
+
+  private void enqueue(EntityChangeDto change) {
+    if (emitters.isEmpty()) {
+      return;
+    }
+    if (change.action() != ChangeAction.RELOAD && pendingCount.incrementAndGet() > maxPending) {
+      pendingCount.decrementAndGet();
+      overflowed.add(change.entity());
+      return;
+    }
+    pending.add(change);
+  }
+
+  private List<EntityChangeDto> drain() {
+    List<EntityChangeDto> polled = new ArrayList<>();
+    Set<String> reload = new LinkedHashSet<>();
+    for (EntityChangeDto change; (change = pending.poll()) != null; ) {
+      if (change.action() == ChangeAction.RELOAD) {
+        reload.add(change.entity());
+      } else {
+        pendingCount.decrementAndGet();
+        polled.add(change);
+      }
+    }
+    for (String entity : overflowed) {
+      overflowed.remove(entity);
+      reload.add(entity);
+    }
+
+    List<EntityChangeDto> batch = new ArrayList<>(polled.size() + reload.size());
+    for (EntityChangeDto change : polled) {
+      if (!reload.contains(change.entity())) {
+        batch.add(change);
+      }
+    }
+    for (String entity : reload) {
+      batch.add(new EntityChangeDto(entity, ChangeAction.RELOAD, null, null));
+    }
+    return batch;
+  }
+}
@@ -0,0 +1,60 @@
+package ru.safoev.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.safoev.dtorecords.EntityChangeDto;
+
+/**
+ * REST контроллер потока изменений сущностей для панели управления.
+ * <p>
+ * Позволяет клиенту поддерживать таблицы в актуальном состоянии по событиям
+ * создания, изменения и удаления записей вместо периодической загрузки полных списков.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ * @see EntityChangeDto
+ * @see EntityChangeEvents
+ */
+@RestController
+@RequestMapping("/gym")
+public class EntityEventsController {
+  private static final Logger log = LoggerFactory.getLogger(EntityEventsController.class);
+
+  private final EntityChangeEvents entityChangeEvents;
+
+  /**
+   * Конструктор контроллера с внедрением компонента рассылки изменений.
+   *
+   * @param entityChangeEvents компонент рассылки изменений по SSE
+   */
+  @Autowired
+  public EntityEventsController(EntityChangeEvents entityChangeEvents) {
+    this.entityChangeEvents = entityChangeEvents;
+  }
+
+  /**
+   * Подписывается на изменения клиентов, абонементов, сотрудников, посещений,
+   * оборудования, залов и тарифов (Server-Sent Events).
+   * <p>
+   * Изменения приходят пакетами в событии {@code changes} с массивом {@link EntityChangeDto}.
+   * После переподключения клиент должен заново загрузить списки: изменения,
+   * произошедшие без подключения, не повторяются.
+   * </p>
+   *
+   * @return поток событий {@link SseEmitter}
+   * @see EntityChangeEvents#subscribe()
+   */
+  @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamChanges() {
+    log.debug("Called streamChanges");
+    return entityChangeEvents.subscribe();
+  }
+}
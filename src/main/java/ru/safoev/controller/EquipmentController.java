@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.safoev.dtorecords.CursorPageDto;
 import ru.safoev.dtorecords.EquipmentDto;
 import ru.safoev.services.EquipmentService;
 
@@ -31,15 +33,18 @@ public class EquipmentController {
   private static final Logger log = LoggerFactory.getLogger(EquipmentController.class);
 
   private final EquipmentService equipmentService;
+  private final NdjsonResponses ndjsonResponses;
 
   /**
    * Конструктор контроллера с внедрением зависимости сервиса оборудования.
    *
    * @param equipmentService сервис для работы с оборудованием
+   * @param ndjsonResponses компонент потоковой отдачи NDJSON
    */
   @Autowired
-  public EquipmentController(EquipmentService equipmentService) {
+  public EquipmentController(EquipmentService equipmentService, NdjsonResponses ndjsonResponses) {
     this.equipmentService = equipmentService;
+    this.ndjsonResponses = ndjsonResponses;
   }
 
   /**
@@ -52,7 +57,7 @@ public class EquipmentController {
    */
   @GetMapping("/get/{id}")
   public ResponseEntity<EquipmentDto> getEquipmentById(@PathVariable("id") Long id) {
-    log.info("Called getEquipmentById with id: {}", id);
+    log.debug("Called getEquipmentById with id: {}", id);
     return ResponseEntity.ok(equipmentService.getEquipmentById(id));
   }
 
@@ -64,10 +69,39 @@ public class EquipmentController {
    */
   @GetMapping("/get/all")
   public ResponseEntity<List<EquipmentDto>> getAllEquipment() {
-    log.info("Called getAllEquipment");
+    log.debug("Called getAllEquipment");
     return ResponseEntity.ok(equipmentService.getAllEquipment());
   }
 
+  /**
+   * Получает страницу оборудования с курсорной пагинацией по идентификатору.
+   *
+   * @param cursor курсор из поля {@code nextCursor} предыдущей страницы (необязательный)
+   * @param size размер страницы от 1 до 1000 (необязательный, по умолчанию 100)
+   * @return {@link ResponseEntity} со страницей {@link CursorPageDto} и статусом 200 OK
+   * @see EquipmentService#getEquipmentPage(Long, Integer)
+   */
+  @GetMapping("/get/page")
+  public ResponseEntity<CursorPageDto<EquipmentDto>> getEquipmentPage(
+          @RequestParam(name = "cursor", required = false) Long cursor,
+          @RequestParam(name = "size", required = false) Integer size
+  ) {
+    log.debug("Called getEquipmentPage with cursor: {}, size: {}", cursor, size);
+    return ResponseEntity.ok(equipmentService.getEquipmentPage(cursor, size));
+  }
+
+  /**
+   * Выгружает полный список оборудования потоком в формате NDJSON (один JSON-объект на строку).
+   *
+   * @return {@link ResponseEntity} с потоковым телом ответа и статусом 200 OK
+   * @see EquipmentService#streamAllEquipment(java.util.function.Consumer)
+   */
+  @GetMapping(value = "/get/stream", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> streamAllEquipment() {
+    log.debug("Called streamAllEquipment");
+    return ndjsonResponses.stream(equipmentService::streamAllEquipment);
+  }
+
   /**
    * Создает новое оборудование.
    *
@@ -79,7 +113,7 @@ public class EquipmentController {
    */
   @PostMapping("/create")
   public ResponseEntity<EquipmentDto> createEquipment(@Valid @RequestBody EquipmentDto equipmentDto) {
-    log.info("Called createEquipment");
+    log.debug("Called createEquipment");
     return ResponseEntity.status(HttpStatus.CREATED).body(equipmentService.createEquipment(equipmentDto));
   }
 
@@ -95,7 +129,7 @@ public class EquipmentController {
    */
   @PutMapping("/update/{id}")
   public ResponseEntity<EquipmentDto> updateEquipment(@PathVariable("id") Long id, EquipmentDto equipmentDto) {
-    log.info("Called updateEquipment with id: {}", id);
+    log.debug("Called updateEquipment with id: {}", id);
     return ResponseEntity.ok(equipmentService.updateEquipment(id, equipmentDto));
   }
 
@@ -109,7 +143,7 @@ public class EquipmentController {
    */
   @DeleteMapping("/delete/{id}")
   public void deleteEquipment(@PathVariable("id") Long id) {
-    log.info("Called deleteEquipment with id: {}", id);
+    log.debug("Called deleteEquipment with id: {}", id);
     equipmentService.deleteEquipment(id);
   }
 }
\ No newline at end of file
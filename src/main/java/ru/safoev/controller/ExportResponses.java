@@ -0,0 +1,108 @@
+package ru.safoev.controller;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.safoev.enumlists.ExportFormat;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Вспомогательный компонент для формирования потоковых ответов выгрузки данных.
+ * <p>
+ * Данные записываются непосредственно в поток ответа по мере чтения из базы данных.
+ * Если клиент передал {@code Accept-Encoding: gzip}, поток сжимается на лету.
+ * Ответ отдается как вложение с именем файла, включающим диапазон дат.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Component
+public class ExportResponses {
+
+  private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+
+  /**
+   * Разбирает название формата выгрузки без учета регистра.
+   *
+   * @param format название формата ({@code csv} или {@code ndjson})
+   * @return формат выгрузки
+   * @throws IllegalArgumentException если формат не поддерживается
+   */
+  public ExportFormat parseFormat(String format) {
+    try {
+      return ExportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported export format: " + format + ", expected csv or ndjson");
+    }
+  }
+
+  /**
+   * Формирует потоковый ответ выгрузки.
+   *
+   * @param name базовое имя файла (например, {@code visits})
+   * @param format формат выгрузки
+   * @param from начало диапазона дат или null
+   * @param to конец диапазона дат или null
+   * @param acceptEncoding значение заголовка {@code Accept-Encoding} запроса или null
+   * @param writer запись данных в переданный поток
+   * @return {@link ResponseEntity} с телом {@link StreamingResponseBody} и статусом 200 OK
+   */
+  public ResponseEntity<StreamingResponseBody> export(String name, ExportFormat format, LocalDate from, LocalDate to,
+                                                      String acceptEncoding, Consumer<OutputStream> writer) {
+    boolean gzip = acceptsGzip(acceptEncoding);
+    String fileName = name + "-" + (from != null ? from : "start") + "_" + (to != null ? to : "end")
+            + (format == ExportFormat.CSV ? ".csv" : ".ndjson");
+
+    StreamingResponseBody body = out -> {
+      if (gzip) {
+        GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_BYTES);
+        writer.accept(compressed);
+        compressed.finish();
+      } else {
+        writer.accept(out);
+      }
+    };
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(format == ExportFormat.CSV
+                    ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                    : NdjsonResponses.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(fileName).build().toString())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.body(body);
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String token : acceptEncoding.split(",")) {
+      String[] parts = token.trim().split(";");
+      if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+        continue;
+      }
+      for (int i = 1; i < parts.length; i++) {
+        String param = parts[i].trim().replace(" ", "");
+        if (param.equals("q=0") || param.matches("q=0\\.0*")) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+}
@@ -5,10 +5,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.safoev.dtorecords.CursorPageDto;
 import ru.safoev.dtorecords.GymDto;
+import ru.safoev.dtorecords.OccupancyDto;
 import ru.safoev.services.GymService;
+import ru.safoev.services.OccupancyService;
 
 import java.util.List;
 
@@ -17,6 +23,7 @@ import java.util.List;
  * <p>
  * Предоставляет CRUD операции для работы с залами через REST API.
  * Все методы работают с сущностью {@link GymDto} для передачи данных.
+ * Также отдает текущую заполненность залов из счетчиков в памяти.
  * </p>
  *
  * @author SafoevDalerIT-13
@@ -24,6 +31,7 @@ import java.util.List;
  * @since 2025
  * @see GymDto
  * @see GymService
+ * @see OccupancyService
  */
 @RestController
 @RequestMapping("/gym")
@@ -31,15 +39,25 @@ public class GymController_Home {
   private static final Logger log = LoggerFactory.getLogger(GymController_Home.class);
 
   private final GymService gymService;
+  private final NdjsonResponses ndjsonResponses;
+  private final OccupancyService occupancyService;
+  private final OccupancyEvents occupancyEvents;
 
   /**
    * Конструктор контроллера с внедрением зависимости сервиса залов.
    *
    * @param gymService сервис для работы с залами
+   * @param ndjsonResponses компонент потоковой отдачи NDJSON
+   * @param occupancyService сервис счетчиков заполненности залов
+   * @param occupancyEvents компонент рассылки заполненности по SSE
    */
   @Autowired
-  public GymController_Home(GymService gymService) {
+  public GymController_Home(GymService gymService, NdjsonResponses ndjsonResponses,
+                            OccupancyService occupancyService, OccupancyEvents occupancyEvents) {
     this.gymService = gymService;
+    this.ndjsonResponses = ndjsonResponses;
+    this.occupancyService = occupancyService;
+    this.occupancyEvents = occupancyEvents;
   }
 
   /**
@@ -52,7 +70,7 @@ public class GymController_Home {
    */
   @GetMapping("/get/{id}")
   public ResponseEntity<GymDto> getGymById(@PathVariable("id") Long id) {
-    log.info("Called getGymById with id: {}", id);
+    log.debug("Called getGymById with id: {}", id);
     return ResponseEntity.ok(gymService.getGymById(id));
   }
 
@@ -64,10 +82,39 @@ public class GymController_Home {
    */
   @GetMapping("/get/all")
   public ResponseEntity<List<GymDto>> getAllGyms() {
-    log.info("Called getAllGyms");
+    log.debug("Called getAllGyms");
     return ResponseEntity.ok(gymService.getAllGym());
   }
 
+  /**
+   * Получает страницу залов с курсорной пагинацией по идентификатору.
+   *
+   * @param cursor курсор из поля {@code nextCursor} предыдущей страницы (необязательный)
+   * @param size размер страницы от 1 до 1000 (необязательный, по умолчанию 100)
+   * @return {@link ResponseEntity} со страницей {@link CursorPageDto} и статусом 200 OK
+   * @see GymService#getGymsPage(Long, Integer)
+   */
+  @GetMapping("/get/page")
+  public ResponseEntity<CursorPageDto<GymDto>> getGymsPage(
+          @RequestParam(name = "cursor", required = false) Long cursor,
+          @RequestParam(name = "size", required = false) Integer size
+  ) {
+    log.debug("Called getGymsPage with cursor: {}, size: {}", cursor, size);
+    return ResponseEntity.ok(gymService.getGymsPage(cursor, size));
+  }
+
+  /**
+   * Выгружает полный список залов потоком в формате NDJSON (один JSON-объект на строку).
+   *
+   * @return {@link ResponseEntity} с потоковым телом ответа и статусом 200 OK
+   * @see GymService#streamAllGyms(java.util.function.Consumer)
+   */
+  @GetMapping(value = "/get/stream", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> streamAllGyms() {
+    log.debug("Called streamAllGyms");
+    return ndjsonResponses.stream(gymService::streamAllGyms);
+  }
+
   /**
    * Создает новый зал.
    *
@@ -79,7 +126,7 @@ public class GymController_Home {
    */
   @PostMapping("/create")
   public ResponseEntity<GymDto> createGym(@Valid @RequestBody GymDto gymDto) {
-    log.info("Called createGym");
+    log.debug("Called createGym");
     return ResponseEntity.status(HttpStatus.CREATED).body(gymService.createGym(gymDto));
   }
 
@@ -96,7 +143,7 @@ public class GymController_Home {
    */
   @PutMapping("/update/{id}")
   public ResponseEntity<GymDto> updateGym(@PathVariable("id") Long id, @Valid GymDto gymDto) {
-    log.info("Called updateGym with id: {}", id);
+    log.debug("Called updateGym with id: {}", id);
     return ResponseEntity.ok(gymService.updateGym(id, gymDto));
   }
 
@@ -111,8 +158,57 @@ public class GymController_Home {
    */
   @DeleteMapping("/delete/{id}")
   public ResponseEntity<Void> deleteGym(@PathVariable("id") Long id) {
-    log.info("Called deleteGym with id: {}", id);
+    log.debug("Called deleteGym with id: {}", id);
     gymService.deleteGym(id);
     return ResponseEntity.noContent().build();
   }
+
+  /**
+   * Получает текущее количество посетителей в зале.
+   * <p>
+   * Значение берется из счетчика в памяти, который обновляется при каждом входе
+   * и выходе клиента, и не требует запроса к базе данных. Эндпоинт рассчитан
+   * на частый опрос табло, поэтому вызовы логируются на уровне DEBUG.
+   * </p>
+   *
+   * @param id идентификатор зала (обязательный)
+   * @return {@link ResponseEntity} с объектом {@link OccupancyDto} и статусом 200 OK
+   * @throws IllegalArgumentException если зал с указанным ID не найден
+   * @see OccupancyService#getOccupancy(Long)
+   */
+  @GetMapping("/{id}/occupancy")
+  public ResponseEntity<OccupancyDto> getOccupancy(@PathVariable("id") Long id) {
+    log.debug("Called getOccupancy with id: {}", id);
+    return ResponseEntity.ok(occupancyService.getOccupancy(id));
+  }
+
+  /**
+   * Получает текущее количество посетителей во всех залах.
+   *
+   * @return {@link ResponseEntity} со списком {@link OccupancyDto} и статусом 200 OK
+   * @see OccupancyService#getAllOccupancy()
+   */
+  @GetMapping("/occupancy")
+  public ResponseEntity<List<OccupancyDto>> getAllOccupancy() {
+    log.debug("Called getAllOccupancy");
+    return ResponseEntity.ok(occupancyService.getAllOccupancy());
+  }
+
+  /**
+   * Подписывается на изменения заполненности зала (Server-Sent Events).
+   * <p>
+   * Сразу после подключения отправляется текущее значение, затем событие
+   * {@code occupancy} с объектом {@link OccupancyDto} при каждом изменении.
+   * </p>
+   *
+   * @param id идентификатор зала (обязательный)
+   * @return поток событий {@link SseEmitter}
+   * @throws IllegalArgumentException если зал с указанным ID не найден
+   * @see OccupancyEvents#subscribe(Long)
+   */
+  @GetMapping(value = "/{id}/occupancy/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamOccupancy(@PathVariable("id") Long id) {
+    log.debug("Called streamOccupancy with id: {}", id);
+    return occupancyEvents.subscribe(id);
+  }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package ru.safoev.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import ru.safoev.RepositoryAccessLimiter;
+import ru.safoev.dtorecords.CacheRegionStatsDto;
+import ru.safoev.dtorecords.DbLimiterStatsDto;
+import ru.safoev.dtorecords.GymStatsDto;
+import ru.safoev.services.CacheStatsService;
+import ru.safoev.services.GymStatsService;
+
+/**
+ * REST контроллер сводной статистики фитнес-центра.
+ * <p>
+ * Предоставляет агрегированные показатели для панели управления.
+ * Значения рассчитываются запросами COUNT на стороне базы данных
+ * и кэшируются в памяти на короткое время (свойство {@code gym.stats.cache-ttl}).
+ * Также предоставляет статистику второго уровня кэша Hibernate
+ * и ограничителя доступа к базе данных.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ * @see GymStatsDto
+ * @see GymStatsService
+ * @see CacheStatsService
+ * @see RepositoryAccessLimiter
+ */
+@RestController
+@RequestMapping("/gym")
+public class GymStatsController {
+  private static final Logger log = LoggerFactory.getLogger(GymStatsController.class);
+
+  private final GymStatsService gymStatsService;
+  private final CacheStatsService cacheStatsService;
+  private final RepositoryAccessLimiter repositoryAccessLimiter;
+
+  /**
+   * Конструктор контроллера с внедрением зависимостей сервисов статистики.
+   *
+   * @param gymStatsService сервис для расчета статистики
+   * @param cacheStatsService сервис статистики второго уровня кэша
+   * @param repositoryAccessLimiter ограничитель доступа к базе данных
+   */
+  @Autowired
+  public GymStatsController(GymStatsService gymStatsService, CacheStatsService cacheStatsService,
+                            RepositoryAccessLimiter repositoryAccessLimiter) {
+    this.gymStatsService = gymStatsService;
+    this.cacheStatsService = cacheStatsService;
+    this.repositoryAccessLimiter = repositoryAccessLimiter;
+  }
+
+  /**
+   * Получает сводную статистику фитнес-центра.
+   *
+   * @return {@link ResponseEntity} с объектом {@link GymStatsDto} и статусом 200 OK
+   * @see GymStatsService#getStats()
+   */
+  @GetMapping("/stats")
+  public ResponseEntity<GymStatsDto> getStats() {
+    log.debug("Called getStats");
+    return ResponseEntity.ok(gymStatsService.getStats());
+  }
+
+  /**
+   * Получает статистику попаданий и промахов по регионам второго уровня кэша Hibernate.
+   * <p>
+   * Включает регионы сущностей залов и тарифов, а также регионы кэша запросов.
+   * Счетчики накапливаются с момента запуска приложения.
+   * </p>
+   *
+   * @return {@link ResponseEntity} со списком {@link CacheRegionStatsDto} и статусом 200 OK
+   * @see CacheStatsService#getCacheStats()
+   */
+  @GetMapping("/stats/cache")
+  public ResponseEntity<List<CacheRegionStatsDto>> getCacheStats() {
+    log.debug("Called getCacheStats");
+    return ResponseEntity.ok(cacheStatsService.getCacheStats());
+  }
+
+  /**
+   * Получает показатели ограничителя одновременного доступа к базе данных.
+   * <p>
+   * Рост количества ожидающих потоков и отклоненных вызовов означает,
+   * что пул соединений не справляется с текущей нагрузкой.
+   * </p>
+   *
+   * @return {@link ResponseEntity} с объектом {@link DbLimiterStatsDto} и статусом 200 OK
+   * @see RepositoryAccessLimiter#getStats()
+   */
+  @GetMapping("/stats/db-limiter")
+  public ResponseEntity<DbLimiterStatsDto> getDbLimiterStats() {
+    log.debug("Called getDbLimiterStats");
+    return ResponseEntity.ok(repositoryAccessLimiter.getStats());
+  }
+}
@@ -0,0 +1,80 @@
+package ru.safoev.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Компонент для потокового чтения тела запроса в формате NDJSON.
+ * <p>
+ * Записи разбираются по одной по мере чтения, поэтому тело запроса любого размера
+ * не загружается в память целиком. Помимо NDJSON принимается и обычный JSON-массив.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Component
+public class NdjsonRequests {
+
+  private final JsonMapper jsonMapper;
+
+  /**
+   * Конструктор компонента с внедрением JSON-маппера приложения.
+   *
+   * @param jsonMapper маппер, используемый для разбора записей
+   */
+  @Autowired
+  public NdjsonRequests(JsonMapper jsonMapper) {
+    this.jsonMapper = jsonMapper;
+  }
+
+  /**
+   * Возвращает итератор записей указанного типа, читаемых из потока.
+   * <p>
+   * Ошибка разбора записи преобразуется в {@link IllegalArgumentException}
+   * с номером записи (обрабатывается как 400 Bad Request).
+   * </p>
+   *
+   * @param body поток тела запроса
+   * @param type класс записи
+   * @param <T> тип записи
+   * @return итератор записей
+   */
+  public <T> Iterator<T> read(InputStream body, Class<T> type) {
+    MappingIterator<T> values = jsonMapper.readerFor(type).readValues(body);
+    return new Iterator<>() {
+      private long row;
+
+      @Override
+      public boolean hasNext() {
+        try {
+          return values.hasNextValue();
+        } catch (JacksonException e) {
+          throw malformed(e);
+        }
+      }
+
+      @Override
+      public T next() {
+        try {
+          T value = values.nextValue();
+          row++;
+          return value;
+        } catch (JacksonException e) {
+          throw malformed(e);
+        }
+      }
+
+      private IllegalArgumentException malformed(JacksonException e) {
+        return new IllegalArgumentException("Malformed record " + (row + 1) + ": " + e.getOriginalMessage(), e);
+      }
+    };
+  }
+}
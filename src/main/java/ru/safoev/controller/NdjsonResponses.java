@@ -0,0 +1,71 @@
+package ru.safoev.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Вспомогательный компонент для потоковой отдачи данных в формате NDJSON.
+ * <p>
+ * Каждый элемент сериализуется в отдельную строку JSON и сразу записывается
+ * в поток ответа, поэтому сервер не накапливает весь результат в памяти.
+ * Используется эндпоинтами {@code /get/stream} всех контроллеров.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Component
+public class NdjsonResponses {
+
+  /**
+   * Тип содержимого NDJSON (newline-delimited JSON).
+   */
+  public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+  private static final byte[] LINE_SEPARATOR = {'\n'};
+
+  private final JsonMapper jsonMapper;
+
+  /**
+   * Конструктор компонента с внедрением JSON-маппера приложения.
+   *
+   * @param jsonMapper маппер, настроенный Spring Boot (тот же, что и для обычных ответов)
+   */
+  @Autowired
+  public NdjsonResponses(JsonMapper jsonMapper) {
+    this.jsonMapper = jsonMapper;
+  }
+
+  /**
+   * Формирует потоковый ответ NDJSON.
+   *
+   * @param producer источник данных, передающий элементы в переданный ему обработчик
+   * @param <T> тип элементов
+   * @return {@link ResponseEntity} с телом {@link StreamingResponseBody} и статусом 200 OK
+   */
+  public <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> producer) {
+    StreamingResponseBody body = out -> producer.accept(item -> writeLine(out, item));
+    return ResponseEntity.ok()
+            .contentType(APPLICATION_NDJSON)
+            .body(body);
+  }
+
+  private void writeLine(OutputStream out, Object item) {
+    try {
+      out.write(jsonMapper.writeValueAsBytes(item));
+      out.write(LINE_SEPARATOR);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package ru.safoev.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.safoev.dtorecords.OccupancyDto;
+import ru.safoev.services.OccupancyService;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Компонент рассылки заполненности залов подписчикам Server-Sent Events.
+ * <p>
+ * Подписчик сразу получает текущее значение, а затем событие {@code occupancy}
+ * при каждом его изменении. Изменения проверяются с периодом
+ * {@code gym.occupancy.push-interval}, поэтому частые входы и выходы объединяются
+ * в одно событие. Значения берутся из счетчиков {@link OccupancyService}
+ * без обращения к базе данных.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Component
+public class OccupancyEvents {
+  private static final Logger log = LoggerFactory.getLogger(OccupancyEvents.class);
+
+  private static final String EVENT_NAME = "occupancy";
+
+  private final OccupancyService occupancyService;
+  private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+  private final Map<Long, Long> lastSent = new ConcurrentHashMap<>();
+
+  /**
+   * Конструктор компонента с внедрением сервиса заполненности.
+   *
+   * @param occupancyService сервис счетчиков заполненности залов
+   */
+  @Autowired
+  public OccupancyEvents(OccupancyService occupancyService) {
+    this.occupancyService = occupancyService;
+  }
+
+  /**
+   * Подписывает клиента на изменения заполненности зала.
+   *
+   * @param gymId идентификатор зала
+   * @return поток событий; время жизни ограничено {@code spring.mvc.async.request-timeout}
+   * @throws IllegalArgumentException если зал не найден
+   */
+  public SseEmitter subscribe(Long gymId) {
+    OccupancyDto current = occupancyService.getOccupancy(gymId);
+    SseEmitter emitter = new SseEmitter();
+    Set<SseEmitter> emitters = subscribers.computeIfAbsent(gymId, id -> ConcurrentHashMap.newKeySet());
+    emitters.add(emitter);
+    emitter.onCompletion(() -> emitters.remove(emitter));
+    emitter.onTimeout(() -> emitters.remove(emitter));
+    emitter.onError(e -> emitters.remove(emitter));
+    lastSent.putIfAbsent(gymId, current.currentVisitors());
+    send(emitter, emitters, current);
+    return emitter;
+  }
+
+  /**
+   * Отправляет подписчикам значения залов, изменившиеся с прошлой рассылки.
+   */
+  @Scheduled(fixedRateString = "${gym.occupancy.push-interval:1s}")
+  public void pushChanges() {
+    subscribers.forEach((gymId, emitters) -> {
+      if (emitters.isEmpty()) {
+        lastSent.remove(gymId);
+        return;
+      }
+      OccupancyDto occupancy = occupancyService.findOccupancy(gymId);
+      if (occupancy == null) {
+        emitters.forEach(SseEmitter::complete);
+        emitters.clear();
+        return;
+      }
+      Long previous = lastSent.put(gymId, occupancy.currentVisitors());
+      if (previous == null || previous != occupancy.currentVisitors()) {
+        emitters.forEach(emitter -> send(emitter, emitters, occupancy));
+      }
+    });
+  }
+
+  private static void send(SseEmitter emitter, Set<SseEmitter> emitters, OccupancyDto occupancy) {
+    try {
+      emitter.send(SseEmitter.event().name(EVENT_NAME).data(occupancy, MediaType.APPLICATION_JSON));
+    } catch (IOException | IllegalStateException e) {
+      log.debug("Dropping occupancy subscriber for gym {}: {}", occupancy.gymId(), e.getMessage());
+      emitters.remove(emitter);
+      emitter.completeWithError(e);
+    }
+  }
+}
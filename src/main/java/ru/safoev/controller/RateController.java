@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.safoev.dtorecords.CursorPageDto;
 import ru.safoev.dtorecords.RateDto;
 import ru.safoev.services.RateService;
 
@@ -31,15 +33,18 @@ public class RateController {
   private static final Logger log = LoggerFactory.getLogger(RateController.class);
 
   private final RateService rateService;
+  private final NdjsonResponses ndjsonResponses;
 
   /**
    * Конструктор контроллера с внедрением зависимости сервиса тарифов.
    *
    * @param rateService сервис для работы с тарифами
+   * @param ndjsonResponses компонент потоковой отдачи NDJSON
    */
   @Autowired
-  public RateController(RateService rateService) {
+  public RateController(RateService rateService, NdjsonResponses ndjsonResponses) {
     this.rateService = rateService;
+    this.ndjsonResponses = ndjsonResponses;
   }
 
   /**
@@ -52,7 +57,7 @@ public class RateController {
    */
   @GetMapping("/get/{id}")
   public ResponseEntity<RateDto> getRateById(@PathVariable("id") Long id) {
-    log.info("Called getRateById with id: {}", id);
+    log.debug("Called getRateById with id: {}", id);
     return ResponseEntity.ok(rateService.getRateById(id));
   }
 
@@ -64,10 +69,39 @@ public class RateController {
    */
   @GetMapping("/get/all")
   public ResponseEntity<List<RateDto>> getAllRates() {
-    log.info("Called getAllRates");
+    log.debug("Called getAllRates");
     return ResponseEntity.ok(rateService.getAllRates());
   }
 
+  /**
+   * Получает страницу тарифов с курсорной пагинацией по идентификатору.
+   *
+   * @param cursor курсор из поля {@code nextCursor} предыдущей страницы (необязательный)
+   * @param size размер страницы от 1 до 1000 (необязательный, по умолчанию 100)
+   * @return {@link ResponseEntity} со страницей {@link CursorPageDto} и статусом 200 OK
+   * @see RateService#getRatesPage(Long, Integer)
+   */
+  @GetMapping("/get/page")
+  public ResponseEntity<CursorPageDto<RateDto>> getRatesPage(
+          @RequestParam(name = "cursor", required = false) Long cursor,
+          @RequestParam(name = "size", required = false) Integer size
+  ) {
+    log.debug("Called getRatesPage with cursor: {}, size: {}", cursor, size);
+    return ResponseEntity.ok(rateService.getRatesPage(cursor, size));
+  }
+
+  /**
+   * Выгружает полный список тарифов потоком в формате NDJSON (один JSON-объект на строку).
+   *
+   * @return {@link ResponseEntity} с потоковым телом ответа и статусом 200 OK
+   * @see RateService#streamAllRates(java.util.function.Consumer)
+   */
+  @GetMapping(value = "/get/stream", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> streamAllRates() {
+    log.debug("Called streamAllRates");
+    return ndjsonResponses.stream(rateService::streamAllRates);
+  }
+
   /**
    * Создает новый тариф.
    *
@@ -78,7 +112,7 @@ public class RateController {
    */
   @PostMapping("/create")
   public ResponseEntity<RateDto> createRate(@Valid @RequestBody RateDto rateDto) {
-    log.info("Called createRate with data: {}", rateDto);
+    log.debug("Called createRate with data: {}", rateDto);
     return ResponseEntity.status(HttpStatus.CREATED).body(rateService.createRate(rateDto));
   }
 
@@ -94,7 +128,7 @@ public class RateController {
    */
   @PutMapping("/update/{id}")
   public ResponseEntity<RateDto> updateRate(@PathVariable("id") Long id, @Valid @RequestBody RateDto rateDto) {
-    log.info("Called updateRate with id: {} and data: {}", id, rateDto);
+    log.debug("Called updateRate with id: {} and data: {}", id, rateDto);
     return ResponseEntity.ok(rateService.updateRate(id, rateDto));
   }
 
@@ -108,7 +142,7 @@ public class RateController {
    */
   @DeleteMapping("/delete/{id}")
   public ResponseEntity<Void> deleteRate(@PathVariable("id") Long id) {
-    log.info("Called deleteRate with id: {}", id);
+    log.debug("Called deleteRate with id: {}", id);
     rateService.deleteRate(id);
     return ResponseEntity.noContent().build();
   }
@@ -0,0 +1,134 @@
+package ru.safoev.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.safoev.dtorecords.GymRevenueDto;
+import ru.safoev.dtorecords.RateRevenueDto;
+import ru.safoev.dtorecords.RevenueMonthDto;
+import ru.safoev.services.RevenueService;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * REST контроллер отчетов о выручке сети фитнес-залов.
+ * <p>
+ * Выручка рассчитывается на стороне базы данных агрегирующими запросами по абонементам
+ * и ценам тарифов, без загрузки абонементов в приложение. Цена абонемента распределяется
+ * по месяцам пропорционально дням срока ({@code rate_duration_days}); заморозки не учитываются.
+ * Прошедшие месяцы закрываются (свойство {@code gym.revenue.close-cron}): их итоги сохраняются
+ * в таблице "revenue_monthly" и читаются без пересчета, поэтому изменения абонементов и цен
+ * тарифов задним числом в них не попадают до повторного закрытия месяца.
+ * Месяцы передаются в формате {@code yyyy-MM}.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ * @see RevenueMonthDto
+ * @see RateRevenueDto
+ * @see GymRevenueDto
+ * @see RevenueService
+ */
+@RestController
+@RequestMapping("/gym/revenue")
+public class RevenueController {
+  private static final Logger log = LoggerFactory.getLogger(RevenueController.class);
+
+  private final RevenueService revenueService;
+
+  /**
+   * Конструктор контроллера с внедрением зависимости сервиса выручки.
+   *
+   * @param revenueService сервис выручки
+   */
+  @Autowired
+  public RevenueController(RevenueService revenueService) {
+    this.revenueService = revenueService;
+  }
+
+  /**
+   * Получает выручку сети по месяцам с нарастающим итогом.
+   * <p>
+   * Период не может превышать 120 месяцев; месяцы без абонементов возвращаются с нулями.
+   * </p>
+   *
+   * @param from первый месяц периода (необязательный, по умолчанию за 11 месяцев до {@code to})
+   * @param to последний месяц периода (необязательный, по умолчанию текущий)
+   * @return {@link ResponseEntity} со списком {@link RevenueMonthDto} и статусом 200 OK
+   * @throws IllegalArgumentException если {@code from} позже {@code to} или период слишком длинный
+   * @see RevenueService#getMonthly(YearMonth, YearMonth)
+   */
+  @GetMapping("/monthly")
+  public ResponseEntity<List<RevenueMonthDto>> getMonthlyRevenue(
+          @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+  ) {
+    log.debug("Called getMonthlyRevenue with from: {}, to: {}", from, to);
+    return ResponseEntity.ok(revenueService.getMonthly(from, to));
+  }
+
+  /**
+   * Получает выручку по тарифам за каждый месяц периода.
+   *
+   * @param from первый месяц периода (необязательный, по умолчанию равен {@code to})
+   * @param to последний месяц периода (необязательный, по умолчанию текущий)
+   * @return {@link ResponseEntity} со списком {@link RateRevenueDto} и статусом 200 OK
+   * @throws IllegalArgumentException если {@code from} позже {@code to} или период слишком длинный
+   * @see RevenueService#getByRate(YearMonth, YearMonth)
+   */
+  @GetMapping("/rates")
+  public ResponseEntity<List<RateRevenueDto>> getRevenueByRate(
+          @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+  ) {
+    log.debug("Called getRevenueByRate with from: {}, to: {}", from, to);
+    return ResponseEntity.ok(revenueService.getByRate(from, to));
+  }
+
+  /**
+   * Получает выручку по залам за каждый месяц периода.
+   * <p>
+   * Абонемент относится к залу, который клиент чаще всего посещал в месяце.
+   * </p>
+   *
+   * @param from первый месяц периода (необязательный, по умолчанию равен {@code to})
+   * @param to последний месяц периода (необязательный, по умолчанию текущий)
+   * @return {@link ResponseEntity} со списком {@link GymRevenueDto} и статусом 200 OK
+   * @throws IllegalArgumentException если {@code from} позже {@code to} или период слишком длинный
+   * @see RevenueService#getByGym(YearMonth, YearMonth)
+   */
+  @GetMapping("/gyms")
+  public ResponseEntity<List<GymRevenueDto>> getRevenueByGym(
+          @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+  ) {
+    log.debug("Called getRevenueByGym with from: {}, to: {}", from, to);
+    return ResponseEntity.ok(revenueService.getByGym(from, to));
+  }
+
+  /**
+   * Закрывает прошедший месяц повторно, пересчитывая его итоги по текущим данным.
+   *
+   * @param month месяц в формате {@code yyyy-MM}
+   * @return {@link ResponseEntity} с итогами месяца {@link RevenueMonthDto} и статусом 200 OK
+   * @throws IllegalArgumentException если месяц не прошел или его посещения уже в архиве
+   * @see RevenueService#closeMonth(YearMonth)
+   */
+  @PostMapping("/close/{month}")
+  public ResponseEntity<RevenueMonthDto> closeRevenueMonth(
+          @PathVariable("month") @DateTimeFormat(pattern = "yyyy-MM") YearMonth month
+  ) {
+    log.debug("Called closeRevenueMonth with month: {}", month);
+    return ResponseEntity.ok(revenueService.closeMonth(month));
+  }
+}
@@ -4,12 +4,22 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.safoev.dtorecords.AccessCheckDto;
+import ru.safoev.dtorecords.BulkImportReportDto;
+import ru.safoev.dtorecords.CursorPageDto;
 import ru.safoev.dtorecords.SubscriptionDto;
+import ru.safoev.dtorecords.SubscriptionFreezeDto;
+import ru.safoev.enumlists.ExportFormat;
+import ru.safoev.services.SubscriptionAccessService;
 import ru.safoev.services.SubscriptionService;
 
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -31,15 +41,29 @@ public class SubscriptionController {
   private static final Logger log = LoggerFactory.getLogger(SubscriptionController.class);
 
   private final SubscriptionService subscriptionService;
+  private final NdjsonResponses ndjsonResponses;
+  private final BulkRequests bulkRequests;
+  private final ExportResponses exportResponses;
+  private final SubscriptionAccessService subscriptionAccessService;
 
   /**
    * Конструктор контроллера с внедрением зависимости сервиса абонементов.
    *
    * @param subscriptionService сервис для работы с абонементами
+   * @param ndjsonResponses компонент потоковой отдачи NDJSON
+   * @param bulkRequests компонент чтения запросов массовой загрузки
+   * @param exportResponses компонент потоковой выгрузки
+   * @param subscriptionAccessService сервис проверки доступа клиентов в зал
    */
   @Autowired
-  public SubscriptionController(SubscriptionService subscriptionService) {
+  public SubscriptionController(SubscriptionService subscriptionService, NdjsonResponses ndjsonResponses,
+                                BulkRequests bulkRequests, ExportResponses exportResponses,
+                                SubscriptionAccessService subscriptionAccessService) {
     this.subscriptionService = subscriptionService;
+    this.ndjsonResponses = ndjsonResponses;
+    this.bulkRequests = bulkRequests;
+    this.exportResponses = exportResponses;
+    this.subscriptionAccessService = subscriptionAccessService;
   }
 
   /**
@@ -52,7 +76,7 @@ public class SubscriptionController {
    */
   @GetMapping("/get/{id}")
   public ResponseEntity<SubscriptionDto> getSubscriptionById(@PathVariable("id") Long id) {
-    log.info("Called getSubscriptionById with id: {}", id);
+    log.debug("Called getSubscriptionById with id: {}", id);
     return ResponseEntity.ok(subscriptionService.getSubscriptionById(id));
   }
 
@@ -64,10 +88,62 @@ public class SubscriptionController {
    */
   @GetMapping("/get/all")
   public ResponseEntity<List<SubscriptionDto>> getAllSubscriptions() {
-    log.info("Called getAllSubscriptions");
+    log.debug("Called getAllSubscriptions");
     return ResponseEntity.ok(subscriptionService.getAllSubscriptions());
   }
 
+  /**
+   * Получает страницу абонементов с курсорной пагинацией по идентификатору.
+   *
+   * @param cursor курсор из поля {@code nextCursor} предыдущей страницы (необязательный)
+   * @param size размер страницы от 1 до 1000 (необязательный, по умолчанию 100)
+   * @return {@link ResponseEntity} со страницей {@link CursorPageDto} и статусом 200 OK
+   * @see SubscriptionService#getSubscriptionsPage(Long, Integer)
+   */
+  @GetMapping("/get/page")
+  public ResponseEntity<CursorPageDto<SubscriptionDto>> getSubscriptionsPage(
+          @RequestParam(name = "cursor", required = false) Long cursor,
+          @RequestParam(name = "size", required = false) Integer size
+  ) {
+    log.debug("Called getSubscriptionsPage with cursor: {}, size: {}", cursor, size);
+    return ResponseEntity.ok(subscriptionService.getSubscriptionsPage(cursor, size));
+  }
+
+  /**
+   * Выгружает полный список абонементов потоком в формате NDJSON (один JSON-объект на строку).
+   *
+   * @return {@link ResponseEntity} с потоковым телом ответа и статусом 200 OK
+   * @see SubscriptionService#streamAllSubscriptions(java.util.function.Consumer)
+   */
+  @GetMapping(value = "/get/stream", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> streamAllSubscriptions() {
+    log.debug("Called streamAllSubscriptions");
+    return ndjsonResponses.stream(subscriptionService::streamAllSubscriptions);
+  }
+
+  /**
+   * Проверяет, может ли клиент пройти в зал (вызывается турникетом при каждом проходе).
+   * <p>
+   * Доступ разрешен, если у клиента есть абонемент в статусе ACTIVE, срок действия которого
+   * с учетом заморозок включает указанную дату и который не заморожен в эту дату. Ответ берется из индекса абонементов
+   * в памяти приложения без запроса к базе данных; если индекс не содержит подходящего
+   * абонемента, выполняется индексированный запрос по клиенту.
+   * </p>
+   *
+   * @param clientId идентификатор клиента (обязательный)
+   * @param date проверяемая дата (необязательный, по умолчанию сегодня)
+   * @return {@link ResponseEntity} с результатом {@link AccessCheckDto} и статусом 200 OK
+   * @see SubscriptionAccessService#checkAccess(Long, LocalDate)
+   */
+  @GetMapping("/access/{clientId}")
+  public ResponseEntity<AccessCheckDto> checkAccess(
+          @PathVariable("clientId") Long clientId,
+          @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+  ) {
+    log.debug("Called checkAccess with clientId: {}, date: {}", clientId, date);
+    return ResponseEntity.ok(subscriptionAccessService.checkAccess(clientId, date != null ? date : LocalDate.now()));
+  }
+
   /**
    * Создает новый абонемент.
    *
@@ -80,10 +156,68 @@ public class SubscriptionController {
    */
   @PostMapping("/create")
   public ResponseEntity<SubscriptionDto> createSubscription(@Valid @RequestBody SubscriptionDto subscriptionDto) {
-    log.info("Called createSubscription with data: {}", subscriptionDto);
+    log.debug("Called createSubscription with data: {}", subscriptionDto);
     return ResponseEntity.status(HttpStatus.CREATED).body(subscriptionService.createSubscription(subscriptionDto));
   }
 
+  /**
+   * Массовая загрузка абонементов (например, при подключении новой франшизы) с отчетом об ошибках по отдельным записям.
+   * <p>
+   * Тело запроса читается потоком в формате CSV (со строкой заголовка из имен полей
+   * {@link SubscriptionDto}) или NDJSON. Каждая запись проверяется аннотациями валидации DTO;
+   * корректные записи загружаются в PostgreSQL командой COPY через промежуточную таблицу.
+   * Абонементы с несуществующим клиентом или тарифом отклоняются.
+   * Некорректные записи пропускаются и перечисляются в отчете, не прерывая загрузку.
+   * </p>
+   *
+   * @param body поток тела запроса
+   * @param contentType тип содержимого ({@code text/csv} или {@code application/x-ndjson})
+   * @return {@link ResponseEntity} с отчетом {@link BulkImportReportDto} и статусом 200 OK
+   * @throws IllegalArgumentException если заголовок CSV содержит неизвестные поля
+   * @see SubscriptionService#bulkImportSubscriptions(java.util.Iterator)
+   */
+  @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+  public ResponseEntity<BulkImportReportDto> bulkImportSubscriptions(
+          InputStream body,
+          @RequestHeader("Content-Type") String contentType
+  ) {
+    log.debug("Called bulkImportSubscriptions with content type: {}", contentType);
+    return ResponseEntity.ok(subscriptionService.bulkImportSubscriptions(bulkRequests.read(body, contentType, SubscriptionDto.class)));
+  }
+
+  /**
+   * Выгружает абонементы потоком в формате CSV или NDJSON.
+   * <p>
+   * Строки читаются из базы данных курсором (CSV из PostgreSQL — командой COPY TO STDOUT)
+   * и сразу записываются в ответ, без промежуточных списков. CSV содержит строку заголовка
+   * с именами полей DTO и может быть повторно загружен через {@code /bulk}.
+   * При {@code Accept-Encoding: gzip} ответ сжимается.
+   * </p>
+   *
+   * @param format формат выгрузки ({@code csv} по умолчанию или {@code ndjson})
+   * @param from начало диапазона по дате начала включительно (необязательный)
+   * @param to конец диапазона по дате начала включительно (необязательный)
+   * @param acceptEncoding заголовок {@code Accept-Encoding} запроса
+   * @return {@link ResponseEntity} с потоковым телом и статусом 200 OK
+   * @throws IllegalArgumentException если формат не поддерживается или {@code from} позже {@code to}
+   * @see SubscriptionService#exportSubscriptions(ru.safoev.enumlists.ExportFormat, LocalDate, LocalDate, java.io.OutputStream)
+   */
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportSubscriptions(
+          @RequestParam(value = "format", defaultValue = "csv") String format,
+          @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+          @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding
+  ) {
+    log.debug("Called exportSubscriptions with format: {}, from: {}, to: {}", format, from, to);
+    ExportFormat exportFormat = exportResponses.parseFormat(format);
+    if (from != null && to != null && from.isAfter(to)) {
+      throw new IllegalArgumentException("Export range start " + from + " is after its end " + to);
+    }
+    return exportResponses.export("subscriptions", exportFormat, from, to, acceptEncoding,
+            out -> subscriptionService.exportSubscriptions(exportFormat, from, to, out));
+  }
+
   /**
    * Обновляет данные существующего абонемента.
    *
@@ -97,10 +231,66 @@ public class SubscriptionController {
    */
   @PutMapping("/update/{id}")
   public ResponseEntity<SubscriptionDto> updateSubscription(@PathVariable("id") Long id, @Valid @RequestBody SubscriptionDto subscriptionDto) {
-    log.info("Called updateSubscription with id: {} and data: {}", id, subscriptionDto);
+    log.debug("Called updateSubscription with id: {} and data: {}", id, subscriptionDto);
     return ResponseEntity.ok(subscriptionService.updateSubscription(id, subscriptionDto));
   }
 
+  /**
+   * Получает заморозки абонемента, упорядоченные по дате начала.
+   *
+   * @param id идентификатор абонемента (обязательный)
+   * @return {@link ResponseEntity} со списком {@link SubscriptionFreezeDto} и статусом 200 OK
+   * @throws IllegalArgumentException если абонемент с указанным ID не найден
+   * @see SubscriptionService#getFreezes(Long)
+   */
+  @GetMapping("/get/{id}/freezes")
+  public ResponseEntity<List<SubscriptionFreezeDto>> getFreezes(@PathVariable("id") Long id) {
+    log.debug("Called getFreezes with id: {}", id);
+    return ResponseEntity.ok(subscriptionService.getFreezes(id));
+  }
+
+  /**
+   * Замораживает абонемент на период с датой начала и датой окончания включительно.
+   * <p>
+   * Абонемент продлевается на длительность заморозки: фактическая дата окончания
+   * пересчитывается в базе данных. В период заморозки клиент не проходит в зал.
+   * </p>
+   *
+   * @param id идентификатор абонемента (обязательный)
+   * @param freezeDto объект {@link SubscriptionFreezeDto} с периодом заморозки (обязательный, валидируется)
+   * @return {@link ResponseEntity} с созданной заморозкой {@link SubscriptionFreezeDto} и статусом 201 CREATED
+   * @throws IllegalArgumentException если абонемент не найден или не активен, период начинается
+   *         вне срока действия абонемента или пересекается с другой заморозкой
+   * @see SubscriptionService#freezeSubscription(Long, SubscriptionFreezeDto)
+   */
+  @PostMapping("/freeze/{id}")
+  public ResponseEntity<SubscriptionFreezeDto> freezeSubscription(@PathVariable("id") Long id,
+                                                                  @Valid @RequestBody SubscriptionFreezeDto freezeDto) {
+    log.debug("Called freezeSubscription with id: {} and data: {}", id, freezeDto);
+    return ResponseEntity.status(HttpStatus.CREATED).body(subscriptionService.freezeSubscription(id, freezeDto));
+  }
+
+  /**
+   * Отменяет заморозку абонемента.
+   * <p>
+   * Будущая заморозка удаляется; идущая заморозка заканчивается вчерашним днем,
+   * и абонемент снова действует с сегодняшнего дня. Фактическая дата окончания пересчитывается.
+   * </p>
+   *
+   * @param id идентификатор абонемента (обязательный)
+   * @param freezeId идентификатор заморозки (обязательный)
+   * @return {@link ResponseEntity} без содержимого со статусом 204 NO CONTENT
+   * @throws IllegalArgumentException если заморозка не найдена или уже закончилась
+   * @see SubscriptionService#unfreezeSubscription(Long, Long)
+   */
+  @DeleteMapping("/unfreeze/{id}/{freezeId}")
+  public ResponseEntity<Void> unfreezeSubscription(@PathVariable("id") Long id,
+                                                   @PathVariable("freezeId") Long freezeId) {
+    log.debug("Called unfreezeSubscription with id: {}, freezeId: {}", id, freezeId);
+    subscriptionService.unfreezeSubscription(id, freezeId);
+    return ResponseEntity.noContent().build();
+  }
+
   /**
    * Удаляет абонемент по его идентификатору.
    *
@@ -111,7 +301,7 @@ public class SubscriptionController {
    */
   @DeleteMapping("/delete/{id}")
   public ResponseEntity<Void> deleteSubscription(@PathVariable("id") Long id) {
-    log.info("Called deleteSubscription with id: {}", id);
+    log.debug("Called deleteSubscription with id: {}", id);
     subscriptionService.deleteSubscription(id);
     return ResponseEntity.noContent().build();
   }
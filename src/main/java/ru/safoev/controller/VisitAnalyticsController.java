@@ -0,0 +1,123 @@
+package ru.safoev.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.safoev.dtorecords.AttendanceDto;
+import ru.safoev.dtorecords.AttendanceProfileDto;
+import ru.safoev.services.VisitRollupService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST контроллер аналитики посещаемости фитнес-залов.
+ * <p>
+ * Отчеты строятся по таблице часовых агрегатов "visit_hourly_rollups", а не по таблице
+ * посещений, поэтому период в несколько лет обрабатывается за миллисекунды.
+ * Агрегаты пересчитываются фоновым заданием (свойство {@code gym.analytics.rollup.refresh-interval}),
+ * поэтому последние посещения появляются в отчетах с этой задержкой.
+ * Посещение относится к часу и дню по времени входа.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ * @see AttendanceDto
+ * @see AttendanceProfileDto
+ * @see VisitRollupService
+ */
+@RestController
+@RequestMapping("/gym/analytics")
+public class VisitAnalyticsController {
+  private static final Logger log = LoggerFactory.getLogger(VisitAnalyticsController.class);
+
+  private final VisitRollupService visitRollupService;
+
+  /**
+   * Конструктор контроллера с внедрением зависимости сервиса агрегатов посещаемости.
+   *
+   * @param visitRollupService сервис агрегатов посещаемости
+   */
+  @Autowired
+  public VisitAnalyticsController(VisitRollupService visitRollupService) {
+    this.visitRollupService = visitRollupService;
+  }
+
+  /**
+   * Получает посещаемость зала по часам за период.
+   * <p>
+   * Период не может превышать 366 дней; часы без посещений в ответ не попадают.
+   * </p>
+   *
+   * @param gymId идентификатор зала
+   * @param from первая дата периода (необязательный, по умолчанию равна {@code to})
+   * @param to последняя дата периода (необязательный, по умолчанию сегодня)
+   * @return {@link ResponseEntity} со списком {@link AttendanceDto} и статусом 200 OK
+   * @throws IllegalArgumentException если {@code from} позже {@code to} или период слишком длинный
+   * @see VisitRollupService#getHourly(Long, LocalDate, LocalDate)
+   */
+  @GetMapping("/attendance/{gymId}/hourly")
+  public ResponseEntity<List<AttendanceDto>> getHourlyAttendance(
+          @PathVariable("gymId") Long gymId,
+          @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+  ) {
+    log.debug("Called getHourlyAttendance with gymId: {}, from: {}, to: {}", gymId, from, to);
+    return ResponseEntity.ok(visitRollupService.getHourly(gymId, from, to));
+  }
+
+  /**
+   * Получает посещаемость зала по дням за период.
+   * <p>
+   * Дни без посещений в ответ не попадают.
+   * </p>
+   *
+   * @param gymId идентификатор зала
+   * @param from первая дата периода (необязательный, по умолчанию за 30 дней до {@code to} включительно)
+   * @param to последняя дата периода (необязательный, по умолчанию сегодня)
+   * @return {@link ResponseEntity} со списком {@link AttendanceDto} и статусом 200 OK
+   * @throws IllegalArgumentException если {@code from} позже {@code to}
+   * @see VisitRollupService#getDaily(Long, LocalDate, LocalDate)
+   */
+  @GetMapping("/attendance/{gymId}/daily")
+  public ResponseEntity<List<AttendanceDto>> getDailyAttendance(
+          @PathVariable("gymId") Long gymId,
+          @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+  ) {
+    log.debug("Called getDailyAttendance with gymId: {}, from: {}, to: {}", gymId, from, to);
+    return ResponseEntity.ok(visitRollupService.getDaily(gymId, from, to));
+  }
+
+  /**
+   * Получает типичную посещаемость зала по дню недели и часу суток за период.
+   * <p>
+   * Ответ упорядочен с понедельника по воскресенье и по часам; для каждого сочетания
+   * возвращается общее и среднее на один день количество посещений.
+   * </p>
+   *
+   * @param gymId идентификатор зала
+   * @param from первая дата периода (необязательный, по умолчанию за 12 недель до {@code to} включительно)
+   * @param to последняя дата периода (необязательный, по умолчанию сегодня)
+   * @return {@link ResponseEntity} со списком {@link AttendanceProfileDto} и статусом 200 OK
+   * @throws IllegalArgumentException если {@code from} позже {@code to}
+   * @see VisitRollupService#getProfile(Long, LocalDate, LocalDate)
+   */
+  @GetMapping("/attendance/{gymId}/profile")
+  public ResponseEntity<List<AttendanceProfileDto>> getAttendanceProfile(
+          @PathVariable("gymId") Long gymId,
+          @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+  ) {
+    log.debug("Called getAttendanceProfile with gymId: {}, from: {}, to: {}", gymId, from, to);
+    return ResponseEntity.ok(visitRollupService.getProfile(gymId, from, to));
+  }
+}
@@ -4,12 +4,29 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.safoev.dtorecords.BulkImportReportDto;
+import ru.safoev.dtorecords.CheckInBatchDto;
+import ru.safoev.dtorecords.CheckInDto;
+import ru.safoev.dtorecords.CheckOutDto;
+import ru.safoev.dtorecords.CursorPageDto;
+import ru.safoev.dtorecords.ImportResultDto;
+import ru.safoev.dtorecords.VisitArchiveDto;
+import ru.safoev.dtorecords.VisitArchiveRunDto;
 import ru.safoev.dtorecords.VisitDto;
+import ru.safoev.dtorecords.VisitPartitionDto;
+import ru.safoev.dtorecords.WriteBehindStatsDto;
+import ru.safoev.enumlists.ExportFormat;
+import ru.safoev.services.VisitArchiveService;
+import ru.safoev.services.VisitPartitionService;
 import ru.safoev.services.VisitService;
 
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -31,19 +48,43 @@ public class VisitController {
   private static final Logger log = LoggerFactory.getLogger(VisitController.class);
 
   private final VisitService visitService;
+  private final NdjsonResponses ndjsonResponses;
+  private final BulkRequests bulkRequests;
+  private final NdjsonRequests ndjsonRequests;
+  private final ExportResponses exportResponses;
+  private final VisitPartitionService visitPartitionService;
+  private final VisitArchiveService visitArchiveService;
 
   /**
    * Конструктор контроллера с внедрением зависимости сервиса посещений.
    *
    * @param visitService сервис для работы с посещениями
+   * @param ndjsonResponses компонент потоковой отдачи NDJSON
+   * @param bulkRequests компонент чтения запросов массовой загрузки
+   * @param exportResponses компонент потоковой выгрузки
+   * @param ndjsonRequests компонент потокового чтения NDJSON
+   * @param visitPartitionService сервис обслуживания секций таблицы посещений
+   * @param visitArchiveService сервис архива посещений
    */
   @Autowired
-  public VisitController(VisitService visitService) {
+  public VisitController(VisitService visitService, NdjsonResponses ndjsonResponses,
+                         NdjsonRequests ndjsonRequests, BulkRequests bulkRequests,
+                         ExportResponses exportResponses, VisitPartitionService visitPartitionService,
+                         VisitArchiveService visitArchiveService) {
     this.visitService = visitService;
+    this.ndjsonResponses = ndjsonResponses;
+    this.bulkRequests = bulkRequests;
+    this.exportResponses = exportResponses;
+    this.ndjsonRequests = ndjsonRequests;
+    this.visitPartitionService = visitPartitionService;
+    this.visitArchiveService = visitArchiveService;
   }
 
   /**
    * Получает посещение по его идентификатору.
+   * <p>
+   * Посещение, перенесенное в архив, читается из файлов архива.
+   * </p>
    *
    * @param id идентификатор посещения (обязательный)
    * @return {@link ResponseEntity} с объектом {@link VisitDto} и статусом 200 OK
@@ -52,7 +93,7 @@ public class VisitController {
    */
   @GetMapping("/get/{id}")
   public ResponseEntity<VisitDto> getVisitById(@PathVariable("id") Long id) {
-    log.info("Called getVisitById with id: {}", id);
+    log.debug("Called getVisitById with id: {}", id);
     return ResponseEntity.ok(visitService.getVisitById(id));
   }
 
@@ -64,10 +105,107 @@ public class VisitController {
    */
   @GetMapping("/get/all")
   public ResponseEntity<List<VisitDto>> getAllVisits() {
-    log.info("Called getAllVisits");
+    log.debug("Called getAllVisits");
     return ResponseEntity.ok(visitService.getAllVisits());
   }
 
+  /**
+   * Получает страницу посещений с курсорной пагинацией по идентификатору.
+   *
+   * @param cursor курсор из поля {@code nextCursor} предыдущей страницы (необязательный)
+   * @param size размер страницы от 1 до 1000 (необязательный, по умолчанию 100)
+   * @return {@link ResponseEntity} со страницей {@link CursorPageDto} и статусом 200 OK
+   * @see VisitService#getVisitsPage(Long, Integer)
+   */
+  @GetMapping("/get/page")
+  public ResponseEntity<CursorPageDto<VisitDto>> getVisitsPage(
+          @RequestParam(name = "cursor", required = false) Long cursor,
+          @RequestParam(name = "size", required = false) Integer size
+  ) {
+    log.debug("Called getVisitsPage with cursor: {}, size: {}", cursor, size);
+    return ResponseEntity.ok(visitService.getVisitsPage(cursor, size));
+  }
+
+  /**
+   * Получает посещения зала за период по дате входа.
+   * <p>
+   * Период не может превышать 31 день; для более длинных периодов используется {@code /export}.
+   * В PostgreSQL запрос читает только секции таблицы за месяцы периода; посещения,
+   * перенесенные в архив, читаются из файлов архива за эти месяцы.
+   * </p>
+   *
+   * @param gymId идентификатор зала
+   * @param from первая дата периода (необязательный, по умолчанию равна {@code to})
+   * @param to последняя дата периода включительно (необязательный, по умолчанию сегодня)
+   * @return {@link ResponseEntity} со списком {@link VisitDto}, упорядоченным по времени входа, и статусом 200 OK
+   * @throws IllegalArgumentException если {@code from} позже {@code to} или период слишком длинный
+   * @see VisitService#getVisitsByGym(Long, LocalDate, LocalDate)
+   */
+  @GetMapping("/get/gym/{gymId}")
+  public ResponseEntity<List<VisitDto>> getVisitsByGym(
+          @PathVariable("gymId") Long gymId,
+          @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+  ) {
+    log.debug("Called getVisitsByGym with gymId: {}, from: {}, to: {}", gymId, from, to);
+    return ResponseEntity.ok(visitService.getVisitsByGym(gymId, from, to));
+  }
+
+  /**
+   * Получает список секций таблицы посещений с оценкой количества строк.
+   * <p>
+   * Для базы данных без секционирования (например, H2) возвращается пустой список.
+   * </p>
+   *
+   * @return {@link ResponseEntity} со списком {@link VisitPartitionDto} и статусом 200 OK
+   * @see VisitPartitionService#getPartitions()
+   */
+  @GetMapping("/partitions")
+  public ResponseEntity<List<VisitPartitionDto>> getPartitions() {
+    log.debug("Called getPartitions");
+    return ResponseEntity.ok(visitPartitionService.getPartitions());
+  }
+
+  /**
+   * Получает сведения об архиве посещений по залам и месяцам.
+   * <p>
+   * Посещения старше границы архива хранятся в сжатых файлах вне базы данных;
+   * запросы по идентификатору и по залу за период читают их прозрачно.
+   * </p>
+   *
+   * @return {@link ResponseEntity} со списком {@link VisitArchiveDto}, упорядоченным по залу и месяцу, и статусом 200 OK
+   * @see VisitArchiveService#getArchive()
+   */
+  @GetMapping("/archive")
+  public ResponseEntity<List<VisitArchiveDto>> getArchive() {
+    log.debug("Called getArchive");
+    return ResponseEntity.ok(visitArchiveService.getArchive());
+  }
+
+  /**
+   * Переносит в архив посещения старше границы архива, не дожидаясь планового запуска.
+   *
+   * @return {@link ResponseEntity} с объектом {@link VisitArchiveRunDto} и статусом 200 OK
+   * @see VisitArchiveService#archive()
+   */
+  @PostMapping("/archive/run")
+  public ResponseEntity<VisitArchiveRunDto> runArchive() {
+    log.debug("Called runArchive");
+    return ResponseEntity.ok(visitArchiveService.archive());
+  }
+
+  /**
+   * Выгружает полный список посещений потоком в формате NDJSON (один JSON-объект на строку).
+   *
+   * @return {@link ResponseEntity} с потоковым телом ответа и статусом 200 OK
+   * @see VisitService#streamAllVisits(java.util.function.Consumer)
+   */
+  @GetMapping(value = "/get/stream", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> streamAllVisits() {
+    log.debug("Called streamAllVisits");
+    return ndjsonResponses.stream(visitService::streamAllVisits);
+  }
+
   /**
    * Создает новое посещение.
    *
@@ -79,10 +217,188 @@ public class VisitController {
    */
   @PostMapping("/create")
   public ResponseEntity<VisitDto> createVisit(@Valid @RequestBody VisitDto visitDto) {
-    log.info("Called createVisit with data: {}", visitDto);
+    log.debug("Called createVisit with data: {}", visitDto);
     return ResponseEntity.status(HttpStatus.CREATED).body(visitService.createVisit(visitDto));
   }
 
+  /**
+   * Быстрая отметка входа клиента через турникет.
+   * <p>
+   * В отличие от {@link #createVisit(VisitDto)} не загружает клиента и зал из базы данных:
+   * их существование проверяется внешними ключами при вставке, поэтому
+   * отметка выполняется одним обращением к базе данных.
+   * </p>
+   * <p>
+   * В режиме отложенной записи ({@code gym.visit.write-behind.enabled=true}) отметка
+   * ставится в очередь и записывается в базу данных пакетом; ответ возвращается
+   * без тела со статусом 202 ACCEPTED.
+   * </p>
+   *
+   * @param checkInDto объект {@link CheckInDto} с данными прохода (обязательный, валидируется)
+   * @return {@link ResponseEntity} с созданным объектом {@link VisitDto} и статусом 201 CREATED
+   *         либо без содержимого со статусом 202 ACCEPTED в режиме отложенной записи
+   * @throws IllegalArgumentException если указанные клиент (clientId) или зал (gymId) не найдены
+   * @throws java.util.concurrent.RejectedExecutionException если буфер отложенной записи переполнен
+   * @see VisitService#checkIn(CheckInDto)
+   * @see VisitService#enqueueCheckIn(CheckInDto)
+   */
+  @PostMapping("/checkin")
+  public ResponseEntity<VisitDto> checkIn(@Valid @RequestBody CheckInDto checkInDto) {
+    log.debug("Called checkIn with data: {}", checkInDto);
+    if (visitService.isWriteBehindEnabled()) {
+      visitService.enqueueCheckIn(checkInDto);
+      return ResponseEntity.accepted().build();
+    }
+    return ResponseEntity.status(HttpStatus.CREATED).body(visitService.checkIn(checkInDto));
+  }
+
+  /**
+   * Пакетная отметка входа клиентов.
+   * <p>
+   * Все отметки сохраняются в одной транзакции пакетными вставками JDBC.
+   * Если хотя бы один клиент или зал не найден, пакет не сохраняется целиком.
+   * В режиме отложенной записи пакет целиком ставится в очередь (или целиком отклоняется),
+   * а отметки с несуществующим клиентом или залом пропускаются при записи.
+   * </p>
+   *
+   * @param checkInBatchDto объект {@link CheckInBatchDto} со списком проходов (обязательный, валидируется)
+   * @return {@link ResponseEntity} со списком созданных {@link VisitDto} и статусом 201 CREATED
+   *         либо без содержимого со статусом 202 ACCEPTED в режиме отложенной записи
+   * @throws IllegalArgumentException если в пакете указан несуществующий клиент или зал
+   * @throws java.util.concurrent.RejectedExecutionException если буфер отложенной записи переполнен
+   * @see VisitService#checkInBatch(List)
+   * @see VisitService#enqueueCheckIns(List)
+   */
+  @PostMapping("/checkin/batch")
+  public ResponseEntity<List<VisitDto>> checkInBatch(@Valid @RequestBody CheckInBatchDto checkInBatchDto) {
+    log.debug("Called checkInBatch with {} check-ins", checkInBatchDto.checkIns().size());
+    if (visitService.isWriteBehindEnabled()) {
+      visitService.enqueueCheckIns(checkInBatchDto.checkIns());
+      return ResponseEntity.accepted().build();
+    }
+    return ResponseEntity.status(HttpStatus.CREATED).body(visitService.checkInBatch(checkInBatchDto.checkIns()));
+  }
+
+  /**
+   * Отметка выхода клиента через турникет: закрывает открытое посещение клиента в зале.
+   * <p>
+   * В режиме отложенной записи отметка ставится в очередь и применяется пакетом
+   * после ранее принятых отметок входа; ответ возвращается со статусом 202 ACCEPTED.
+   * </p>
+   *
+   * @param checkOutDto объект {@link CheckOutDto} с данными прохода (обязательный, валидируется)
+   * @return {@link ResponseEntity} без содержимого со статусом 204 NO CONTENT
+   *         либо 202 ACCEPTED в режиме отложенной записи
+   * @throws IllegalArgumentException если у клиента нет открытого посещения в указанном зале
+   * @throws java.util.concurrent.RejectedExecutionException если буфер отложенной записи переполнен
+   * @see VisitService#checkOut(CheckOutDto)
+   * @see VisitService#enqueueCheckOut(CheckOutDto)
+   */
+  @PostMapping("/checkout")
+  public ResponseEntity<Void> checkOut(@Valid @RequestBody CheckOutDto checkOutDto) {
+    log.debug("Called checkOut with data: {}", checkOutDto);
+    if (visitService.isWriteBehindEnabled()) {
+      visitService.enqueueCheckOut(checkOutDto);
+      return ResponseEntity.accepted().build();
+    }
+    visitService.checkOut(checkOutDto);
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * Получает показатели буфера отложенной записи посещений:
+   * глубину очереди, количество записанных и отклоненных событий и время сброса.
+   *
+   * @return {@link ResponseEntity} с объектом {@link WriteBehindStatsDto} и статусом 200 OK
+   * @see VisitService#getWriteBehindStats()
+   */
+  @GetMapping("/write-behind/stats")
+  public ResponseEntity<WriteBehindStatsDto> getWriteBehindStats() {
+    log.debug("Called getWriteBehindStats");
+    return ResponseEntity.ok(visitService.getWriteBehindStats());
+  }
+
+  /**
+   * Массовый импорт посещений (например, при переносе истории клуба из другой системы).
+   * <p>
+   * Тело запроса читается потоком в формате NDJSON (один {@link VisitDto} на строку)
+   * или как JSON-массив. Каждая запись проверяется аннотациями валидации DTO, как при создании
+   * одной записи. Записи сохраняются в одной транзакции пакетными вставками JDBC;
+   * при ошибке в любой записи импорт откатывается целиком, номер записи указывается в сообщении.
+   * Идентификаторы посещений из входных данных игнорируются. Клиенты и залы
+   * не загружаются из базы данных: их существование проверяется внешними ключами.
+   * </p>
+   *
+   * @param body поток тела запроса с записями {@link VisitDto}
+   * @return {@link ResponseEntity} с объектом {@link ImportResultDto} и статусом 201 CREATED
+   * @throws IllegalArgumentException если запись не удалось разобрать, она не проходит валидацию или не сохранилась
+   * @see VisitService#importVisits(java.util.Iterator)
+   */
+  @PostMapping(value = "/import", consumes = {"application/x-ndjson", "application/json"})
+  public ResponseEntity<ImportResultDto> importVisits(InputStream body) {
+    log.debug("Called importVisits");
+    return ResponseEntity.status(HttpStatus.CREATED)
+            .body(visitService.importVisits(ndjsonRequests.read(body, VisitDto.class)));
+  }
+
+  /**
+   * Массовая загрузка посещений с отчетом об ошибках по отдельным записям.
+   * <p>
+   * Тело запроса читается потоком в формате CSV (со строкой заголовка из имен полей
+   * {@link VisitDto}) или NDJSON. Каждая запись проверяется аннотациями валидации DTO;
+   * корректные записи загружаются в PostgreSQL командой COPY через промежуточную таблицу.
+   * Посещения с несуществующим клиентом или залом отклоняются.
+   * Некорректные записи пропускаются и перечисляются в отчете, не прерывая загрузку.
+   * </p>
+   *
+   * @param body поток тела запроса
+   * @param contentType тип содержимого ({@code text/csv} или {@code application/x-ndjson})
+   * @return {@link ResponseEntity} с отчетом {@link BulkImportReportDto} и статусом 200 OK
+   * @throws IllegalArgumentException если заголовок CSV содержит неизвестные поля
+   * @see VisitService#bulkImportVisits(java.util.Iterator)
+   */
+  @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+  public ResponseEntity<BulkImportReportDto> bulkImportVisits(
+          InputStream body,
+          @RequestHeader("Content-Type") String contentType
+  ) {
+    log.debug("Called bulkImportVisits with content type: {}", contentType);
+    return ResponseEntity.ok(visitService.bulkImportVisits(bulkRequests.read(body, contentType, VisitDto.class)));
+  }
+
+  /**
+   * Выгружает посещения потоком в формате CSV или NDJSON.
+   * <p>
+   * Строки читаются из базы данных курсором (CSV из PostgreSQL — командой COPY TO STDOUT)
+   * и сразу записываются в ответ, без промежуточных списков. CSV содержит строку заголовка
+   * с именами полей DTO и может быть повторно загружен через {@code /bulk}.
+   * При {@code Accept-Encoding: gzip} ответ сжимается.
+   * </p>
+   *
+   * @param format формат выгрузки ({@code csv} по умолчанию или {@code ndjson})
+   * @param from начало диапазона по дате входа включительно (необязательный)
+   * @param to конец диапазона по дате входа включительно (необязательный)
+   * @param acceptEncoding заголовок {@code Accept-Encoding} запроса
+   * @return {@link ResponseEntity} с потоковым телом и статусом 200 OK
+   * @throws IllegalArgumentException если формат не поддерживается или {@code from} позже {@code to}
+   * @see VisitService#exportVisits(ru.safoev.enumlists.ExportFormat, LocalDate, LocalDate, java.io.OutputStream)
+   */
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportVisits(
+          @RequestParam(value = "format", defaultValue = "csv") String format,
+          @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+          @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding
+  ) {
+    log.debug("Called exportVisits with format: {}, from: {}, to: {}", format, from, to);
+    ExportFormat exportFormat = exportResponses.parseFormat(format);
+    if (from != null && to != null && from.isAfter(to)) {
+      throw new IllegalArgumentException("Export range start " + from + " is after its end " + to);
+    }
+    return exportResponses.export("visits", exportFormat, from, to, acceptEncoding,
+            out -> visitService.exportVisits(exportFormat, from, to, out));
+  }
+
   /**
    * Обновляет данные существующего посещения.
    *
@@ -95,7 +411,7 @@ public class VisitController {
    */
   @PutMapping("/update/{id}")
   public ResponseEntity<VisitDto> updateVisit(@PathVariable("id") Long id, @Valid @RequestBody VisitDto visitDto) {
-    log.info("Called updateVisit with id: {} and data: {}", id, visitDto);
+    log.debug("Called updateVisit with id: {} and data: {}", id, visitDto);
     return ResponseEntity.ok(visitService.updateVisit(id, visitDto));
   }
 
@@ -109,7 +425,7 @@ public class VisitController {
    */
   @DeleteMapping("/delete/{id}")
   public ResponseEntity<Void> deleteVisit(@PathVariable("id") Long id) {
-    log.info("Called deleteVisit with id: {}", id);
+    log.debug("Called deleteVisit with id: {}", id);
     visitService.deleteVisit(id);
     return ResponseEntity.noContent().build();
   }
@@ -0,0 +1,35 @@
+package ru.safoev.dtorecords;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи результата проверки доступа клиента в зал.
+ * <p>
+ * Возвращается эндпоинтом {@code /gym/subscription/access/{clientId}}, который вызывается
+ * турникетом при каждом проходе. Доступ разрешен, если у клиента есть абонемент
+ * в статусе ACTIVE, срок действия которого с учетом заморозок включает проверяемую дату
+ * и который не заморожен в эту дату.
+ * </p>
+ *
+ * @param clientId идентификатор клиента
+ * @param date проверяемая дата
+ * @param allowed признак разрешенного доступа
+ * @param subscriptionId идентификатор действующего абонемента (null, если доступ запрещен)
+ * @param validUntil фактическая дата окончания действующего абонемента с учетом заморозок
+ *                   (null, если доступ запрещен)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record AccessCheckDto(
+        Long clientId,
+
+        LocalDate date,
+
+        boolean allowed,
+
+        Long subscriptionId,
+
+        LocalDate validUntil
+) {}
@@ -0,0 +1,37 @@
+package ru.safoev.dtorecords;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи посещаемости фитнес-зала за час или за день.
+ * <p>
+ * Читается из таблицы агрегатов "visit_hourly_rollups" без обращения к таблице посещений.
+ * Посещение относится к часу и дню по времени входа; средняя длительность считается
+ * только по завершенным посещениям (с отметкой выхода).
+ * </p>
+ *
+ * @param gymId идентификатор зала
+ * @param date дата
+ * @param hour час суток (0-23); null для посещаемости за день
+ * @param visits количество посещений
+ * @param closedVisits количество завершенных посещений
+ * @param averageStaySeconds средняя длительность завершенного посещения в секундах
+ *                           (null, если завершенных посещений нет)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record AttendanceDto(
+        Long gymId,
+
+        LocalDate date,
+
+        Integer hour,
+
+        long visits,
+
+        long closedVisits,
+
+        Double averageStaySeconds
+) {}
@@ -0,0 +1,37 @@
+package ru.safoev.dtorecords;
+
+import java.time.DayOfWeek;
+
+/**
+ * Data Transfer Object (DTO) для передачи типичной посещаемости фитнес-зала
+ * по дню недели и часу суток за период.
+ * <p>
+ * Строится из таблицы агрегатов "visit_hourly_rollups"; используется для поиска
+ * часов пиковой нагрузки и планирования смен персонала.
+ * </p>
+ *
+ * @param gymId идентификатор зала
+ * @param dayOfWeek день недели
+ * @param hour час суток (0-23)
+ * @param visits количество посещений за весь период
+ * @param averageVisits среднее количество посещений на один такой день недели периода
+ * @param averageStaySeconds средняя длительность завершенного посещения в секундах
+ *                           (null, если завершенных посещений нет)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record AttendanceProfileDto(
+        Long gymId,
+
+        DayOfWeek dayOfWeek,
+
+        int hour,
+
+        long visits,
+
+        double averageVisits,
+
+        Double averageStaySeconds
+) {}
@@ -0,0 +1,35 @@
+package ru.safoev.dtorecords;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) для передачи отчета о массовой загрузке записей.
+ * <p>
+ * Некорректные записи не прерывают загрузку: они пропускаются и перечисляются
+ * в списке ошибок. Список ограничен первыми 1000 ошибками.
+ * </p>
+ *
+ * @param totalRows количество прочитанных записей
+ * @param importedRows количество сохраненных записей
+ * @param rejectedRows количество отклоненных записей
+ * @param errors ошибки по отдельным записям, упорядоченные по номеру записи
+ * @param errorsTruncated признак того, что в отчет попали не все ошибки
+ * @param elapsedMillis длительность загрузки в миллисекундах
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record BulkImportReportDto(
+        long totalRows,
+
+        long importedRows,
+
+        long rejectedRows,
+
+        List<BulkRowErrorDto> errors,
+
+        boolean errorsTruncated,
+
+        long elapsedMillis
+) {}
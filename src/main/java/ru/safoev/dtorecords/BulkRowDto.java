@@ -0,0 +1,25 @@
+package ru.safoev.dtorecords;
+
+/**
+ * Data Transfer Object (DTO) для одной записи входного потока массовой загрузки.
+ * <p>
+ * Содержит либо разобранную запись, либо описание ошибки разбора,
+ * что позволяет пропустить некорректную запись без прерывания загрузки.
+ * </p>
+ *
+ * @param rowNumber номер записи во входном потоке, начиная с 1 (строка заголовка CSV не учитывается)
+ * @param value разобранная запись (null, если запись не удалось разобрать)
+ * @param error описание ошибки разбора (null, если запись разобрана успешно)
+ * @param <T> тип записи
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record BulkRowDto<T>(
+        long rowNumber,
+
+        T value,
+
+        String error
+) {}
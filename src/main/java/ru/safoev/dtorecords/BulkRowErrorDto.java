@@ -0,0 +1,17 @@
+package ru.safoev.dtorecords;
+
+/**
+ * Data Transfer Object (DTO) для передачи ошибки в отдельной записи массовой загрузки.
+ *
+ * @param rowNumber номер записи во входном потоке, начиная с 1
+ * @param message описание ошибки
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record BulkRowErrorDto(
+        long rowNumber,
+
+        String message
+) {}
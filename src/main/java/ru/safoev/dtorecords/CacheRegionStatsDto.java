@@ -0,0 +1,30 @@
+package ru.safoev.dtorecords;
+
+/**
+ * Data Transfer Object (DTO) для передачи статистики региона второго уровня кэша Hibernate.
+ * <p>
+ * Используется для наблюдения за эффективностью кэширования справочных данных
+ * (залов и тарифов) и результатов кэшируемых запросов.
+ * </p>
+ *
+ * @param region имя региона кэша
+ * @param hitCount количество обращений, обслуженных из кэша
+ * @param missCount количество обращений, потребовавших запроса к базе данных
+ * @param putCount количество записей, помещенных в кэш
+ * @param hitRatio доля попаданий от общего числа обращений (от 0 до 1)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record CacheRegionStatsDto(
+        String region,
+
+        long hitCount,
+
+        long missCount,
+
+        long putCount,
+
+        double hitRatio
+) {}
@@ -0,0 +1,26 @@
+package ru.safoev.dtorecords;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) для пакетной отметки входа клиентов.
+ * <p>
+ * Используется контроллерами турникетов, которые накапливают проходы
+ * и отправляют их одним запросом. Все записи пакета сохраняются
+ * в одной транзакции пакетными вставками JDBC.
+ * </p>
+ *
+ * @param checkIns список отметок входа (от 1 до 1000 элементов, каждый валидируется)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record CheckInBatchDto(
+        @NotEmpty(message = "Список отметок входа не может быть пустым")
+        @Size(max = 1000, message = "Пакет не может содержать больше 1000 отметок")
+        List<@Valid CheckInDto> checkIns
+) {}
@@ -0,0 +1,29 @@
+package ru.safoev.dtorecords;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) для быстрой отметки входа клиента (check-in) через турникет.
+ * <p>
+ * Содержит только данные, которые известны турникету в момент прохода.
+ * Если время входа не передано, используется текущее время сервера.
+ * </p>
+ *
+ * @param clientId идентификатор клиента (обязательное поле)
+ * @param gymId идентификатор зала (обязательное поле)
+ * @param checkInTime время входа клиента (необязательное поле)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record CheckInDto(
+        @NotNull(message = "ID клиента обязательно")
+        Long clientId,
+
+        @NotNull(message = "ID зала обязательно")
+        Long gymId,
+
+        LocalDateTime checkInTime
+) {}
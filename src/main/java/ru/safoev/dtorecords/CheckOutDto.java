@@ -0,0 +1,29 @@
+package ru.safoev.dtorecords;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) для отметки выхода клиента (check-out) через турникет.
+ * <p>
+ * Закрывает открытое посещение клиента в указанном зале.
+ * Если время выхода не передано, используется текущее время сервера.
+ * </p>
+ *
+ * @param clientId идентификатор клиента (обязательное поле)
+ * @param gymId идентификатор зала (обязательное поле)
+ * @param checkOutTime время выхода клиента (необязательное поле)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record CheckOutDto(
+        @NotNull(message = "ID клиента обязательно")
+        Long clientId,
+
+        @NotNull(message = "ID зала обязательно")
+        Long gymId,
+
+        LocalDateTime checkOutTime
+) {}
@@ -0,0 +1,42 @@
+package ru.safoev.dtorecords;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) для передачи итогов когорты клиентов, зарегистрированных в одном месяце.
+ * <p>
+ * Читается из таблиц когорт "client_cohorts" и "client_cohort_months" без обращения
+ * к таблицам клиентов, абонементов и посещений; показатели отстают от данных не больше
+ * чем на интервал пересчета когорт.
+ * </p>
+ *
+ * @param cohortMonth первый день месяца регистрации
+ * @param clients количество клиентов когорты
+ * @param subscribers количество клиентов когорты с абонементом в текущем месяце
+ * @param lapses количество прекращений абонементов без продления за все время
+ *               (клиент, прекращавший абонемент несколько раз, учитывается несколько раз)
+ * @param revenue сумма продаж абонементов клиентам когорты за все время
+ * @param lifetimeValue сумма продаж в расчете на одного клиента когорты
+ * @param refreshedAt дата и время последнего пересчета когорты
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record ClientCohortDto(
+        LocalDate cohortMonth,
+
+        long clients,
+
+        long subscribers,
+
+        long lapses,
+
+        BigDecimal revenue,
+
+        BigDecimal lifetimeValue,
+
+        LocalDateTime refreshedAt
+) {}
@@ -0,0 +1,20 @@
+package ru.safoev.dtorecords;
+
+/**
+ * Data Transfer Object (DTO) для передачи результата пересчета когорт клиентов.
+ *
+ * @param full true для полной перестройки всех когорт, false для пересчета измененных
+ * @param cohorts количество пересчитанных когорт
+ * @param durationMillis длительность пересчета в миллисекундах
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record CohortRefreshDto(
+        boolean full,
+
+        int cohorts,
+
+        long durationMillis
+) {}
@@ -0,0 +1,57 @@
+package ru.safoev.dtorecords;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи показателей когорты клиентов за один месяц.
+ * <p>
+ * Строка матрицы удержания: когорта (месяц регистрации) и месяц, прошедший с регистрации.
+ * Прекращением абонемента считается окончание абонемента (с учетом заморозок), после которого
+ * клиент не продлил его абонементом, начавшимся не позже следующего дня; для текущего месяца
+ * это абонементы, которые закончатся в этом месяце, если их не продлят.
+ * </p>
+ *
+ * @param cohortMonth первый день месяца регистрации
+ * @param activityMonth первый день месяца показателей
+ * @param monthsSinceRegistration номер месяца от регистрации (0 - месяц регистрации)
+ * @param cohortClients количество клиентов когорты
+ * @param visitors количество клиентов когорты с посещениями в месяце
+ * @param subscribers количество клиентов когорты с абонементом, действовавшим в месяце
+ * @param churned количество клиентов когорты, прекративших абонемент в месяце
+ * @param revenue сумма продаж абонементов клиентам когорты, начавшихся в месяце
+ * @param visitorRetention доля клиентов когорты с посещениями (0-1)
+ * @param subscriberRetention доля клиентов когорты с абонементом (0-1)
+ * @param churnRate доля прекративших абонемент среди клиентов с абонементом в месяце
+ *                  (null, если абонементов нет)
+ * @param lifetimeValue сумма продаж нарастающим итогом с месяца регистрации на одного клиента когорты
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record CohortRetentionDto(
+        LocalDate cohortMonth,
+
+        LocalDate activityMonth,
+
+        long monthsSinceRegistration,
+
+        long cohortClients,
+
+        long visitors,
+
+        long subscribers,
+
+        long churned,
+
+        BigDecimal revenue,
+
+        double visitorRetention,
+
+        double subscriberRetention,
+
+        Double churnRate,
+
+        BigDecimal lifetimeValue
+) {}
@@ -0,0 +1,29 @@
+package ru.safoev.dtorecords;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) для передачи страницы данных при курсорной (keyset) пагинации.
+ * <p>
+ * Страница строится по возрастанию первичного ключа. Для получения следующей страницы
+ * значение {@code nextCursor} передается в параметре {@code cursor} следующего запроса.
+ * В отличие от пагинации со смещением (OFFSET), стоимость запроса не растет
+ * с номером страницы.
+ * </p>
+ *
+ * @param content элементы текущей страницы
+ * @param nextCursor курсор для запроса следующей страницы (null, если страница последняя)
+ * @param hasNext признак наличия следующей страницы
+ * @param <T> тип элементов страницы
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record CursorPageDto<T>(
+        List<T> content,
+
+        Long nextCursor,
+
+        boolean hasNext
+) {}
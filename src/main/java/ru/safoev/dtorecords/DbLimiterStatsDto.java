@@ -0,0 +1,35 @@
+package ru.safoev.dtorecords;
+
+/**
+ * Data Transfer Object (DTO) для передачи показателей ограничителя доступа к базе данных.
+ * <p>
+ * Позволяет наблюдать, насколько запросы упираются в пул соединений при нагрузке.
+ * </p>
+ *
+ * @param enabled признак включенного ограничения
+ * @param permits общее количество разрешений
+ * @param availablePermits количество свободных разрешений
+ * @param waitingThreads приблизительное количество потоков, ожидающих разрешения
+ * @param acquiredCount количество выданных разрешений с момента запуска
+ * @param rejectedCount количество вызовов, отклоненных по истечении времени ожидания
+ * @param maxWaitMillis максимальное время ожидания выданного разрешения в миллисекундах
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record DbLimiterStatsDto(
+        boolean enabled,
+
+        int permits,
+
+        int availablePermits,
+
+        int waitingThreads,
+
+        long acquiredCount,
+
+        long rejectedCount,
+
+        long maxWaitMillis
+) {}
@@ -0,0 +1,32 @@
+package ru.safoev.dtorecords;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ru.safoev.enumlists.ChangeAction;
+
+/**
+ * Data Transfer Object (DTO) для передачи изменения сущности в панель управления.
+ * <p>
+ * Рассылается потоком Server-Sent Events {@code /gym/events} после фиксации транзакции,
+ * чтобы клиент обновлял таблицы по одной строке вместо повторной загрузки списков.
+ * </p>
+ *
+ * @param entity вид сущности: {@code client}, {@code subscription}, {@code employee},
+ *               {@code visit}, {@code equipment}, {@code gym} или {@code rate}
+ * @param action вид изменения
+ * @param id идентификатор записи; отсутствует для {@link ChangeAction#RELOAD}
+ * @param data DTO записи после изменения; отсутствует для удаления и {@link ChangeAction#RELOAD}
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EntityChangeDto(
+        String entity,
+
+        ChangeAction action,
+
+        Long id,
+
+        Object data
+) {}
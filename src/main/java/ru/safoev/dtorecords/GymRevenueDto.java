@@ -0,0 +1,43 @@
+package ru.safoev.dtorecords;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи выручки по фитнес-залу за месяц.
+ * <p>
+ * Абонемент действует во всей сети, поэтому за месяц он относится к залу, который клиент
+ * посещал в этом месяце чаще всего; абонементы клиентов без посещений в месяце
+ * собраны в строку с пустым залом. Доля считается от признанной выручки всех залов за месяц.
+ * </p>
+ *
+ * @param month первый день месяца
+ * @param gymId идентификатор зала (null - клиенты без посещений в месяце)
+ * @param gymName название зала
+ * @param activeSubscriptions количество абонементов, срок которых пересекается с месяцем
+ * @param newSubscriptions количество абонементов, начавшихся в месяце
+ * @param billed сумма продаж
+ * @param recognized признанная выручка
+ * @param share доля признанной выручки месяца (0-1; null, если выручки за месяц нет)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record GymRevenueDto(
+        LocalDate month,
+
+        Long gymId,
+
+        String gymName,
+
+        long activeSubscriptions,
+
+        long newSubscriptions,
+
+        BigDecimal billed,
+
+        BigDecimal recognized,
+
+        Double share
+) {}
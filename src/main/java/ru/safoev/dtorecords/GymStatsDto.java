@@ -0,0 +1,45 @@
+package ru.safoev.dtorecords;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) для передачи сводной статистики фитнес-центра.
+ * <p>
+ * Используется панелью управления вместо выгрузки полных списков клиентов,
+ * абонементов, посещений и оборудования. Все значения рассчитываются
+ * агрегирующими запросами на стороне базы данных.
+ * </p>
+ *
+ * @param clientsCount общее количество клиентов
+ * @param newClientsTodayCount количество клиентов, зарегистрированных сегодня
+ * @param subscriptionsCount общее количество абонементов
+ * @param activeSubscriptionsCount количество активных абонементов
+ * @param frozenSubscriptionsCount количество абонементов, замороженных сегодня
+ * @param todayVisitsCount количество посещений за текущий день
+ * @param equipmentCount общее количество оборудования
+ * @param activeEquipmentCount количество активного оборудования
+ * @param generatedAt дата и время расчета статистики
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record GymStatsDto(
+        long clientsCount,
+
+        long newClientsTodayCount,
+
+        long subscriptionsCount,
+
+        long activeSubscriptionsCount,
+
+        long frozenSubscriptionsCount,
+
+        long todayVisitsCount,
+
+        long equipmentCount,
+
+        long activeEquipmentCount,
+
+        LocalDateTime generatedAt
+) {}
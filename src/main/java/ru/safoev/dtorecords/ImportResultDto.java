@@ -0,0 +1,17 @@
+package ru.safoev.dtorecords;
+
+/**
+ * Data Transfer Object (DTO) для передачи результата массового импорта записей.
+ *
+ * @param importedCount количество сохраненных записей
+ * @param elapsedMillis длительность импорта в миллисекундах
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record ImportResultDto(
+        long importedCount,
+
+        long elapsedMillis
+) {}
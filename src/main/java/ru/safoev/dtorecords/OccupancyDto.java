@@ -0,0 +1,21 @@
+package ru.safoev.dtorecords;
+
+/**
+ * Data Transfer Object (DTO) для передачи текущей заполненности фитнес-зала.
+ * <p>
+ * Значение берется из счетчика в памяти приложения и не требует запроса к базе данных.
+ * Используется эндпоинтами {@code /gym/{id}/occupancy} и потоком событий заполненности.
+ * </p>
+ *
+ * @param gymId идентификатор зала
+ * @param currentVisitors количество посетителей в зале (открытых посещений без отметки выхода)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record OccupancyDto(
+        Long gymId,
+
+        long currentVisitors
+) {}
@@ -0,0 +1,33 @@
+package ru.safoev.dtorecords;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) для передачи страницы данных с общим количеством элементов.
+ * <p>
+ * Используется при поиске с пагинацией по номеру страницы, когда клиенту
+ * нужно знать общее число найденных записей и страниц.
+ * </p>
+ *
+ * @param content элементы текущей страницы
+ * @param pageNumber номер текущей страницы (начинается с 0)
+ * @param pageSize размер страницы
+ * @param totalElements общее количество найденных элементов
+ * @param totalPages общее количество страниц
+ * @param <T> тип элементов страницы
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record PageDto<T>(
+        List<T> content,
+
+        int pageNumber,
+
+        int pageSize,
+
+        long totalElements,
+
+        int totalPages
+) {}
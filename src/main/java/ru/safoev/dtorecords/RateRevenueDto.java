@@ -0,0 +1,42 @@
+package ru.safoev.dtorecords;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи выручки по тарифу за месяц.
+ * <p>
+ * Значения рассчитываются так же, как в {@link RevenueMonthDto}; доля считается
+ * от признанной выручки всех тарифов за месяц.
+ * </p>
+ *
+ * @param month первый день месяца
+ * @param rateId идентификатор тарифа
+ * @param rateName название тарифа (null, если тариф удален)
+ * @param activeSubscriptions количество абонементов, срок которых пересекается с месяцем
+ * @param newSubscriptions количество абонементов, начавшихся в месяце
+ * @param billed сумма продаж
+ * @param recognized признанная выручка
+ * @param share доля признанной выручки месяца (0-1; null, если выручки за месяц нет)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record RateRevenueDto(
+        LocalDate month,
+
+        Long rateId,
+
+        String rateName,
+
+        long activeSubscriptions,
+
+        long newSubscriptions,
+
+        BigDecimal billed,
+
+        BigDecimal recognized,
+
+        Double share
+) {}
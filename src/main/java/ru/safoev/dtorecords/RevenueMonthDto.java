@@ -0,0 +1,41 @@
+package ru.safoev.dtorecords;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи выручки сети фитнес-залов за месяц.
+ * <p>
+ * Признанная выручка - доля цены абонемента, пропорциональная дням его срока
+ * ({@code rate_duration_days}), пришедшимся на месяц; сумма продаж - полная цена
+ * абонементов, начавшихся в месяце. Закрытые месяцы читаются из сохраненных итогов,
+ * текущий и будущие месяцы рассчитываются при запросе.
+ * </p>
+ *
+ * @param month первый день месяца
+ * @param activeSubscriptions количество абонементов, срок которых пересекается с месяцем
+ * @param newSubscriptions количество абонементов, начавшихся в месяце
+ * @param billed сумма продаж
+ * @param recognized признанная выручка
+ * @param recognizedToDate признанная выручка нарастающим итогом с начала запрошенного периода
+ * @param closed true, если месяц закрыт и его итоги сохранены
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record RevenueMonthDto(
+        LocalDate month,
+
+        long activeSubscriptions,
+
+        long newSubscriptions,
+
+        BigDecimal billed,
+
+        BigDecimal recognized,
+
+        BigDecimal recognizedToDate,
+
+        boolean closed
+) {}
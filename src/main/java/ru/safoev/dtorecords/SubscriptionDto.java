@@ -16,7 +16,8 @@ import java.time.LocalDate;
  * @param rateId идентификатор тарифа (обязательное поле)
  * @param startDate дата начала действия абонемента (обязательное поле, должна быть сегодня или в будущем)
  * @param endDate дата окончания действия абонемента (обязательное поле, должна быть сегодня или в будущем)
- * @param freezePeriod период заморозки абонемента (необязательное поле)
+ * @param freezePeriod комментарий к заморозке абонемента (необязательное поле; периоды заморозки
+ *                     задаются отдельно, см. {@link SubscriptionFreezeDto})
  * @param subscriptionStatus статус абонемента (необязательное поле)
  *
  * @author SafoevDalerIT-13
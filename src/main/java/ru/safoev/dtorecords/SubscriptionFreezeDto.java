@@ -0,0 +1,34 @@
+package ru.safoev.dtorecords;
+
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи данных о заморозке абонемента.
+ * <p>
+ * Используется эндпоинтами заморозки и разморозки абонемента. Период задается датами
+ * начала и окончания включительно; на его длительность продлевается абонемент.
+ * </p>
+ *
+ * @param freezeId уникальный идентификатор заморозки (может быть null при создании)
+ * @param subscriptionId идентификатор абонемента (заполняется из пути запроса)
+ * @param startDate дата начала заморозки (обязательное поле, должна быть сегодня или в будущем)
+ * @param endDate дата окончания заморозки включительно (обязательное поле)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record SubscriptionFreezeDto(
+        Long freezeId,
+
+        Long subscriptionId,
+
+        @NotNull(message = "Дата начала заморозки обязательна")
+        @FutureOrPresent(message = "Дата начала заморозки должна быть сегодня или в будущем")
+        LocalDate startDate,
+
+        @NotNull(message = "Дата окончания заморозки обязательна")
+        LocalDate endDate
+) {}
@@ -0,0 +1,29 @@
+package ru.safoev.dtorecords;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи срока действия абонемента клиента.
+ * <p>
+ * Используется индексом доступа в памяти ({@code SubscriptionAccessService}) и читается
+ * из таблицы "subscriptions" DTO-проекцией без загрузки сущностей клиента и тарифа.
+ * </p>
+ *
+ * @param subscriptionId идентификатор абонемента
+ * @param clientId идентификатор клиента
+ * @param startDate дата начала действия абонемента
+ * @param endDate фактическая дата окончания действия абонемента с учетом заморозок (включительно)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record SubscriptionValidityDto(
+        Long subscriptionId,
+
+        Long clientId,
+
+        LocalDate startDate,
+
+        LocalDate endDate
+) {}
@@ -0,0 +1,32 @@
+package ru.safoev.dtorecords;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи сведений об архиве посещений зала за месяц.
+ * <p>
+ * Посещения старше границы архива хранятся вне базы данных в сжатых файлах,
+ * сгруппированных по залу и месяцу времени входа; каждый перенос добавляет в месяц новую часть.
+ * </p>
+ *
+ * @param gymId идентификатор зала
+ * @param month первый день месяца
+ * @param chunks количество частей (файлов) архива
+ * @param visits количество посещений в архиве
+ * @param compressedBytes суммарный размер файлов в байтах
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record VisitArchiveDto(
+        Long gymId,
+
+        LocalDate month,
+
+        int chunks,
+
+        long visits,
+
+        long compressedBytes
+) {}
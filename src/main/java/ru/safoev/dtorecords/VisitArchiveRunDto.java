@@ -0,0 +1,25 @@
+package ru.safoev.dtorecords;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи результата переноса посещений в архив.
+ *
+ * @param archivedBefore граница архива: перенесены посещения с временем входа раньше этой даты
+ * @param archivedVisits количество перенесенных посещений
+ * @param chunks количество записанных частей архива
+ * @param durationMillis длительность переноса в миллисекундах
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record VisitArchiveRunDto(
+        LocalDate archivedBefore,
+
+        long archivedVisits,
+
+        int chunks,
+
+        long durationMillis
+) {}
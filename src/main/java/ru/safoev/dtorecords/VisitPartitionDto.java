@@ -0,0 +1,30 @@
+package ru.safoev.dtorecords;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для передачи сведений о секции таблицы посещений.
+ * <p>
+ * В PostgreSQL таблица "visits" секционирована по месяцу времени входа; каждая месячная
+ * секция содержит посещения с временем входа в интервале [from, to). Секция по умолчанию
+ * принимает строки, для месяца которых секция еще не создана, и не имеет границ.
+ * </p>
+ *
+ * @param name имя таблицы секции
+ * @param from первый день месяца секции (null для секции по умолчанию)
+ * @param to первый день следующего месяца (null для секции по умолчанию)
+ * @param estimatedRows оценка количества строк по статистике планировщика
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record VisitPartitionDto(
+        String name,
+
+        LocalDate from,
+
+        LocalDate to,
+
+        long estimatedRows
+) {}
@@ -0,0 +1,50 @@
+package ru.safoev.dtorecords;
+
+/**
+ * Data Transfer Object (DTO) для передачи показателей буфера отложенной записи посещений.
+ * <p>
+ * Позволяет наблюдать за глубиной очереди и временем сброса пакетов в базу данных.
+ * </p>
+ *
+ * @param enabled признак включенного режима отложенной записи
+ * @param queueDepth текущее количество событий, ожидающих записи
+ * @param capacity максимальная емкость буфера
+ * @param acceptedEvents количество принятых событий с момента запуска
+ * @param rejectedEvents количество событий, отклоненных из-за переполнения буфера
+ * @param writtenEvents количество событий, записанных в базу данных
+ * @param skippedEvents количество событий, не примененных (неизвестный клиент/зал или нет открытого посещения)
+ * @param flushCount количество успешных сбросов буфера
+ * @param failedFlushCount количество неудачных попыток сброса
+ * @param lastFlushMillis длительность последнего сброса в миллисекундах
+ * @param maxFlushMillis максимальная длительность сброса в миллисекундах
+ * @param avgFlushMillis средняя длительность сброса в миллисекундах
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public record WriteBehindStatsDto(
+        boolean enabled,
+
+        int queueDepth,
+
+        int capacity,
+
+        long acceptedEvents,
+
+        long rejectedEvents,
+
+        long writtenEvents,
+
+        long skippedEvents,
+
+        long flushCount,
+
+        long failedFlushCount,
+
+        double lastFlushMillis,
+
+        double maxFlushMillis,
+
+        double avgFlushMillis
+) {}
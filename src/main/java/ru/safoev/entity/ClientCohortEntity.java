@@ -0,0 +1,92 @@
+package ru.safoev.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Сущность когорты клиентов, зарегистрированных в одном месяце.
+ * <p>
+ * Представляет таблицу "client_cohorts" в базе данных: для каждого месяца регистрации
+ * хранится количество клиентов когорты и время ее последнего пересчета. Строки заполняются
+ * только пересчетом когорт (см. {@code ClientCohortService}) вместе с помесячными
+ * показателями когорты ({@link ClientCohortMonthEntity}).
+ * </p>
+ *
+ * @Entity указывает, что этот класс является JPA сущностью
+ * @Table(name = "client_cohorts") задает имя таблицы в базе данных
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Entity
+@Table(name = "client_cohorts")
+public class ClientCohortEntity {
+
+  /**
+   * Первый день месяца регистрации клиентов когорты.
+   * <p>
+   * Соответствует столбцу "cohort_month" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @Column(name = "cohort_month")
+  private LocalDate cohort_month;
+
+  /**
+   * Количество клиентов, зарегистрированных в месяце.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "cohort_clients" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "cohort_clients", nullable = false)
+  private Long cohort_clients;
+
+  /**
+   * Дата и время последнего пересчета когорты.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "cohort_refreshed_at" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "cohort_refreshed_at", nullable = false)
+  private LocalDateTime cohort_refreshedAt;
+
+  /**
+   * Конструктор без параметров (требуется JPA).
+   */
+  public ClientCohortEntity() {
+  }
+
+  // Геттеры
+
+  /**
+   * Возвращает первый день месяца регистрации.
+   *
+   * @return первый день месяца
+   */
+  public LocalDate getCohort_month() {
+    return cohort_month;
+  }
+
+  /**
+   * Возвращает количество клиентов когорты.
+   *
+   * @return количество клиентов
+   */
+  public Long getCohort_clients() {
+    return cohort_clients;
+  }
+
+  /**
+   * Возвращает дату и время последнего пересчета когорты.
+   *
+   * @return дата и время пересчета
+   */
+  public LocalDateTime getCohort_refreshedAt() {
+    return cohort_refreshedAt;
+  }
+}
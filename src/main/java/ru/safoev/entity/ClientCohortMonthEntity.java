@@ -0,0 +1,155 @@
+package ru.safoev.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Сущность показателей когорты клиентов за один календарный месяц.
+ * <p>
+ * Представляет таблицу "client_cohort_months" в базе данных: для каждой когорты
+ * (месяца регистрации) и каждого месяца от регистрации по текущий хранятся количество
+ * клиентов когорты с посещениями, с действующим абонементом и с прекратившимся
+ * абонементом, а также сумма продаж абонементов клиентам когорты. Строки заполняются
+ * только пересчетом когорт (см. {@code ClientCohortService}) запросом INSERT ... SELECT;
+ * пересчитываются только когорты, данные клиентов которых изменились.
+ * </p>
+ *
+ * @Entity указывает, что этот класс является JPA сущностью
+ * @Table(name = "client_cohort_months") задает имя таблицы в базе данных
+ * @IdClass задает составной первичный ключ (когорта, месяц)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Entity
+@IdClass(ClientCohortMonthId.class)
+@Table(name = "client_cohort_months")
+public class ClientCohortMonthEntity {
+
+  /**
+   * Первый день месяца регистрации клиентов когорты.
+   * <p>
+   * Первая часть первичного ключа: показатели когорты читаются и удаляются
+   * непрерывным диапазоном индекса первичного ключа.
+   * Соответствует столбцу "cohort_month" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @Column(name = "cohort_month")
+  private LocalDate cohort_month;
+
+  /**
+   * Первый день месяца, к которому относятся показатели.
+   * <p>
+   * Соответствует столбцу "cohort_activity_month" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @Column(name = "cohort_activity_month")
+  private LocalDate cohort_activityMonth;
+
+  /**
+   * Количество клиентов когорты, посетивших зал в месяце.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "cohort_visitors" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "cohort_visitors", nullable = false)
+  private Long cohort_visitors;
+
+  /**
+   * Количество клиентов когорты с абонементом, действовавшим хотя бы один день месяца.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "cohort_subscribers" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "cohort_subscribers", nullable = false)
+  private Long cohort_subscribers;
+
+  /**
+   * Количество клиентов когорты, абонемент которых закончился в месяце и не был продлен.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "cohort_churned" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "cohort_churned", nullable = false)
+  private Long cohort_churned;
+
+  /**
+   * Сумма продаж: полная цена абонементов клиентов когорты, начавшихся в месяце.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "cohort_revenue" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "cohort_revenue", nullable = false, precision = 14, scale = 2)
+  private BigDecimal cohort_revenue;
+
+  /**
+   * Конструктор без параметров (требуется JPA).
+   */
+  public ClientCohortMonthEntity() {
+  }
+
+  // Геттеры
+
+  /**
+   * Возвращает первый день месяца регистрации.
+   *
+   * @return первый день месяца
+   */
+  public LocalDate getCohort_month() {
+    return cohort_month;
+  }
+
+  /**
+   * Возвращает первый день месяца показателей.
+   *
+   * @return первый день месяца
+   */
+  public LocalDate getCohort_activityMonth() {
+    return cohort_activityMonth;
+  }
+
+  /**
+   * Возвращает количество клиентов с посещениями.
+   *
+   * @return количество клиентов
+   */
+  public Long getCohort_visitors() {
+    return cohort_visitors;
+  }
+
+  /**
+   * Возвращает количество клиентов с действующим абонементом.
+   *
+   * @return количество клиентов
+   */
+  public Long getCohort_subscribers() {
+    return cohort_subscribers;
+  }
+
+  /**
+   * Возвращает количество клиентов с прекратившимся абонементом.
+   *
+   * @return количество клиентов
+   */
+  public Long getCohort_churned() {
+    return cohort_churned;
+  }
+
+  /**
+   * Возвращает сумму продаж.
+   *
+   * @return сумма продаж
+   */
+  public BigDecimal getCohort_revenue() {
+    return cohort_revenue;
+  }
+}
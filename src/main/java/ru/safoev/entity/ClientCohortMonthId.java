@@ -0,0 +1,56 @@
+package ru.safoev.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Составной идентификатор показателей когорты клиентов за месяц.
+ * <p>
+ * Используется как {@code @IdClass} сущности {@link ClientCohortMonthEntity}:
+ * имена и типы полей совпадают с полями-идентификаторами сущности.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public class ClientCohortMonthId implements Serializable {
+
+  private LocalDate cohort_month;
+  private LocalDate cohort_activityMonth;
+
+  /**
+   * Конструктор без параметров (требуется JPA).
+   */
+  public ClientCohortMonthId() {
+  }
+
+  /**
+   * Конструктор со всеми параметрами.
+   *
+   * @param cohort_month первый день месяца регистрации
+   * @param cohort_activityMonth первый день месяца показателей
+   */
+  public ClientCohortMonthId(LocalDate cohort_month, LocalDate cohort_activityMonth) {
+    this.cohort_month = cohort_month;
+    this.cohort_activityMonth = cohort_activityMonth;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ClientCohortMonthId other)) {
+      return false;
+    }
+    return Objects.equals(cohort_month, other.cohort_month)
+            && Objects.equals(cohort_activityMonth, other.cohort_activityMonth);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(cohort_month, cohort_activityMonth);
+  }
+}
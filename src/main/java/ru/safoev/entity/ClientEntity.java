@@ -13,24 +13,30 @@ import java.time.LocalDateTime;
  *
  * @Entity указывает, что этот класс является JPA сущностью
  * @Table(name = "clients") задает имя таблицы в базе данных
+ * @Index объявляет индекс по дате регистрации для пересчета когорт клиентов;
+ *        поиск по фрагменту обслуживают триграммные индексы из schema-postgresql.sql
  *
  * @author SafoevDalerIT-13
  * @version 1.0
  * @since 2025
  */
 @Entity
-@Table(name = "clients")
+@Table(name = "clients", indexes = {
+        @Index(name = "idx_clients_registration_date", columnList = "client_registration_date")
+})
 public class ClientEntity {
 
   /**
    * Уникальный идентификатор клиента.
    * <p>
-   * Генерируется автоматически с использованием стратегии IDENTITY.
+   * Генерируется автоматически из последовательности "clients_seq" блоками по 50 значений
+   * (allocationSize), что позволяет выполнять вставки пакетами JDBC.
    * Соответствует столбцу "client_id" в таблице базы данных.
    * </p>
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "clients_seq")
+  @SequenceGenerator(name = "clients_seq", sequenceName = "clients_seq", allocationSize = 50)
   @Column(name = "client_id")
   private Long client_id;
 
@@ -59,7 +65,8 @@ public class ClientEntity {
   /**
    * Телефонный номер клиента.
    * <p>
-   * Должен быть уникальным (unique = true).
+   * Должен быть уникальным (unique = true); уникальный индекс обслуживает точные проверки номера,
+   * поиск по фрагменту выполняется по триграммному индексу.
    * Максимальная длина - 20 символов.
    * Соответствует столбцу "client_phone" в таблице базы данных.
    * </p>
@@ -71,6 +78,7 @@ public class ClientEntity {
    * Электронная почта клиента.
    * <p>
    * Максимальная длина - 100 символов.
+   * Поиск по фрагменту выполняется по триграммному индексу idx_clients_email_trgm.
    * Соответствует столбцу "client_email" в таблице базы данных.
    * </p>
    */
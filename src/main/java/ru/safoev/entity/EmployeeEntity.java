@@ -25,12 +25,14 @@ public class EmployeeEntity {
   /**
    * Уникальный идентификатор сотрудника.
    * <p>
-   * Генерируется автоматически с использованием стратегии IDENTITY.
+   * Генерируется автоматически из последовательности "employees_seq" блоками по 50 значений
+   * (allocationSize), что позволяет выполнять вставки пакетами JDBC.
    * Соответствует столбцу "employees_id" в таблице базы данных.
    * </p>
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_seq")
+  @SequenceGenerator(name = "employees_seq", sequenceName = "employees_seq", allocationSize = 50)
   @Column(name = "employees_id")
   private Long employees_id;
 
@@ -81,10 +83,12 @@ public class EmployeeEntity {
    * Фитнес-зал, в котором работает сотрудник.
    * <p>
    * Связь ManyToOne с сущностью GymEntity.
+   * Загружается лениво (FetchType.LAZY): для получения идентификатора
+   * связанной сущности дополнительный запрос не выполняется.
    * Соответствует внешнему ключу "gym_id" в таблице базы данных.
    * </p>
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "gym_id")
   private GymEntity gym;
 
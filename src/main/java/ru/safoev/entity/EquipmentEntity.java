@@ -25,12 +25,14 @@ public class EquipmentEntity {
   /**
    * Уникальный идентификатор оборудования.
    * <p>
-   * Генерируется автоматически с использованием стратегии IDENTITY.
+   * Генерируется автоматически из последовательности "equipment_seq" блоками по 50 значений
+   * (allocationSize), что позволяет выполнять вставки пакетами JDBC.
    * Соответствует столбцу "equipment_id" в таблице базы данных.
    * </p>
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "equipment_seq")
+  @SequenceGenerator(name = "equipment_seq", sequenceName = "equipment_seq", allocationSize = 50)
   @Column(name = "equipment_id")
   private Long equipmentId;
 
@@ -71,11 +73,13 @@ public class EquipmentEntity {
    * Фитнес-зал, к которому принадлежит оборудование.
    * <p>
    * Связь ManyToOne с сущностью GymEntity.
+   * Загружается лениво (FetchType.LAZY): для получения идентификатора
+   * связанной сущности дополнительный запрос не выполняется.
    * Обязательное поле (nullable = false).
    * Соответствует внешнему ключу "gym_id" в таблице базы данных.
    * </p>
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "gym_id", nullable = false)
   private GymEntity gym;
 
@@ -1,6 +1,8 @@
 package ru.safoev.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalTime;
 
 /**
@@ -12,6 +14,9 @@ import java.time.LocalTime;
  *
  * @Entity указывает, что этот класс является JPA сущностью
  * @Table(name = "gyms") задает имя таблицы в базе данных
+ * @Cacheable и @Cache помещают сущность во второй уровень кэша Hibernate (регион "gyms"):
+ * справочные данные меняются редко, а читаются при каждом создании связанных записей.
+ * Изменения и удаления через Hibernate обновляют кэш автоматически.
  * @UniqueConstraint обеспечивает уникальность адреса зала
  *
  * @author SafoevDalerIT-13
@@ -19,6 +24,8 @@ import java.time.LocalTime;
  * @since 2025
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "gyms")
 @Table(name = "gyms", uniqueConstraints = {
         @UniqueConstraint(columnNames = "gym_address")
 })
@@ -27,12 +34,14 @@ public class GymEntity {
   /**
    * Уникальный идентификатор фитнес-зала.
    * <p>
-   * Генерируется автоматически с использованием стратегии IDENTITY.
+   * Генерируется автоматически из последовательности "gyms_seq" блоками по 50 значений
+   * (allocationSize), что позволяет выполнять вставки пакетами JDBC.
    * Соответствует столбцу "gym_id" в таблице базы данных.
    * </p>
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gyms_seq")
+  @SequenceGenerator(name = "gyms_seq", sequenceName = "gyms_seq", allocationSize = 50)
   @Column(name = "gym_id")
   private Long gym_id;
 
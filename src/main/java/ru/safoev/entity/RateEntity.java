@@ -1,6 +1,8 @@
 package ru.safoev.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
 
 /**
@@ -12,24 +14,31 @@ import java.math.BigDecimal;
  *
  * @Entity указывает, что этот класс является JPA сущностью
  * @Table(name = "rates") задает имя таблицы в базе данных
+ * @Cacheable и @Cache помещают сущность во второй уровень кэша Hibernate (регион "rates"):
+ * справочные данные меняются редко, а читаются при каждом создании связанных записей.
+ * Изменения и удаления через Hibernate обновляют кэш автоматически.
  *
  * @author SafoevDalerIT-13
  * @version 1.0
  * @since 2025
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "rates")
 @Table(name = "rates")
 public class RateEntity {
 
   /**
    * Уникальный идентификатор тарифа.
    * <p>
-   * Генерируется автоматически с использованием стратегии IDENTITY.
+   * Генерируется автоматически из последовательности "rates_seq" блоками по 50 значений
+   * (allocationSize), что позволяет выполнять вставки пакетами JDBC.
    * Соответствует столбцу "rate_id" в таблице базы данных.
    * </p>
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rates_seq")
+  @SequenceGenerator(name = "rates_seq", sequenceName = "rates_seq", allocationSize = 50)
   @Column(name = "rate_id")
   private Long rate_id;
 
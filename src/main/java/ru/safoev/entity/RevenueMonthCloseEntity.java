@@ -0,0 +1,83 @@
+package ru.safoev.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Сущность отметки о закрытии месяца для отчетов о выручке.
+ * <p>
+ * Представляет таблицу "revenue_month_closes" в базе данных. Выручка закрытого месяца
+ * читается из таблицы "revenue_monthly"; отметка нужна, чтобы отличать закрытый месяц
+ * без абонементов от еще не закрытого.
+ * </p>
+ *
+ * @Entity указывает, что этот класс является JPA сущностью
+ * @Table(name = "revenue_month_closes") задает имя таблицы в базе данных
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Entity
+@Table(name = "revenue_month_closes")
+public class RevenueMonthCloseEntity {
+
+  /**
+   * Первый день закрытого месяца.
+   * <p>
+   * Соответствует столбцу "revenue_month" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @Column(name = "revenue_month")
+  private LocalDate revenue_month;
+
+  /**
+   * Дата и время закрытия (последнего пересчета) месяца.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "revenue_closed_at" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "revenue_closed_at", nullable = false)
+  private LocalDateTime revenue_closedAt;
+
+  /**
+   * Конструктор без параметров (требуется JPA).
+   */
+  public RevenueMonthCloseEntity() {
+  }
+
+  /**
+   * Конструктор со всеми параметрами.
+   *
+   * @param revenue_month первый день закрытого месяца
+   * @param revenue_closedAt дата и время закрытия
+   */
+  public RevenueMonthCloseEntity(LocalDate revenue_month, LocalDateTime revenue_closedAt) {
+    this.revenue_month = revenue_month;
+    this.revenue_closedAt = revenue_closedAt;
+  }
+
+  // Геттеры
+
+  /**
+   * Возвращает первый день закрытого месяца.
+   *
+   * @return первый день месяца
+   */
+  public LocalDate getRevenue_month() {
+    return revenue_month;
+  }
+
+  /**
+   * Возвращает дату и время закрытия месяца.
+   *
+   * @return дата и время закрытия
+   */
+  public LocalDateTime getRevenue_closedAt() {
+    return revenue_closedAt;
+  }
+}
@@ -0,0 +1,182 @@
+package ru.safoev.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Сущность выручки закрытого месяца по тарифу и залу.
+ * <p>
+ * Представляет таблицу "revenue_monthly" в базе данных: для каждого закрытого месяца
+ * хранятся количество действующих и новых абонементов, сумма продаж (полная цена абонементов,
+ * начавшихся в месяце) и признанная выручка - доля цены абонемента, пропорциональная
+ * дням его срока ({@code rate_duration_days}), пришедшимся на месяц.
+ * Строки заполняются только закрытием месяца (см. {@code RevenueService}) одним запросом
+ * INSERT ... SELECT: после закрытия отчеты за месяц не пересчитываются, даже если
+ * цена тарифа изменилась.
+ * </p>
+ * <p>
+ * Абонемент не привязан к залу, поэтому абонемент за месяц относится к залу, который клиент
+ * посещал в этом месяце чаще всего. Абонементы клиентов без посещений в месяце хранятся
+ * с залом 0. Каждый абонемент за месяц попадает ровно в одну строку, поэтому все значения
+ * можно суммировать по залам и тарифам.
+ * </p>
+ *
+ * @Entity указывает, что этот класс является JPA сущностью
+ * @Table(name = "revenue_monthly") задает имя таблицы в базе данных
+ * @IdClass задает составной первичный ключ (месяц, тариф, зал)
+ * @Index объявляет индекс по месяцу для отчетов за период
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Entity
+@IdClass(RevenueMonthId.class)
+@Table(name = "revenue_monthly", indexes = {
+        @Index(name = "idx_revenue_monthly_month", columnList = "revenue_month")
+})
+public class RevenueMonthEntity {
+
+  /**
+   * Первый день месяца.
+   * <p>
+   * Соответствует столбцу "revenue_month" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @Column(name = "revenue_month")
+  private LocalDate revenue_month;
+
+  /**
+   * Идентификатор тарифа.
+   * <p>
+   * Соответствует столбцу "rate_id" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @Column(name = "rate_id")
+  private Long rateId;
+
+  /**
+   * Идентификатор зала, к которому отнесены абонементы (0 - клиенты без посещений в месяце).
+   * <p>
+   * Соответствует столбцу "gym_id" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @Column(name = "gym_id")
+  private Long gymId;
+
+  /**
+   * Количество абонементов, срок которых пересекается с месяцем.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "revenue_active_subscriptions" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "revenue_active_subscriptions", nullable = false)
+  private Long revenue_activeSubscriptions;
+
+  /**
+   * Количество абонементов, начавшихся в месяце.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "revenue_new_subscriptions" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "revenue_new_subscriptions", nullable = false)
+  private Long revenue_newSubscriptions;
+
+  /**
+   * Сумма продаж: полная цена абонементов, начавшихся в месяце.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "revenue_billed" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "revenue_billed", nullable = false, precision = 14, scale = 2)
+  private BigDecimal revenue_billed;
+
+  /**
+   * Признанная выручка: доля цены абонементов по дням срока, пришедшимся на месяц.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "revenue_recognized" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "revenue_recognized", nullable = false, precision = 14, scale = 2)
+  private BigDecimal revenue_recognized;
+
+  /**
+   * Конструктор без параметров (требуется JPA).
+   */
+  public RevenueMonthEntity() {
+  }
+
+  // Геттеры
+
+  /**
+   * Возвращает первый день месяца.
+   *
+   * @return первый день месяца
+   */
+  public LocalDate getRevenue_month() {
+    return revenue_month;
+  }
+
+  /**
+   * Возвращает идентификатор тарифа.
+   *
+   * @return идентификатор тарифа
+   */
+  public Long getRateId() {
+    return rateId;
+  }
+
+  /**
+   * Возвращает идентификатор зала.
+   *
+   * @return идентификатор зала (0 - клиенты без посещений в месяце)
+   */
+  public Long getGymId() {
+    return gymId;
+  }
+
+  /**
+   * Возвращает количество действующих абонементов.
+   *
+   * @return количество абонементов
+   */
+  public Long getRevenue_activeSubscriptions() {
+    return revenue_activeSubscriptions;
+  }
+
+  /**
+   * Возвращает количество новых абонементов.
+   *
+   * @return количество абонементов
+   */
+  public Long getRevenue_newSubscriptions() {
+    return revenue_newSubscriptions;
+  }
+
+  /**
+   * Возвращает сумму продаж.
+   *
+   * @return сумма продаж
+   */
+  public BigDecimal getRevenue_billed() {
+    return revenue_billed;
+  }
+
+  /**
+   * Возвращает признанную выручку.
+   *
+   * @return признанная выручка
+   */
+  public BigDecimal getRevenue_recognized() {
+    return revenue_recognized;
+  }
+}
@@ -0,0 +1,60 @@
+package ru.safoev.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Составной идентификатор выручки закрытого месяца.
+ * <p>
+ * Используется как {@code @IdClass} сущности {@link RevenueMonthEntity}:
+ * имена и типы полей совпадают с полями-идентификаторами сущности.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public class RevenueMonthId implements Serializable {
+
+  private LocalDate revenue_month;
+  private Long rateId;
+  private Long gymId;
+
+  /**
+   * Конструктор без параметров (требуется JPA).
+   */
+  public RevenueMonthId() {
+  }
+
+  /**
+   * Конструктор со всеми параметрами.
+   *
+   * @param revenue_month первый день месяца
+   * @param rateId идентификатор тарифа
+   * @param gymId идентификатор зала
+   */
+  public RevenueMonthId(LocalDate revenue_month, Long rateId, Long gymId) {
+    this.revenue_month = revenue_month;
+    this.rateId = rateId;
+    this.gymId = gymId;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RevenueMonthId other)) {
+      return false;
+    }
+    return Objects.equals(revenue_month, other.revenue_month)
+            && Objects.equals(rateId, other.rateId)
+            && Objects.equals(gymId, other.gymId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(revenue_month, rateId, gymId);
+  }
+}
@@ -13,24 +13,33 @@ import java.time.LocalDate;
  *
  * @Entity указывает, что этот класс является JPA сущностью
  * @Table(name = "subscriptions") задает имя таблицы в базе данных
+ * @Index объявляет индексы по статусу и фактической дате окончания для подсчета действующих
+ *        абонементов и поиска истекших, а также по клиенту для проверки доступа клиента в зал
  *
  * @author SafoevDalerIT-13
  * @version 1.0
  * @since 2025
  */
 @Entity
-@Table(name = "subscriptions")
+@Table(name = "subscriptions", indexes = {
+        @Index(name = "idx_subscriptions_status_end_date",
+                columnList = "subscription_status, subscription_effective_end_date"),
+        @Index(name = "idx_subscriptions_client_status_end_date",
+                columnList = "client_id, subscription_status, subscription_effective_end_date")
+})
 public class SubscriptionEntity {
 
   /**
    * Уникальный идентификатор абонемента.
    * <p>
-   * Генерируется автоматически с использованием стратегии IDENTITY.
+   * Генерируется автоматически из последовательности "subscriptions_seq" блоками по 50 значений
+   * (allocationSize), что позволяет выполнять вставки пакетами JDBC.
    * Соответствует столбцу "subscription_id" в таблице базы данных.
    * </p>
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "subscriptions_seq")
+  @SequenceGenerator(name = "subscriptions_seq", sequenceName = "subscriptions_seq", allocationSize = 50)
   @Column(name = "subscription_id")
   private Long subscription_id;
 
@@ -38,11 +47,13 @@ public class SubscriptionEntity {
    * Клиент, которому принадлежит абонемент.
    * <p>
    * Связь ManyToOne с сущностью ClientEntity.
+   * Загружается лениво (FetchType.LAZY): для получения идентификатора
+   * связанной сущности дополнительный запрос не выполняется.
    * Обязательное поле (nullable = false).
    * Соответствует внешнему ключу "client_id" в таблице базы данных.
    * </p>
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "client_id", nullable = false)
   private ClientEntity client;
 
@@ -50,11 +61,13 @@ public class SubscriptionEntity {
    * Тариф абонемента.
    * <p>
    * Связь ManyToOne с сущностью RateEntity.
+   * Загружается лениво (FetchType.LAZY): для получения идентификатора
+   * связанной сущности дополнительный запрос не выполняется.
    * Обязательное поле (nullable = false).
    * Соответствует внешнему ключу "rate_id" в таблице базы данных.
    * </p>
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "rate_id", nullable = false)
   private RateEntity rate;
 
@@ -79,9 +92,24 @@ public class SubscriptionEntity {
   private LocalDate subscription_endDate;
 
   /**
-   * Период заморозки абонемента.
+   * Фактическая дата окончания действия абонемента с учетом заморозок.
    * <p>
-   * Необязательное поле.
+   * Равна дате окончания, сдвинутой на суммарную длительность заморозок
+   * из таблицы "subscription_freezes"; пересчитывается запросом к базе данных
+   * при заморозке и разморозке. Хранится в таблице, чтобы проверки действия
+   * абонемента и отчеты выполнялись по индексу.
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "subscription_effective_end_date" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "subscription_effective_end_date", nullable = false)
+  private LocalDate subscription_effectiveEndDate;
+
+  /**
+   * Комментарий к заморозке абонемента в свободной форме.
+   * <p>
+   * Необязательное поле. Не участвует в расчетах: периоды заморозки
+   * хранятся в таблице "subscription_freezes" ({@link SubscriptionFreezeEntity}).
    * Максимальная длина - 50 символов.
    * Соответствует столбцу "subscription_freeze_period" в таблице базы данных.
    * </p>
@@ -111,13 +139,16 @@ public class SubscriptionEntity {
 
   /**
    * Конструктор со всеми параметрами.
+   * <p>
+   * Фактическая дата окончания совпадает с датой окончания: у нового абонемента нет заморозок.
+   * </p>
    *
    * @param subscription_id уникальный идентификатор абонемента
    * @param client клиент, которому принадлежит абонемент
    * @param rate тариф абонемента
    * @param subscription_startDate дата начала действия
    * @param subscription_endDate дата окончания действия
-   * @param subscription_freezePeriod период заморозки
+   * @param subscription_freezePeriod комментарий к заморозке
    * @param subscription_status статус абонемента
    */
   public SubscriptionEntity(Long subscription_id, ClientEntity client, RateEntity rate,
@@ -128,6 +159,7 @@ public class SubscriptionEntity {
     this.rate = rate;
     this.subscription_startDate = subscription_startDate;
     this.subscription_endDate = subscription_endDate;
+    this.subscription_effectiveEndDate = subscription_endDate;
     this.subscription_freezePeriod = subscription_freezePeriod;
     this.subscription_status = subscription_status;
   }
@@ -225,18 +257,36 @@ public class SubscriptionEntity {
   }
 
   /**
-   * Возвращает период заморозки абонемента.
+   * Возвращает фактическую дату окончания действия абонемента с учетом заморозок.
+   *
+   * @return фактическая дата окончания действия
+   */
+  public LocalDate getSubscription_effectiveEndDate() {
+    return subscription_effectiveEndDate;
+  }
+
+  /**
+   * Устанавливает фактическую дату окончания действия абонемента.
+   *
+   * @param subscription_effectiveEndDate фактическая дата окончания действия
+   */
+  public void setSubscription_effectiveEndDate(LocalDate subscription_effectiveEndDate) {
+    this.subscription_effectiveEndDate = subscription_effectiveEndDate;
+  }
+
+  /**
+   * Возвращает комментарий к заморозке абонемента.
    *
-   * @return период заморозки
+   * @return комментарий к заморозке
    */
   public String getSubscription_freezePeriod() {
     return subscription_freezePeriod;
   }
 
   /**
-   * Устанавливает период заморозки абонемента.
+   * Устанавливает комментарий к заморозке абонемента.
    *
-   * @param subscription_freezePeriod период заморозки
+   * @param subscription_freezePeriod комментарий к заморозке
    */
   public void setSubscription_freezePeriod(String subscription_freezePeriod) {
     this.subscription_freezePeriod = subscription_freezePeriod;
@@ -0,0 +1,180 @@
+package ru.safoev.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDate;
+
+/**
+ * Сущность заморозки абонемента.
+ * <p>
+ * Представляет таблицу "subscription_freezes" в базе данных: каждая запись - период
+ * с датой начала и датой окончания включительно, в течение которого абонемент приостановлен.
+ * Сумма длительностей заморозок продлевает абонемент (см.
+ * {@link SubscriptionEntity#getSubscription_effectiveEndDate()}).
+ * В PostgreSQL периоды одного абонемента не пересекаются благодаря ограничению-исключению
+ * по диапазону дат с индексом GiST (см. schema-postgresql.sql).
+ * </p>
+ *
+ * @Entity указывает, что этот класс является JPA сущностью
+ * @Table(name = "subscription_freezes") задает имя таблицы в базе данных
+ * @Index объявляет индексы по абонементу для проверки пересечений и по дате окончания
+ *        для выборки текущих и будущих заморозок
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Entity
+@Table(name = "subscription_freezes", indexes = {
+        @Index(name = "idx_subscription_freezes_subscription", columnList = "subscription_id, freeze_start_date"),
+        @Index(name = "idx_subscription_freezes_end_date", columnList = "freeze_end_date")
+})
+public class SubscriptionFreezeEntity {
+
+  /**
+   * Уникальный идентификатор заморозки.
+   * <p>
+   * Генерируется автоматически из последовательности "subscription_freezes_seq"
+   * блоками по 50 значений (allocationSize).
+   * Соответствует столбцу "freeze_id" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "subscription_freezes_seq")
+  @SequenceGenerator(name = "subscription_freezes_seq", sequenceName = "subscription_freezes_seq", allocationSize = 50)
+  @Column(name = "freeze_id")
+  private Long freeze_id;
+
+  /**
+   * Замороженный абонемент.
+   * <p>
+   * Связь ManyToOne с сущностью SubscriptionEntity.
+   * Загружается лениво (FetchType.LAZY).
+   * Обязательное поле (nullable = false).
+   * При удалении абонемента его заморозки удаляются базой данных (ON DELETE CASCADE).
+   * Соответствует внешнему ключу "subscription_id" в таблице базы данных.
+   * </p>
+   */
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "subscription_id", nullable = false)
+  @OnDelete(action = OnDeleteAction.CASCADE)
+  private SubscriptionEntity subscription;
+
+  /**
+   * Дата начала заморозки.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "freeze_start_date" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "freeze_start_date", nullable = false)
+  private LocalDate freeze_startDate;
+
+  /**
+   * Дата окончания заморозки (включительно).
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "freeze_end_date" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "freeze_end_date", nullable = false)
+  private LocalDate freeze_endDate;
+
+  /**
+   * Конструктор без параметров (требуется JPA).
+   */
+  public SubscriptionFreezeEntity() {
+  }
+
+  /**
+   * Конструктор со всеми параметрами.
+   *
+   * @param freeze_id уникальный идентификатор заморозки
+   * @param subscription замороженный абонемент
+   * @param freeze_startDate дата начала заморозки
+   * @param freeze_endDate дата окончания заморозки
+   */
+  public SubscriptionFreezeEntity(Long freeze_id, SubscriptionEntity subscription,
+                                  LocalDate freeze_startDate, LocalDate freeze_endDate) {
+    this.freeze_id = freeze_id;
+    this.subscription = subscription;
+    this.freeze_startDate = freeze_startDate;
+    this.freeze_endDate = freeze_endDate;
+  }
+
+  // Геттеры и сеттеры
+
+  /**
+   * Возвращает идентификатор заморозки.
+   *
+   * @return идентификатор заморозки
+   */
+  public Long getFreeze_id() {
+    return freeze_id;
+  }
+
+  /**
+   * Устанавливает идентификатор заморозки.
+   *
+   * @param freeze_id идентификатор заморозки
+   */
+  public void setFreeze_id(Long freeze_id) {
+    this.freeze_id = freeze_id;
+  }
+
+  /**
+   * Возвращает замороженный абонемент.
+   *
+   * @return абонемент
+   */
+  public SubscriptionEntity getSubscription() {
+    return subscription;
+  }
+
+  /**
+   * Устанавливает замороженный абонемент.
+   *
+   * @param subscription абонемент
+   */
+  public void setSubscription(SubscriptionEntity subscription) {
+    this.subscription = subscription;
+  }
+
+  /**
+   * Возвращает дату начала заморозки.
+   *
+   * @return дата начала заморозки
+   */
+  public LocalDate getFreeze_startDate() {
+    return freeze_startDate;
+  }
+
+  /**
+   * Устанавливает дату начала заморозки.
+   *
+   * @param freeze_startDate дата начала заморозки
+   */
+  public void setFreeze_startDate(LocalDate freeze_startDate) {
+    this.freeze_startDate = freeze_startDate;
+  }
+
+  /**
+   * Возвращает дату окончания заморозки.
+   *
+   * @return дата окончания заморозки
+   */
+  public LocalDate getFreeze_endDate() {
+    return freeze_endDate;
+  }
+
+  /**
+   * Устанавливает дату окончания заморозки.
+   *
+   * @param freeze_endDate дата окончания заморозки
+   */
+  public void setFreeze_endDate(LocalDate freeze_endDate) {
+    this.freeze_endDate = freeze_endDate;
+  }
+}
@@ -8,28 +8,42 @@ import java.time.LocalDateTime;
  * <p>
  * Представляет таблицу "visits" в базе данных и содержит информацию о посещениях клиентов.
  * Используется для хранения и управления данными о посещениях в системе.
+ * В PostgreSQL таблица секционирована по месяцу времени входа (см. schema-postgresql.sql
+ * и {@code VisitPartitionService}), поэтому запросы с условием по времени входа читают
+ * только секции нужных месяцев.
  * </p>
  *
  * @Entity указывает, что этот класс является JPA сущностью
  * @Table(name = "visits") задает имя таблицы в базе данных
+ * @Index объявляет индексы по времени входа для выборок и пересчета агрегатов за период,
+ *        по залу и времени входа для выборки посещений зала и по клиенту и времени входа
+ *        для пересчета когорт клиентов
  *
  * @author SafoevDalerIT-13
  * @version 1.0
  * @since 2025
  */
 @Entity
-@Table(name = "visits")
+@Table(name = "visits", indexes = {
+        @Index(name = "idx_visits_check_in_time", columnList = "visit_check_in_time"),
+        @Index(name = "idx_visits_gym_check_in_time", columnList = "gym_id, visit_check_in_time"),
+        @Index(name = "idx_visits_client_check_in_time", columnList = "client_id, visit_check_in_time")
+})
 public class VisitEntity {
 
   /**
    * Уникальный идентификатор посещения.
    * <p>
-   * Генерируется автоматически с использованием стратегии IDENTITY.
+   * Генерируется автоматически из последовательности "visits_seq".
+   * Hibernate резервирует идентификаторы блоками по 50 значений (allocationSize),
+   * поэтому вставка посещения не требует отдельного обращения к базе за ключом
+   * и может выполняться пакетами JDBC (в отличие от стратегии IDENTITY).
    * Соответствует столбцу "visit_id" в таблице базы данных.
    * </p>
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "visits_seq")
+  @SequenceGenerator(name = "visits_seq", sequenceName = "visits_seq", allocationSize = 50)
   @Column(name = "visit_id")
   private Long visitId;
 
@@ -37,11 +51,13 @@ public class VisitEntity {
    * Клиент, совершивший посещение.
    * <p>
    * Связь ManyToOne с сущностью ClientEntity.
+   * Загружается лениво (FetchType.LAZY): для получения идентификатора
+   * связанной сущности дополнительный запрос не выполняется.
    * Обязательное поле (nullable = false).
    * Соответствует внешнему ключу "client_id" в таблице базы данных.
    * </p>
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "client_id", nullable = false)
   private ClientEntity client;
 
@@ -49,11 +65,13 @@ public class VisitEntity {
    * Фитнес-зал, который посетил клиент.
    * <p>
    * Связь ManyToOne с сущностью GymEntity.
+   * Загружается лениво (FetchType.LAZY): для получения идентификатора
+   * связанной сущности дополнительный запрос не выполняется.
    * Обязательное поле (nullable = false).
    * Соответствует внешнему ключу "gym_id" в таблице базы данных.
    * </p>
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "gym_id", nullable = false)
   private GymEntity gym;
 
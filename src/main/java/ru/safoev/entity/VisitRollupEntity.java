@@ -0,0 +1,158 @@
+package ru.safoev.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Сущность агрегата посещений фитнес-зала за один час.
+ * <p>
+ * Представляет таблицу "visit_hourly_rollups" в базе данных: для каждой пары «зал - час»
+ * хранится количество посещений, начавшихся в этот час, количество завершенных из них
+ * и их суммарная длительность. Строки заполняются только пересчетом из таблицы "visits"
+ * (см. {@code VisitRollupService}), поэтому отчеты за годы читают десятки тысяч строк
+ * агрегатов вместо миллионов посещений.
+ * </p>
+ *
+ * @Entity указывает, что этот класс является JPA сущностью
+ * @Table(name = "visit_hourly_rollups") задает имя таблицы в базе данных
+ * @IdClass задает составной первичный ключ (зал, дата, час)
+ * @Index объявляет индекс по дате для отчетов по всем залам и пересчета за период
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Entity
+@IdClass(VisitRollupId.class)
+@Table(name = "visit_hourly_rollups", indexes = {
+        @Index(name = "idx_visit_hourly_rollups_date", columnList = "rollup_date")
+})
+public class VisitRollupEntity {
+
+  /**
+   * Идентификатор зала.
+   * <p>
+   * Первая часть первичного ключа: выборки по залу за период читают
+   * непрерывный диапазон индекса первичного ключа.
+   * Соответствует столбцу "gym_id" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @Column(name = "gym_id")
+  private Long gymId;
+
+  /**
+   * Дата, к которой относятся посещения (по времени входа).
+   * <p>
+   * Соответствует столбцу "rollup_date" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @Column(name = "rollup_date")
+  private LocalDate rollup_date;
+
+  /**
+   * Час суток (0-23), в который начались посещения.
+   * <p>
+   * Соответствует столбцу "rollup_hour" в таблице базы данных.
+   * </p>
+   */
+  @Id
+  @Column(name = "rollup_hour")
+  private Integer rollup_hour;
+
+  /**
+   * Количество посещений, начавшихся в этот час.
+   * <p>
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "rollup_visit_count" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "rollup_visit_count", nullable = false)
+  private Long rollup_visitCount;
+
+  /**
+   * Количество завершенных посещений (с отметкой выхода) из начавшихся в этот час.
+   * <p>
+   * Используется как делитель средней длительности посещения.
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "rollup_closed_count" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "rollup_closed_count", nullable = false)
+  private Long rollup_closedCount;
+
+  /**
+   * Суммарная длительность завершенных посещений в секундах.
+   * <p>
+   * Хранится сумма, а не среднее: суммы складываются при объединении часов в дни и недели.
+   * Обязательное поле (nullable = false).
+   * Соответствует столбцу "rollup_stay_seconds" в таблице базы данных.
+   * </p>
+   */
+  @Column(name = "rollup_stay_seconds", nullable = false)
+  private Long rollup_staySeconds;
+
+  /**
+   * Конструктор без параметров (требуется JPA).
+   */
+  public VisitRollupEntity() {
+  }
+
+  // Геттеры
+
+  /**
+   * Возвращает идентификатор зала.
+   *
+   * @return идентификатор зала
+   */
+  public Long getGymId() {
+    return gymId;
+  }
+
+  /**
+   * Возвращает дату агрегата.
+   *
+   * @return дата
+   */
+  public LocalDate getRollup_date() {
+    return rollup_date;
+  }
+
+  /**
+   * Возвращает час суток агрегата.
+   *
+   * @return час суток (0-23)
+   */
+  public Integer getRollup_hour() {
+    return rollup_hour;
+  }
+
+  /**
+   * Возвращает количество посещений.
+   *
+   * @return количество посещений
+   */
+  public Long getRollup_visitCount() {
+    return rollup_visitCount;
+  }
+
+  /**
+   * Возвращает количество завершенных посещений.
+   *
+   * @return количество завершенных посещений
+   */
+  public Long getRollup_closedCount() {
+    return rollup_closedCount;
+  }
+
+  /**
+   * Возвращает суммарную длительность завершенных посещений.
+   *
+   * @return длительность в секундах
+   */
+  public Long getRollup_staySeconds() {
+    return rollup_staySeconds;
+  }
+}
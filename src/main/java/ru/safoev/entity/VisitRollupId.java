@@ -0,0 +1,60 @@
+package ru.safoev.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Составной идентификатор агрегата посещений за час.
+ * <p>
+ * Используется как {@code @IdClass} сущности {@link VisitRollupEntity}:
+ * имена и типы полей совпадают с полями-идентификаторами сущности.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public class VisitRollupId implements Serializable {
+
+  private Long gymId;
+  private LocalDate rollup_date;
+  private Integer rollup_hour;
+
+  /**
+   * Конструктор без параметров (требуется JPA).
+   */
+  public VisitRollupId() {
+  }
+
+  /**
+   * Конструктор со всеми параметрами.
+   *
+   * @param gymId идентификатор зала
+   * @param rollup_date дата
+   * @param rollup_hour час суток (0-23)
+   */
+  public VisitRollupId(Long gymId, LocalDate rollup_date, Integer rollup_hour) {
+    this.gymId = gymId;
+    this.rollup_date = rollup_date;
+    this.rollup_hour = rollup_hour;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof VisitRollupId other)) {
+      return false;
+    }
+    return Objects.equals(gymId, other.gymId)
+            && Objects.equals(rollup_date, other.rollup_date)
+            && Objects.equals(rollup_hour, other.rollup_hour);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(gymId, rollup_date, rollup_hour);
+  }
+}
@@ -0,0 +1,38 @@
+package ru.safoev.enumlists;
+
+/**
+ * Перечисление видов изменений сущностей, рассылаемых в панель управления.
+ * <p>
+ * Используется в событиях {@link ru.safoev.dtorecords.EntityChangeDto}.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public enum ChangeAction {
+
+  /**
+   * Запись создана; событие содержит ее DTO.
+   */
+  CREATED,
+
+  /**
+   * Запись изменена; событие содержит ее DTO после изменения.
+   */
+  UPDATED,
+
+  /**
+   * Запись удалена; событие содержит только идентификатор.
+   */
+  DELETED,
+
+  /**
+   * Изменено много записей сразу (массовая загрузка, отложенная запись посещений)
+   * или часть событий была пропущена.
+   * <p>
+   * Идентификаторы не передаются: клиент должен заново загрузить список.
+   * </p>
+   */
+  RELOAD
+}
@@ -0,0 +1,27 @@
+package ru.safoev.enumlists;
+
+/**
+ * Перечисление форматов выгрузки данных.
+ * <p>
+ * Используется эндпоинтами экспорта посещений и абонементов.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public enum ExportFormat {
+
+  /**
+   * CSV со строкой заголовка из имен полей DTO.
+   * <p>
+   * Формат совместим с эндпоинтами массовой загрузки.
+   * </p>
+   */
+  CSV,
+
+  /**
+   * NDJSON: один JSON-объект DTO на строку.
+   */
+  NDJSON
+}
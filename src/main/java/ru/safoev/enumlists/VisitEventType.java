@@ -0,0 +1,25 @@
+package ru.safoev.enumlists;
+
+/**
+ * Перечисление типов событий посещения, фиксируемых турникетом.
+ * <p>
+ * Используется буфером отложенной записи посещений для различения
+ * событий входа и выхода клиента.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public enum VisitEventType {
+
+  /**
+   * Вход клиента в зал (создание записи о посещении).
+   */
+  CHECK_IN,
+
+  /**
+   * Выход клиента из зала (закрытие открытого посещения).
+   */
+  CHECK_OUT
+}
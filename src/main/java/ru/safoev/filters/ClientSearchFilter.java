@@ -6,11 +6,16 @@ package ru.safoev.filters;
  * Используется для передачи параметров фильтрации и пагинации
  * при поиске клиентов в системе.
  * Все поля являются необязательными и могут использоваться
- * в различных комбинациях.
+ * в различных комбинациях: в запрос попадают только заданные условия.
+ * Текстовые поля сравниваются без учета регистра по фрагменту значения
+ * (см. {@link ClientSpecifications}).
  * </p>
  *
  * @param client_id уникальный идентификатор клиента (необязательное поле)
- * @param client_email электронная почта клиента (необязательное поле)
+ * @param client_email фрагмент электронной почты клиента (необязательное поле)
+ * @param client_phone фрагмент телефонного номера клиента (необязательное поле)
+ * @param client_name фрагмент имени или фамилии клиента (необязательное поле)
+ * @param query фрагмент любого из полей: имени, фамилии, почты или телефона (необязательное поле)
  * @param pageSize размер страницы для пагинации (необязательное поле)
  * @param pageNumber номер страницы для пагинации (необязательное поле)
  *
@@ -21,6 +26,9 @@ package ru.safoev.filters;
 public record ClientSearchFilter(
         Long client_id,
         String client_email,
+        String client_phone,
+        String client_name,
+        String query,
         Integer pageSize,
         Integer pageNumber
-) {}
\ No newline at end of file
+) {}
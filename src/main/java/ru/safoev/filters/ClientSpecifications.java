@@ -0,0 +1,114 @@
+package ru.safoev.filters;
+
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import ru.safoev.entity.ClientEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Условия поиска клиентов для {@link ru.safoev.repositoryinterface.ClientRepository}.
+ * <p>
+ * Запрос собирается только из заданных полей фильтра, поэтому планировщик
+ * базы данных получает условие без конструкций {@code :param IS NULL OR ...}
+ * и может использовать индексы. Текстовые поля сравниваются как
+ * {@code lower(столбец) LIKE '%фрагмент%'}; в PostgreSQL такие условия
+ * обслуживаются триграммными индексами из {@code schema-postgresql.sql}.
+ * Фрагменты короче {@value #MIN_CONTAINS_LENGTH} символов ищутся по началу значения:
+ * триграммный индекс не сужает поиск по одному-двум символам.
+ * </p>
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+public final class ClientSpecifications {
+
+  /**
+   * Минимальная длина фрагмента для поиска по вхождению в любом месте значения.
+   */
+  public static final int MIN_CONTAINS_LENGTH = 3;
+
+  private static final char LIKE_ESCAPE = '\\';
+
+  private ClientSpecifications() {
+  }
+
+  /**
+   * Формирует условие поиска по всем заданным полям фильтра.
+   * <p>
+   * Результаты упорядочиваются по идентификатору клиента, чтобы страницы
+   * не пересекались; запрос COUNT выполняется без сортировки.
+   * </p>
+   *
+   * @param filter фильтр поиска
+   * @return условие, объединяющее заданные поля через AND (без ограничений, если поля не заданы)
+   */
+  public static Specification<ClientEntity> matching(ClientSearchFilter filter) {
+    List<Specification<ClientEntity>> specifications = new ArrayList<>();
+    if (filter.client_id() != null) {
+      specifications.add(hasId(filter.client_id()));
+    }
+    if (hasText(filter.client_email())) {
+      specifications.add(containsIgnoreCase(filter.client_email(), "client_email"));
+    }
+    if (hasText(filter.client_phone())) {
+      specifications.add(containsIgnoreCase(filter.client_phone(), "client_phone"));
+    }
+    if (hasText(filter.client_name())) {
+      specifications.add(containsIgnoreCase(filter.client_name(), "client_first_name", "client_last_name"));
+    }
+    if (hasText(filter.query())) {
+      specifications.add(containsIgnoreCase(filter.query(),
+              "client_first_name", "client_last_name", "client_email", "client_phone"));
+    }
+    Specification<ClientEntity> where = Specification.allOf(specifications);
+    return (root, query, cb) -> {
+      query.orderBy(cb.asc(root.get("client_id")));
+      return where.toPredicate(root, query, cb);
+    };
+  }
+
+  /**
+   * Условие совпадения идентификатора клиента.
+   *
+   * @param clientId идентификатор клиента
+   * @return условие поиска
+   */
+  public static Specification<ClientEntity> hasId(Long clientId) {
+    return (root, query, cb) -> cb.equal(root.get("client_id"), clientId);
+  }
+
+  /**
+   * Условие вхождения фрагмента без учета регистра хотя бы в один из атрибутов.
+   *
+   * @param fragment искомый фрагмент
+   * @param attributes имена атрибутов сущности
+   * @return условие поиска
+   */
+  public static Specification<ClientEntity> containsIgnoreCase(String fragment, String... attributes) {
+    String value = fragment.trim().toLowerCase(Locale.ROOT);
+    String pattern = (value.length() < MIN_CONTAINS_LENGTH ? "" : "%") + escapeLike(value) + "%";
+    return (root, query, cb) -> cb.or(Arrays.stream(attributes)
+            .map(attribute -> cb.like(cb.lower(root.get(attribute)), pattern, LIKE_ESCAPE))
+            .toArray(Predicate[]::new));
+  }
+
+  private static boolean hasText(String value) {
+    return value != null && !value.isBlank();
+  }
+
+  private static String escapeLike(String value) {
+    StringBuilder escaped = new StringBuilder(value.length());
+    for (char c : value.toCharArray()) {
+      if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+        escaped.append(LIKE_ESCAPE);
+      }
+      escaped.append(c);
+    }
+    return escaped.toString();
+  }
+}
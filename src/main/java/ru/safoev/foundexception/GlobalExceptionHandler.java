@@ -9,6 +9,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import java.time.LocalDateTime;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Глобальный обработчик исключений для приложения.
@@ -36,7 +37,8 @@ public class GlobalExceptionHandler {
    * Обрабатывает все неперехваченные исключения.
    * <p>
    * Этот метод перехватывает любые исключения, которые не были обработаны
-   * другими методами этого класса.
+   * другими методами этого класса. Исключение записывается в журнал со стеком
+   * на уровне ERROR.
    * </p>
    *
    * @param e исключение, которое было выброшено
@@ -44,7 +46,7 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(Exception.class)
   public ResponseEntity<ErrorResponseDto> HandleGenericException(Exception e) {
-    log.info("Handle exception: ", e);
+    log.error("Unhandled exception", e);
 
     var errorDto = new ErrorResponseDto(
             "Internal server error",
@@ -58,6 +60,7 @@ public class GlobalExceptionHandler {
    * Обрабатывает исключения EntityNotFoundException.
    * <p>
    * Этот метод перехватывает исключения, возникающие при поиске несуществующих сущностей.
+   * Ответ 404 - обычная ситуация, поэтому в журнал на уровне DEBUG пишется только сообщение.
    * </p>
    *
    * @param e исключение EntityNotFoundException
@@ -65,7 +68,7 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(EntityNotFoundException.class)
   public ResponseEntity<ErrorResponseDto> HandleEntityNotFound(EntityNotFoundException e) {
-    log.info("Handle entityNotFoundException: ", e);
+    log.debug("Entity not found: {}", e.getMessage());
 
     var errorDto = new ErrorResponseDto(
             "Entity not found",
@@ -84,6 +87,8 @@ public class GlobalExceptionHandler {
    *   <li>IllegalStateException - неверное состояние объекта</li>
    *   <li>MethodArgumentNotValidException - ошибки валидации аргументов методов контроллера</li>
    * </ul>
+   * Ошибки клиента не требуют разбора стека, поэтому в журнал на уровне DEBUG
+   * пишется только сообщение.
    * </p>
    *
    * @param e одно из перечисленных исключений
@@ -95,7 +100,7 @@ public class GlobalExceptionHandler {
           MethodArgumentNotValidException.class
   })
   public ResponseEntity<ErrorResponseDto> HandleBadRequest(Exception e) {
-    log.info("Handle handleBadRequest: ", e);
+    log.debug("Bad request: {}", e.getMessage());
     var errorDto = new ErrorResponseDto(
             "Bad request",
             e.getMessage(),
@@ -103,4 +108,29 @@ public class GlobalExceptionHandler {
     );
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorDto);
   }
-}
\ No newline at end of file
+
+  /**
+   * Обрабатывает исключения RejectedExecutionException.
+   * <p>
+   * Этот метод перехватывает исключения, возникающие при переполнении буферов
+   * приема запросов (например, буфера отложенной записи посещений).
+   * Клиенту следует повторить запрос позже. Отказы считаются метриками,
+   * поэтому в журнал на уровне DEBUG пишется только сообщение.
+   * </p>
+   *
+   * @param e исключение RejectedExecutionException
+   * @return ResponseEntity с информацией об ошибке и статусом 503 (Service Unavailable)
+   */
+  @ExceptionHandler(RejectedExecutionException.class)
+  public ResponseEntity<ErrorResponseDto> HandleRejectedExecution(RejectedExecutionException e) {
+    log.debug("Request rejected: {}", e.getMessage());
+    var errorDto = new ErrorResponseDto(
+            "Service unavailable",
+            e.getMessage(),
+            LocalDateTime.now()
+    );
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header("Retry-After", "1")
+            .body(errorDto);
+  }
+}
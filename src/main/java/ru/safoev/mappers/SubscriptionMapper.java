@@ -7,6 +7,8 @@ import ru.safoev.entity.ClientEntity;
 import ru.safoev.entity.RateEntity;
 import ru.safoev.enumlists.SubscriptionStatus;
 
+import java.time.temporal.ChronoUnit;
+
 /**
  * Маппер для преобразования между сущностью SubscriptionEntity и DTO SubscriptionDto.
  * <p>
@@ -73,6 +75,7 @@ public class SubscriptionMapper {
     entity.setRate(rate);
     entity.setSubscription_startDate(dto.startDate());
     entity.setSubscription_endDate(dto.endDate());
+    entity.setSubscription_effectiveEndDate(dto.endDate());
     entity.setSubscription_freezePeriod(dto.freezePeriod());
 
     SubscriptionStatus status = dto.subscriptionStatus() != null ?
@@ -87,6 +90,7 @@ public class SubscriptionMapper {
    * <p>
    * Используется для частичного обновления абонемента.
    * Обновляются только те поля, которые не являются null в DTO.
+   * При изменении даты окончания фактическая дата окончания сдвигается на ту же величину.
    * Принимает необязательные параметры client и rate для обновления связанных сущностей.
    * </p>
    *
@@ -107,7 +111,11 @@ public class SubscriptionMapper {
       entity.setSubscription_startDate(dto.startDate());
     }
     if (dto.endDate() != null) {
+      // Фактическая дата окончания сдвигается вместе с плановой: длительность заморозок не меняется
+      long frozenDays = ChronoUnit.DAYS.between(entity.getSubscription_endDate(),
+              entity.getSubscription_effectiveEndDate());
       entity.setSubscription_endDate(dto.endDate());
+      entity.setSubscription_effectiveEndDate(dto.endDate().plusDays(frozenDays));
     }
     if (dto.freezePeriod() != null) {
       entity.setSubscription_freezePeriod(dto.freezePeriod());
@@ -0,0 +1,46 @@
+package ru.safoev.repositoryinterface;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.safoev.entity.ClientCohortMonthEntity;
+import ru.safoev.entity.ClientCohortMonthId;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Репозиторий для работы с сущностью ClientCohortMonthEntity.
+ * <p>
+ * Помесячные показатели когорт вставляются запросом INSERT ... SELECT
+ * (см. {@code ClientCohortService}), а отчеты читают их SQL-запросами с оконными функциями;
+ * репозиторий удаляет показатели когорт перед пересчетом.
+ * </p>
+ *
+ * @Repository указывает, что этот интерфейс является Spring репозиторием
+ * @JpaRepository<ClientCohortMonthEntity, ClientCohortMonthId> базовый интерфейс для работы с JPA,
+ * где ClientCohortMonthEntity - тип сущности, ClientCohortMonthId - тип составного идентификатора
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Repository
+public interface ClientCohortMonthRepository extends JpaRepository<ClientCohortMonthEntity, ClientCohortMonthId> {
+
+  /**
+   * Удаляет показатели когорт начиная с месяца.
+   *
+   * @param cohorts первые дни месяцев регистрации
+   * @param from первый день первого удаляемого месяца показателей (включительно)
+   * @return количество удаленных строк
+   */
+  @Modifying
+  @Query("""
+          DELETE FROM ClientCohortMonthEntity m
+          WHERE m.cohort_month IN :cohorts AND m.cohort_activityMonth >= :from
+          """)
+  int deleteByCohortsFrom(@Param("cohorts") Collection<LocalDate> cohorts, @Param("from") LocalDate from);
+}
@@ -0,0 +1,50 @@
+package ru.safoev.repositoryinterface;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.safoev.entity.ClientCohortEntity;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с сущностью ClientCohortEntity.
+ * <p>
+ * Строки когорт вставляются запросом INSERT ... SELECT с агрегацией на стороне базы данных
+ * (см. {@code ClientCohortService}); репозиторий удаляет когорты перед пересчетом
+ * и возвращает список уже рассчитанных когорт для полной перестройки.
+ * </p>
+ *
+ * @Repository указывает, что этот интерфейс является Spring репозиторием
+ * @JpaRepository<ClientCohortEntity, LocalDate> базовый интерфейс для работы с JPA,
+ * где ClientCohortEntity - тип сущности, LocalDate - тип идентификатора (первый день месяца)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Repository
+public interface ClientCohortRepository extends JpaRepository<ClientCohortEntity, LocalDate> {
+
+  /**
+   * Возвращает месяцы всех рассчитанных когорт.
+   *
+   * @return первые дни месяцев регистрации
+   */
+  @Query("SELECT c.cohort_month FROM ClientCohortEntity c")
+  List<LocalDate> findAllMonths();
+
+  /**
+   * Удаляет когорты.
+   *
+   * @param months первые дни месяцев регистрации
+   * @return количество удаленных когорт
+   */
+  @Modifying
+  @Query("DELETE FROM ClientCohortEntity c WHERE c.cohort_month IN :months")
+  int deleteByMonths(@Param("months") Collection<LocalDate> months);
+}
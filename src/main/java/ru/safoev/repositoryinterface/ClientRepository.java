@@ -1,56 +1,77 @@
 package ru.safoev.repositoryinterface;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.safoev.entity.ClientEntity;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью ClientEntity.
  * <p>
  * Предоставляет методы для доступа к данным клиентов в базе данных.
  * Расширяет JpaRepository для получения стандартных CRUD операций.
- * Содержит пользовательские запросы для поиска клиентов по фильтрам.
+ * Поиск клиентов по фильтрам выполняется через JpaSpecificationExecutor
+ * с условиями из {@link ru.safoev.filters.ClientSpecifications}.
  * </p>
  *
  * @Repository указывает, что этот интерфейс является Spring репозиторием
  * @JpaRepository<ClientEntity, Long> базовый интерфейс для работы с JPA
+ * @JpaSpecificationExecutor<ClientEntity> поиск по динамически составленным условиям
  *
  * @author SafoevDalerIT-13
  * @version 1.0
  * @since 2025
  */
 @Repository
-public interface ClientRepository extends JpaRepository<ClientEntity, Long> {
+public interface ClientRepository extends JpaRepository<ClientEntity, Long>, JpaSpecificationExecutor<ClientEntity> {
 
   /**
-   * Поиск клиентов по фильтрам с поддержкой пагинации.
+   * Подсчитывает количество клиентов, зарегистрированных начиная с указанного момента.
+   *
+   * @param from момент времени, с которого ведется подсчет (включительно)
+   * @return количество клиентов
+   */
+  @Query("SELECT COUNT(c) FROM ClientEntity c WHERE c.client_registration_date >= :from")
+  long countRegisteredSince(@Param("from") LocalDateTime from);
+
+  /**
+   * Возвращает страницу клиентов с идентификатором больше указанного (курсорная пагинация).
    * <p>
-   * Выполняет поиск клиентов по идентификатору и/или электронной почте.
-   * Оба параметра являются необязательными - если параметр null,
-   * он не учитывается в условии поиска.
-   * Поддерживает пагинацию через параметр Pageable.
+   * Условие по первичному ключу позволяет базе данных начать чтение индекса
+   * сразу с нужной позиции, без пропуска OFFSET строк.
    * </p>
    *
-   * @param client_id уникальный идентификатор клиента (необязательный параметр)
-   * @param client_email электронная почта клиента (необязательный параметр)
-   * @param pageable объект пагинации для ограничения результатов
-   * @return список сущностей клиентов, соответствующих критериям поиска
+   * @param afterId идентификатор последнего элемента предыдущей страницы (0 для первой страницы)
+   * @param pageable ограничение количества возвращаемых записей
+   * @return список сущностей, упорядоченный по идентификатору
+   */
+  @Query("SELECT c FROM ClientEntity c WHERE c.client_id > :afterId ORDER BY c.client_id")
+  List<ClientEntity> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Возвращает поток записей клиентов, упорядоченный по идентификатору.
+   * <p>
+   * Строки читаются курсором порциями по 500 записей и не отслеживаются
+   * на изменения (read-only). Поток должен обрабатываться внутри транзакции
+   * и закрываться после использования.
+   * </p>
    *
-   * @Query определяет пользовательский JPQL запрос для поиска клиентов
+   * @return поток сущностей
    */
-  @Query("""
-          SELECT r FROM ClientEntity r
-          WHERE (:client_id IS NULL OR r.client_id = :client_id)
-          AND (:client_email IS NULL OR r.client_email = :client_email)
-          """)
-  List<ClientEntity> searchAllByFilter(
-          @Param("client_id") Long client_id,
-          @Param("client_email") String client_email,
-          Pageable pageable
-  );
-}
\ No newline at end of file
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT c FROM ClientEntity c ORDER BY c.client_id")
+  Stream<ClientEntity> streamAllOrderedById();
+}
@@ -1,9 +1,18 @@
 package ru.safoev.repositoryinterface;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.safoev.entity.EmployeeEntity;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Репозиторий для работы с сущностью EmployeeEntity.
  * <p>
@@ -23,4 +32,35 @@ import ru.safoev.entity.EmployeeEntity;
  */
 @Repository
 public interface EmployeeRepository extends JpaRepository<EmployeeEntity, Long> {
-}
\ No newline at end of file
+
+  /**
+   * Возвращает страницу сотрудников с идентификатором больше указанного (курсорная пагинация).
+   * <p>
+   * Условие по первичному ключу позволяет базе данных начать чтение индекса
+   * сразу с нужной позиции, без пропуска OFFSET строк.
+   * </p>
+   *
+   * @param afterId идентификатор последнего элемента предыдущей страницы (0 для первой страницы)
+   * @param pageable ограничение количества возвращаемых записей
+   * @return список сущностей, упорядоченный по идентификатору
+   */
+  @Query("SELECT e FROM EmployeeEntity e WHERE e.employees_id > :afterId ORDER BY e.employees_id")
+  List<EmployeeEntity> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Возвращает поток записей сотрудников, упорядоченный по идентификатору.
+   * <p>
+   * Строки читаются курсором порциями по 500 записей и не отслеживаются
+   * на изменения (read-only). Поток должен обрабатываться внутри транзакции
+   * и закрываться после использования.
+   * </p>
+   *
+   * @return поток сущностей
+   */
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT e FROM EmployeeEntity e ORDER BY e.employees_id")
+  Stream<EmployeeEntity> streamAllOrderedById();
+}
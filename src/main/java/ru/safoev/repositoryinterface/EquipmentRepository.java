@@ -1,8 +1,18 @@
 package ru.safoev.repositoryinterface;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.safoev.entity.EquipmentEntity;
+import ru.safoev.enumlists.EquipmentStatus;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью EquipmentEntity.
@@ -23,4 +33,44 @@ import ru.safoev.entity.EquipmentEntity;
  */
 @Repository
 public interface EquipmentRepository extends JpaRepository<EquipmentEntity, Long> {
-}
\ No newline at end of file
+
+  /**
+   * Подсчитывает количество оборудования с указанным статусом.
+   *
+   * @param status статус оборудования
+   * @return количество единиц оборудования
+   */
+  @Query("SELECT COUNT(e) FROM EquipmentEntity e WHERE e.equipmentStatus = :status")
+  long countByStatus(@Param("status") EquipmentStatus status);
+
+  /**
+   * Возвращает страницу оборудования с идентификатором больше указанного (курсорная пагинация).
+   * <p>
+   * Условие по первичному ключу позволяет базе данных начать чтение индекса
+   * сразу с нужной позиции, без пропуска OFFSET строк.
+   * </p>
+   *
+   * @param afterId идентификатор последнего элемента предыдущей страницы (0 для первой страницы)
+   * @param pageable ограничение количества возвращаемых записей
+   * @return список сущностей, упорядоченный по идентификатору
+   */
+  @Query("SELECT e FROM EquipmentEntity e WHERE e.equipmentId > :afterId ORDER BY e.equipmentId")
+  List<EquipmentEntity> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Возвращает поток записей оборудования, упорядоченный по идентификатору.
+   * <p>
+   * Строки читаются курсором порциями по 500 записей и не отслеживаются
+   * на изменения (read-only). Поток должен обрабатываться внутри транзакции
+   * и закрываться после использования.
+   * </p>
+   *
+   * @return поток сущностей
+   */
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT e FROM EquipmentEntity e ORDER BY e.equipmentId")
+  Stream<EquipmentEntity> streamAllOrderedById();
+}
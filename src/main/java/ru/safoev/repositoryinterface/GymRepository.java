@@ -1,9 +1,18 @@
 package ru.safoev.repositoryinterface;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.safoev.entity.GymEntity;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Репозиторий для работы с сущностью GymEntity.
  * <p>
@@ -22,4 +31,58 @@ import ru.safoev.entity.GymEntity;
  * @since 2025
  */
 @Repository
-public interface GymRepository extends JpaRepository<GymEntity, Long> {}
\ No newline at end of file
+public interface GymRepository extends JpaRepository<GymEntity, Long> {
+
+  /**
+   * Возвращает идентификаторы всех залов.
+   *
+   * @return список идентификаторов
+   */
+  @Query("SELECT g.gym_id FROM GymEntity g")
+  List<Long> findAllIds();
+
+  /**
+   * Возвращает все залы, упорядоченные по идентификатору, с кэшированием результата запроса.
+   * <p>
+   * Результат хранится в кэше запросов Hibernate как список идентификаторов,
+   * а сами сущности берутся из второго уровня кэша. Кэш запроса сбрасывается
+   * автоматически при любом изменении таблицы через Hibernate.
+   * </p>
+   *
+   * @return список сущностей
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  @Query("SELECT g FROM GymEntity g ORDER BY g.gym_id")
+  List<GymEntity> findAllOrderedById();
+
+  /**
+   * Возвращает страницу залов с идентификатором больше указанного (курсорная пагинация).
+   * <p>
+   * Условие по первичному ключу позволяет базе данных начать чтение индекса
+   * сразу с нужной позиции, без пропуска OFFSET строк.
+   * </p>
+   *
+   * @param afterId идентификатор последнего элемента предыдущей страницы (0 для первой страницы)
+   * @param pageable ограничение количества возвращаемых записей
+   * @return список сущностей, упорядоченный по идентификатору
+   */
+  @Query("SELECT g FROM GymEntity g WHERE g.gym_id > :afterId ORDER BY g.gym_id")
+  List<GymEntity> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Возвращает поток записей залов, упорядоченный по идентификатору.
+   * <p>
+   * Строки читаются курсором порциями по 500 записей и не отслеживаются
+   * на изменения (read-only). Поток должен обрабатываться внутри транзакции
+   * и закрываться после использования.
+   * </p>
+   *
+   * @return поток сущностей
+   */
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT g FROM GymEntity g ORDER BY g.gym_id")
+  Stream<GymEntity> streamAllOrderedById();
+}
@@ -1,9 +1,18 @@
 package ru.safoev.repositoryinterface;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.safoev.entity.RateEntity;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Репозиторий для работы с сущностью RateEntity.
  * <p>
@@ -23,4 +32,49 @@ import ru.safoev.entity.RateEntity;
  */
 @Repository
 public interface RateRepository extends JpaRepository<RateEntity, Long> {
-}
\ No newline at end of file
+
+  /**
+   * Возвращает все тарифы, упорядоченные по идентификатору, с кэшированием результата запроса.
+   * <p>
+   * Результат хранится в кэше запросов Hibernate как список идентификаторов,
+   * а сами сущности берутся из второго уровня кэша. Кэш запроса сбрасывается
+   * автоматически при любом изменении таблицы через Hibernate.
+   * </p>
+   *
+   * @return список сущностей
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  @Query("SELECT r FROM RateEntity r ORDER BY r.rate_id")
+  List<RateEntity> findAllOrderedById();
+
+  /**
+   * Возвращает страницу тарифов с идентификатором больше указанного (курсорная пагинация).
+   * <p>
+   * Условие по первичному ключу позволяет базе данных начать чтение индекса
+   * сразу с нужной позиции, без пропуска OFFSET строк.
+   * </p>
+   *
+   * @param afterId идентификатор последнего элемента предыдущей страницы (0 для первой страницы)
+   * @param pageable ограничение количества возвращаемых записей
+   * @return список сущностей, упорядоченный по идентификатору
+   */
+  @Query("SELECT r FROM RateEntity r WHERE r.rate_id > :afterId ORDER BY r.rate_id")
+  List<RateEntity> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Возвращает поток записей тарифов, упорядоченный по идентификатору.
+   * <p>
+   * Строки читаются курсором порциями по 500 записей и не отслеживаются
+   * на изменения (read-only). Поток должен обрабатываться внутри транзакции
+   * и закрываться после использования.
+   * </p>
+   *
+   * @return поток сущностей
+   */
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT r FROM RateEntity r ORDER BY r.rate_id")
+  Stream<RateEntity> streamAllOrderedById();
+}
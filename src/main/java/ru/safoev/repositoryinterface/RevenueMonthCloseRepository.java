@@ -0,0 +1,42 @@
+package ru.safoev.repositoryinterface;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.safoev.entity.RevenueMonthCloseEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с сущностью RevenueMonthCloseEntity.
+ * <p>
+ * Предоставляет отметки о закрытии месяцев: по ним отчеты о выручке определяют,
+ * какие месяцы читаются из таблицы "revenue_monthly", а какие нужно закрыть.
+ * </p>
+ *
+ * @Repository указывает, что этот интерфейс является Spring репозиторием
+ * @JpaRepository<RevenueMonthCloseEntity, LocalDate> базовый интерфейс для работы с JPA,
+ * где RevenueMonthCloseEntity - тип сущности, LocalDate - тип идентификатора (первый день месяца)
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Repository
+public interface RevenueMonthCloseRepository extends JpaRepository<RevenueMonthCloseEntity, LocalDate> {
+
+  /**
+   * Возвращает закрытые месяцы периода.
+   *
+   * @param from первый день первого месяца периода (включительно)
+   * @param to первый день последнего месяца периода (включительно)
+   * @return первые дни закрытых месяцев
+   */
+  @Query("""
+          SELECT c.revenue_month FROM RevenueMonthCloseEntity c
+          WHERE c.revenue_month >= :from AND c.revenue_month <= :to
+          """)
+  List<LocalDate> findClosedMonths(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,42 @@
+package ru.safoev.repositoryinterface;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.safoev.entity.RevenueMonthEntity;
+import ru.safoev.entity.RevenueMonthId;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Репозиторий для работы с сущностью RevenueMonthEntity.
+ * <p>
+ * Строки выручки закрытых месяцев вставляются запросом INSERT ... SELECT
+ * с агрегацией на стороне базы данных (см. {@code RevenueService}), а отчеты читают их
+ * SQL-запросами с оконными функциями; репозиторий удаляет строки перед повторным закрытием месяцев.
+ * </p>
+ *
+ * @Repository указывает, что этот интерфейс является Spring репозиторием
+ * @JpaRepository<RevenueMonthEntity, RevenueMonthId> базовый интерфейс для работы с JPA,
+ * где RevenueMonthEntity - тип сущности, RevenueMonthId - тип составного идентификатора
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Repository
+public interface RevenueMonthRepository extends JpaRepository<RevenueMonthEntity, RevenueMonthId> {
+
+  /**
+   * Удаляет выручку месяцев.
+   *
+   * @param months первые дни месяцев
+   * @return количество удаленных строк
+   */
+  @Modifying
+  @Query("DELETE FROM RevenueMonthEntity r WHERE r.revenue_month IN :months")
+  int deleteByMonths(@Param("months") Collection<LocalDate> months);
+}
@@ -0,0 +1,115 @@
+package ru.safoev.repositoryinterface;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.safoev.dtorecords.SubscriptionFreezeDto;
+import ru.safoev.entity.SubscriptionFreezeEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с сущностью SubscriptionFreezeEntity.
+ * <p>
+ * Предоставляет методы для доступа к периодам заморозки абонементов в базе данных.
+ * Расширяет JpaRepository для получения стандартных CRUD операций.
+ * Выборки возвращают DTO-проекции без загрузки сущностей абонементов.
+ * </p>
+ *
+ * @Repository указывает, что этот интерфейс является Spring репозиторием
+ * @JpaRepository<SubscriptionFreezeEntity, Long> базовый интерфейс для работы с JPA,
+ * где SubscriptionFreezeEntity - тип сущности, Long - тип идентификатора
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Repository
+public interface SubscriptionFreezeRepository extends JpaRepository<SubscriptionFreezeEntity, Long> {
+
+  /**
+   * Возвращает заморозки абонемента, упорядоченные по дате начала.
+   *
+   * @param subscriptionId идентификатор абонемента
+   * @return список DTO заморозок
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.SubscriptionFreezeDto(
+              f.freeze_id, f.subscription.subscription_id, f.freeze_startDate, f.freeze_endDate)
+          FROM SubscriptionFreezeEntity f
+          WHERE f.subscription.subscription_id = :subscriptionId
+          ORDER BY f.freeze_startDate
+          """)
+  List<SubscriptionFreezeDto> findAllAsDtoBySubscriptionId(@Param("subscriptionId") Long subscriptionId);
+
+  /**
+   * Проверяет, пересекается ли период с существующими заморозками абонемента.
+   * <p>
+   * Условие обслуживается индексом {@code idx_subscription_freezes_subscription}.
+   * </p>
+   *
+   * @param subscriptionId идентификатор абонемента
+   * @param startDate дата начала проверяемого периода
+   * @param endDate дата окончания проверяемого периода включительно
+   * @return {@code true}, если есть пересекающаяся заморозка
+   */
+  @Query("""
+          SELECT COUNT(f) > 0 FROM SubscriptionFreezeEntity f
+          WHERE f.subscription.subscription_id = :subscriptionId
+            AND f.freeze_startDate <= :endDate AND f.freeze_endDate >= :startDate
+          """)
+  boolean existsOverlapping(@Param("subscriptionId") Long subscriptionId,
+                            @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+  /**
+   * Возвращает заморозки, которые не закончились раньше указанной даты.
+   * <p>
+   * Условие обслуживается индексом {@code idx_subscription_freezes_end_date};
+   * используется для заполнения индекса доступа в памяти.
+   * </p>
+   *
+   * @param date дата, начиная с которой заморозка должна действовать
+   * @return список DTO заморозок
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.SubscriptionFreezeDto(
+              f.freeze_id, f.subscription.subscription_id, f.freeze_startDate, f.freeze_endDate)
+          FROM SubscriptionFreezeEntity f
+          WHERE f.freeze_endDate >= :date
+          """)
+  List<SubscriptionFreezeDto> findAllAsDtoEndingFrom(@Param("date") LocalDate date);
+
+  /**
+   * Возвращает заморозки абонементов клиента, которые не закончились раньше указанной даты.
+   *
+   * @param clientId идентификатор клиента
+   * @param date дата, начиная с которой заморозка должна действовать
+   * @return список DTO заморозок
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.SubscriptionFreezeDto(
+              f.freeze_id, f.subscription.subscription_id, f.freeze_startDate, f.freeze_endDate)
+          FROM SubscriptionFreezeEntity f
+          WHERE f.subscription.client.client_id = :clientId AND f.freeze_endDate >= :date
+          """)
+  List<SubscriptionFreezeDto> findAllAsDtoByClientEndingFrom(@Param("clientId") Long clientId,
+                                                             @Param("date") LocalDate date);
+
+  /**
+   * Подсчитывает абонементы, замороженные в указанную дату.
+   * <p>
+   * Периоды одного абонемента не пересекаются, поэтому каждая подходящая запись
+   * соответствует одному абонементу.
+   * </p>
+   *
+   * @param date дата
+   * @return количество замороженных абонементов
+   */
+  @Query("""
+          SELECT COUNT(f) FROM SubscriptionFreezeEntity f
+          WHERE f.freeze_endDate >= :date AND f.freeze_startDate <= :date
+          """)
+  long countFrozenOn(@Param("date") LocalDate date);
+}
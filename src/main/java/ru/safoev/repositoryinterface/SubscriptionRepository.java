@@ -1,8 +1,26 @@
 package ru.safoev.repositoryinterface;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.safoev.dtorecords.SubscriptionDto;
+import ru.safoev.dtorecords.SubscriptionValidityDto;
 import ru.safoev.entity.SubscriptionEntity;
+import ru.safoev.enumlists.SubscriptionStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью SubscriptionEntity.
@@ -23,4 +41,193 @@ import ru.safoev.entity.SubscriptionEntity;
  */
 @Repository
 public interface SubscriptionRepository extends JpaRepository<SubscriptionEntity, Long> {
-}
\ No newline at end of file
+
+  /**
+   * Подсчитывает количество абонементов с указанным статусом.
+   *
+   * @param status статус абонемента
+   * @return количество абонементов
+   */
+  @Query("SELECT COUNT(s) FROM SubscriptionEntity s WHERE s.subscription_status = :status")
+  long countByStatus(@Param("status") SubscriptionStatus status);
+
+  /**
+   * Возвращает идентификаторы абонементов с указанным статусом, срок действия которых
+   * с учетом заморозок закончился раньше указанной даты.
+   * <p>
+   * Условие обслуживается индексом {@code idx_subscriptions_status_end_date}
+   * (статус, фактическая дата окончания), поэтому читаются только подходящие строки.
+   * </p>
+   *
+   * @param status текущий статус абонементов
+   * @param date дата, раньше которой закончился срок действия
+   * @param limit максимальное количество идентификаторов (размер пакета)
+   * @return список идентификаторов абонементов
+   */
+  @Query("""
+          SELECT s.subscription_id FROM SubscriptionEntity s
+          WHERE s.subscription_status = :status AND s.subscription_effectiveEndDate < :date
+          """)
+  List<Long> findIdsByStatusAndEffectiveEndDateBefore(@Param("status") SubscriptionStatus status,
+                                                      @Param("date") LocalDate date, Limit limit);
+
+  /**
+   * Переводит абонементы из одного статуса в другой одним запросом UPDATE.
+   * <p>
+   * Абонементы, статус которых успел измениться, не затрагиваются.
+   * Загруженные в контекст сохранения сущности не обновляются.
+   * </p>
+   *
+   * @param ids идентификаторы абонементов
+   * @param from ожидаемый текущий статус
+   * @param to новый статус
+   * @return количество измененных абонементов
+   */
+  @Modifying
+  @Query("""
+          UPDATE SubscriptionEntity s SET s.subscription_status = :to
+          WHERE s.subscription_id IN :ids AND s.subscription_status = :from
+          """)
+  int updateStatus(@Param("ids") List<Long> ids, @Param("from") SubscriptionStatus from,
+                   @Param("to") SubscriptionStatus to);
+
+  /**
+   * Возвращает абонемент по идентификатору с блокировкой строки до конца транзакции
+   * (SELECT ... FOR UPDATE).
+   *
+   * @param id идентификатор абонемента
+   * @return абонемент или пустой Optional, если абонемент не найден
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT s FROM SubscriptionEntity s WHERE s.subscription_id = :id")
+  Optional<SubscriptionEntity> findByIdForUpdate(@Param("id") Long id);
+
+  /**
+   * Пересчитывает фактическую дату окончания абонемента: дата окончания плюс
+   * суммарная длительность его заморозок в днях.
+   * <p>
+   * Расчет выполняется одним запросом UPDATE в базе данных. Перед запросом
+   * изменения контекста сохранения записываются в базу, после него контекст очищается.
+   * </p>
+   *
+   * @param id идентификатор абонемента
+   * @return количество измененных абонементов (0 или 1)
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("""
+          UPDATE SubscriptionEntity s
+          SET s.subscription_effectiveEndDate = s.subscription_endDate + (
+              SELECT COALESCE(SUM(TIMESTAMPDIFF(DAY, f.freeze_startDate, f.freeze_endDate) + 1), 0)
+              FROM SubscriptionFreezeEntity f
+              WHERE f.subscription.subscription_id = s.subscription_id) DAY
+          WHERE s.subscription_id = :id
+          """)
+  int recalculateEffectiveEndDate(@Param("id") Long id);
+
+  /**
+   * Возвращает сроки действия абонементов с указанным статусом, которые с учетом заморозок
+   * не закончились раньше указанной даты (DTO-проекция).
+   * <p>
+   * Используется для заполнения индекса доступа в памяти; условие обслуживается
+   * индексом {@code idx_subscriptions_status_end_date}.
+   * </p>
+   *
+   * @param status статус абонементов
+   * @param date дата, начиная с которой абонемент должен действовать
+   * @return список сроков действия абонементов
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.SubscriptionValidityDto(
+              s.subscription_id, s.client.client_id, s.subscription_startDate, s.subscription_effectiveEndDate)
+          FROM SubscriptionEntity s
+          WHERE s.subscription_status = :status AND s.subscription_effectiveEndDate >= :date
+          """)
+  List<SubscriptionValidityDto> findValidities(@Param("status") SubscriptionStatus status,
+                                               @Param("date") LocalDate date);
+
+  /**
+   * Возвращает сроки действия абонементов клиента с указанным статусом, которые
+   * с учетом заморозок не закончились раньше указанной даты (DTO-проекция).
+   * <p>
+   * Условие обслуживается индексом {@code idx_subscriptions_client_status_end_date}
+   * (клиент, статус, фактическая дата окончания).
+   * </p>
+   *
+   * @param clientId идентификатор клиента
+   * @param status статус абонементов
+   * @param date дата, начиная с которой абонемент должен действовать
+   * @return список сроков действия абонементов клиента
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.SubscriptionValidityDto(
+              s.subscription_id, s.client.client_id, s.subscription_startDate, s.subscription_effectiveEndDate)
+          FROM SubscriptionEntity s
+          WHERE s.client.client_id = :clientId AND s.subscription_status = :status
+            AND s.subscription_effectiveEndDate >= :date
+          """)
+  List<SubscriptionValidityDto> findValiditiesByClient(@Param("clientId") Long clientId,
+                                                       @Param("status") SubscriptionStatus status,
+                                                       @Param("date") LocalDate date);
+
+  /**
+   * Возвращает страницу абонементов с идентификатором больше указанного (курсорная пагинация).
+   * <p>
+   * Условие по первичному ключу позволяет базе данных начать чтение индекса
+   * сразу с нужной позиции, без пропуска OFFSET строк.
+   * </p>
+   *
+   * @param afterId идентификатор последнего элемента предыдущей страницы (0 для первой страницы)
+   * @param pageable ограничение количества возвращаемых записей
+   * @return список сущностей, упорядоченный по идентификатору
+   */
+  @Query("SELECT s FROM SubscriptionEntity s WHERE s.subscription_id > :afterId ORDER BY s.subscription_id")
+  List<SubscriptionEntity> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Возвращает поток записей абонементов, упорядоченный по идентификатору.
+   * <p>
+   * Строки читаются курсором порциями по 500 записей и не отслеживаются
+   * на изменения (read-only). Поток должен обрабатываться внутри транзакции
+   * и закрываться после использования.
+   * </p>
+   *
+   * @return поток сущностей
+   */
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT s FROM SubscriptionEntity s ORDER BY s.subscription_id")
+  Stream<SubscriptionEntity> streamAllOrderedById();
+
+  /**
+   * Возвращает все абонементы сразу в виде DTO (DTO-проекция).
+   * <p>
+   * Идентификаторы клиента и тарифа читаются из внешних ключей таблицы "subscriptions",
+   * поэтому запрос выполняется одним SELECT без соединений и без
+   * дополнительных запросов на каждого клиента или тариф.
+   * </p>
+   *
+   * @return список DTO абонементов, упорядоченный по идентификатору
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.SubscriptionDto(
+              s.subscription_id, s.client.client_id, s.rate.rate_id,
+              s.subscription_startDate, s.subscription_endDate, s.subscription_freezePeriod,
+              CAST(s.subscription_status AS String))
+          FROM SubscriptionEntity s
+          ORDER BY s.subscription_id
+          """)
+  List<SubscriptionDto> findAllAsDto();
+
+  /**
+   * Возвращает самую раннюю дату начала среди всех абонементов.
+   * <p>
+   * Используется закрытием месяцев для отчетов о выручке: месяцы раньше этой даты выручки не имеют.
+   * </p>
+   *
+   * @return дата начала или null, если абонементов нет
+   */
+  @Query("SELECT MIN(s.subscription_startDate) FROM SubscriptionEntity s")
+  LocalDate findEarliestStartDate();
+}
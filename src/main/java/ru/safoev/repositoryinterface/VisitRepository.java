@@ -1,9 +1,22 @@
 package ru.safoev.repositoryinterface;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.safoev.dtorecords.OccupancyDto;
+import ru.safoev.dtorecords.VisitDto;
 import ru.safoev.entity.VisitEntity;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Репозиторий для работы с сущностью VisitEntity.
  * <p>
@@ -23,4 +36,188 @@ import ru.safoev.entity.VisitEntity;
  */
 @Repository
 public interface VisitRepository extends JpaRepository<VisitEntity, Long> {
-}
\ No newline at end of file
+
+  /**
+   * Подсчитывает количество посещений с временем входа в заданном интервале.
+   * <p>
+   * Интервал полуоткрытый: [from, to). Используется для статистики
+   * посещений за день без выгрузки самих записей.
+   * </p>
+   *
+   * @param from начало интервала (включительно)
+   * @param to конец интервала (не включительно)
+   * @return количество посещений
+   */
+  @Query("""
+          SELECT COUNT(v) FROM VisitEntity v
+          WHERE v.visit_checkInTime >= :from AND v.visit_checkInTime < :to
+          """)
+  long countByCheckInTimeBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+  /**
+   * Возвращает страницу посещений с идентификатором больше указанного (курсорная пагинация).
+   * <p>
+   * Условие по первичному ключу позволяет базе данных начать чтение индекса
+   * сразу с нужной позиции, без пропуска OFFSET строк.
+   * </p>
+   *
+   * @param afterId идентификатор последнего элемента предыдущей страницы (0 для первой страницы)
+   * @param pageable ограничение количества возвращаемых записей
+   * @return список сущностей, упорядоченный по идентификатору
+   */
+  @Query("SELECT v FROM VisitEntity v WHERE v.visitId > :afterId ORDER BY v.visitId")
+  List<VisitEntity> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * Возвращает поток записей посещений, упорядоченный по идентификатору.
+   * <p>
+   * Строки читаются курсором порциями по 500 записей и не отслеживаются
+   * на изменения (read-only). Поток должен обрабатываться внутри транзакции
+   * и закрываться после использования.
+   * </p>
+   *
+   * @return поток сущностей
+   */
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT v FROM VisitEntity v ORDER BY v.visitId")
+  Stream<VisitEntity> streamAllOrderedById();
+
+  /**
+   * Возвращает все посещения сразу в виде DTO (DTO-проекция).
+   * <p>
+   * Идентификаторы клиента и зала читаются из внешних ключей таблицы "visits",
+   * поэтому запрос выполняется одним SELECT без соединений и без
+   * дополнительных запросов на каждого клиента или зал.
+   * </p>
+   *
+   * @return список DTO посещений, упорядоченный по идентификатору
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.VisitDto(
+              v.visitId, v.client.client_id, v.gym.gym_id, v.visit_checkInTime, v.visit_checkOutTime)
+          FROM VisitEntity v
+          ORDER BY v.visitId
+          """)
+  List<VisitDto> findAllAsDto();
+
+  /**
+   * Закрывает открытые посещения клиента в указанном зале (отметка выхода).
+   * <p>
+   * Выполняется одним UPDATE без предварительной загрузки сущностей.
+   * </p>
+   *
+   * @param clientId идентификатор клиента
+   * @param gymId идентификатор зала
+   * @param checkOutTime время выхода клиента
+   * @return количество закрытых посещений (0, если открытого посещения нет)
+   */
+  @Modifying
+  @Query("""
+          UPDATE VisitEntity v SET v.visit_checkOutTime = :checkOutTime
+          WHERE v.client.client_id = :clientId AND v.gym.gym_id = :gymId
+            AND v.visit_checkOutTime IS NULL
+          """)
+  int closeOpenVisits(@Param("clientId") Long clientId,
+                      @Param("gymId") Long gymId,
+                      @Param("checkOutTime") LocalDateTime checkOutTime);
+
+  /**
+   * Закрывает открытые посещения клиента в указанном зале, начатые не раньше указанного времени.
+   * <p>
+   * Условие по времени входа позволяет PostgreSQL исключить из плана секции таблицы
+   * "visits" за прошлые месяцы (partition pruning). Посещения, начатые раньше,
+   * закрываются запросом {@link #closeOpenVisits(Long, Long, LocalDateTime)}.
+   * </p>
+   *
+   * @param clientId идентификатор клиента
+   * @param gymId идентификатор зала
+   * @param since нижняя граница времени входа (включительно)
+   * @param checkOutTime время выхода клиента
+   * @return количество закрытых посещений (0, если открытого посещения в интервале нет)
+   */
+  @Modifying
+  @Query("""
+          UPDATE VisitEntity v SET v.visit_checkOutTime = :checkOutTime
+          WHERE v.client.client_id = :clientId AND v.gym.gym_id = :gymId
+            AND v.visit_checkOutTime IS NULL AND v.visit_checkInTime >= :since
+          """)
+  int closeOpenVisitsCheckedInSince(@Param("clientId") Long clientId,
+                                    @Param("gymId") Long gymId,
+                                    @Param("since") LocalDateTime since,
+                                    @Param("checkOutTime") LocalDateTime checkOutTime);
+
+  /**
+   * Возвращает посещения зала с временем входа в заданном интервале в виде DTO.
+   * <p>
+   * Интервал полуоткрытый: [from, to). Условие обслуживается индексом
+   * {@code idx_visits_gym_check_in_time}; в PostgreSQL читаются только секции
+   * месяцев интервала.
+   * </p>
+   *
+   * @param gymId идентификатор зала
+   * @param from начало интервала (включительно)
+   * @param to конец интервала (не включительно)
+   * @return список DTO посещений, упорядоченный по времени входа
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.VisitDto(
+              v.visitId, v.client.client_id, v.gym.gym_id, v.visit_checkInTime, v.visit_checkOutTime)
+          FROM VisitEntity v
+          WHERE v.gym.gym_id = :gymId AND v.visit_checkInTime >= :from AND v.visit_checkInTime < :to
+          ORDER BY v.visit_checkInTime, v.visitId
+          """)
+  List<VisitDto> findAllAsDtoByGymIdAndCheckInTimeBetween(@Param("gymId") Long gymId,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to);
+
+  /**
+   * Подсчитывает открытые посещения (без отметки выхода) по залам.
+   * <p>
+   * Используется для построения счетчиков заполненности залов при запуске
+   * и периодической сверки. В PostgreSQL обслуживается частичным индексом
+   * открытых посещений из {@code schema-postgresql.sql}.
+   * Залы без открытых посещений в результат не попадают.
+   * </p>
+   *
+   * @return список пар «зал - количество посетителей»
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.OccupancyDto(v.gym.gym_id, COUNT(v))
+          FROM VisitEntity v
+          WHERE v.visit_checkOutTime IS NULL
+          GROUP BY v.gym.gym_id
+          """)
+  List<OccupancyDto> countOpenVisitsByGym();
+
+  /**
+   * Возвращает самое раннее время входа среди всех посещений.
+   * <p>
+   * Используется полной перестройкой агрегатов посещаемости; условие обслуживается
+   * индексом {@code idx_visits_check_in_time}.
+   * </p>
+   *
+   * @return время входа или null, если посещений нет
+   */
+  @Query("SELECT MIN(v.visit_checkInTime) FROM VisitEntity v")
+  LocalDateTime findEarliestCheckInTime();
+
+  /**
+   * Возвращает самое раннее время входа среди открытых посещений, начавшихся не раньше указанного времени.
+   * <p>
+   * Закрытие такого посещения меняет агрегат часа его входа, поэтому пересчет агрегатов
+   * посещаемости начинается не позже этого времени. В PostgreSQL обслуживается частичным
+   * индексом открытых посещений из {@code schema-postgresql.sql}.
+   * </p>
+   *
+   * @param since нижняя граница времени входа
+   * @return время входа или null, если таких открытых посещений нет
+   */
+  @Query("""
+          SELECT MIN(v.visit_checkInTime) FROM VisitEntity v
+          WHERE v.visit_checkOutTime IS NULL AND v.visit_checkInTime >= :since
+          """)
+  LocalDateTime findEarliestOpenCheckInTimeSince(@Param("since") LocalDateTime since);
+}
@@ -0,0 +1,149 @@
+package ru.safoev.repositoryinterface;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.safoev.dtorecords.AttendanceDto;
+import ru.safoev.entity.VisitRollupEntity;
+import ru.safoev.entity.VisitRollupId;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с сущностью VisitRollupEntity.
+ * <p>
+ * Предоставляет методы пересчета часовых агрегатов посещаемости из таблицы "visits"
+ * и отчеты по ним. Пересчет выполняется целыми днями: агрегаты дней удаляются
+ * и вставляются заново одним запросом INSERT ... SELECT с группировкой на стороне базы данных,
+ * без загрузки посещений в приложение.
+ * </p>
+ *
+ * @Repository указывает, что этот интерфейс является Spring репозиторием
+ * @JpaRepository<VisitRollupEntity, VisitRollupId> базовый интерфейс для работы с JPA,
+ * где VisitRollupEntity - тип сущности, VisitRollupId - тип составного идентификатора
+ *
+ * @author SafoevDalerIT-13
+ * @version 1.0
+ * @since 2025
+ */
+@Repository
+public interface VisitRollupRepository extends JpaRepository<VisitRollupEntity, VisitRollupId> {
+
+  /**
+   * Удаляет агрегаты за период дат.
+   *
+   * @param from первая дата периода (включительно)
+   * @param to дата окончания периода (не включительно)
+   * @return количество удаленных агрегатов
+   */
+  @Modifying
+  @Query("DELETE FROM VisitRollupEntity r WHERE r.rollup_date >= :from AND r.rollup_date < :to")
+  int deleteByDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+  /**
+   * Рассчитывает агрегаты по посещениям с временем входа в интервале и вставляет их.
+   * <p>
+   * Интервал полуоткрытый: [from, to); условие обслуживается индексом
+   * {@code idx_visits_check_in_time}. Агрегаты этого интервала должны быть предварительно удалены.
+   * </p>
+   *
+   * @param from начало интервала (включительно)
+   * @param to конец интервала (не включительно)
+   * @return количество вставленных агрегатов
+   */
+  @Modifying
+  @Query("""
+          INSERT INTO VisitRollupEntity (gymId, rollup_date, rollup_hour,
+              rollup_visitCount, rollup_closedCount, rollup_staySeconds)
+          SELECT v.gym.gym_id, CAST(v.visit_checkInTime AS LocalDate), EXTRACT(HOUR FROM v.visit_checkInTime),
+              COUNT(v), COUNT(v.visit_checkOutTime),
+              CAST(COALESCE(SUM(TIMESTAMPDIFF(SECOND, v.visit_checkInTime, v.visit_checkOutTime)), 0) AS Long)
+          FROM VisitEntity v
+          WHERE v.visit_checkInTime >= :from AND v.visit_checkInTime < :to
+          GROUP BY v.gym.gym_id, CAST(v.visit_checkInTime AS LocalDate), EXTRACT(HOUR FROM v.visit_checkInTime)
+          """)
+  int insertFromVisits(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+  /**
+   * Возвращает посещаемость зала по часам за период дат.
+   * <p>
+   * Часы без посещений в результат не попадают.
+   * </p>
+   *
+   * @param gymId идентификатор зала
+   * @param from первая дата периода (включительно)
+   * @param to последняя дата периода (включительно)
+   * @return список DTO, упорядоченный по дате и часу
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.AttendanceDto(
+              r.gymId, r.rollup_date, r.rollup_hour, r.rollup_visitCount, r.rollup_closedCount,
+              CAST(r.rollup_staySeconds AS Double) / NULLIF(r.rollup_closedCount, 0))
+          FROM VisitRollupEntity r
+          WHERE r.gymId = :gymId AND r.rollup_date >= :from AND r.rollup_date <= :to
+          ORDER BY r.rollup_date, r.rollup_hour
+          """)
+  List<AttendanceDto> findHourly(@Param("gymId") Long gymId,
+                                 @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+  /**
+   * Возвращает посещаемость зала по дням за период дат.
+   * <p>
+   * Дни без посещений в результат не попадают.
+   * </p>
+   *
+   * @param gymId идентификатор зала
+   * @param from первая дата периода (включительно)
+   * @param to последняя дата периода (включительно)
+   * @return список DTO с пустым часом, упорядоченный по дате
+   */
+  @Query("""
+          SELECT new ru.safoev.dtorecords.AttendanceDto(
+              r.gymId, r.rollup_date, CAST(NULL AS Integer), SUM(r.rollup_visitCount), SUM(r.rollup_closedCount),
+              CAST(SUM(r.rollup_staySeconds) AS Double) / NULLIF(SUM(r.rollup_closedCount), 0))
+          FROM VisitRollupEntity r
+          WHERE r.gymId = :gymId AND r.rollup_date >= :from AND r.rollup_date <= :to
+          GROUP BY r.gymId, r.rollup_date
+          ORDER BY r.rollup_date
+          """)
+  List<AttendanceDto> findDaily(@Param("gymId") Long gymId,
+                                @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+  /**
+   * Возвращает суммы агрегатов зала по дню недели и часу суток за период дат.
+   * <p>
+   * День недели возвращается в нумерации HQL-функции {@code extract(day of week ...)}:
+   * 1 - воскресенье, 7 - суббота.
+   * </p>
+   *
+   * @param gymId идентификатор зала
+   * @param from первая дата периода (включительно)
+   * @param to последняя дата периода (включительно)
+   * @return список сумм; сочетания без посещений в результат не попадают
+   */
+  @Query("""
+          SELECT new ru.safoev.repositoryinterface.VisitRollupRepository$WeekdayHourTotals(
+              EXTRACT(DAY OF WEEK FROM r.rollup_date), r.rollup_hour,
+              SUM(r.rollup_visitCount), SUM(r.rollup_closedCount), SUM(r.rollup_staySeconds))
+          FROM VisitRollupEntity r
+          WHERE r.gymId = :gymId AND r.rollup_date >= :from AND r.rollup_date <= :to
+          GROUP BY EXTRACT(DAY OF WEEK FROM r.rollup_date), r.rollup_hour
+          """)
+  List<WeekdayHourTotals> sumByWeekdayAndHour(@Param("gymId") Long gymId,
+                                              @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+  /**
+   * Суммы агрегатов по сочетанию дня недели и часа суток.
+   *
+   * @param dayOfWeek день недели (1 - воскресенье, 7 - суббота)
+   * @param hour час суток (0-23)
+   * @param visits количество посещений
+   * @param closedVisits количество завершенных посещений
+   * @param staySeconds суммарная длительность завершенных посещений в секундах
+   */
+  record WeekdayHourTotals(Integer dayOfWeek, Integer hour, Long visits, Long closedVisits, Long staySeconds) {}
+}
@@ -0,0 +1,244 @@
+package ru.safoev.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.safoev.dtorecords.BulkImportReportDto;
+import ru.safoev.dtorecords.BulkRowDto;
+import ru.safoev.dtorecords.BulkRowErrorDto;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Массовая загрузка записей через временную промежуточную таблицу.
+ * <p>
+ * Записи читаются потоком порциями по {@value #CHUNK_ROWS}; каждая проверяется
+ * аннотациями jakarta.validation своего DTO. Корректные записи получают
+ * идентификатор от генератора Hibernate соответствующей сущности и загружаются
+ * в промежуточную таблицу командой COPY (PostgreSQL CopyManager) или, для других
+ * баз данных, пакетными вставками JDBC. Затем проверки по связанным таблицам
+ * помечают оставшиеся некорректные записи, и корректные переносятся в целевую
+ * таблицу одним INSERT ... SELECT. Ошибки в отдельных записях не прерывают загрузку.
+ * </p>
+ * <p>
+ * Методы должны вызываться внутри транзакции: промежуточная таблица
+ * создается с ON COMMIT DROP и видна только текущему соединению.
+ * </p>
+ */
+@Component
+public class BulkCopyImporter {
+
+  static final int MAX_REPORTED_ERRORS = 1000;
+
+  private static final int CHUNK_ROWS = 5000;
+  private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final EntityManager entityManager;
+  private final Validator validator;
+
+  @Autowired
+  public BulkCopyImporter(JdbcTemplate jdbcTemplate, EntityManager entityManager, Validator validator) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.entityManager = entityManager;
+    this.validator = validator;
+  }
+
+  <D> BulkImportReportDto importRows(Iterator<BulkRowDto<D>> rows, BulkImportTarget<D> target) {
+    long started = System.nanoTime();
+    String staging = target.stagingTable();
+    jdbcTemplate.execute("CREATE LOCAL TEMPORARY TABLE " + staging
+            + " (row_no BIGINT NOT NULL, id BIGINT NOT NULL, "
+            + String.join(", ", target.columns())
+            + ", error VARCHAR(1000)) ON COMMIT DROP");
+
+    IdentifierGenerator idGenerator = idGenerator(target.entityType());
+    SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+
+    List<BulkRowErrorDto> errors = new ArrayList<>();
+    long totalRows = 0;
+    long rejectedRows = 0;
+    List<Object[]> chunk = new ArrayList<>(CHUNK_ROWS);
+    while (rows.hasNext()) {
+      BulkRowDto<D> row = rows.next();
+      totalRows++;
+      String error = row.error() != null ? row.error() : validate(row.value());
+      Object[] values = null;
+      if (error == null) {
+        try {
+          values = target.values().apply(row.value());
+        } catch (IllegalArgumentException e) {
+          error = e.getMessage();
+        }
+      }
+      if (error != null) {
+        rejectedRows++;
+        if (errors.size() <= MAX_REPORTED_ERRORS) {
+          errors.add(new BulkRowErrorDto(row.rowNumber(), error));
+        }
+        continue;
+      }
+      Object[] stagingRow = new Object[values.length + 2];
+      stagingRow[0] = row.rowNumber();
+      System.arraycopy(values, 0, stagingRow, 2, values.length);
+      chunk.add(stagingRow);
+      if (chunk.size() == CHUNK_ROWS) {
+        writeChunk(target, chunk, idGenerator, session);
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      writeChunk(target, chunk, idGenerator, session);
+    }
+
+    for (String check : target.checks()) {
+      jdbcTemplate.update(check);
+    }
+    int importedRows = jdbcTemplate.update(target.insertSql());
+    Long stagingRejected = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM " + staging + " WHERE error IS NOT NULL", Long.class);
+    rejectedRows += stagingRejected != null ? stagingRejected : 0;
+    if (stagingRejected != null && stagingRejected > 0) {
+      errors.addAll(jdbcTemplate.query(
+              "SELECT row_no, error FROM " + staging + " WHERE error IS NOT NULL ORDER BY row_no "
+                      + "FETCH FIRST " + (MAX_REPORTED_ERRORS + 1) + " ROWS ONLY",
+              (rs, rowNum) -> new BulkRowErrorDto(rs.getLong("row_no"), rs.getString("error"))
+      ));
+    }
+    jdbcTemplate.execute("DROP TABLE " + staging);
+
+    errors.sort(Comparator.comparingLong(BulkRowErrorDto::rowNumber));
+    List<BulkRowErrorDto> reported = errors.size() > MAX_REPORTED_ERRORS
+            ? List.copyOf(errors.subList(0, MAX_REPORTED_ERRORS))
+            : Collections.unmodifiableList(errors);
+    return new BulkImportReportDto(
+            totalRows,
+            importedRows,
+            rejectedRows,
+            reported,
+            rejectedRows > reported.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)
+    );
+  }
+
+  private String validate(Object value) {
+    if (value == null) {
+      return "Empty record";
+    }
+    var violations = validator.validate(value);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "));
+  }
+
+  private IdentifierGenerator idGenerator(Class<?> entityType) {
+    return (IdentifierGenerator) entityManager.unwrap(SharedSessionContractImplementor.class)
+            .getFactory().getMappingMetamodel()
+            .getEntityDescriptor(entityType)
+            .getGenerator();
+  }
+
+  private <D> void writeChunk(BulkImportTarget<D> target, List<Object[]> chunk,
+                              IdentifierGenerator idGenerator, SharedSessionContractImplementor session) {
+    // Идентификаторы выдаются до начала COPY: во время COPY соединение нельзя использовать для других запросов
+    for (Object[] row : chunk) {
+      row[1] = ((Number) idGenerator.generate(session, null)).longValue();
+    }
+    List<String> columns = new ArrayList<>();
+    columns.add("row_no");
+    columns.add("id");
+    columns.addAll(target.columnNames());
+    jdbcTemplate.execute((Connection connection) -> {
+      if (connection.isWrapperFor(PGConnection.class)) {
+        copyChunk(connection.unwrap(PGConnection.class), target.stagingTable(), columns, chunk);
+      } else {
+        insertChunk(connection, target.stagingTable(), columns, chunk);
+      }
+      return null;
+    });
+  }
+
+  private static void copyChunk(PGConnection connection, String staging, List<String> columns, List<Object[]> chunk)
+          throws SQLException {
+    CopyIn copyIn = connection.getCopyAPI().copyIn(
+            "COPY " + staging + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)");
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(COPY_BUFFER_BYTES + 1024);
+      StringBuilder line = new StringBuilder();
+      for (Object[] row : chunk) {
+        line.setLength(0);
+        for (int i = 0; i < row.length; i++) {
+          if (i > 0) {
+            line.append(',');
+          }
+          appendCsvValue(line, row[i]);
+        }
+        line.append('\n');
+        buffer.writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+        if (buffer.size() >= COPY_BUFFER_BYTES) {
+          copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+          buffer.reset();
+        }
+      }
+      if (buffer.size() > 0) {
+        copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+      }
+      copyIn.endCopy();
+    } finally {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    }
+  }
+
+  /**
+   * Записывает значение в формате CSV команды COPY: NULL — пустое поле без кавычек,
+   * строки всегда в кавычках, чтобы пустая строка не превратилась в NULL.
+   */
+  private static void appendCsvValue(StringBuilder line, Object value) {
+    if (value == null) {
+      return;
+    }
+    if (value instanceof CharSequence) {
+      line.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+    } else {
+      line.append(value);
+    }
+  }
+
+  private static void insertChunk(Connection connection, String staging, List<String> columns, List<Object[]> chunk)
+          throws SQLException {
+    String sql = "INSERT INTO " + staging + " (" + String.join(", ", columns) + ") VALUES ("
+            + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (Object[] row : chunk) {
+        for (int i = 0; i < row.length; i++) {
+          statement.setObject(i + 1, row[i]);
+        }
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+  }
+}
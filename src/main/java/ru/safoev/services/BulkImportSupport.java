@@ -0,0 +1,67 @@
+package ru.safoev.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import ru.safoev.dtorecords.ImportResultDto;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Общая логика массового импорта записей через JPA.
+ * <p>
+ * Сущности сохраняются методом persist с идентификаторами из последовательностей,
+ * поэтому Hibernate отправляет вставки пакетами JDBC (hibernate.jdbc.batch_size).
+ * Контекст персистентности сбрасывается и очищается каждые {@value #FLUSH_EVERY_ROWS}
+ * записей, поэтому потребление памяти не зависит от объема импорта.
+ * Каждая запись проверяется аннотациями валидации DTO, как в одиночных методах создания;
+ * некорректная запись отклоняет весь импорт с номером записи в сообщении.
+ * </p>
+ */
+final class BulkImportSupport {
+
+  private static final int FLUSH_EVERY_ROWS = 1000;
+
+  private BulkImportSupport() {
+  }
+
+  static <D, E> ImportResultDto persistAll(Iterator<D> rows, EntityManager entityManager, Validator validator,
+                                           Function<D, E> toEntity) {
+    long started = System.nanoTime();
+    long imported = 0;
+    try {
+      while (rows.hasNext()) {
+        D row = rows.next();
+        requireValid(row, imported + 1, validator);
+        entityManager.persist(toEntity.apply(row));
+        if (++imported % FLUSH_EVERY_ROWS == 0) {
+          entityManager.flush();
+          entityManager.clear();
+        }
+      }
+      entityManager.flush();
+      entityManager.clear();
+    } catch (PersistenceException e) {
+      throw new IllegalArgumentException("Import failed after reading " + imported + " rows, nothing was saved: " + e.getMessage(), e);
+    }
+    return new ImportResultDto(imported, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+  }
+
+  private static <D> void requireValid(D row, long rowNumber, Validator validator) {
+    if (row == null) {
+      throw new IllegalArgumentException("Row " + rowNumber + ": empty record, nothing was saved");
+    }
+    Set<ConstraintViolation<D>> violations = validator.validate(row);
+    if (!violations.isEmpty()) {
+      throw new IllegalArgumentException("Row " + rowNumber + ": " + violations.stream()
+              .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+              .sorted()
+              .collect(Collectors.joining("; ")) + ", nothing was saved");
+    }
+  }
+}
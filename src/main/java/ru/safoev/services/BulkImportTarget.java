@@ -0,0 +1,38 @@
+package ru.safoev.services;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Описание целевой таблицы массовой загрузки через промежуточную таблицу.
+ * <p>
+ * Промежуточная таблица содержит служебные столбцы {@code row_no}, {@code id}
+ * и {@code error}, а также столбцы {@code columns}. Проверки {@code checks}
+ * заполняют {@code error} для записей, которые нельзя вставить (нет связанной
+ * записи, нарушение уникальности и т.п.); {@code insertSql} переносит
+ * в целевую таблицу только записи без ошибок.
+ * </p>
+ *
+ * @param stagingTable имя временной промежуточной таблицы
+ * @param entityType сущность, генератор идентификаторов которой используется для новых записей
+ * @param columns определения столбцов промежуточной таблицы ("имя ТИП")
+ * @param values преобразование записи в значения столбцов; {@link IllegalArgumentException} отклоняет запись
+ * @param checks UPDATE-запросы, помечающие некорректные записи
+ * @param insertSql INSERT ... SELECT из промежуточной таблицы в целевую
+ * @param <D> тип входной записи
+ */
+record BulkImportTarget<D>(
+        String stagingTable,
+        Class<?> entityType,
+        List<String> columns,
+        Function<D, Object[]> values,
+        List<String> checks,
+        String insertSql
+) {
+
+  List<String> columnNames() {
+    return columns.stream()
+            .map(column -> column.substring(0, column.indexOf(' ')))
+            .toList();
+  }
+}
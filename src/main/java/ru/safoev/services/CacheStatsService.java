@@ -0,0 +1,42 @@
+package ru.safoev.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.safoev.dtorecords.CacheRegionStatsDto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+public class CacheStatsService {
+  private final Statistics statistics;
+
+  @Autowired
+  public CacheStatsService(EntityManagerFactory entityManagerFactory) {
+    this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  public List<CacheRegionStatsDto> getCacheStats() {
+    return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+            .sorted()
+            .map(region -> toDto(region, statistics.getCacheRegionStatistics(region)))
+            .filter(Objects::nonNull)
+            .toList();
+  }
+
+  private static CacheRegionStatsDto toDto(String region, CacheRegionStatistics regionStatistics) {
+    if (regionStatistics == null) {
+      return null;
+    }
+    long hits = regionStatistics.getHitCount();
+    long misses = regionStatistics.getMissCount();
+    long requests = hits + misses;
+    return new CacheRegionStatsDto(region, hits, misses, regionStatistics.getPutCount(),
+            requests == 0 ? 0.0 : (double) hits / requests);
+  }
+}
@@ -0,0 +1,469 @@
+package ru.safoev.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.safoev.dtorecords.ClientCohortDto;
+import ru.safoev.dtorecords.CohortRefreshDto;
+import ru.safoev.dtorecords.CohortRetentionDto;
+import ru.safoev.repositoryinterface.ClientCohortMonthRepository;
+import ru.safoev.repositoryinterface.ClientCohortRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class ClientCohortService {
+  private static final Logger log = LoggerFactory.getLogger(ClientCohortService.class);
+  private static final int MAX_COHORTS = 120;
+  private static final int REFRESH_CHUNK_COHORTS = 12;
+  private static final int CLIENT_ID_CHUNK = 1000;
+
+  private static final String ALL_COHORTS_SQL = """
+          SELECT DISTINCT EXTRACT(YEAR FROM client_registration_date), EXTRACT(MONTH FROM client_registration_date)
+          FROM clients
+          WHERE client_registration_date IS NOT NULL
+          """;
+
+  private static final String COHORTS_SQL = """
+          SELECT c.cohort_month, c.cohort_clients,
+              COALESCE(SUM(CASE WHEN m.cohort_activity_month = ? THEN m.cohort_subscribers END), 0),
+              COALESCE(SUM(m.cohort_churned), 0),
+              COALESCE(SUM(m.cohort_revenue), 0),
+              ROUND(COALESCE(SUM(m.cohort_revenue), 0) / c.cohort_clients, 2),
+              c.cohort_refreshed_at
+          FROM client_cohorts c
+          LEFT JOIN client_cohort_months m ON m.cohort_month = c.cohort_month
+          WHERE c.cohort_month >= ? AND c.cohort_month <= ?
+          GROUP BY c.cohort_month, c.cohort_clients, c.cohort_refreshed_at
+          ORDER BY c.cohort_month
+          """;
+
+  private static final String RETENTION_SQL = """
+          SELECT m.cohort_month, m.cohort_activity_month, c.cohort_clients,
+              m.cohort_visitors, m.cohort_subscribers, m.cohort_churned, m.cohort_revenue,
+              CAST(m.cohort_visitors AS DOUBLE PRECISION) / c.cohort_clients,
+              CAST(m.cohort_subscribers AS DOUBLE PRECISION) / c.cohort_clients,
+              CAST(m.cohort_churned AS DOUBLE PRECISION) / NULLIF(m.cohort_subscribers, 0),
+              ROUND(SUM(m.cohort_revenue) OVER (PARTITION BY m.cohort_month ORDER BY m.cohort_activity_month)
+                  / c.cohort_clients, 2)
+          FROM client_cohort_months m
+          JOIN client_cohorts c ON c.cohort_month = m.cohort_month
+          WHERE m.cohort_month >= ? AND m.cohort_month <= ?
+          ORDER BY m.cohort_month, m.cohort_activity_month
+          """;
+
+  /*
+   * Показатели когорт за каждый месяц от регистрации по текущий.
+   * Абонемент действует с даты начала по фактическую дату окончания (с учетом заморозок) включительно;
+   * прекращение - окончание абонемента, за которым у клиента нет абонемента, начавшегося
+   * не позже следующего дня и заканчивающегося позже.
+   */
+  private static final String SUBSCRIPTION_CTES = """
+          members AS (
+              SELECT co.cs, c.client_id
+              FROM cohorts co
+              JOIN clients c ON c.client_registration_date >= co.cs AND c.client_registration_date < co.ce
+          ),
+          subscribers AS (
+              SELECT mb.cs, mo.ms, COUNT(DISTINCT mb.client_id) AS n
+              FROM members mb
+              JOIN subscriptions s ON s.client_id = mb.client_id
+              JOIN months mo ON s.subscription_start_date < mo.me AND s.subscription_effective_end_date >= mo.ms
+              GROUP BY mb.cs, mo.ms
+          ),
+          churned AS (
+              SELECT mb.cs, mo.ms, COUNT(DISTINCT mb.client_id) AS n
+              FROM members mb
+              JOIN subscriptions s ON s.client_id = mb.client_id
+              JOIN months mo ON s.subscription_effective_end_date >= mo.ms AND s.subscription_effective_end_date < mo.me
+              WHERE NOT EXISTS (
+                  SELECT 1 FROM subscriptions r
+                  WHERE r.client_id = s.client_id
+                    AND r.subscription_start_date <= s.subscription_effective_end_date + 1
+                    AND r.subscription_effective_end_date > s.subscription_effective_end_date
+              )
+              GROUP BY mb.cs, mo.ms
+          ),
+          revenue AS (
+              SELECT mb.cs, mo.ms, SUM(r.rate_price) AS amount
+              FROM members mb
+              JOIN subscriptions s ON s.client_id = mb.client_id
+              JOIN rates r ON r.rate_id = s.rate_id
+              JOIN months mo ON s.subscription_start_date >= mo.ms AND s.subscription_start_date < mo.me
+              GROUP BY mb.cs, mo.ms
+          )""";
+
+  private static final String UPDATE_ARCHIVED_MONTH_SQL = """
+          UPDATE client_cohort_months
+          SET cohort_subscribers = ?, cohort_churned = ?, cohort_revenue = ?
+          WHERE cohort_month = ? AND cohort_activity_month = ?
+          """;
+
+  private static final RowMapper<YearMonth> YEAR_MONTH_ROW = (rs, rowNum) -> YearMonth.of(rs.getInt(1), rs.getInt(2));
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ClientCohortRepository clientCohortRepository;
+  private final ClientCohortMonthRepository clientCohortMonthRepository;
+  private final VisitArchiveService visitArchiveService;
+
+  // Когорты, клиенты и тарифы, данные которых изменились после предыдущего пересчета
+  private final Set<YearMonth> dirtyCohorts = ConcurrentHashMap.newKeySet();
+  private final Set<Long> dirtyClients = ConcurrentHashMap.newKeySet();
+  private final Set<Long> dirtyRates = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+  private final ReentrantLock lock = new ReentrantLock();
+  // Последний месяц, по который рассчитаны показатели (null - перестройки еще не было)
+  private volatile YearMonth refreshedThrough;
+
+  @Autowired
+  public ClientCohortService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ClientCohortRepository clientCohortRepository,
+                             ClientCohortMonthRepository clientCohortMonthRepository,
+                             VisitArchiveService visitArchiveService) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.clientCohortRepository = clientCohortRepository;
+    this.clientCohortMonthRepository = clientCohortMonthRepository;
+    this.visitArchiveService = visitArchiveService;
+  }
+
+  public List<ClientCohortDto> getCohorts(YearMonth from, YearMonth to) {
+    YearMonth end = to != null ? to : YearMonth.now();
+    YearMonth start = from != null ? from : end.minusMonths(11);
+    requireRange(start, end);
+    return jdbcTemplate.query(COHORTS_SQL, (rs, rowNum) -> new ClientCohortDto(
+            rs.getObject(1, LocalDate.class),
+            rs.getLong(2),
+            rs.getLong(3),
+            rs.getLong(4),
+            rs.getBigDecimal(5),
+            rs.getBigDecimal(6),
+            rs.getObject(7, LocalDateTime.class)
+    ), YearMonth.now().atDay(1), start.atDay(1), end.atDay(1));
+  }
+
+  public List<CohortRetentionDto> getRetention(YearMonth from, YearMonth to) {
+    YearMonth end = to != null ? to : YearMonth.now();
+    YearMonth start = from != null ? from : end.minusMonths(11);
+    requireRange(start, end);
+    return jdbcTemplate.query(RETENTION_SQL, (rs, rowNum) -> {
+      LocalDate cohortMonth = rs.getObject(1, LocalDate.class);
+      LocalDate activityMonth = rs.getObject(2, LocalDate.class);
+      return new CohortRetentionDto(
+              cohortMonth,
+              activityMonth,
+              ChronoUnit.MONTHS.between(cohortMonth, activityMonth),
+              rs.getLong(3),
+              rs.getLong(4),
+              rs.getLong(5),
+              rs.getLong(6),
+              rs.getBigDecimal(7),
+              rs.getDouble(8),
+              rs.getDouble(9),
+              rs.getObject(10, Double.class),
+              rs.getBigDecimal(11)
+      );
+    }, start.atDay(1), end.atDay(1));
+  }
+
+  /*
+   * Изменения отмечаются после фиксации транзакции всеми путями записи: создание, изменение
+   * и удаление клиентов, абонементов и посещений. Идентификаторы новых строк не возрастают
+   * в порядке фиксации (пулы последовательностей, отложенная запись, COPY), поэтому новые
+   * строки не ищутся по идентификаторам.
+   */
+  public void clientsChanged(Long... clientIds) {
+    clientsChanged(Arrays.asList(clientIds));
+  }
+
+  public void clientsChanged(Collection<Long> clientIds) {
+    List<Long> ids = clientIds.stream().filter(Objects::nonNull).distinct().toList();
+    if (!ids.isEmpty()) {
+      TransactionHooks.afterCommit(() -> dirtyClients.addAll(ids));
+    }
+  }
+
+  // Для новых, перенесенных в другую когорту и удаленных клиентов
+  public void cohortChanged(LocalDateTime registrationDate) {
+    if (registrationDate != null) {
+      cohortsChanged(List.of(YearMonth.from(registrationDate)));
+    }
+  }
+
+  public void cohortsChanged(Collection<YearMonth> cohorts) {
+    List<YearMonth> changed = List.copyOf(new TreeSet<>(cohorts));
+    if (!changed.isEmpty()) {
+      TransactionHooks.afterCommit(() -> dirtyCohorts.addAll(changed));
+    }
+  }
+
+  // Выручка когорт считается по ценам тарифов
+  public void rateChanged(Long rateId) {
+    if (rateId != null) {
+      TransactionHooks.afterCommit(() -> dirtyRates.add(rateId));
+    }
+  }
+
+  // Для изменений, границы которых неизвестны (загрузка через COPY)
+  public void rebuildAfterCommit() {
+    TransactionHooks.afterCommit(() -> rebuildRequested.set(true));
+  }
+
+  /**
+   * Пересчитывает когорты, данные которых изменились после предыдущего пересчета:
+   * отмеченные когорты, когорты отмеченных клиентов и клиентов с абонементами отмеченных тарифов.
+   * В начале месяца выполняется полная перестройка: у всех когорт появляется новый месяц.
+   */
+  @Scheduled(initialDelayString = "${gym.analytics.cohorts.refresh-interval:5m}",
+          fixedDelayString = "${gym.analytics.cohorts.refresh-interval:5m}")
+  public CohortRefreshDto refresh() {
+    if (rebuildRequested.get() || !YearMonth.now().equals(refreshedThrough)) {
+      return rebuild();
+    }
+    lock.lock();
+    try {
+      long started = System.nanoTime();
+      Set<YearMonth> cohorts = new TreeSet<>(drain(dirtyCohorts));
+      List<Long> clients = drain(dirtyClients);
+      List<Long> rates = drain(dirtyRates);
+      try {
+        for (int i = 0; i < clients.size(); i += CLIENT_ID_CHUNK) {
+          cohorts.addAll(findCohortsOfClients(clients.subList(i, Math.min(i + CLIENT_ID_CHUNK, clients.size()))));
+        }
+        if (!rates.isEmpty()) {
+          cohorts.addAll(findCohortsOfRates(rates));
+        }
+        recompute(cohorts, refreshedThrough);
+      } catch (RuntimeException e) {
+        dirtyCohorts.addAll(cohorts);
+        dirtyClients.addAll(clients);
+        dirtyRates.addAll(rates);
+        throw e;
+      }
+      long millis = (System.nanoTime() - started) / 1_000_000;
+      log.debug("Client cohorts refreshed: {} cohorts in {} ms", cohorts.size(), millis);
+      return new CohortRefreshDto(false, cohorts.size(), millis);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Полная перестройка всех когорт частями, каждая в своей транзакции
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${gym.analytics.cohorts.rebuild-cron:0 50 3 * * *}")
+  public CohortRefreshDto rebuild() {
+    lock.lock();
+    try {
+      long started = System.nanoTime();
+      rebuildRequested.set(false);
+      // Перестройка покрывает все когорты, поэтому накопленные отметки не нужны
+      dirtyCohorts.clear();
+      dirtyClients.clear();
+      dirtyRates.clear();
+      YearMonth current = YearMonth.now();
+      // Когорты без клиентов удаляются пересчетом, поэтому в перестройку входят и рассчитанные ранее
+      Set<YearMonth> cohorts = new TreeSet<>(jdbcTemplate.query(ALL_COHORTS_SQL, YEAR_MONTH_ROW));
+      clientCohortRepository.findAllMonths().forEach(month -> cohorts.add(YearMonth.from(month)));
+      try {
+        recompute(cohorts, current);
+      } catch (RuntimeException e) {
+        rebuildRequested.set(true);
+        throw e;
+      }
+      refreshedThrough = current;
+      long millis = (System.nanoTime() - started) / 1_000_000;
+      log.info("Client cohorts rebuilt: {} cohorts in {} ms", cohorts.size(), millis);
+      return new CohortRefreshDto(true, cohorts.size(), millis);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void recompute(Collection<YearMonth> cohorts, YearMonth current) {
+    List<YearMonth> sorted = new ArrayList<>(new TreeSet<>(cohorts));
+    for (int i = 0; i < sorted.size(); i += REFRESH_CHUNK_COHORTS) {
+      recomputeChunk(sorted.subList(i, Math.min(i + REFRESH_CHUNK_COHORTS, sorted.size())), current);
+    }
+  }
+
+  // Когорты удаляются и вставляются заново запросами INSERT ... SELECT в одной транзакции;
+  // в месяцах архивного периода обновляются только показатели абонементов
+  private void recomputeChunk(List<YearMonth> cohorts, YearMonth current) {
+    List<LocalDate> cohortDays = cohorts.stream().map(cohort -> cohort.atDay(1)).toList();
+    YearMonth activityFrom = notArchived(cohorts.getFirst());
+    List<YearMonth> archived = new ArrayList<>();
+    List<YearMonth> months = new ArrayList<>();
+    for (YearMonth month = cohorts.getFirst(); !month.isAfter(current); month = month.plusMonths(1)) {
+      if (month.isBefore(activityFrom)) {
+        archived.add(month);
+      } else {
+        months.add(month);
+      }
+    }
+    LocalDateTime refreshedAt = LocalDateTime.now();
+    transactionTemplate.executeWithoutResult(status -> {
+      clientCohortRepository.deleteByMonths(cohortDays);
+      clientCohortMonthRepository.deleteByCohortsFrom(cohortDays, activityFrom.atDay(1));
+
+      List<Object> params = bounds(cohorts);
+      params.add(refreshedAt);
+      jdbcTemplate.update(insertCohortsSql(cohorts.size()), params.toArray());
+      if (!months.isEmpty()) {
+        params = bounds(cohorts);
+        params.addAll(bounds(months));
+        params.add(activityFrom.atDay(1).atStartOfDay());
+        jdbcTemplate.update(insertCohortMonthsSql(cohorts.size(), months.size()), params.toArray());
+      }
+      if (!archived.isEmpty()) {
+        params = bounds(cohorts);
+        params.addAll(bounds(archived));
+        List<Object[]> rows = jdbcTemplate.query(archivedCohortMonthsSql(cohorts.size(), archived.size()),
+                (rs, rowNum) -> new Object[]{rs.getLong(3), rs.getLong(4), rs.getBigDecimal(5),
+                        rs.getObject(1, LocalDate.class), rs.getObject(2, LocalDate.class)},
+                params.toArray());
+        jdbcTemplate.batchUpdate(UPDATE_ARCHIVED_MONTH_SQL, rows);
+      }
+    });
+  }
+
+  private List<YearMonth> findCohortsOfClients(List<Long> clientIds) {
+    String placeholders = String.join(", ", Collections.nCopies(clientIds.size(), "?"));
+    return jdbcTemplate.query("""
+            SELECT DISTINCT EXTRACT(YEAR FROM client_registration_date), EXTRACT(MONTH FROM client_registration_date)
+            FROM clients
+            WHERE client_id IN (%s)
+            """.formatted(placeholders), YEAR_MONTH_ROW, clientIds.toArray());
+  }
+
+  private List<YearMonth> findCohortsOfRates(List<Long> rateIds) {
+    String placeholders = String.join(", ", Collections.nCopies(rateIds.size(), "?"));
+    return jdbcTemplate.query("""
+            SELECT DISTINCT EXTRACT(YEAR FROM c.client_registration_date), EXTRACT(MONTH FROM c.client_registration_date)
+            FROM clients c
+            WHERE EXISTS (SELECT 1 FROM subscriptions s WHERE s.client_id = c.client_id AND s.rate_id IN (%s))
+            """.formatted(placeholders), YEAR_MONTH_ROW, rateIds.toArray());
+  }
+
+  // Первый месяц, посещения которого целиком остаются в таблице
+  private YearMonth notArchived(YearMonth month) {
+    LocalDate archivedBefore = visitArchiveService.getArchivedBefore();
+    if (archivedBefore == null) {
+      return month;
+    }
+    YearMonth firstComplete = archivedBefore.getDayOfMonth() == 1
+            ? YearMonth.from(archivedBefore) : YearMonth.from(archivedBefore).plusMonths(1);
+    return month.isBefore(firstComplete) ? firstComplete : month;
+  }
+
+  private static String insertCohortsSql(int cohorts) {
+    return """
+            INSERT INTO client_cohorts (cohort_month, cohort_clients, cohort_refreshed_at)
+            WITH cohorts(cs, ce) AS (VALUES %s)
+            SELECT co.cs, COUNT(*), CAST(? AS TIMESTAMP)
+            FROM cohorts co
+            JOIN clients c ON c.client_registration_date >= co.cs AND c.client_registration_date < co.ce
+            GROUP BY co.cs
+            """.formatted(monthValues(cohorts));
+  }
+
+  private static String insertCohortMonthsSql(int cohorts, int months) {
+    return """
+            INSERT INTO client_cohort_months (cohort_month, cohort_activity_month,
+                cohort_visitors, cohort_subscribers, cohort_churned, cohort_revenue)
+            WITH cohorts(cs, ce) AS (VALUES %s),
+            months(ms, me) AS (VALUES %s),
+            %s,
+            visitors AS (
+                SELECT mb.cs, mo.ms, COUNT(DISTINCT mb.client_id) AS n
+                FROM members mb
+                JOIN visits v ON v.client_id = mb.client_id AND v.visit_check_in_time >= ?
+                JOIN months mo ON v.visit_check_in_time >= mo.ms AND v.visit_check_in_time < mo.me
+                GROUP BY mb.cs, mo.ms
+            )
+            SELECT co.cs, mo.ms, COALESCE(vi.n, 0), COALESCE(su.n, 0), COALESCE(ch.n, 0), COALESCE(re.amount, 0)
+            FROM cohorts co
+            JOIN months mo ON mo.ms >= co.cs
+            LEFT JOIN visitors vi ON vi.cs = co.cs AND vi.ms = mo.ms
+            LEFT JOIN subscribers su ON su.cs = co.cs AND su.ms = mo.ms
+            LEFT JOIN churned ch ON ch.cs = co.cs AND ch.ms = mo.ms
+            LEFT JOIN revenue re ON re.cs = co.cs AND re.ms = mo.ms
+            WHERE EXISTS (SELECT 1 FROM members mb WHERE mb.cs = co.cs)
+            """.formatted(monthValues(cohorts), monthValues(months), SUBSCRIPTION_CTES);
+  }
+
+  /*
+   * Показатели абонементов за месяцы, посещения которых перенесены в архив.
+   * Абонементы не архивируются, поэтому эти показатели пересчитываются; число посетивших
+   * остается рассчитанным до архивации.
+   */
+  private static String archivedCohortMonthsSql(int cohorts, int months) {
+    return """
+            WITH cohorts(cs, ce) AS (VALUES %s),
+            months(ms, me) AS (VALUES %s),
+            %s
+            SELECT co.cs, mo.ms, COALESCE(su.n, 0), COALESCE(ch.n, 0), COALESCE(re.amount, 0)
+            FROM cohorts co
+            JOIN months mo ON mo.ms >= co.cs
+            LEFT JOIN subscribers su ON su.cs = co.cs AND su.ms = mo.ms
+            LEFT JOIN churned ch ON ch.cs = co.cs AND ch.ms = mo.ms
+            LEFT JOIN revenue re ON re.cs = co.cs AND re.ms = mo.ms
+            """.formatted(monthValues(cohorts), monthValues(months), SUBSCRIPTION_CTES);
+  }
+
+  private static String monthValues(int months) {
+    return String.join(", ", Collections.nCopies(months, "(CAST(? AS DATE), CAST(? AS DATE))"));
+  }
+
+  // Первый день месяца и первый день следующего для каждого месяца
+  private static List<Object> bounds(List<YearMonth> months) {
+    List<Object> params = new ArrayList<>();
+    for (YearMonth month : months) {
+      params.add(month.atDay(1));
+      params.add(month.plusMonths(1).atDay(1));
+    }
+    return params;
+  }
+
+  private static <T> List<T> drain(Set<T> set) {
+    List<T> drained = new ArrayList<>();
+    for (Iterator<T> iterator = set.iterator(); iterator.hasNext(); ) {
+      drained.add(iterator.next());
+      iterator.remove();
+    }
+    return drained;
+  }
+
+  private static void requireRange(YearMonth from, YearMonth to) {
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException("'from' must not be after 'to'");
+    }
+    if (ChronoUnit.MONTHS.between(from, to) >= MAX_COHORTS) {
+      throw new IllegalArgumentException("Cohort range must not exceed " + MAX_COHORTS + " months");
+    }
+  }
+}
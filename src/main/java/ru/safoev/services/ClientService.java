@@ -1,28 +1,95 @@
 package ru.safoev.services;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.BulkImportReportDto;
+import ru.safoev.dtorecords.BulkRowDto;
 import ru.safoev.dtorecords.ClientDto;
+import ru.safoev.dtorecords.CursorPageDto;
+import ru.safoev.dtorecords.ImportResultDto;
+import ru.safoev.dtorecords.PageDto;
 import ru.safoev.entity.ClientEntity;
 import ru.safoev.filters.ClientSearchFilter;
+import ru.safoev.filters.ClientSpecifications;
 import ru.safoev.mappers.ClientMapper;
 import ru.safoev.repositoryinterface.ClientRepository;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class ClientService {
+  private static final BulkImportTarget<ClientDto> BULK_TARGET = new BulkImportTarget<>(
+          "bulk_clients",
+          ClientEntity.class,
+          List.of("first_name VARCHAR", "last_name VARCHAR", "phone VARCHAR", "email VARCHAR",
+                  "date_of_birth DATE", "registration_date TIMESTAMP"),
+          dto -> new Object[]{dto.firstName(), dto.lastName(), dto.phone(), dto.email(),
+                  dto.dateOfBirth(), dto.registrationDate()},
+          List.of(
+                  "UPDATE bulk_clients SET error = 'firstName: длина больше 50 символов'"
+                          + " WHERE error IS NULL AND LENGTH(first_name) > 50",
+                  "UPDATE bulk_clients SET error = 'lastName: длина больше 50 символов'"
+                          + " WHERE error IS NULL AND LENGTH(last_name) > 50",
+                  "UPDATE bulk_clients SET error = 'phone: длина больше 20 символов'"
+                          + " WHERE error IS NULL AND LENGTH(phone) > 20",
+                  "UPDATE bulk_clients SET error = 'email: длина больше 100 символов'"
+                          + " WHERE error IS NULL AND LENGTH(email) > 100",
+                  """
+                  UPDATE bulk_clients s SET error = 'phone: клиент с таким телефоном уже существует'
+                  WHERE s.error IS NULL AND s.phone IS NOT NULL
+                    AND EXISTS (SELECT 1 FROM clients c WHERE c.client_phone = s.phone)
+                  """,
+                  """
+                  UPDATE bulk_clients s SET error = 'phone: телефон повторяется в загружаемых данных'
+                  WHERE s.error IS NULL AND s.phone IS NOT NULL
+                    AND EXISTS (SELECT 1 FROM bulk_clients d
+                                WHERE d.phone = s.phone AND d.row_no < s.row_no AND d.error IS NULL)
+                  """
+          ),
+          """
+          INSERT INTO clients (client_id, client_first_name, client_last_name, client_phone,
+                               client_email, client_date_of_birth, client_registration_date)
+          SELECT id, first_name, last_name, phone, email, date_of_birth,
+                 COALESCE(registration_date, CURRENT_TIMESTAMP)
+          FROM bulk_clients
+          WHERE error IS NULL
+          """
+  );
+
   private final ClientRepository clientRepository;
 
   private final ClientMapper clientMapper;
+  private final EntityManager entityManager;
+  private final BulkCopyImporter bulkCopyImporter;
+  private final EntityChangeBus entityChangeBus;
+  private final ClientCohortService clientCohortService;
+  private final Validator validator;
 
   @Autowired
-  public ClientService(ClientRepository clientRepository, ClientMapper clientMapper) {
+  public ClientService(ClientRepository clientRepository, ClientMapper clientMapper,
+                       EntityManager entityManager, BulkCopyImporter bulkCopyImporter,
+                       EntityChangeBus entityChangeBus, ClientCohortService clientCohortService,
+                       Validator validator) {
     this.clientRepository = clientRepository;
     this.clientMapper = clientMapper;
+    this.entityManager = entityManager;
+    this.bulkCopyImporter = bulkCopyImporter;
+    this.entityChangeBus = entityChangeBus;
+    this.clientCohortService = clientCohortService;
+    this.validator = validator;
   }
 
   public ClientDto getClientById(Long id) {
@@ -37,42 +104,94 @@ public class ClientService {
             .collect(Collectors.toList());
   }
 
-  public List<ClientDto> searchAllClientsByFilter(ClientSearchFilter filter) {
-    int pageSize = filter.pageSize() != null ? filter.pageSize() : 10;
-    int pageNumber = filter.pageNumber() != null ? filter.pageNumber() : 0;
-    var pageable= Pageable.ofSize(pageSize).withPage(pageNumber);
-    List<ClientEntity> allEntity = clientRepository.searchAllByFilter(
-            filter.client_id(),
-            filter.client_email(),
-            pageable
+  public CursorPageDto<ClientDto> getClientsPage(Long cursor, Integer size) {
+    int pageSize = KeysetSupport.pageSize(size);
+    List<ClientEntity> entities = clientRepository.findPageAfterId(
+            KeysetSupport.cursor(cursor),
+            KeysetSupport.pageable(pageSize)
     );
+    return KeysetSupport.toPage(entities, pageSize, clientMapper::toDto, ClientDto::clientId);
+  }
 
-    return allEntity.stream()
-            .map(clientMapper::toDto)
-            .collect(Collectors.toList());
+  @Transactional(readOnly = true)
+  public void streamAllClients(Consumer<ClientDto> consumer) {
+    KeysetSupport.streamDetached(clientRepository.streamAllOrderedById(), entityManager, clientMapper::toDto, consumer);
+  }
+
+  @Transactional
+  public ImportResultDto importClients(Iterator<ClientDto> clients) {
+    Set<YearMonth> cohorts = new HashSet<>();
+    ImportResultDto result = BulkImportSupport.persistAll(clients, entityManager, validator, dto -> {
+      ClientEntity client = clientMapper.toEntity(dto);
+      client.setClient_id(null);
+      cohorts.add(YearMonth.from(dto.registrationDate() != null ? dto.registrationDate() : LocalDateTime.now()));
+      return client;
+    });
+    clientCohortService.cohortsChanged(cohorts);
+    entityChangeBus.reload(EntityChangeBus.CLIENT);
+    return result;
+  }
+
+  @Transactional
+  public BulkImportReportDto bulkImportClients(Iterator<BulkRowDto<ClientDto>> rows) {
+    BulkImportReportDto report = bulkCopyImporter.importRows(rows, BULK_TARGET);
+    if (report.importedRows() > 0) {
+      clientCohortService.rebuildAfterCommit();
+      entityChangeBus.reload(EntityChangeBus.CLIENT);
+    }
+    return report;
+  }
+
+  @Transactional(readOnly = true)
+  public PageDto<ClientDto> searchAllClientsByFilter(ClientSearchFilter filter) {
+    int pageSize = KeysetSupport.pageSize(filter.pageSize() != null ? filter.pageSize() : 10);
+    int pageNumber = filter.pageNumber() != null ? filter.pageNumber() : 0;
+    if (pageNumber < 0) {
+      throw new IllegalArgumentException("Page number must not be negative");
+    }
+    Page<ClientEntity> page = clientRepository.findAll(
+            ClientSpecifications.matching(filter),
+            PageRequest.of(pageNumber, pageSize)
+    );
+    return new PageDto<>(
+            page.getContent().stream().map(clientMapper::toDto).toList(),
+            page.getNumber(),
+            page.getSize(),
+            page.getTotalElements(),
+            page.getTotalPages()
+    );
   }
 
 
   public ClientDto createClient(ClientDto clientDto) {
     ClientEntity entityToSave = clientMapper.toEntity(clientDto);
     ClientEntity savedEntity = clientRepository.save(entityToSave);
-    return clientMapper.toDto(savedEntity);
+    ClientDto saved = clientMapper.toDto(savedEntity);
+    clientCohortService.cohortChanged(saved.registrationDate());
+    entityChangeBus.created(EntityChangeBus.CLIENT, saved.clientId(), saved);
+    return saved;
   }
 
   public ClientDto updateClient(Long id, ClientDto clientDto) {
     ClientEntity entity = clientRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Client not found with id: " + id));
+    // Когорта определяется датой регистрации: прежняя отмечается на случай ее изменения
+    LocalDateTime previousRegistrationDate = entity.getClient_registration_date();
 
     clientMapper.updateEntityFromDto(clientDto, entity);
-    ClientEntity updated = clientRepository.save(entity);
-    return clientMapper.toDto(updated);
+    ClientDto updated = clientMapper.toDto(clientRepository.save(entity));
+    clientCohortService.cohortChanged(previousRegistrationDate);
+    clientCohortService.clientsChanged(id);
+    entityChangeBus.updated(EntityChangeBus.CLIENT, id, updated);
+    return updated;
   }
 
   public void deleteClient(Long id) {
-    if (!clientRepository.existsById(id)) {
-      throw new NoSuchElementException("Client not found with id: " + id);
-    }
-    clientRepository.deleteById(id);
+    ClientEntity client = clientRepository.findById(id)
+            .orElseThrow(() -> new NoSuchElementException("Client not found with id: " + id));
+    clientRepository.delete(client);
+    clientCohortService.cohortChanged(client.getClient_registration_date());
+    entityChangeBus.deleted(EntityChangeBus.CLIENT, id);
   }
 
 
@@ -1,7 +1,10 @@
 package ru.safoev.services;
 
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.CursorPageDto;
 import ru.safoev.dtorecords.EmployeeDto;
 import ru.safoev.entity.EmployeeEntity;
 import ru.safoev.entity.GymEntity;
@@ -11,6 +14,7 @@ import ru.safoev.repositoryinterface.GymRepository;
 
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,12 +22,17 @@ public class EmployeeService {
   private final EmployeeRepository employeeRepository;
   private final GymRepository gymRepository;
   private final EmployeeMapper employeeMapper;
+  private final EntityManager entityManager;
+  private final EntityChangeBus entityChangeBus;
 
   @Autowired
-  public EmployeeService(EmployeeRepository employeeRepository,GymRepository gymRepository, EmployeeMapper employeeMapper) {
+  public EmployeeService(EmployeeRepository employeeRepository,GymRepository gymRepository, EmployeeMapper employeeMapper,
+                         EntityManager entityManager, EntityChangeBus entityChangeBus) {
     this.employeeRepository = employeeRepository;
     this.gymRepository = gymRepository;
     this.employeeMapper = employeeMapper;
+    this.entityManager = entityManager;
+    this.entityChangeBus = entityChangeBus;
   }
 
   public EmployeeDto getEmployeeById(Long id) {
@@ -38,6 +47,20 @@ public class EmployeeService {
             .collect(Collectors.toList());
   }
 
+  public CursorPageDto<EmployeeDto> getEmployeesPage(Long cursor, Integer size) {
+    int pageSize = KeysetSupport.pageSize(size);
+    List<EmployeeEntity> entities = employeeRepository.findPageAfterId(
+            KeysetSupport.cursor(cursor),
+            KeysetSupport.pageable(pageSize)
+    );
+    return KeysetSupport.toPage(entities, pageSize, employeeMapper::toDto, EmployeeDto::employeeId);
+  }
+
+  @Transactional(readOnly = true)
+  public void streamAllEmployees(Consumer<EmployeeDto> consumer) {
+    KeysetSupport.streamDetached(employeeRepository.streamAllOrderedById(), entityManager, employeeMapper::toDto, consumer);
+  }
+
   public EmployeeDto createEmployees(EmployeeDto employeeDto) {
     EmployeeEntity entityToSave = employeeMapper.toEntity(employeeDto);
     if (employeeDto.gymId() != null) {
@@ -45,8 +68,9 @@ public class EmployeeService {
               .orElseThrow(() -> new IllegalArgumentException("Gym not found with id: " + employeeDto.gymId()));
       entityToSave.setGym(gym);
     }
-    EmployeeEntity saved = employeeRepository.save(entityToSave);
-    return employeeMapper.toDto(saved);
+    EmployeeDto saved = employeeMapper.toDto(employeeRepository.save(entityToSave));
+    entityChangeBus.created(EntityChangeBus.EMPLOYEE, saved.employeeId(), saved);
+    return saved;
   }
 
   public EmployeeDto updateEmployee(Long id, EmployeeDto employeeDto) {
@@ -60,8 +84,9 @@ public class EmployeeService {
       employee.setGym(gym);
     }
 
-    EmployeeEntity updated = employeeRepository.save(employee);
-    return employeeMapper.toDto(updated);
+    EmployeeDto updated = employeeMapper.toDto(employeeRepository.save(employee));
+    entityChangeBus.updated(EntityChangeBus.EMPLOYEE, id, updated);
+    return updated;
   }
 
   public void deleteEmployee(Long id) {
@@ -69,6 +94,7 @@ public class EmployeeService {
       throw new NoSuchElementException("Employee not found with id: " + id);
     }
     employeeRepository.deleteById(id);
+    entityChangeBus.deleted(EntityChangeBus.EMPLOYEE, id);
   }
 
 }
@@ -0,0 +1,68 @@
+package ru.safoev.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import ru.safoev.dtorecords.EntityChangeDto;
+import ru.safoev.enumlists.ChangeAction;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+@Service
+public class EntityChangeBus {
+  private static final Logger log = LoggerFactory.getLogger(EntityChangeBus.class);
+
+  public static final String CLIENT = "client";
+  public static final String SUBSCRIPTION = "subscription";
+  public static final String EMPLOYEE = "employee";
+  public static final String VISIT = "visit";
+  public static final String EQUIPMENT = "equipment";
+  public static final String GYM = "gym";
+  public static final String RATE = "rate";
+
+  private final Set<Consumer<EntityChangeDto>> listeners = ConcurrentHashMap.newKeySet();
+
+  public void addListener(Consumer<EntityChangeDto> listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Consumer<EntityChangeDto> listener) {
+    listeners.remove(listener);
+  }
+
+  public void created(String entity, Long id, Object data) {
+    publish(new EntityChangeDto(entity, ChangeAction.CREATED, id, data));
+  }
+
+  public void updated(String entity, Long id, Object data) {
+    publish(new EntityChangeDto(entity, ChangeAction.UPDATED, id, data));
+  }
+
+  public void deleted(String entity, Long id) {
+    publish(new EntityChangeDto(entity, ChangeAction.DELETED, id, null));
+  }
+
+  public void reload(String entity) {
+    publish(new EntityChangeDto(entity, ChangeAction.RELOAD, null, null));
+  }
+
+  // Событие уходит только после фиксации: откат не должен попасть в таблицы панели управления
+  private void publish(EntityChangeDto change) {
+    if (listeners.isEmpty()) {
+      return;
+    }
+    TransactionHooks.afterCommit(() -> dispatch(change));
+  }
+
+  private void dispatch(EntityChangeDto change) {
+    for (Consumer<EntityChangeDto> listener : listeners) {
+      try {
+        listener.accept(change);
+      } catch (RuntimeException e) {
+        log.warn("Entity change listener failed for {} {}: {}", change.entity(), change.action(), e.getMessage());
+      }
+    }
+  }
+}
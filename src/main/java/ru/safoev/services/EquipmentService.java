@@ -1,7 +1,10 @@
 package ru.safoev.services;
 
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.CursorPageDto;
 import ru.safoev.dtorecords.EquipmentDto;
 import ru.safoev.entity.EquipmentEntity;
 import ru.safoev.entity.GymEntity;
@@ -11,6 +14,7 @@ import ru.safoev.repositoryinterface.GymRepository;
 
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,12 +22,17 @@ public class EquipmentService {
   private final EquipmentRepository equipmentRepository;
   private final GymRepository gymRepository;
   private final EquipmentMapper equipmentMapper;
+  private final EntityManager entityManager;
+  private final EntityChangeBus entityChangeBus;
 
   @Autowired
-  public EquipmentService(EquipmentRepository equipmentRepository, GymRepository gymRepository, EquipmentMapper equipmentMapper) {
+  public EquipmentService(EquipmentRepository equipmentRepository, GymRepository gymRepository, EquipmentMapper equipmentMapper,
+                          EntityManager entityManager, EntityChangeBus entityChangeBus) {
     this.equipmentRepository = equipmentRepository;
     this.gymRepository = gymRepository;
     this.equipmentMapper = equipmentMapper;
+    this.entityManager = entityManager;
+    this.entityChangeBus = entityChangeBus;
   }
 
   public EquipmentDto getEquipmentById(Long id) {
@@ -39,14 +48,29 @@ public class EquipmentService {
             .collect(Collectors.toList());
   }
 
+  public CursorPageDto<EquipmentDto> getEquipmentPage(Long cursor, Integer size) {
+    int pageSize = KeysetSupport.pageSize(size);
+    List<EquipmentEntity> entities = equipmentRepository.findPageAfterId(
+            KeysetSupport.cursor(cursor),
+            KeysetSupport.pageable(pageSize)
+    );
+    return KeysetSupport.toPage(entities, pageSize, equipmentMapper::toDto, EquipmentDto::equipmentId);
+  }
+
+  @Transactional(readOnly = true)
+  public void streamAllEquipment(Consumer<EquipmentDto> consumer) {
+    KeysetSupport.streamDetached(equipmentRepository.streamAllOrderedById(), entityManager, equipmentMapper::toDto, consumer);
+  }
+
   public EquipmentDto createEquipment(EquipmentDto equipmentDto) {
     EquipmentEntity entityToSave = equipmentMapper.toEntity(equipmentDto);
     GymEntity gym = gymRepository.findById(equipmentDto.gymId())
             .orElseThrow(() -> new IllegalArgumentException("Gym not found with id: " + equipmentDto.gymId()));
     entityToSave.setGym(gym);
 
-    EquipmentEntity saved = equipmentRepository.save(entityToSave);
-    return equipmentMapper.toDto(saved);
+    EquipmentDto saved = equipmentMapper.toDto(equipmentRepository.save(entityToSave));
+    entityChangeBus.created(EntityChangeBus.EQUIPMENT, saved.equipmentId(), saved);
+    return saved;
   }
 
   public EquipmentDto updateEquipment(Long id, EquipmentDto equipmentDto) {
@@ -58,8 +82,9 @@ public class EquipmentService {
             .orElseThrow(() -> new IllegalArgumentException("Gym not found with id: " + equipmentDto.gymId()));
     existingEquipment.setGym(gym);
 
-    EquipmentEntity updated = equipmentRepository.save(existingEquipment);
-    return equipmentMapper.toDto(updated);
+    EquipmentDto updated = equipmentMapper.toDto(equipmentRepository.save(existingEquipment));
+    entityChangeBus.updated(EntityChangeBus.EQUIPMENT, id, updated);
+    return updated;
   }
 
 
@@ -68,5 +93,6 @@ public class EquipmentService {
       throw new NoSuchElementException("Equipment not found with id: " + id);
     }
     equipmentRepository.deleteById(id);
+    entityChangeBus.deleted(EntityChangeBus.EQUIPMENT, id);
   }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package ru.safoev.services;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Запрос выгрузки: SELECT с параметрами {@code ?} и преобразование строки в DTO для NDJSON.
+ * <p>
+ * Псевдонимы столбцов SELECT становятся заголовком CSV, поэтому задаются
+ * в кавычках именами полей DTO.
+ * </p>
+ *
+ * @param sql запрос SELECT
+ * @param params значения параметров (числа, даты или дата-время)
+ * @param rowMapper преобразование строки результата в DTO
+ * @param <T> тип DTO
+ */
+record ExportQuery<T>(String sql, List<Object> params, RowMapper<T> rowMapper) {
+
+  static void requireValidRange(LocalDate from, LocalDate to) {
+    if (from != null && to != null && from.isAfter(to)) {
+      throw new IllegalArgumentException("Export range start " + from + " is after its end " + to);
+    }
+  }
+}
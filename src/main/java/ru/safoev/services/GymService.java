@@ -1,7 +1,10 @@
 package ru.safoev.services;
 
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.CursorPageDto;
 import ru.safoev.dtorecords.GymDto;
 import ru.safoev.entity.GymEntity;
 import ru.safoev.mappers.GymMapper;
@@ -9,17 +12,26 @@ import ru.safoev.repositoryinterface.GymRepository;
 
 import java.time.LocalTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class GymService {
   private final GymRepository gymRepository;
   private final GymMapper gymMapper;
+  private final EntityManager entityManager;
+  private final OccupancyService occupancyService;
+  private final EntityChangeBus entityChangeBus;
 
   @Autowired
-  public GymService(GymRepository gymRepository, GymMapper gymMapper) {
+  public GymService(GymRepository gymRepository, GymMapper gymMapper,
+                    EntityManager entityManager, OccupancyService occupancyService,
+                    EntityChangeBus entityChangeBus) {
     this.gymRepository = gymRepository;
     this.gymMapper = gymMapper;
+    this.entityManager = entityManager;
+    this.occupancyService = occupancyService;
+    this.entityChangeBus = entityChangeBus;
   }
 
   public GymDto getGymById(Long id) {
@@ -29,11 +41,25 @@ public class GymService {
   }
 
   public List<GymDto> getAllGym() {
-    return gymRepository.findAll().stream()
+    return gymRepository.findAllOrderedById().stream()
             .map(gymMapper::toDto)
             .collect(Collectors.toList());
   }
 
+  public CursorPageDto<GymDto> getGymsPage(Long cursor, Integer size) {
+    int pageSize = KeysetSupport.pageSize(size);
+    List<GymEntity> entities = gymRepository.findPageAfterId(
+            KeysetSupport.cursor(cursor),
+            KeysetSupport.pageable(pageSize)
+    );
+    return KeysetSupport.toPage(entities, pageSize, gymMapper::toDto, GymDto::gymId);
+  }
+
+  @Transactional(readOnly = true)
+  public void streamAllGyms(Consumer<GymDto> consumer) {
+    KeysetSupport.streamDetached(gymRepository.streamAllOrderedById(), entityManager, gymMapper::toDto, consumer);
+  }
+
   public GymDto createGym(GymDto gymDto) {
     if (!gymDto.closeTime().isAfter(gymDto.openTime())) {
       throw new IllegalArgumentException("Close time must be after open time");
@@ -41,7 +67,10 @@ public class GymService {
 
     GymEntity entityToSave = gymMapper.toEntity(gymDto);
     GymEntity saved = gymRepository.save(entityToSave);
-    return gymMapper.toDto(saved);
+    occupancyService.registerGym(saved.getGym_id());
+    GymDto created = gymMapper.toDto(saved);
+    entityChangeBus.created(EntityChangeBus.GYM, created.gymId(), created);
+    return created;
   }
 
   public GymDto updateGym(Long id, GymDto gymDto) {
@@ -59,8 +88,9 @@ public class GymService {
       }
     }
 
-    GymEntity updated = gymRepository.save(existingGym);
-    return gymMapper.toDto(updated);
+    GymDto updated = gymMapper.toDto(gymRepository.save(existingGym));
+    entityChangeBus.updated(EntityChangeBus.GYM, id, updated);
+    return updated;
   }
 
   public void deleteGym(Long id) {
@@ -68,6 +98,8 @@ public class GymService {
       throw new IllegalArgumentException("Gym not found with id: " + id);
     }
     gymRepository.deleteById(id);
+    occupancyService.removeGym(id);
+    entityChangeBus.deleted(EntityChangeBus.GYM, id);
   }
 
 }
@@ -0,0 +1,82 @@
+package ru.safoev.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.safoev.dtorecords.GymStatsDto;
+import ru.safoev.enumlists.EquipmentStatus;
+import ru.safoev.enumlists.SubscriptionStatus;
+import ru.safoev.repositoryinterface.ClientRepository;
+import ru.safoev.repositoryinterface.EquipmentRepository;
+import ru.safoev.repositoryinterface.SubscriptionFreezeRepository;
+import ru.safoev.repositoryinterface.SubscriptionRepository;
+import ru.safoev.repositoryinterface.VisitRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Service
+public class GymStatsService {
+  private final ClientRepository clientRepository;
+  private final SubscriptionRepository subscriptionRepository;
+  private final SubscriptionFreezeRepository subscriptionFreezeRepository;
+  private final VisitRepository visitRepository;
+  private final EquipmentRepository equipmentRepository;
+  private final long cacheTtlNanos;
+
+  private volatile CachedStats cached;
+
+  @Autowired
+  public GymStatsService(ClientRepository clientRepository,
+                         SubscriptionRepository subscriptionRepository,
+                         SubscriptionFreezeRepository subscriptionFreezeRepository,
+                         VisitRepository visitRepository,
+                         EquipmentRepository equipmentRepository,
+                         @Value("${gym.stats.cache-ttl:5s}") Duration cacheTtl) {
+    this.clientRepository = clientRepository;
+    this.subscriptionRepository = subscriptionRepository;
+    this.subscriptionFreezeRepository = subscriptionFreezeRepository;
+    this.visitRepository = visitRepository;
+    this.equipmentRepository = equipmentRepository;
+    this.cacheTtlNanos = cacheTtl.toNanos();
+  }
+
+  public GymStatsDto getStats() {
+    CachedStats current = cached;
+    if (current != null && !current.isExpired(cacheTtlNanos)) {
+      return current.stats();
+    }
+    synchronized (this) {
+      current = cached;
+      if (current == null || current.isExpired(cacheTtlNanos)) {
+        current = new CachedStats(loadStats(), System.nanoTime());
+        cached = current;
+      }
+      return current.stats();
+    }
+  }
+
+  private GymStatsDto loadStats() {
+    LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
+    LocalDateTime startOfNextDay = startOfDay.plusDays(1);
+
+    return new GymStatsDto(
+            clientRepository.count(),
+            clientRepository.countRegisteredSince(startOfDay),
+            subscriptionRepository.count(),
+            subscriptionRepository.countByStatus(SubscriptionStatus.ACTIVE),
+            subscriptionFreezeRepository.countFrozenOn(startOfDay.toLocalDate()),
+            visitRepository.countByCheckInTimeBetween(startOfDay, startOfNextDay),
+            equipmentRepository.count(),
+            equipmentRepository.countByStatus(EquipmentStatus.ACTIVE),
+            LocalDateTime.now()
+    );
+  }
+
+  private record CachedStats(GymStatsDto stats, long loadedAtNanos) {
+    boolean isExpired(long ttlNanos) {
+      return System.nanoTime() - loadedAtNanos >= ttlNanos;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package ru.safoev.services;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Pageable;
+import ru.safoev.dtorecords.CursorPageDto;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Общие операции курсорной пагинации и потоковой выгрузки для сервисов.
+ * <p>
+ * Страницы запрашиваются с одним лишним элементом, чтобы без запроса COUNT
+ * определить наличие следующей страницы. При потоковой выгрузке контекст
+ * персистентности периодически очищается, поэтому потребление памяти
+ * не зависит от размера таблицы.
+ * </p>
+ */
+final class KeysetSupport {
+
+  static final int DEFAULT_PAGE_SIZE = 100;
+  static final int MAX_PAGE_SIZE = 1000;
+
+  private static final int CLEAR_EVERY_ROWS = 500;
+
+  private KeysetSupport() {
+  }
+
+  static long cursor(Long cursor) {
+    return cursor != null ? cursor : 0L;
+  }
+
+  static int pageSize(Integer size) {
+    if (size == null) {
+      return DEFAULT_PAGE_SIZE;
+    }
+    if (size <= 0 || size > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    return size;
+  }
+
+  static Pageable pageable(int pageSize) {
+    return Pageable.ofSize(pageSize + 1);
+  }
+
+  static <E, D> CursorPageDto<D> toPage(List<E> entities, int pageSize,
+                                        Function<E, D> mapper, Function<D, Long> idExtractor) {
+    boolean hasNext = entities.size() > pageSize;
+    List<D> content = entities.stream()
+            .limit(pageSize)
+            .map(mapper)
+            .toList();
+    Long nextCursor = hasNext ? idExtractor.apply(content.getLast()) : null;
+    return new CursorPageDto<>(content, nextCursor, hasNext);
+  }
+
+  static <E, D> void streamDetached(Stream<E> entities, EntityManager entityManager,
+                                    Function<E, D> mapper, Consumer<D> consumer) {
+    try (entities) {
+      int[] rows = {0};
+      entities.forEach(entity -> {
+        consumer.accept(mapper.apply(entity));
+        if (++rows[0] % CLEAR_EVERY_ROWS == 0) {
+          entityManager.clear();
+        }
+      });
+    }
+  }
+}
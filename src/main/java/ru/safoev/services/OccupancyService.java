@@ -0,0 +1,102 @@
+package ru.safoev.services;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.safoev.dtorecords.OccupancyDto;
+import ru.safoev.repositoryinterface.GymRepository;
+import ru.safoev.repositoryinterface.VisitRepository;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class OccupancyService {
+  private static final Logger log = LoggerFactory.getLogger(OccupancyService.class);
+
+  private final VisitRepository visitRepository;
+  private final GymRepository gymRepository;
+
+  // Ключи - все известные залы, в том числе пустые: отсутствие ключа означает, что зала нет
+  private final ConcurrentHashMap<Long, LongAdder> counters = new ConcurrentHashMap<>();
+
+  @Autowired
+  public OccupancyService(VisitRepository visitRepository, GymRepository gymRepository) {
+    this.visitRepository = visitRepository;
+    this.gymRepository = gymRepository;
+  }
+
+  public OccupancyDto getOccupancy(Long gymId) {
+    OccupancyDto occupancy = findOccupancy(gymId);
+    if (occupancy == null) {
+      throw new IllegalArgumentException("Gym not found with id: " + gymId);
+    }
+    return occupancy;
+  }
+
+  public OccupancyDto findOccupancy(Long gymId) {
+    LongAdder counter = counters.get(gymId);
+    return counter != null ? new OccupancyDto(gymId, Math.max(0, counter.sum())) : null;
+  }
+
+  public List<OccupancyDto> getAllOccupancy() {
+    return counters.entrySet().stream()
+            .map(entry -> new OccupancyDto(entry.getKey(), Math.max(0, entry.getValue().sum())))
+            .sorted(Comparator.comparing(OccupancyDto::gymId))
+            .toList();
+  }
+
+  public void recordCheckIns(Long gymId, long count) {
+    adjust(gymId, count);
+  }
+
+  public void recordCheckOuts(Long gymId, long count) {
+    adjust(gymId, -count);
+  }
+
+  public void registerGym(Long gymId) {
+    counters.putIfAbsent(gymId, new LongAdder());
+  }
+
+  public void removeGym(Long gymId) {
+    TransactionHooks.afterCommit(() -> counters.remove(gymId));
+  }
+
+  // Для изменений, которые нельзя посчитать по отдельности (загрузка через COPY)
+  public void resyncAfterCommit() {
+    TransactionHooks.afterCommit(this::rebuild);
+  }
+
+  // Сверка исправляет расхождения от изменений в обход сервиса и гонок с периодической перестройкой
+  @PostConstruct
+  @Scheduled(initialDelayString = "${gym.occupancy.resync-interval:10m}",
+          fixedDelayString = "${gym.occupancy.resync-interval:10m}")
+  public void rebuild() {
+    Map<Long, Long> open = new HashMap<>();
+    for (OccupancyDto row : visitRepository.countOpenVisitsByGym()) {
+      open.put(row.gymId(), row.currentVisitors());
+    }
+    List<Long> gymIds = gymRepository.findAllIds();
+    for (Long gymId : gymIds) {
+      LongAdder counter = new LongAdder();
+      counter.add(open.getOrDefault(gymId, 0L));
+      counters.put(gymId, counter);
+    }
+    counters.keySet().retainAll(gymIds);
+    log.debug("Occupancy counters rebuilt for {} gyms", gymIds.size());
+  }
+
+  // Счетчик меняется только после фиксации транзакции: откат не должен сдвигать значение
+  private void adjust(Long gymId, long delta) {
+    if (delta != 0) {
+      TransactionHooks.afterCommit(() -> counters.computeIfAbsent(gymId, id -> new LongAdder()).add(delta));
+    }
+  }
+}
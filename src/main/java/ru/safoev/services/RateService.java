@@ -1,13 +1,18 @@
 package ru.safoev.services;
 
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.CursorPageDto;
 import ru.safoev.dtorecords.RateDto;
 import ru.safoev.entity.RateEntity;
 import ru.safoev.mappers.RateMapper;
 import ru.safoev.repositoryinterface.RateRepository;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -15,11 +20,19 @@ public class RateService {
 
   private final RateRepository rateRepository;
   private final RateMapper rateMapper;
+  private final EntityManager entityManager;
+  private final EntityChangeBus entityChangeBus;
+  private final ClientCohortService clientCohortService;
 
   @Autowired
-  public RateService(RateRepository rateRepository, RateMapper rateMapper) {
+  public RateService(RateRepository rateRepository, RateMapper rateMapper,
+                     EntityManager entityManager, EntityChangeBus entityChangeBus,
+                     ClientCohortService clientCohortService) {
     this.rateRepository = rateRepository;
     this.rateMapper = rateMapper;
+    this.entityManager = entityManager;
+    this.entityChangeBus = entityChangeBus;
+    this.clientCohortService = clientCohortService;
   }
 
   public RateDto getRateById(Long id) {
@@ -29,25 +42,45 @@ public class RateService {
   }
 
   public List<RateDto> getAllRates() {
-    return rateRepository.findAll().stream()
+    return rateRepository.findAllOrderedById().stream()
             .map(rateMapper::toDto)
             .collect(Collectors.toList());
   }
 
+  public CursorPageDto<RateDto> getRatesPage(Long cursor, Integer size) {
+    int pageSize = KeysetSupport.pageSize(size);
+    List<RateEntity> entities = rateRepository.findPageAfterId(
+            KeysetSupport.cursor(cursor),
+            KeysetSupport.pageable(pageSize)
+    );
+    return KeysetSupport.toPage(entities, pageSize, rateMapper::toDto, RateDto::rateId);
+  }
+
+  @Transactional(readOnly = true)
+  public void streamAllRates(Consumer<RateDto> consumer) {
+    KeysetSupport.streamDetached(rateRepository.streamAllOrderedById(), entityManager, rateMapper::toDto, consumer);
+  }
+
   public RateDto createRate(RateDto rateDto) {
     RateEntity entityToSave = rateMapper.toEntity(rateDto);
-    RateEntity saved = rateRepository.save(entityToSave);
-    return rateMapper.toDto(saved);
+    RateDto saved = rateMapper.toDto(rateRepository.save(entityToSave));
+    entityChangeBus.created(EntityChangeBus.RATE, saved.rateId(), saved);
+    return saved;
   }
 
   public RateDto updateRate(Long id, RateDto rateDto) {
     RateEntity existingRate = rateRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Rate not found with id: " + id));
+    BigDecimal previousPrice = existingRate.getRate_price();
 
     rateMapper.updateEntityFromDto(rateDto, existingRate);
 
-    RateEntity updated = rateRepository.save(existingRate);
-    return rateMapper.toDto(updated);
+    RateDto updated = rateMapper.toDto(rateRepository.save(existingRate));
+    if (previousPrice.compareTo(existingRate.getRate_price()) != 0) {
+      clientCohortService.rateChanged(id);
+    }
+    entityChangeBus.updated(EntityChangeBus.RATE, id, updated);
+    return updated;
   }
 
   public void deleteRate(Long id) {
@@ -55,5 +88,6 @@ public class RateService {
       throw new NoSuchElementException("Rate not found with id: " + id);
     }
     rateRepository.deleteById(id);
+    entityChangeBus.deleted(EntityChangeBus.RATE, id);
   }
 }
\ No newline at end of file
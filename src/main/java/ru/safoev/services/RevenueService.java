@@ -0,0 +1,333 @@
+package ru.safoev.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.safoev.dtorecords.GymRevenueDto;
+import ru.safoev.dtorecords.RateRevenueDto;
+import ru.safoev.dtorecords.RevenueMonthDto;
+import ru.safoev.entity.RevenueMonthCloseEntity;
+import ru.safoev.repositoryinterface.RevenueMonthCloseRepository;
+import ru.safoev.repositoryinterface.RevenueMonthRepository;
+import ru.safoev.repositoryinterface.SubscriptionRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class RevenueService {
+  private static final Logger log = LoggerFactory.getLogger(RevenueService.class);
+  private static final int MAX_MONTHS = 120;
+  private static final int CLOSE_CHUNK_MONTHS = 12;
+  private static final BigDecimal ZERO = BigDecimal.ZERO.setScale(2);
+
+  private static final String FACT_COLUMNS = """
+          revenue_month, rate_id, gym_id, revenue_active_subscriptions, revenue_new_subscriptions,
+          revenue_billed, revenue_recognized""";
+
+  // Итоги закрытых месяцев; параметры - первые дни первого и последнего месяца
+  private static final String CLOSED_FACTS_SQL = "SELECT " + FACT_COLUMNS
+          + "\nFROM revenue_monthly\nWHERE revenue_month >= ? AND revenue_month <= ?";
+
+  private static final String MONTHLY_SQL = """
+          SELECT revenue_month,
+              SUM(revenue_active_subscriptions), SUM(revenue_new_subscriptions),
+              SUM(revenue_billed), SUM(revenue_recognized),
+              SUM(SUM(revenue_recognized)) OVER (ORDER BY revenue_month)
+          FROM facts
+          GROUP BY revenue_month
+          ORDER BY revenue_month
+          """;
+
+  private static final String BY_RATE_SQL = """
+          SELECT f.revenue_month, f.rate_id, r.rate_name,
+              SUM(f.revenue_active_subscriptions), SUM(f.revenue_new_subscriptions),
+              SUM(f.revenue_billed), SUM(f.revenue_recognized),
+              CAST(SUM(f.revenue_recognized) AS DOUBLE PRECISION)
+                  / NULLIF(SUM(SUM(f.revenue_recognized)) OVER (PARTITION BY f.revenue_month), 0)
+          FROM facts f
+          LEFT JOIN rates r ON r.rate_id = f.rate_id
+          GROUP BY f.revenue_month, f.rate_id, r.rate_name
+          ORDER BY f.revenue_month, SUM(f.revenue_recognized) DESC, f.rate_id
+          """;
+
+  private static final String BY_GYM_SQL = """
+          SELECT f.revenue_month, NULLIF(f.gym_id, 0), g.gym_name,
+              SUM(f.revenue_active_subscriptions), SUM(f.revenue_new_subscriptions),
+              SUM(f.revenue_billed), SUM(f.revenue_recognized),
+              CAST(SUM(f.revenue_recognized) AS DOUBLE PRECISION)
+                  / NULLIF(SUM(SUM(f.revenue_recognized)) OVER (PARTITION BY f.revenue_month), 0)
+          FROM facts f
+          LEFT JOIN gyms g ON g.gym_id = f.gym_id
+          GROUP BY f.revenue_month, f.gym_id, g.gym_name
+          ORDER BY f.revenue_month, SUM(f.revenue_recognized) DESC, f.gym_id
+          """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final RevenueMonthRepository revenueMonthRepository;
+  private final RevenueMonthCloseRepository revenueMonthCloseRepository;
+  private final SubscriptionRepository subscriptionRepository;
+  private final VisitArchiveService visitArchiveService;
+  private final ReentrantLock closeLock = new ReentrantLock();
+
+  @Autowired
+  public RevenueService(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        RevenueMonthRepository revenueMonthRepository,
+                        RevenueMonthCloseRepository revenueMonthCloseRepository,
+                        SubscriptionRepository subscriptionRepository,
+                        VisitArchiveService visitArchiveService) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.revenueMonthRepository = revenueMonthRepository;
+    this.revenueMonthCloseRepository = revenueMonthCloseRepository;
+    this.subscriptionRepository = subscriptionRepository;
+    this.visitArchiveService = visitArchiveService;
+  }
+
+  public List<RevenueMonthDto> getMonthly(YearMonth from, YearMonth to) {
+    YearMonth end = to != null ? to : YearMonth.now();
+    YearMonth start = from != null ? from : end.minusMonths(11);
+    FactsQuery facts = prepareFacts(start, end);
+    Map<LocalDate, RevenueMonthDto> rows = new HashMap<>();
+    jdbcTemplate.query(facts.sql(MONTHLY_SQL), rs -> {
+      LocalDate month = rs.getObject(1, LocalDate.class);
+      rows.put(month, new RevenueMonthDto(month, rs.getLong(2), rs.getLong(3),
+              rs.getBigDecimal(4), rs.getBigDecimal(5), rs.getBigDecimal(6), facts.isClosed(month)));
+    }, facts.params());
+
+    // Месяцы без абонементов в ответе остаются: с нулями и прежним нарастающим итогом
+    List<RevenueMonthDto> result = new ArrayList<>();
+    BigDecimal toDate = ZERO;
+    for (YearMonth month = start; !month.isAfter(end); month = month.plusMonths(1)) {
+      RevenueMonthDto row = rows.get(month.atDay(1));
+      if (row == null) {
+        row = new RevenueMonthDto(month.atDay(1), 0, 0, ZERO, ZERO, toDate, facts.isClosed(month.atDay(1)));
+      }
+      toDate = row.recognizedToDate();
+      result.add(row);
+    }
+    return result;
+  }
+
+  public List<RateRevenueDto> getByRate(YearMonth from, YearMonth to) {
+    YearMonth end = to != null ? to : YearMonth.now();
+    YearMonth start = from != null ? from : end;
+    FactsQuery facts = prepareFacts(start, end);
+    return jdbcTemplate.query(facts.sql(BY_RATE_SQL), (rs, rowNum) -> new RateRevenueDto(
+            rs.getObject(1, LocalDate.class),
+            rs.getLong(2),
+            rs.getString(3),
+            rs.getLong(4),
+            rs.getLong(5),
+            rs.getBigDecimal(6),
+            rs.getBigDecimal(7),
+            rs.getObject(8, Double.class)
+    ), facts.params());
+  }
+
+  public List<GymRevenueDto> getByGym(YearMonth from, YearMonth to) {
+    YearMonth end = to != null ? to : YearMonth.now();
+    YearMonth start = from != null ? from : end;
+    FactsQuery facts = prepareFacts(start, end);
+    return jdbcTemplate.query(facts.sql(BY_GYM_SQL), (rs, rowNum) -> new GymRevenueDto(
+            rs.getObject(1, LocalDate.class),
+            rs.getObject(2, Long.class),
+            rs.getString(3),
+            rs.getLong(4),
+            rs.getLong(5),
+            rs.getBigDecimal(6),
+            rs.getBigDecimal(7),
+            rs.getObject(8, Double.class)
+    ), facts.params());
+  }
+
+  /**
+   * Закрывает месяц повторно: итоги пересчитываются по текущим абонементам и ценам тарифов.
+   * Месяц, посещения которого уже перенесены в архив, повторно не закрывается:
+   * по таблице посещений его выручку нельзя отнести к залам.
+   */
+  public RevenueMonthDto closeMonth(YearMonth month) {
+    if (!month.isBefore(YearMonth.now())) {
+      throw new IllegalArgumentException("Only past months can be closed, got " + month);
+    }
+    LocalDate archivedBefore = visitArchiveService.getArchivedBefore();
+    if (archivedBefore != null && month.atDay(1).isBefore(archivedBefore)
+            && revenueMonthCloseRepository.existsById(month.atDay(1))) {
+      throw new IllegalArgumentException("Visits of " + month + " are archived; the closed month cannot be recomputed");
+    }
+    closeLock.lock();
+    try {
+      closeMonths(List.of(month));
+    } finally {
+      closeLock.unlock();
+    }
+    return getMonthly(month, month).getFirst();
+  }
+
+  // Закрывает прошедшие месяцы, начиная с месяца самого раннего абонемента
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${gym.revenue.close-cron:0 20 0 1 * *}")
+  public void closePastMonths() {
+    LocalDate earliest = subscriptionRepository.findEarliestStartDate();
+    if (earliest != null) {
+      int closed = ensureClosed(YearMonth.from(earliest), YearMonth.now().minusMonths(1));
+      if (closed > 0) {
+        log.info("Closed revenue for {} months since {}", closed, YearMonth.from(earliest));
+      }
+    }
+  }
+
+  private FactsQuery prepareFacts(YearMonth start, YearMonth end) {
+    if (start.isAfter(end)) {
+      throw new IllegalArgumentException("'from' must not be after 'to'");
+    }
+    if (ChronoUnit.MONTHS.between(start, end) >= MAX_MONTHS) {
+      throw new IllegalArgumentException("Revenue range must not exceed " + MAX_MONTHS + " months");
+    }
+    YearMonth current = YearMonth.now();
+    YearMonth lastClosed = end.isBefore(current) ? end : current.minusMonths(1);
+    ensureClosed(start, lastClosed);
+    YearMonth firstOpen = start.isAfter(current) ? start : current;
+    List<YearMonth> open = new ArrayList<>();
+    for (YearMonth month = firstOpen; !month.isAfter(end); month = month.plusMonths(1)) {
+      open.add(month);
+    }
+    return new FactsQuery(start.atDay(1), lastClosed.atDay(1), open);
+  }
+
+  // Закрывает незакрытые месяцы периода; возвращает количество закрытых
+  private int ensureClosed(YearMonth start, YearMonth end) {
+    if (start.isAfter(end) || missingMonths(start, end).isEmpty()) {
+      return 0;
+    }
+    closeLock.lock();
+    try {
+      // Повторная проверка: месяцы мог закрыть параллельный запрос
+      List<YearMonth> missing = missingMonths(start, end);
+      for (int i = 0; i < missing.size(); i += CLOSE_CHUNK_MONTHS) {
+        closeMonths(missing.subList(i, Math.min(i + CLOSE_CHUNK_MONTHS, missing.size())));
+      }
+      return missing.size();
+    } finally {
+      closeLock.unlock();
+    }
+  }
+
+  private List<YearMonth> missingMonths(YearMonth start, YearMonth end) {
+    Set<LocalDate> closed = new HashSet<>(revenueMonthCloseRepository.findClosedMonths(start.atDay(1), end.atDay(1)));
+    List<YearMonth> missing = new ArrayList<>();
+    for (YearMonth month = start; !month.isAfter(end); month = month.plusMonths(1)) {
+      if (!closed.contains(month.atDay(1))) {
+        missing.add(month);
+      }
+    }
+    return missing;
+  }
+
+  // Итоги месяцев удаляются и вставляются заново одним INSERT ... SELECT в одной транзакции
+  private void closeMonths(List<YearMonth> months) {
+    List<LocalDate> days = months.stream().map(month -> month.atDay(1)).toList();
+    LocalDateTime closedAt = LocalDateTime.now();
+    transactionTemplate.executeWithoutResult(status -> {
+      revenueMonthRepository.deleteByMonths(days);
+      jdbcTemplate.update("INSERT INTO revenue_monthly (" + FACT_COLUMNS + ")\nWITH " + liveFactsCtes(months.size())
+              + "SELECT " + FACT_COLUMNS + " FROM live_facts", monthBounds(months).toArray());
+      revenueMonthCloseRepository.saveAll(days.stream()
+              .map(day -> new RevenueMonthCloseEntity(day, closedAt))
+              .toList());
+    });
+  }
+
+  /*
+   * Выручка месяцев по тарифу и залу, рассчитанная по абонементам.
+   * Абонемент действует rate_duration_days дней с даты начала; в месяц попадает доля цены,
+   * пропорциональная дням срока внутри месяца. Абонемент относится к залу, который клиент
+   * посещал в месяце чаще всего (при равенстве - с меньшим идентификатором), или к залу 0.
+   */
+  private static String liveFactsCtes(int months) {
+    String values = String.join(", ", Collections.nCopies(months, "(CAST(? AS DATE), CAST(? AS DATE))"));
+    return """
+            months(ms, me) AS (VALUES %s),
+            home_gyms AS (
+                SELECT ms, client_id, gym_id
+                FROM (
+                    SELECT m.ms, v.client_id, v.gym_id,
+                        ROW_NUMBER() OVER (PARTITION BY m.ms, v.client_id ORDER BY COUNT(*) DESC, v.gym_id) AS rn
+                    FROM months m
+                    JOIN visits v ON v.visit_check_in_time >= m.ms AND v.visit_check_in_time < m.me
+                    GROUP BY m.ms, v.client_id, v.gym_id
+                ) ranked
+                WHERE rn = 1
+            ),
+            live_facts(%s) AS (
+                SELECT m.ms, s.rate_id, COALESCE(h.gym_id, 0),
+                    COUNT(*),
+                    SUM(CASE WHEN s.subscription_start_date >= m.ms THEN 1 ELSE 0 END),
+                    COALESCE(SUM(CASE WHEN s.subscription_start_date >= m.ms THEN r.rate_price END), 0),
+                    ROUND(SUM(r.rate_price
+                        * CAST(LEAST(s.subscription_start_date + r.rate_duration_days, m.me)
+                            - GREATEST(s.subscription_start_date, m.ms) AS INTEGER)
+                        / r.rate_duration_days), 2)
+                FROM months m
+                JOIN subscriptions s ON s.subscription_start_date < m.me
+                JOIN rates r ON r.rate_id = s.rate_id
+                    AND r.rate_duration_days > 0
+                    AND s.subscription_start_date + r.rate_duration_days > m.ms
+                LEFT JOIN home_gyms h ON h.ms = m.ms AND h.client_id = s.client_id
+                GROUP BY m.ms, s.rate_id, COALESCE(h.gym_id, 0)
+            )
+            """.formatted(values, FACT_COLUMNS.replace("\n", " "));
+  }
+
+  private static List<Object> monthBounds(List<YearMonth> months) {
+    List<Object> params = new ArrayList<>();
+    for (YearMonth month : months) {
+      params.add(month.atDay(1));
+      params.add(month.plusMonths(1).atDay(1));
+    }
+    return params;
+  }
+
+  // Итоги закрытых месяцев периода и расчет по абонементам для текущего и будущих месяцев
+  private record FactsQuery(LocalDate closedFrom, LocalDate closedTo, List<YearMonth> open) {
+
+    String sql(String report) {
+      if (open.isEmpty()) {
+        return "WITH facts AS (" + CLOSED_FACTS_SQL + ")\n" + report;
+      }
+      return "WITH " + liveFactsCtes(open.size()) + ", facts AS (" + CLOSED_FACTS_SQL
+              + "\nUNION ALL\nSELECT " + FACT_COLUMNS + " FROM live_facts)\n" + report;
+    }
+
+    Object[] params() {
+      List<Object> params = monthBounds(open);
+      params.add(closedFrom);
+      params.add(closedTo);
+      return params.toArray();
+    }
+
+    boolean isClosed(LocalDate month) {
+      return !month.isAfter(closedTo);
+    }
+  }
+}
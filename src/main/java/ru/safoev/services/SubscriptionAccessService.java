@@ -0,0 +1,188 @@
+package ru.safoev.services;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.safoev.dtorecords.AccessCheckDto;
+import ru.safoev.dtorecords.SubscriptionFreezeDto;
+import ru.safoev.dtorecords.SubscriptionValidityDto;
+import ru.safoev.enumlists.SubscriptionStatus;
+import ru.safoev.repositoryinterface.SubscriptionFreezeRepository;
+import ru.safoev.repositoryinterface.SubscriptionRepository;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Service
+public class SubscriptionAccessService {
+  private static final Logger log = LoggerFactory.getLogger(SubscriptionAccessService.class);
+
+  private final SubscriptionRepository subscriptionRepository;
+  private final SubscriptionFreezeRepository subscriptionFreezeRepository;
+
+  // Только абонементы ACTIVE; отсутствие ключа означает "неизвестно", а не "доступ запрещен"
+  private final ConcurrentHashMap<Long, ClientAccess> accessByClient = new ConcurrentHashMap<>();
+  // Обратный индекс нужен удалению, которому известен только идентификатор абонемента
+  private final ConcurrentHashMap<Long, Long> clientBySubscription = new ConcurrentHashMap<>();
+  // Клиенты и абонементы, измененные во время перестройки: снимок, прочитанный до изменения,
+  // не должен перезаписать их записи в индексе
+  private final Set<Long> touchedClients = ConcurrentHashMap.newKeySet();
+  private final Set<Long> touchedSubscriptions = ConcurrentHashMap.newKeySet();
+  private volatile boolean rebuilding;
+
+  @Autowired
+  public SubscriptionAccessService(SubscriptionRepository subscriptionRepository,
+                                   SubscriptionFreezeRepository subscriptionFreezeRepository) {
+    this.subscriptionRepository = subscriptionRepository;
+    this.subscriptionFreezeRepository = subscriptionFreezeRepository;
+  }
+
+  public AccessCheckDto checkAccess(Long clientId, LocalDate date) {
+    ClientAccess access = accessByClient.get(clientId);
+    SubscriptionValidityDto covering = access != null ? access.covering(date) : null;
+    if (covering == null) {
+      // Промах перепроверяется по индексу базы данных: индекс в памяти не видит абонементов,
+      // загруженных в обход сервиса (массовая загрузка, другой экземпляр приложения)
+      covering = loadClient(clientId, date).covering(date);
+    }
+    return covering != null
+            ? new AccessCheckDto(clientId, date, true, covering.subscriptionId(), covering.endDate())
+            : new AccessCheckDto(clientId, date, false, null, null);
+  }
+
+  // Фактическая дата окончания и заморозки считаются в базе данных, поэтому клиент перечитывается целиком
+  public void subscriptionSaved(Long subscriptionId, Long clientId) {
+    TransactionHooks.afterCommit(() -> {
+      removeSubscription(subscriptionId);
+      loadClient(clientId, LocalDate.now());
+    });
+  }
+
+  public void subscriptionDeleted(Long subscriptionId) {
+    TransactionHooks.afterCommit(() -> removeSubscription(subscriptionId));
+  }
+
+  // Перестройка убирает истекшие сроки и исправляет расхождения от изменений в обход сервиса
+  @PostConstruct
+  @Scheduled(initialDelayString = "${gym.subscription.access.resync-interval:10m}",
+          fixedDelayString = "${gym.subscription.access.resync-interval:10m}")
+  public synchronized void rebuild() {
+    touchedClients.clear();
+    touchedSubscriptions.clear();
+    rebuilding = true;
+    try {
+      rebuildIndex(LocalDate.now());
+    } finally {
+      rebuilding = false;
+    }
+  }
+
+  // Записи заменяются по одной под блокировкой ключа, поэтому отметка об изменении,
+  // сделанная до загрузки клиента, видна при сравнении со снимком
+  private void rebuildIndex(LocalDate today) {
+    Map<Long, List<SubscriptionFreezeDto>> freezesBySubscription = subscriptionFreezeRepository
+            .findAllAsDtoEndingFrom(today).stream()
+            .collect(Collectors.groupingBy(SubscriptionFreezeDto::subscriptionId));
+    Map<Long, ClientAccess> byClient = subscriptionRepository
+            .findValidities(SubscriptionStatus.ACTIVE, today).stream()
+            .collect(Collectors.groupingBy(SubscriptionValidityDto::clientId)).entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> new ClientAccess(entry.getValue(),
+                    entry.getValue().stream()
+                            .flatMap(validity -> freezesBySubscription
+                                    .getOrDefault(validity.subscriptionId(), List.of()).stream())
+                            .toList())));
+    Map<Long, Long> bySubscription = new HashMap<>();
+    byClient.forEach((clientId, access) ->
+            access.validities().forEach(validity -> bySubscription.put(validity.subscriptionId(), clientId)));
+    byClient.forEach((clientId, access) -> accessByClient.compute(clientId,
+            (id, previous) -> isTouched(clientId, access) ? previous : access));
+    for (Long clientId : accessByClient.keySet()) {
+      if (!byClient.containsKey(clientId)) {
+        accessByClient.computeIfPresent(clientId,
+                (id, previous) -> touchedClients.contains(clientId) ? previous : null);
+      }
+    }
+    bySubscription.forEach((subscriptionId, clientId) -> {
+      if (!isTouched(clientId, byClient.get(clientId))) {
+        clientBySubscription.put(subscriptionId, clientId);
+      }
+    });
+    clientBySubscription.entrySet().removeIf(entry -> !bySubscription.containsKey(entry.getKey())
+            && !touchedClients.contains(entry.getValue()) && !touchedSubscriptions.contains(entry.getKey()));
+    log.debug("Subscription access index rebuilt for {} clients, {} subscriptions, {} clients changed meanwhile",
+            byClient.size(), bySubscription.size(), touchedClients.size());
+  }
+
+  private boolean isTouched(Long clientId, ClientAccess access) {
+    return touchedClients.contains(clientId) || access.validities().stream()
+            .anyMatch(validity -> touchedSubscriptions.contains(validity.subscriptionId()));
+  }
+
+  private ClientAccess loadClient(Long clientId, LocalDate date) {
+    if (rebuilding) {
+      touchedClients.add(clientId);
+    }
+    ClientAccess access = new ClientAccess(
+            subscriptionRepository.findValiditiesByClient(clientId, SubscriptionStatus.ACTIVE, date),
+            subscriptionFreezeRepository.findAllAsDtoByClientEndingFrom(clientId, date));
+    accessByClient.compute(clientId, (id, previous) -> {
+      if (previous != null) {
+        previous.validities().forEach(validity -> clientBySubscription.remove(validity.subscriptionId(), clientId));
+      }
+      access.validities().forEach(validity -> clientBySubscription.put(validity.subscriptionId(), clientId));
+      return access.validities().isEmpty() ? null : access;
+    });
+    return access;
+  }
+
+  private void removeSubscription(Long subscriptionId) {
+    if (rebuilding) {
+      touchedSubscriptions.add(subscriptionId);
+    }
+    Long clientId = clientBySubscription.remove(subscriptionId);
+    if (clientId != null) {
+      accessByClient.computeIfPresent(clientId, (id, access) -> {
+        ClientAccess rest = new ClientAccess(
+                access.validities().stream()
+                        .filter(validity -> !validity.subscriptionId().equals(subscriptionId))
+                        .toList(),
+                access.freezes().stream()
+                        .filter(freeze -> !freeze.subscriptionId().equals(subscriptionId))
+                        .toList());
+        return rest.validities().isEmpty() ? null : rest;
+      });
+    }
+  }
+
+  // Сроки действия абонементов ACTIVE клиента (с учетом заморозок) и их текущие и будущие заморозки
+  private record ClientAccess(List<SubscriptionValidityDto> validities, List<SubscriptionFreezeDto> freezes) {
+
+    SubscriptionValidityDto covering(LocalDate date) {
+      for (SubscriptionValidityDto validity : validities) {
+        if (!date.isBefore(validity.startDate()) && !date.isAfter(validity.endDate())
+                && !isFrozen(validity.subscriptionId(), date)) {
+          return validity;
+        }
+      }
+      return null;
+    }
+
+    private boolean isFrozen(Long subscriptionId, LocalDate date) {
+      for (SubscriptionFreezeDto freeze : freezes) {
+        if (freeze.subscriptionId().equals(subscriptionId)
+                && !date.isBefore(freeze.startDate()) && !date.isAfter(freeze.endDate())) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package ru.safoev.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.safoev.enumlists.SubscriptionStatus;
+import ru.safoev.repositoryinterface.SubscriptionRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class SubscriptionExpiryService {
+  private static final Logger log = LoggerFactory.getLogger(SubscriptionExpiryService.class);
+
+  private final SubscriptionRepository subscriptionRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final EntityChangeBus entityChangeBus;
+  private final int batchSize;
+  private final Counter expiredCounter;
+  private final Timer runTimer;
+
+  @Autowired
+  public SubscriptionExpiryService(SubscriptionRepository subscriptionRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   EntityChangeBus entityChangeBus,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${gym.subscription.expiry.batch-size:1000}") int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Subscription expiry batch size must be positive");
+    }
+    this.subscriptionRepository = subscriptionRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.entityChangeBus = entityChangeBus;
+    this.batchSize = batchSize;
+    this.expiredCounter = Counter.builder("gym.subscription.expired")
+            .description("Subscriptions switched from ACTIVE to NOT_ACTIVE by the expiry job")
+            .register(meterRegistry);
+    this.runTimer = Timer.builder("gym.subscription.expiry")
+            .description("Subscription expiry job runs")
+            .register(meterRegistry);
+  }
+
+  // Запуск при старте догоняет истечения, пропущенные, пока приложение было остановлено
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${gym.subscription.expiry.cron:0 5 * * * *}")
+  public int expireSubscriptions() {
+    return expireSubscriptions(LocalDate.now());
+  }
+
+  // Абонемент действует по фактическую дату окончания (с учетом заморозок) включительно
+  public int expireSubscriptions(LocalDate today) {
+    long start = System.nanoTime();
+    int expired = 0;
+    int batches = 0;
+    int selected;
+    do {
+      // Каждый пакет в своей транзакции: блокировки строк и объем журнала ограничены размером пакета
+      int[] result = transactionTemplate.execute(status -> {
+        List<Long> ids = subscriptionRepository.findIdsByStatusAndEffectiveEndDateBefore(
+                SubscriptionStatus.ACTIVE, today, Limit.of(batchSize));
+        int updated = ids.isEmpty() ? 0
+                : subscriptionRepository.updateStatus(ids, SubscriptionStatus.ACTIVE, SubscriptionStatus.NOT_ACTIVE);
+        return new int[]{ids.size(), updated};
+      });
+      selected = result[0];
+      expired += result[1];
+      batches++;
+    } while (selected == batchSize);
+
+    long elapsedNanos = System.nanoTime() - start;
+    runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    expiredCounter.increment(expired);
+    if (expired > 0) {
+      entityChangeBus.reload(EntityChangeBus.SUBSCRIPTION);
+      log.info("Expired {} subscriptions ending before {} in {} batches, {} ms", expired, today, batches,
+              elapsedNanos / 1_000_000);
+    } else {
+      log.debug("No subscriptions to expire before {}", today);
+    }
+    return expired;
+  }
+}
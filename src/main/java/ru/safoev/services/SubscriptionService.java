@@ -1,37 +1,101 @@
 package ru.safoev.services;
 
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.BulkImportReportDto;
+import ru.safoev.dtorecords.BulkRowDto;
+import ru.safoev.dtorecords.CursorPageDto;
 import ru.safoev.dtorecords.SubscriptionDto;
+import ru.safoev.dtorecords.SubscriptionFreezeDto;
 import ru.safoev.entity.SubscriptionEntity;
+import ru.safoev.entity.SubscriptionFreezeEntity;
 import ru.safoev.entity.ClientEntity;
 import ru.safoev.entity.RateEntity;
+import ru.safoev.enumlists.ExportFormat;
+import ru.safoev.enumlists.SubscriptionStatus;
 import ru.safoev.mappers.SubscriptionMapper;
+import ru.safoev.repositoryinterface.SubscriptionFreezeRepository;
 import ru.safoev.repositoryinterface.SubscriptionRepository;
 import ru.safoev.repositoryinterface.ClientRepository;
 import ru.safoev.repositoryinterface.RateRepository;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Service
 public class SubscriptionService {
+  private static final BulkImportTarget<SubscriptionDto> BULK_TARGET = new BulkImportTarget<>(
+          "bulk_subscriptions",
+          SubscriptionEntity.class,
+          List.of("client_id BIGINT", "rate_id BIGINT", "start_date DATE", "end_date DATE",
+                  "freeze_period VARCHAR", "status VARCHAR"),
+          dto -> new Object[]{dto.clientId(), dto.rateId(), dto.startDate(), dto.endDate(),
+                  dto.freezePeriod(), bulkStatus(dto.subscriptionStatus())},
+          List.of(
+                  """
+                  UPDATE bulk_subscriptions s SET error = 'clientId: клиент не найден'
+                  WHERE s.error IS NULL AND NOT EXISTS (SELECT 1 FROM clients c WHERE c.client_id = s.client_id)
+                  """,
+                  """
+                  UPDATE bulk_subscriptions s SET error = 'rateId: тариф не найден'
+                  WHERE s.error IS NULL AND NOT EXISTS (SELECT 1 FROM rates r WHERE r.rate_id = s.rate_id)
+                  """,
+                  "UPDATE bulk_subscriptions SET error = 'endDate: дата окончания раньше даты начала'"
+                          + " WHERE error IS NULL AND end_date < start_date",
+                  "UPDATE bulk_subscriptions SET error = 'freezePeriod: длина больше 50 символов'"
+                          + " WHERE error IS NULL AND LENGTH(freeze_period) > 50"
+          ),
+          """
+          INSERT INTO subscriptions (subscription_id, client_id, rate_id, subscription_start_date,
+                                     subscription_end_date, subscription_effective_end_date,
+                                     subscription_freeze_period, subscription_status)
+          SELECT id, client_id, rate_id, start_date, end_date, end_date, freeze_period, status
+          FROM bulk_subscriptions
+          WHERE error IS NULL
+          """
+  );
+
 
   private final SubscriptionRepository subscriptionRepository;
+  private final SubscriptionFreezeRepository subscriptionFreezeRepository;
   private final ClientRepository clientRepository;
   private final RateRepository rateRepository;
   private final SubscriptionMapper subscriptionMapper;
+  private final EntityManager entityManager;
+  private final BulkCopyImporter bulkCopyImporter;
+  private final TableExporter tableExporter;
+  private final EntityChangeBus entityChangeBus;
+  private final SubscriptionAccessService subscriptionAccessService;
+  private final ClientCohortService clientCohortService;
 
   @Autowired
   public SubscriptionService(SubscriptionRepository subscriptionRepository,
+                             SubscriptionFreezeRepository subscriptionFreezeRepository,
                              ClientRepository clientRepository,
-                             RateRepository rateRepository, SubscriptionMapper subscriptionMapper) {
+                             RateRepository rateRepository, SubscriptionMapper subscriptionMapper,
+                             EntityManager entityManager, BulkCopyImporter bulkCopyImporter,
+                             TableExporter tableExporter, EntityChangeBus entityChangeBus,
+                             SubscriptionAccessService subscriptionAccessService,
+                             ClientCohortService clientCohortService) {
     this.subscriptionRepository = subscriptionRepository;
+    this.subscriptionFreezeRepository = subscriptionFreezeRepository;
     this.clientRepository = clientRepository;
     this.rateRepository = rateRepository;
     this.subscriptionMapper = subscriptionMapper;
+    this.entityManager = entityManager;
+    this.bulkCopyImporter = bulkCopyImporter;
+    this.tableExporter = tableExporter;
+    this.entityChangeBus = entityChangeBus;
+    this.subscriptionAccessService = subscriptionAccessService;
+    this.clientCohortService = clientCohortService;
   }
 
   public SubscriptionDto getSubscriptionById(Long id) {
@@ -41,9 +105,51 @@ public class SubscriptionService {
   }
 
   public List<SubscriptionDto> getAllSubscriptions() {
-    return subscriptionRepository.findAll().stream()
-            .map(subscriptionMapper::toDto)
-            .collect(Collectors.toList());
+    return subscriptionRepository.findAllAsDto();
+  }
+
+  public CursorPageDto<SubscriptionDto> getSubscriptionsPage(Long cursor, Integer size) {
+    int pageSize = KeysetSupport.pageSize(size);
+    List<SubscriptionEntity> entities = subscriptionRepository.findPageAfterId(
+            KeysetSupport.cursor(cursor),
+            KeysetSupport.pageable(pageSize)
+    );
+    return KeysetSupport.toPage(entities, pageSize, subscriptionMapper::toDto, SubscriptionDto::subscriptionId);
+  }
+
+  @Transactional(readOnly = true)
+  public void streamAllSubscriptions(Consumer<SubscriptionDto> consumer) {
+    KeysetSupport.streamDetached(subscriptionRepository.streamAllOrderedById(), entityManager, subscriptionMapper::toDto, consumer);
+  }
+
+  @Transactional(readOnly = true)
+  public void exportSubscriptions(ExportFormat format, LocalDate from, LocalDate to, OutputStream out) {
+    ExportQuery.requireValidRange(from, to);
+    StringBuilder sql = new StringBuilder("""
+            SELECT subscription_id AS "subscriptionId", client_id AS "clientId", rate_id AS "rateId",
+                   subscription_start_date AS "startDate", subscription_end_date AS "endDate",
+                   subscription_freeze_period AS "freezePeriod", subscription_status AS "subscriptionStatus"
+            FROM subscriptions
+            WHERE 1 = 1""");
+    List<Object> params = new ArrayList<>();
+    if (from != null) {
+      sql.append(" AND subscription_start_date >= ?");
+      params.add(from);
+    }
+    if (to != null) {
+      sql.append(" AND subscription_start_date <= ?");
+      params.add(to);
+    }
+    sql.append(" ORDER BY subscription_id");
+    tableExporter.export(new ExportQuery<>(sql.toString(), params, (rs, rowNum) -> new SubscriptionDto(
+            rs.getLong(1),
+            rs.getLong(2),
+            rs.getLong(3),
+            rs.getObject(4, LocalDate.class),
+            rs.getObject(5, LocalDate.class),
+            rs.getString(6),
+            rs.getString(7)
+    )), format, out);
   }
 
   public SubscriptionDto createSubscription(SubscriptionDto subscriptionDto) {
@@ -55,13 +161,17 @@ public class SubscriptionService {
 
     SubscriptionEntity subscription = subscriptionMapper.toEntity(subscriptionDto, client, rate);
 
-    SubscriptionEntity saved = subscriptionRepository.save(subscription);
-    return subscriptionMapper.toDto(saved);
+    SubscriptionDto saved = subscriptionMapper.toDto(subscriptionRepository.save(subscription));
+    subscriptionAccessService.subscriptionSaved(saved.subscriptionId(), saved.clientId());
+    clientCohortService.clientsChanged(saved.clientId());
+    entityChangeBus.created(EntityChangeBus.SUBSCRIPTION, saved.subscriptionId(), saved);
+    return saved;
   }
 
   public SubscriptionDto updateSubscription(Long id, SubscriptionDto subscriptionDto) {
     SubscriptionEntity existingSubscription = subscriptionRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Subscription not found with id: " + id));
+    Long previousClientId = existingSubscription.getClient().getClient_id();
 
     ClientEntity client = null;
     if (subscriptionDto.clientId() != null) {
@@ -84,14 +194,109 @@ public class SubscriptionService {
     }
     subscriptionMapper.updateEntityFromDto(subscriptionDto, existingSubscription, client, rate);
 
-    SubscriptionEntity updated = subscriptionRepository.save(existingSubscription);
-    return subscriptionMapper.toDto(updated);
+    SubscriptionDto updated = subscriptionMapper.toDto(subscriptionRepository.save(existingSubscription));
+    subscriptionAccessService.subscriptionSaved(id, updated.clientId());
+    clientCohortService.clientsChanged(previousClientId, updated.clientId());
+    entityChangeBus.updated(EntityChangeBus.SUBSCRIPTION, id, updated);
+    return updated;
   }
 
   public void deleteSubscription(Long id) {
+    SubscriptionEntity subscription = subscriptionRepository.findById(id)
+            .orElseThrow(() -> new NoSuchElementException("Subscription not found with id: " + id));
+    subscriptionRepository.delete(subscription);
+    subscriptionAccessService.subscriptionDeleted(id);
+    clientCohortService.clientsChanged(subscription.getClient().getClient_id());
+    entityChangeBus.deleted(EntityChangeBus.SUBSCRIPTION, id);
+  }
+
+  public List<SubscriptionFreezeDto> getFreezes(Long id) {
     if (!subscriptionRepository.existsById(id)) {
-      throw new NoSuchElementException("Subscription not found with id: " + id);
+      throw new IllegalArgumentException("Subscription not found with id: " + id);
+    }
+    return subscriptionFreezeRepository.findAllAsDtoBySubscriptionId(id);
+  }
+
+  @Transactional
+  public SubscriptionFreezeDto freezeSubscription(Long id, SubscriptionFreezeDto freezeDto) {
+    SubscriptionEntity subscription = findForUpdate(id);
+    if (subscription.getSubscription_status() != SubscriptionStatus.ACTIVE) {
+      throw new IllegalArgumentException("Only an ACTIVE subscription can be frozen, subscription " + id
+              + " is " + subscription.getSubscription_status());
+    }
+    LocalDate startDate = freezeDto.startDate();
+    LocalDate endDate = freezeDto.endDate();
+    if (endDate.isBefore(startDate)) {
+      throw new IllegalArgumentException("Freeze end date must not be before its start date");
+    }
+    if (startDate.isBefore(subscription.getSubscription_startDate())
+            || startDate.isAfter(subscription.getSubscription_effectiveEndDate())) {
+      throw new IllegalArgumentException("Freeze must start between " + subscription.getSubscription_startDate()
+              + " and " + subscription.getSubscription_effectiveEndDate());
+    }
+    if (subscriptionFreezeRepository.existsOverlapping(id, startDate, endDate)) {
+      throw new IllegalArgumentException("Freeze overlaps an existing freeze of subscription " + id);
+    }
+    Long clientId = subscription.getClient().getClient_id();
+    SubscriptionFreezeEntity freeze = new SubscriptionFreezeEntity(null, subscription, startDate, endDate);
+    try {
+      subscriptionFreezeRepository.saveAndFlush(freeze);
+    } catch (DataIntegrityViolationException e) {
+      throw new IllegalArgumentException("Freeze overlaps an existing freeze of subscription " + id, e);
+    }
+    subscriptionRepository.recalculateEffectiveEndDate(id);
+    subscriptionAccessService.subscriptionSaved(id, clientId);
+    clientCohortService.clientsChanged(clientId);
+    return new SubscriptionFreezeDto(freeze.getFreeze_id(), id, startDate, endDate);
+  }
+
+  @Transactional
+  public void unfreezeSubscription(Long id, Long freezeId) {
+    SubscriptionEntity subscription = findForUpdate(id);
+    SubscriptionFreezeEntity freeze = subscriptionFreezeRepository.findById(freezeId)
+            .filter(found -> found.getSubscription().getSubscription_id().equals(id))
+            .orElseThrow(() -> new IllegalArgumentException("Freeze " + freezeId + " not found for subscription " + id));
+    LocalDate today = LocalDate.now();
+    if (freeze.getFreeze_endDate().isBefore(today)) {
+      throw new IllegalArgumentException("Freeze " + freezeId + " has already ended");
+    }
+    if (freeze.getFreeze_startDate().isBefore(today)) {
+      // Заморозка уже идет: прошедшие дни использованы и остаются в продлении абонемента
+      freeze.setFreeze_endDate(today.minusDays(1));
+    } else {
+      subscriptionFreezeRepository.delete(freeze);
+    }
+    Long clientId = subscription.getClient().getClient_id();
+    subscriptionRepository.recalculateEffectiveEndDate(id);
+    subscriptionAccessService.subscriptionSaved(id, clientId);
+    clientCohortService.clientsChanged(clientId);
+  }
+
+  @Transactional
+  public BulkImportReportDto bulkImportSubscriptions(Iterator<BulkRowDto<SubscriptionDto>> rows) {
+    BulkImportReportDto report = bulkCopyImporter.importRows(rows, BULK_TARGET);
+    if (report.importedRows() > 0) {
+      clientCohortService.rebuildAfterCommit();
+      entityChangeBus.reload(EntityChangeBus.SUBSCRIPTION);
+    }
+    return report;
+  }
+
+  // Блокировка строки абонемента упорядочивает одновременные заморозки: проверка пересечений
+  // и пересчет фактической даты окончания видят заморозки, зафиксированные перед ними
+  private SubscriptionEntity findForUpdate(Long id) {
+    return subscriptionRepository.findByIdForUpdate(id)
+            .orElseThrow(() -> new IllegalArgumentException("Subscription not found with id: " + id));
+  }
+
+  private static String bulkStatus(String status) {
+    if (status == null) {
+      return SubscriptionStatus.ACTIVE.name();
+    }
+    try {
+      return SubscriptionStatus.valueOf(status).name();
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("subscriptionStatus: неизвестный статус абонемента " + status);
     }
-    subscriptionRepository.deleteById(id);
   }
-}
\ No newline at end of file
+}
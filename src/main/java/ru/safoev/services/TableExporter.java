@@ -0,0 +1,182 @@
+package ru.safoev.services;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import ru.safoev.enumlists.ExportFormat;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Потоковая выгрузка результата запроса в CSV или NDJSON без промежуточных списков.
+ * <p>
+ * CSV из PostgreSQL выгружается командой {@code COPY (...) TO STDOUT}: строки
+ * формируются сервером базы данных и копируются в выходной поток без разбора.
+ * В остальных случаях строки читаются однонаправленным курсором JDBC порциями
+ * по {@value #FETCH_SIZE} и сразу записываются в поток. Потребление памяти
+ * не зависит от объема выгрузки.
+ * </p>
+ * <p>
+ * Методы должны вызываться внутри транзакции: без нее драйвер PostgreSQL
+ * игнорирует fetchSize и загружает весь результат в память.
+ * </p>
+ */
+@Component
+public class TableExporter {
+
+  private static final int FETCH_SIZE = 1000;
+  private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+  private static final byte[] LINE_SEPARATOR = {'\n'};
+
+  private final JdbcTemplate cursorTemplate;
+  private final JsonMapper jsonMapper;
+
+  @Autowired
+  public TableExporter(JdbcTemplate jdbcTemplate, JsonMapper jsonMapper) {
+    this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.cursorTemplate.setFetchSize(FETCH_SIZE);
+    this.jsonMapper = jsonMapper;
+  }
+
+  <T> void export(ExportQuery<T> query, ExportFormat format, OutputStream out) {
+    BufferedOutputStream buffered = new BufferedOutputStream(out, OUTPUT_BUFFER_BYTES);
+    if (format == ExportFormat.CSV) {
+      exportCsv(query, buffered);
+    } else {
+      exportNdjson(query, buffered);
+    }
+    try {
+      buffered.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void exportCsv(ExportQuery<?> query, OutputStream out) {
+    Boolean copied = cursorTemplate.execute((Connection connection) -> {
+      if (!connection.isWrapperFor(PGConnection.class)) {
+        return false;
+      }
+      try {
+        connection.unwrap(PGConnection.class).getCopyAPI().copyOut(
+                "COPY (" + inlineParams(query) + ") TO STDOUT WITH (FORMAT csv, HEADER)", out);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return true;
+    });
+    if (Boolean.TRUE.equals(copied)) {
+      return;
+    }
+    cursorTemplate.query(query.sql(), (ResultSetExtractor<Void>) rs -> {
+      ResultSetMetaData metaData = rs.getMetaData();
+      int columns = metaData.getColumnCount();
+      StringBuilder line = new StringBuilder();
+      for (int i = 1; i <= columns; i++) {
+        appendCsvField(line, i, metaData.getColumnLabel(i));
+      }
+      writeLine(out, line);
+      while (rs.next()) {
+        for (int i = 1; i <= columns; i++) {
+          appendCsvField(line, i, csvValue(rs.getObject(i)));
+        }
+        writeLine(out, line);
+      }
+      return null;
+    }, query.params().toArray());
+  }
+
+  // Передает строки результата по одной тем же курсором, что и выгрузка
+  <T> void forEach(ExportQuery<T> query, Consumer<T> consumer) {
+    int[] rowNum = {0};
+    cursorTemplate.query(query.sql(), (ResultSet rs) -> consumer.accept(query.rowMapper().mapRow(rs, rowNum[0]++)),
+            query.params().toArray());
+  }
+
+  private <T> void exportNdjson(ExportQuery<T> query, OutputStream out) {
+    forEach(query, row -> {
+      try {
+        out.write(jsonMapper.writeValueAsBytes(row));
+        out.write(LINE_SEPARATOR);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /**
+   * Подставляет параметры в текст запроса: COPY не поддерживает параметры {@code ?}.
+   * Допускаются только числа и даты, поэтому подстановка не открывает SQL-инъекций.
+   */
+  private static String inlineParams(ExportQuery<?> query) {
+    StringBuilder sql = new StringBuilder();
+    Iterator<Object> params = query.params().iterator();
+    for (char c : query.sql().toCharArray()) {
+      if (c != '?') {
+        sql.append(c);
+        continue;
+      }
+      Object param = params.next();
+      if (param instanceof LocalDateTime dateTime) {
+        sql.append("TIMESTAMP '").append(dateTime).append('\'');
+      } else if (param instanceof LocalDate date) {
+        sql.append("DATE '").append(date).append('\'');
+      } else if (param instanceof Number number) {
+        sql.append(number);
+      } else {
+        throw new IllegalArgumentException("Unsupported export parameter type: " + param);
+      }
+    }
+    return sql.toString();
+  }
+
+  private static String csvValue(Object value) {
+    if (value instanceof Timestamp timestamp) {
+      return timestamp.toLocalDateTime().toString();
+    }
+    if (value instanceof java.sql.Date date) {
+      return date.toLocalDate().toString();
+    }
+    return value != null ? value.toString() : null;
+  }
+
+  private static void appendCsvField(StringBuilder line, int column, String value) {
+    if (column > 1) {
+      line.append(',');
+    }
+    if (value == null) {
+      return;
+    }
+    if (value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+            || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+      line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    } else {
+      line.append(value);
+    }
+  }
+
+  private static void writeLine(OutputStream out, StringBuilder line) {
+    line.append('\n');
+    try {
+      out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    line.setLength(0);
+  }
+}
@@ -0,0 +1,31 @@
+package ru.safoev.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Действия, откладываемые до фиксации текущей транзакции.
+ * <p>
+ * Кэши и счетчики в памяти (заполненность залов, индекс доступа, отметки витрин)
+ * меняются только после фиксации: откат не должен оставлять в них следов.
+ * Вне транзакции действие выполняется сразу.
+ * </p>
+ */
+final class TransactionHooks {
+
+  private TransactionHooks() {
+  }
+
+  static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+}
@@ -0,0 +1,302 @@
+package ru.safoev.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.safoev.dtorecords.VisitArchiveDto;
+import ru.safoev.dtorecords.VisitArchiveRunDto;
+import ru.safoev.dtorecords.VisitDto;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Перенос старых посещений из таблицы "visits" в сжатые файлы на локальном диске.
+ * <p>
+ * Задание переносит посещения с временем входа раньше границы архива (начало дня,
+ * отстоящего от текущего на {@code gym.visit.archive.horizon}) порциями: порция
+ * записывается частями по залу и месяцу ({@link VisitArchiveStore}), файлы сбрасываются
+ * на диск, и только после этого строки порции удаляются из таблицы. Выборка порции блокирует
+ * ее строки (FOR UPDATE) до удаления в той же транзакции, поэтому изменение строки
+ * не может зафиксироваться между ее чтением и удалением: архив хранит удаленную версию.
+ * Если процесс остановился между записью файла и удалением строк, строки будут перенесены
+ * повторно, а до этого чтение отбрасывает дубликаты по идентификатору.
+ * </p>
+ * <p>
+ * Архив доступен только для чтения: посещения с временем входа раньше границы не создаются
+ * и не изменяются, поэтому агрегаты посещаемости архивных дней остаются верными.
+ * Список, страницы, поток и выгрузка посещений объединяют архив с таблицей по идентификатору;
+ * строка, еще не удаленная из таблицы после записи в архив, берется из таблицы.
+ * </p>
+ */
+@Service
+public class VisitArchiveService {
+  private static final Logger log = LoggerFactory.getLogger(VisitArchiveService.class);
+
+  // Временная таблица с архивными посещениями для запросов выгрузки, см. stageArchived
+  static final String STAGED_TABLE = "archived_visits_staged";
+
+  private static final String DELETE_SQL = "DELETE FROM visits WHERE visit_id = ? AND visit_check_in_time = ?";
+
+  private static final String INSERT_STAGED_SQL = "INSERT INTO " + STAGED_TABLE
+          + " (visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time) VALUES (?, ?, ?, ?, ?)";
+
+  private static final RowMapper<VisitDto> VISIT_ROW = (rs, rowNum) -> new VisitDto(
+          rs.getLong(1),
+          rs.getLong(2),
+          rs.getLong(3),
+          rs.getObject(4, LocalDateTime.class),
+          rs.getObject(5, LocalDateTime.class)
+  );
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final OccupancyService occupancyService;
+  private final EntityChangeBus entityChangeBus;
+  private final VisitArchiveStore store;
+  private final Duration horizon;
+  private final String selectBatchSql;
+
+  @Autowired
+  public VisitArchiveService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             OccupancyService occupancyService,
+                             EntityChangeBus entityChangeBus,
+                             @Value("${gym.visit.archive.dir:./data/visit-archive}") Path directory,
+                             @Value("${gym.visit.archive.horizon:180d}") Duration horizon,
+                             @Value("${gym.visit.archive.batch-size:5000}") int batchSize) {
+    if (batchSize < 1 || horizon.isNegative()) {
+      throw new IllegalArgumentException("Visit archive batch size must be positive and horizon not negative");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.occupancyService = occupancyService;
+    this.entityChangeBus = entityChangeBus;
+    this.store = new VisitArchiveStore(directory);
+    this.horizon = horizon;
+    // Порядок по залу и времени входа собирает в порции длинные серии строк одного зала и месяца
+    this.selectBatchSql = """
+            SELECT visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time
+            FROM visits
+            WHERE visit_check_in_time < ?
+            ORDER BY gym_id, visit_check_in_time, visit_id
+            FETCH FIRST %d ROWS ONLY
+            FOR UPDATE
+            """.formatted(batchSize);
+  }
+
+  public LocalDate getArchivedBefore() {
+    return store.archivedBefore();
+  }
+
+  public boolean isArchived(LocalDateTime checkInTime) {
+    LocalDate archivedBefore = store.archivedBefore();
+    return checkInTime != null && archivedBefore != null && checkInTime.isBefore(archivedBefore.atStartOfDay());
+  }
+
+  public void requireNotArchived(LocalDateTime checkInTime) {
+    if (isArchived(checkInTime)) {
+      throw new IllegalArgumentException("Visits checked in before " + store.archivedBefore()
+              + " are archived and read-only");
+    }
+  }
+
+  // Посещения зала с временем входа в интервале [from, to), упорядоченные по времени входа
+  public List<VisitDto> findByGym(Long gymId, LocalDateTime from, LocalDateTime to) {
+    List<VisitArchiveStore.Chunk> chunks = store.chunks(gymId, YearMonth.from(from), YearMonth.from(to.minusNanos(1)));
+    if (chunks.isEmpty()) {
+      return List.of();
+    }
+    return chunks.stream()
+            .flatMap(chunk -> store.read(chunk).stream())
+            .filter(visit -> !visit.checkInTime().isBefore(from) && visit.checkInTime().isBefore(to))
+            // Повторный перенос после сбоя может оставить строку в двух частях
+            .collect(Collectors.toMap(VisitDto::visitId, visit -> visit, (first, second) -> first))
+            .values().stream()
+            .sorted(Comparator.comparing(VisitDto::checkInTime).thenComparing(VisitDto::visitId))
+            .toList();
+  }
+
+  public Optional<VisitDto> findById(Long id) {
+    return store.chunksContaining(id).stream()
+            .flatMap(chunk -> store.read(chunk).stream())
+            .filter(visit -> visit.visitId().equals(id))
+            .findFirst();
+  }
+
+  // Не больше limit посещений с идентификатором больше cursor, упорядоченных по идентификатору
+  public List<VisitDto> findAfterId(long cursor, int limit) {
+    List<VisitArchiveStore.Chunk> candidates = store.allChunks().stream()
+            .filter(chunk -> chunk.maxVisitId() > cursor)
+            .sorted(Comparator.comparingLong(VisitArchiveStore.Chunk::minVisitId))
+            .toList();
+    TreeMap<Long, VisitDto> page = new TreeMap<>();
+    for (VisitArchiveStore.Chunk chunk : candidates) {
+      // Следующие части начинаются с больших идентификаторов и не вытеснят уже набранные
+      if (page.size() >= limit && chunk.minVisitId() > page.lastKey()) {
+        break;
+      }
+      for (VisitDto visit : store.read(chunk)) {
+        if (visit.visitId() > cursor && page.putIfAbsent(visit.visitId(), visit) == null && page.size() > limit) {
+          page.pollLastEntry();
+        }
+      }
+    }
+    return List.copyOf(page.values());
+  }
+
+  /**
+   * Копирует архивные посещения с временем входа в интервале [from, to) во временную таблицу
+   * {@value #STAGED_TABLE}, чтобы запрос выгрузки объединил их с таблицей "visits" в одном
+   * порядке. Границы необязательны. Части читаются по одной, поэтому память не зависит
+   * от объема архива.
+   * <p>
+   * Должен вызываться в транзакции REPEATABLE READ: таблица создается с ON COMMIT DROP,
+   * а снимок, зафиксированный ее созданием до чтения списка частей, содержит все строки,
+   * удаленные из таблицы позже. Строку из обоих источников запрос должен брать из таблицы.
+   * </p>
+   *
+   * @return {@code false}, если в интервале нет архивных посещений и таблица не создана
+   */
+  public boolean stageArchived(LocalDateTime from, LocalDateTime to) {
+    LocalDate archivedBefore = store.archivedBefore();
+    if (archivedBefore == null || from != null && !from.isBefore(archivedBefore.atStartOfDay())) {
+      return false;
+    }
+    jdbcTemplate.execute("CREATE LOCAL TEMPORARY TABLE " + STAGED_TABLE
+            + " (visit_id BIGINT NOT NULL, client_id BIGINT NOT NULL, gym_id BIGINT NOT NULL,"
+            + " visit_check_in_time TIMESTAMP NOT NULL, visit_check_out_time TIMESTAMP) ON COMMIT DROP");
+    YearMonth firstMonth = from != null ? YearMonth.from(from) : YearMonth.of(0, 1);
+    YearMonth lastMonth = to != null ? YearMonth.from(to.minusNanos(1)) : YearMonth.of(9999, 12);
+    Map<Long, Map<YearMonth, List<VisitArchiveStore.Chunk>>> byGymAndMonth = store.allChunks().stream()
+            .filter(chunk -> !chunk.month().isBefore(firstMonth) && !chunk.month().isAfter(lastMonth))
+            .collect(Collectors.groupingBy(VisitArchiveStore.Chunk::gymId,
+                    Collectors.groupingBy(VisitArchiveStore.Chunk::month)));
+    byGymAndMonth.values().forEach(months -> months.values().forEach(chunks -> {
+      // Повторный перенос после сбоя может оставить строку в двух частях одного зала и месяца
+      Collection<VisitDto> visits = chunks.stream()
+              .flatMap(chunk -> store.read(chunk).stream())
+              .filter(visit -> (from == null || !visit.checkInTime().isBefore(from))
+                      && (to == null || visit.checkInTime().isBefore(to)))
+              .collect(Collectors.toMap(VisitDto::visitId, visit -> visit, (first, second) -> first))
+              .values();
+      jdbcTemplate.batchUpdate(INSERT_STAGED_SQL, visits, visits.size(), (ps, visit) -> {
+        ps.setLong(1, visit.visitId());
+        ps.setLong(2, visit.clientId());
+        ps.setLong(3, visit.gymId());
+        ps.setObject(4, visit.checkInTime());
+        ps.setObject(5, visit.checkOutTime());
+      });
+    }));
+    return true;
+  }
+
+  public List<VisitArchiveDto> getArchive() {
+    Map<Long, Map<YearMonth, List<VisitArchiveStore.Chunk>>> byGymAndMonth = store.allChunks().stream()
+            .collect(Collectors.groupingBy(VisitArchiveStore.Chunk::gymId,
+                    Collectors.groupingBy(VisitArchiveStore.Chunk::month)));
+    List<VisitArchiveDto> result = new ArrayList<>();
+    byGymAndMonth.forEach((gymId, months) -> months.forEach((month, chunks) -> result.add(new VisitArchiveDto(
+            gymId,
+            month.atDay(1),
+            chunks.size(),
+            chunks.stream().mapToLong(VisitArchiveStore.Chunk::visits).sum(),
+            chunks.stream().mapToLong(VisitArchiveStore.Chunk::bytes).sum()
+    ))));
+    result.sort(Comparator.comparing(VisitArchiveDto::gymId).thenComparing(VisitArchiveDto::month));
+    return result;
+  }
+
+  /**
+   * Переносит в архив посещения с временем входа раньше границы архива.
+   * Граница сдвигается до переноса, чтобы новые записи задним числом не попадали
+   * в переносимый период; назад граница не сдвигается.
+   */
+  @Scheduled(cron = "${gym.visit.archive.cron:0 45 2 * * *}")
+  public synchronized VisitArchiveRunDto archive() {
+    long started = System.nanoTime();
+    LocalDate cutoff = LocalDateTime.now().minus(horizon).toLocalDate();
+    LocalDate previous = store.archivedBefore();
+    if (previous != null && previous.isAfter(cutoff)) {
+      cutoff = previous;
+    } else if (!cutoff.equals(previous)) {
+      store.setArchivedBefore(cutoff);
+    }
+
+    long archived = 0;
+    int chunks = 0;
+    boolean openArchived = false;
+    LocalDateTime before = cutoff.atStartOfDay();
+    MovedBatch moved;
+    while ((moved = transactionTemplate.execute(status -> moveBatch(before))) != null) {
+      chunks += moved.chunks();
+      archived += moved.visits();
+      openArchived |= moved.openVisits();
+    }
+
+    if (openArchived) {
+      occupancyService.resyncAfterCommit();
+    }
+    if (archived > 0) {
+      entityChangeBus.reload(EntityChangeBus.VISIT);
+    }
+    long millis = (System.nanoTime() - started) / 1_000_000;
+    log.info("Archived {} visits checked in before {} into {} chunks in {} ms", archived, cutoff, chunks, millis);
+    return new VisitArchiveRunDto(cutoff, archived, chunks, millis);
+  }
+
+  // Выполняется в транзакции: строки порции заблокированы от выборки до удаления
+  private MovedBatch moveBatch(LocalDateTime before) {
+    List<VisitDto> batch = jdbcTemplate.query(selectBatchSql, VISIT_ROW, before);
+    if (batch.isEmpty()) {
+      return null;
+    }
+    Map<Long, Map<YearMonth, List<VisitDto>>> groups = batch.stream()
+            .collect(Collectors.groupingBy(VisitDto::gymId, LinkedHashMap::new,
+                    Collectors.groupingBy(visit -> YearMonth.from(visit.checkInTime()), LinkedHashMap::new,
+                            Collectors.toList())));
+    List<VisitArchiveStore.Chunk> written = new ArrayList<>();
+    try {
+      groups.forEach((gymId, months) -> months.forEach((month, visits) ->
+              written.add(store.write(gymId, month, visits))));
+      // Части видны чтению до удаления строк: на это время дубликаты отбрасываются по идентификатору
+      written.forEach(store::publish);
+      int[][] counts = jdbcTemplate.batchUpdate(DELETE_SQL, batch, batch.size(), (ps, visit) -> {
+        ps.setLong(1, visit.visitId());
+        // Время входа отсекает секции других месяцев
+        ps.setObject(2, visit.checkInTime());
+      });
+      // Иначе следующая порция выберет те же строки и перенос не завершится
+      if (Arrays.stream(counts).flatMapToInt(Arrays::stream).noneMatch(count -> count > 0)) {
+        throw new IllegalStateException("Archived visit batch was not deleted from the visits table");
+      }
+    } catch (RuntimeException e) {
+      written.forEach(store::discard);
+      throw e;
+    }
+    return new MovedBatch(batch.size(), written.size(),
+            batch.stream().anyMatch(visit -> visit.checkOutTime() == null));
+  }
+
+  private record MovedBatch(int visits, int chunks, boolean openVisits) {}
+}
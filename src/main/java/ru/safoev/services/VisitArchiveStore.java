@@ -0,0 +1,331 @@
+package ru.safoev.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.safoev.dtorecords.VisitDto;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Локальное хранилище архивных посещений в сжатых файлах.
+ * <p>
+ * Посещения хранятся частями в каталогах {@code gym-<зал>/<ГГГГ-ММ>} по месяцу времени входа.
+ * Часть - файл GZIP со столбцовой раскладкой: количество строк, затем столбцы идентификаторов,
+ * клиентов, времени входа и длительности посещения. Идентификаторы и время входа записываются
+ * разностью с предыдущей строкой, поэтому столбцы состоят из небольших чисел и хорошо сжимаются.
+ * Время хранится в микросекундах - с точностью столбцов TIMESTAMP.
+ * </p>
+ * <p>
+ * Имя файла части содержит диапазон идентификаторов, поэтому поиск по идентификатору
+ * читает только подходящие части. Индекс частей по залу и месяцу строится при запуске
+ * по заголовкам файлов и хранится в памяти. Граница архива (посещения с временем входа
+ * раньше нее перенесены или переносятся в архив) хранится в файле {@code archived-before}.
+ * </p>
+ */
+final class VisitArchiveStore {
+  private static final Logger log = LoggerFactory.getLogger(VisitArchiveStore.class);
+
+  // "GVA1": формат части архива посещений, версия 1
+  private static final int MAGIC = 0x47564131;
+  private static final long NO_CHECK_OUT = Long.MIN_VALUE;
+  private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+  private static final int BUFFER_BYTES = 64 * 1024;
+
+  private static final String GYM_PREFIX = "gym-";
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final String MARKER_FILE = "archived-before";
+  private static final Pattern CHUNK_NAME = Pattern.compile("visits-(\\d+)-(\\d+)\\.gz");
+
+  /**
+   * Часть архива: посещения одного зала за один месяц, записанные одним файлом.
+   */
+  record Chunk(long gymId, YearMonth month, long minVisitId, long maxVisitId, int visits, long bytes, Path path) {}
+
+  private final Path directory;
+  private final Map<Long, ConcurrentSkipListMap<YearMonth, List<Chunk>>> index = new ConcurrentHashMap<>();
+  private volatile LocalDate archivedBefore;
+
+  VisitArchiveStore(Path directory) {
+    this.directory = directory;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create archive directory: " + directory, e);
+    }
+    this.archivedBefore = readMarker();
+    try (Stream<Path> gyms = Files.list(directory)) {
+      gyms.filter(Files::isDirectory)
+              .filter(path -> path.getFileName().toString().startsWith(GYM_PREFIX))
+              .forEach(this::loadGym);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot list archive directory: " + directory, e);
+    }
+  }
+
+  LocalDate archivedBefore() {
+    return archivedBefore;
+  }
+
+  void setArchivedBefore(LocalDate date) {
+    Path marker = directory.resolve(MARKER_FILE);
+    Path tmp = directory.resolve(MARKER_FILE + TMP_SUFFIX);
+    try {
+      Files.writeString(tmp, date.toString(), StandardCharsets.UTF_8);
+      Files.move(tmp, marker, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write archive marker: " + marker, e);
+    }
+    archivedBefore = date;
+  }
+
+  /**
+   * Записывает посещения одного зала за один месяц новой частью.
+   * <p>
+   * Файл сбрасывается на диск до возврата: после этого строки можно удалять из базы данных.
+   * Часть с тем же диапазоном идентификаторов (повторный перенос после сбоя) заменяется.
+   * В индекс часть попадает только после {@link #publish(Chunk)}.
+   * </p>
+   */
+  Chunk write(long gymId, YearMonth month, List<VisitDto> visits) {
+    List<VisitDto> sorted = visits.stream()
+            .sorted(Comparator.comparing(VisitDto::checkInTime).thenComparing(VisitDto::visitId))
+            .toList();
+    long minId = sorted.stream().mapToLong(VisitDto::visitId).min().orElseThrow();
+    long maxId = sorted.stream().mapToLong(VisitDto::visitId).max().orElseThrow();
+    Path monthDirectory = directory.resolve(GYM_PREFIX + gymId).resolve(month.toString());
+    Path path = monthDirectory.resolve("visits-" + minId + "-" + maxId + ".gz");
+    Path tmp = monthDirectory.resolve(path.getFileName() + TMP_SUFFIX);
+    try {
+      Files.createDirectories(monthDirectory);
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_BYTES));
+        writeColumns(out, sorted);
+        out.flush();
+        gzip.finish();
+        channel.force(true);
+        out.close();
+      }
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      return new Chunk(gymId, month, minId, maxId, sorted.size(), Files.size(path), path);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write archive chunk: " + path, e);
+    }
+  }
+
+  void publish(Chunk chunk) {
+    List<Chunk> chunks = index.computeIfAbsent(chunk.gymId(), gymId -> new ConcurrentSkipListMap<>())
+            .computeIfAbsent(chunk.month(), month -> new CopyOnWriteArrayList<>());
+    chunks.removeIf(existing -> existing.path().equals(chunk.path()));
+    chunks.add(chunk);
+  }
+
+  // Откатывает запись части, строки которой не удалось удалить из базы данных
+  void discard(Chunk chunk) {
+    ConcurrentSkipListMap<YearMonth, List<Chunk>> months = index.get(chunk.gymId());
+    if (months != null) {
+      List<Chunk> chunks = months.get(chunk.month());
+      if (chunks != null) {
+        chunks.removeIf(existing -> existing.path().equals(chunk.path()));
+      }
+    }
+    try {
+      Files.deleteIfExists(chunk.path());
+    } catch (IOException e) {
+      log.warn("Cannot delete archive chunk {}", chunk.path(), e);
+    }
+  }
+
+  List<Chunk> chunks(long gymId, YearMonth from, YearMonth to) {
+    ConcurrentSkipListMap<YearMonth, List<Chunk>> months = index.get(gymId);
+    if (months == null || from.isAfter(to)) {
+      return List.of();
+    }
+    return months.subMap(from, true, to, true).values().stream()
+            .flatMap(List::stream)
+            .toList();
+  }
+
+  List<Chunk> chunksContaining(long visitId) {
+    return allChunks().stream()
+            .filter(chunk -> chunk.minVisitId() <= visitId && visitId <= chunk.maxVisitId())
+            .toList();
+  }
+
+  List<Chunk> allChunks() {
+    return index.values().stream()
+            .flatMap(months -> months.values().stream())
+            .flatMap(List::stream)
+            .toList();
+  }
+
+  List<VisitDto> read(Chunk chunk) {
+    try (DataInputStream in = open(chunk.path())) {
+      int rows = readHeader(in, chunk.path());
+      long[] ids = new long[rows];
+      long previous = 0;
+      for (int i = 0; i < rows; i++) {
+        previous += in.readLong();
+        ids[i] = previous;
+      }
+      long[] clientIds = new long[rows];
+      for (int i = 0; i < rows; i++) {
+        clientIds[i] = in.readLong();
+      }
+      long[] checkIns = new long[rows];
+      previous = 0;
+      for (int i = 0; i < rows; i++) {
+        previous += in.readLong();
+        checkIns[i] = previous;
+      }
+      List<VisitDto> visits = new ArrayList<>(rows);
+      for (int i = 0; i < rows; i++) {
+        long stay = in.readLong();
+        visits.add(new VisitDto(
+                ids[i],
+                clientIds[i],
+                chunk.gymId(),
+                fromMicros(checkIns[i]),
+                stay == NO_CHECK_OUT ? null : fromMicros(checkIns[i] + stay)
+        ));
+      }
+      return visits;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read archive chunk: " + chunk.path(), e);
+    }
+  }
+
+  private static void writeColumns(DataOutputStream out, List<VisitDto> visits) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(visits.size());
+    long previous = 0;
+    for (VisitDto visit : visits) {
+      out.writeLong(visit.visitId() - previous);
+      previous = visit.visitId();
+    }
+    for (VisitDto visit : visits) {
+      out.writeLong(visit.clientId());
+    }
+    previous = 0;
+    for (VisitDto visit : visits) {
+      long checkIn = toMicros(visit.checkInTime());
+      out.writeLong(checkIn - previous);
+      previous = checkIn;
+    }
+    for (VisitDto visit : visits) {
+      out.writeLong(visit.checkOutTime() == null
+              ? NO_CHECK_OUT
+              : toMicros(visit.checkOutTime()) - toMicros(visit.checkInTime()));
+    }
+  }
+
+  private void loadGym(Path gymDirectory) {
+    long gymId;
+    try {
+      gymId = Long.parseLong(gymDirectory.getFileName().toString().substring(GYM_PREFIX.length()));
+    } catch (NumberFormatException e) {
+      log.warn("Skipping unexpected archive directory {}", gymDirectory);
+      return;
+    }
+    try (Stream<Path> months = Files.list(gymDirectory)) {
+      for (Path monthDirectory : months.filter(Files::isDirectory).toList()) {
+        YearMonth month;
+        try {
+          month = YearMonth.parse(monthDirectory.getFileName().toString());
+        } catch (DateTimeParseException e) {
+          log.warn("Skipping unexpected archive directory {}", monthDirectory);
+          continue;
+        }
+        loadMonth(gymId, month, monthDirectory);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot list archive directory: " + gymDirectory, e);
+    }
+  }
+
+  private void loadMonth(long gymId, YearMonth month, Path monthDirectory) throws IOException {
+    try (Stream<Path> files = Files.list(monthDirectory)) {
+      for (Path file : files.toList()) {
+        String name = file.getFileName().toString();
+        // Недописанная часть: строки остались в базе данных и будут перенесены повторно
+        if (name.endsWith(TMP_SUFFIX)) {
+          Files.deleteIfExists(file);
+          continue;
+        }
+        Matcher matcher = CHUNK_NAME.matcher(name);
+        if (!matcher.matches()) {
+          continue;
+        }
+        int rows;
+        try (DataInputStream in = open(file)) {
+          rows = readHeader(in, file);
+        }
+        publish(new Chunk(gymId, month, Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)),
+                rows, Files.size(file), file));
+      }
+    }
+  }
+
+  private LocalDate readMarker() {
+    Path marker = directory.resolve(MARKER_FILE);
+    if (!Files.exists(marker)) {
+      return null;
+    }
+    try {
+      return LocalDate.parse(Files.readString(marker, StandardCharsets.UTF_8).trim());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read archive marker: " + marker, e);
+    }
+  }
+
+  private static DataInputStream open(Path path) throws IOException {
+    InputStream file = Files.newInputStream(path);
+    return new DataInputStream(new BufferedInputStream(new GZIPInputStream(file, BUFFER_BYTES), BUFFER_BYTES));
+  }
+
+  private static int readHeader(DataInputStream in, Path path) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a visit archive chunk: " + path);
+    }
+    return in.readInt();
+  }
+
+  private static long toMicros(LocalDateTime time) {
+    return ChronoUnit.MICROS.between(EPOCH, time);
+  }
+
+  private static LocalDateTime fromMicros(long micros) {
+    return EPOCH.plus(micros, ChronoUnit.MICROS);
+  }
+}
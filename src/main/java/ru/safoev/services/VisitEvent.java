@@ -0,0 +1,33 @@
+package ru.safoev.services;
+
+import ru.safoev.enumlists.VisitEventType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие турникета, ожидающее записи в базу данных в режиме отложенной записи.
+ * <p>
+ * Сериализуется в журнал одной строкой вида {@code CHECK_IN;clientId;gymId;time}.
+ * </p>
+ */
+record VisitEvent(VisitEventType type, long clientId, long gymId, LocalDateTime time) {
+
+  private static final String SEPARATOR = ";";
+
+  String toJournalLine() {
+    return type + SEPARATOR + clientId + SEPARATOR + gymId + SEPARATOR + time;
+  }
+
+  static VisitEvent fromJournalLine(String line) {
+    String[] parts = line.split(SEPARATOR, -1);
+    if (parts.length != 4) {
+      throw new IllegalArgumentException("Malformed journal line: " + line);
+    }
+    return new VisitEvent(
+            VisitEventType.valueOf(parts[0]),
+            Long.parseLong(parts[1]),
+            Long.parseLong(parts[2]),
+            LocalDateTime.parse(parts[3])
+    );
+  }
+}
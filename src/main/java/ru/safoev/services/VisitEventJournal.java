@@ -0,0 +1,147 @@
+package ru.safoev.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Локальный журнал событий турникетов, работающий только на дозапись.
+ * <p>
+ * Журнал состоит из сегментов {@code visits-<номер>.log}. Каждое событие
+ * дописывается в активный сегмент до постановки в очередь; при сбросе буфера
+ * активный сегмент закрывается и удаляется после фиксации транзакции.
+ * Сегменты, оставшиеся после аварийной остановки, читаются при следующем запуске.
+ * </p>
+ */
+final class VisitEventJournal implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(VisitEventJournal.class);
+
+  private static final String SEGMENT_PREFIX = "visits-";
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private final Path directory;
+  private final boolean fsync;
+  private long nextSegmentNumber;
+  private Path activePath;
+  private FileChannel active;
+
+  VisitEventJournal(Path directory, boolean fsync) {
+    this.directory = directory;
+    this.fsync = fsync;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create journal directory: " + directory, e);
+    }
+    List<Path> existing = existingSegments();
+    this.nextSegmentNumber = existing.isEmpty() ? 1 : segmentNumber(existing.getLast()) + 1;
+  }
+
+  List<Path> existingSegments() {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+              .filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+              })
+              .sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)))
+              .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot list journal directory: " + directory, e);
+    }
+  }
+
+  static List<VisitEvent> readSegment(Path segment) {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(segment, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read journal segment: " + segment, e);
+    }
+    List<VisitEvent> events = new ArrayList<>(lines.size());
+    for (String line : lines) {
+      if (line.isBlank()) {
+        continue;
+      }
+      try {
+        events.add(VisitEvent.fromJournalLine(line));
+      } catch (RuntimeException e) {
+        // Последняя строка может быть оборвана, если процесс остановился во время записи
+        log.warn("Skipping malformed journal line in {}: {}", segment, line);
+      }
+    }
+    return events;
+  }
+
+  synchronized void append(VisitEvent event) {
+    try {
+      if (active == null) {
+        activePath = directory.resolve(SEGMENT_PREFIX + nextSegmentNumber++ + SEGMENT_SUFFIX);
+        active = FileChannel.open(activePath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      }
+      ByteBuffer line = ByteBuffer.wrap((event.toJournalLine() + "\n").getBytes(StandardCharsets.UTF_8));
+      while (line.hasRemaining()) {
+        active.write(line);
+      }
+      if (fsync) {
+        active.force(false);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot append to journal segment: " + activePath, e);
+    }
+  }
+
+  /**
+   * Закрывает активный сегмент; следующее событие будет записано в новый сегмент.
+   *
+   * @return путь закрытого сегмента или {@code null}, если с прошлого вызова событий не было
+   */
+  synchronized Path seal() {
+    if (active == null) {
+      return null;
+    }
+    Path sealed = activePath;
+    try {
+      active.force(false);
+      active.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot close journal segment: " + sealed, e);
+    } finally {
+      active = null;
+      activePath = null;
+    }
+    return sealed;
+  }
+
+  void delete(List<Path> segments) {
+    for (Path segment : segments) {
+      try {
+        Files.deleteIfExists(segment);
+      } catch (IOException e) {
+        log.warn("Cannot delete journal segment {}", segment, e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    seal();
+  }
+
+  private static long segmentNumber(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+}
@@ -0,0 +1,195 @@
+package ru.safoev.services;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.safoev.dtorecords.VisitPartitionDto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Обслуживание месячных секций таблицы посещений в PostgreSQL.
+ * <p>
+ * Таблица "visits" секционируется по времени входа скриптом {@code schema-postgresql.sql}.
+ * Задание заранее создает секции на текущий и следующие месяцы, переносит в отдельные секции
+ * строки, попавшие в секцию по умолчанию (загрузка истории, входы задним числом), и при
+ * заданном сроке хранения отсоединяет старые секции: они остаются отдельными таблицами
+ * {@code visits_archive_yГГГГmММ} и больше не видны запросам к посещениям.
+ * Для других баз данных и несекционированной таблицы задание ничего не делает.
+ * </p>
+ */
+@Service
+public class VisitPartitionService {
+  private static final Logger log = LoggerFactory.getLogger(VisitPartitionService.class);
+
+  private static final String DEFAULT_PARTITION = "visits_default";
+  private static final Pattern PARTITION_NAME = Pattern.compile("visits_y(\\d{4})m(\\d{2})");
+  // Ожидание блокировок DDL ограничено: задание повторится при следующем запуске
+  private static final String LOCK_TIMEOUT_SQL = "SET LOCAL lock_timeout = '5s'";
+
+  private static final String IS_PARTITIONED_SQL =
+          "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('visits'))";
+
+  private static final String PARTITIONS_SQL = """
+          SELECT c.relname, GREATEST(c.reltuples, 0)::bigint
+          FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+          WHERE i.inhparent = 'visits'::regclass
+          ORDER BY c.relname
+          """;
+
+  private static final String DEFAULT_PARTITION_MONTHS_SQL =
+          "SELECT DISTINCT date_trunc('month', visit_check_in_time) FROM " + DEFAULT_PARTITION;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int monthsAhead;
+  private final int retentionMonths;
+
+  @Autowired
+  public VisitPartitionService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${gym.visit.partitions.months-ahead:3}") int monthsAhead,
+                               @Value("${gym.visit.partitions.retention-months:0}") int retentionMonths) {
+    if (monthsAhead < 0 || retentionMonths < 0) {
+      throw new IllegalArgumentException("Visit partition month counts must not be negative");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.monthsAhead = monthsAhead;
+    this.retentionMonths = retentionMonths;
+  }
+
+  public List<VisitPartitionDto> getPartitions() {
+    if (!isPartitioned()) {
+      return List.of();
+    }
+    return jdbcTemplate.query(PARTITIONS_SQL, (rs, rowNum) -> {
+      String name = rs.getString(1);
+      YearMonth month = parseMonth(name);
+      return new VisitPartitionDto(name,
+              month != null ? month.atDay(1) : null,
+              month != null ? month.plusMonths(1).atDay(1) : null,
+              rs.getLong(2));
+    });
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${gym.visit.partitions.cron:0 15 0 * * *}")
+  public synchronized void maintainPartitions() {
+    if (!isPartitioned()) {
+      log.debug("Visits table is not partitioned, skipping partition maintenance");
+      return;
+    }
+    YearMonth current = YearMonth.now();
+    YearMonth oldestKept = retentionMonths > 0 ? current.minusMonths(retentionMonths) : null;
+
+    Set<YearMonth> attached = attachedMonths();
+    Set<YearMonth> wanted = new TreeSet<>();
+    for (int i = 0; i <= monthsAhead; i++) {
+      wanted.add(current.plusMonths(i));
+    }
+    jdbcTemplate.queryForList(DEFAULT_PARTITION_MONTHS_SQL, LocalDateTime.class).stream()
+            .map(YearMonth::from)
+            // Строки старше срока хранения остаются в секции по умолчанию, а не возвращают отсоединенный месяц
+            .filter(month -> oldestKept == null || !month.isBefore(oldestKept))
+            .forEach(wanted::add);
+    wanted.removeAll(attached);
+    for (YearMonth month : wanted) {
+      runLogged("create", month, () -> createPartition(month));
+    }
+
+    if (oldestKept != null) {
+      for (YearMonth month : attached) {
+        if (month.isBefore(oldestKept)) {
+          runLogged("detach", month, () -> detachPartition(month));
+        }
+      }
+    }
+  }
+
+  // Ошибка одной секции (например, занятое имя или истекшее ожидание блокировки) не останавливает остальные
+  private static void runLogged(String action, YearMonth month, Runnable operation) {
+    try {
+      operation.run();
+    } catch (DataAccessException e) {
+      log.error("Failed to {} visit partition for {}, will retry on the next run", action, month, e);
+    }
+  }
+
+  // Строки месяца переносятся из секции по умолчанию, иначе присоединение секции завершится ошибкой
+  private void createPartition(YearMonth month) {
+    String name = partitionName(month);
+    LocalDate from = month.atDay(1);
+    LocalDate to = month.plusMonths(1).atDay(1);
+    Integer moved = transactionTemplate.execute(status -> {
+      jdbcTemplate.execute(LOCK_TIMEOUT_SQL);
+      // Новые строки этого месяца не должны попасть в секцию по умолчанию до присоединения
+      jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN EXCLUSIVE MODE");
+      jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE visits INCLUDING DEFAULTS)");
+      int rows = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                      + " WHERE visit_check_in_time >= ? AND visit_check_in_time < ? RETURNING *)"
+                      + " INSERT INTO " + name + " SELECT * FROM moved",
+              from.atStartOfDay(), to.atStartOfDay());
+      jdbcTemplate.execute("ALTER TABLE visits ATTACH PARTITION " + name
+              + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+      return rows;
+    });
+    log.info("Created visit partition {} for [{}, {}), moved {} rows from the default partition",
+            name, from, to, moved);
+  }
+
+  private void detachPartition(YearMonth month) {
+    String name = partitionName(month);
+    String archiveName = name.replace("visits_", "visits_archive_");
+    transactionTemplate.executeWithoutResult(status -> {
+      jdbcTemplate.execute(LOCK_TIMEOUT_SQL);
+      jdbcTemplate.execute("ALTER TABLE visits DETACH PARTITION " + name);
+      jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + archiveName);
+    });
+    log.info("Detached visit partition {} older than {} months as {}", name, retentionMonths, archiveName);
+  }
+
+  private Set<YearMonth> attachedMonths() {
+    return jdbcTemplate.query(PARTITIONS_SQL, (rs, rowNum) -> parseMonth(rs.getString(1))).stream()
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(TreeSet::new));
+  }
+
+  private boolean isPartitioned() {
+    Boolean postgres = jdbcTemplate.execute(
+            (ConnectionCallback<Boolean>) connection -> connection.isWrapperFor(PGConnection.class));
+    return Boolean.TRUE.equals(postgres)
+            && Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Boolean.class));
+  }
+
+  private static String partitionName(YearMonth month) {
+    return String.format("visits_y%04dm%02d", month.getYear(), month.getMonthValue());
+  }
+
+  private static YearMonth parseMonth(String partitionName) {
+    Matcher matcher = PARTITION_NAME.matcher(partitionName);
+    return matcher.matches()
+            ? YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+            : null;
+  }
+}
@@ -0,0 +1,231 @@
+package ru.safoev.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.safoev.dtorecords.AttendanceDto;
+import ru.safoev.dtorecords.AttendanceProfileDto;
+import ru.safoev.repositoryinterface.VisitRepository;
+import ru.safoev.repositoryinterface.VisitRollupRepository;
+import ru.safoev.repositoryinterface.VisitRollupRepository.WeekdayHourTotals;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class VisitRollupService {
+  private static final Logger log = LoggerFactory.getLogger(VisitRollupService.class);
+  private static final int MAX_HOURLY_DAYS = 366;
+
+  private final VisitRollupRepository visitRollupRepository;
+  private final VisitRepository visitRepository;
+  private final VisitArchiveService visitArchiveService;
+  private final TransactionTemplate transactionTemplate;
+  // Выход не отмечается в агрегатах: закрытые посещения пересчитываются по окну открытых (см. refresh)
+  private final Duration openVisitHorizon;
+  private final int rebuildChunkDays;
+
+  // Самый ранний день, агрегаты которого устарели из-за изменений задним числом (null - таких нет)
+  private final AtomicReference<LocalDate> dirtyFrom = new AtomicReference<>();
+  private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+  // День входа самого раннего открытого посещения на момент предыдущего пересчета
+  private volatile LocalDate openFrom;
+  private final ReentrantLock lock = new ReentrantLock();
+
+  @Autowired
+  public VisitRollupService(VisitRollupRepository visitRollupRepository,
+                            VisitRepository visitRepository,
+                            VisitArchiveService visitArchiveService,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${gym.analytics.rollup.open-visit-horizon:24h}") Duration openVisitHorizon,
+                            @Value("${gym.analytics.rollup.rebuild-chunk-days:31}") int rebuildChunkDays) {
+    if (rebuildChunkDays < 1) {
+      throw new IllegalArgumentException("Rollup rebuild chunk must be at least one day");
+    }
+    this.visitRollupRepository = visitRollupRepository;
+    this.visitRepository = visitRepository;
+    this.visitArchiveService = visitArchiveService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.openVisitHorizon = openVisitHorizon;
+    this.rebuildChunkDays = rebuildChunkDays;
+  }
+
+  public List<AttendanceDto> getHourly(Long gymId, LocalDate from, LocalDate to) {
+    LocalDate end = to != null ? to : LocalDate.now();
+    LocalDate start = from != null ? from : end;
+    requireRange(start, end);
+    if (ChronoUnit.DAYS.between(start, end) >= MAX_HOURLY_DAYS) {
+      throw new IllegalArgumentException("Hourly attendance range must not exceed " + MAX_HOURLY_DAYS + " days");
+    }
+    return visitRollupRepository.findHourly(gymId, start, end);
+  }
+
+  public List<AttendanceDto> getDaily(Long gymId, LocalDate from, LocalDate to) {
+    LocalDate end = to != null ? to : LocalDate.now();
+    LocalDate start = from != null ? from : end.minusDays(29);
+    requireRange(start, end);
+    return visitRollupRepository.findDaily(gymId, start, end);
+  }
+
+  public List<AttendanceProfileDto> getProfile(Long gymId, LocalDate from, LocalDate to) {
+    LocalDate end = to != null ? to : LocalDate.now();
+    LocalDate start = from != null ? from : end.minusWeeks(12).plusDays(1);
+    requireRange(start, end);
+    return visitRollupRepository.sumByWeekdayAndHour(gymId, start, end).stream()
+            .map(totals -> toProfile(gymId, totals, start, end))
+            .sorted(Comparator.comparing(AttendanceProfileDto::dayOfWeek).thenComparing(AttendanceProfileDto::hour))
+            .toList();
+  }
+
+  // Сегодняшний день пересчитывается всегда, поэтому отмечаются только изменения задним числом
+  public void visitsChanged(LocalDateTime earliestCheckInTime) {
+    if (earliestCheckInTime == null) {
+      return;
+    }
+    LocalDate day = earliestCheckInTime.toLocalDate();
+    if (day.isBefore(LocalDate.now())) {
+      TransactionHooks.afterCommit(() -> markDirty(day));
+    }
+  }
+
+  // Для изменений, границы которых неизвестны (загрузка через COPY)
+  public void rebuildAfterCommit() {
+    TransactionHooks.afterCommit(() -> rebuildRequested.set(true));
+  }
+
+  /**
+   * Пересчитывает агрегаты от самого раннего устаревшего дня по сегодняшний.
+   * Отметка выхода не сообщает время входа закрытого посещения, поэтому окно пересчета
+   * также начинается не позже входа самого раннего посещения, открытого при предыдущем пересчете.
+   * Посещения, открытые дольше {@code open-visit-horizon}, в окно не входят: их закрытие
+   * учитывается ночной перестройкой.
+   */
+  @Scheduled(initialDelayString = "${gym.analytics.rollup.refresh-interval:1m}",
+          fixedDelayString = "${gym.analytics.rollup.refresh-interval:1m}")
+  public void refresh() {
+    if (rebuildRequested.get()) {
+      rebuild();
+      return;
+    }
+    lock.lock();
+    try {
+      LocalDateTime now = LocalDateTime.now();
+      LocalDate today = now.toLocalDate();
+      LocalDate from = notArchived(earliest(earliest(today, dirtyFrom.getAndSet(null)), openFrom));
+      // Читается до пересчета: посещение, закрытое во время пересчета, попадет в следующее окно
+      LocalDateTime openCheckIn = visitRepository.findEarliestOpenCheckInTimeSince(now.minus(openVisitHorizon));
+      try {
+        int rollups = recompute(from, today.plusDays(1));
+        log.debug("Visit rollups refreshed from {}: {} hourly rows", from, rollups);
+      } catch (RuntimeException e) {
+        markDirty(from);
+        throw e;
+      }
+      openFrom = openCheckIn != null ? openCheckIn.toLocalDate() : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Полная перестройка по всей истории посещений частями, каждая в своей транзакции
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${gym.analytics.rollup.rebuild-cron:0 30 3 * * *}")
+  public void rebuild() {
+    lock.lock();
+    try {
+      long started = System.nanoTime();
+      rebuildRequested.set(false);
+      // Перестройка покрывает все дни, поэтому накопленные отметки не нужны
+      dirtyFrom.set(null);
+      LocalDateTime now = LocalDateTime.now();
+      LocalDateTime openCheckIn = visitRepository.findEarliestOpenCheckInTimeSince(now.minus(openVisitHorizon));
+      LocalDateTime earliestCheckIn = visitRepository.findEarliestCheckInTime();
+      LocalDate first = notArchived(earliestCheckIn != null ? earliestCheckIn.toLocalDate() : now.toLocalDate());
+      LocalDate end = now.toLocalDate().plusDays(1);
+      int rollups = 0;
+      // Агрегаты до первого посещения не удаляются: это история посещений, которых больше нет
+      // в таблице (отсоединенные секции PostgreSQL, архив посещений)
+      try {
+        for (LocalDate chunk = first; chunk.isBefore(end); ) {
+          LocalDate next = earliest(chunk.plusDays(rebuildChunkDays), end);
+          rollups += recompute(chunk, next);
+          chunk = next;
+        }
+      } catch (RuntimeException e) {
+        rebuildRequested.set(true);
+        throw e;
+      }
+      openFrom = openCheckIn != null ? openCheckIn.toLocalDate() : null;
+      log.info("Visit rollups rebuilt from {}: {} hourly rows in {} ms", first, rollups,
+              (System.nanoTime() - started) / 1_000_000);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int recompute(LocalDate from, LocalDate to) {
+    return transactionTemplate.execute(status -> {
+      visitRollupRepository.deleteByDateRange(from, to);
+      return visitRollupRepository.insertFromVisits(from.atStartOfDay(), to.atStartOfDay());
+    });
+  }
+
+  // Дни архивного периода не пересчитываются: их посещения уже перенесены или переносятся в архив
+  private LocalDate notArchived(LocalDate day) {
+    LocalDate archivedBefore = visitArchiveService.getArchivedBefore();
+    return archivedBefore != null && day.isBefore(archivedBefore) ? archivedBefore : day;
+  }
+
+  private void markDirty(LocalDate day) {
+    dirtyFrom.accumulateAndGet(day, VisitRollupService::earliest);
+  }
+
+  private static LocalDate earliest(LocalDate a, LocalDate b) {
+    if (a == null) {
+      return b;
+    }
+    return b == null || a.isBefore(b) ? a : b;
+  }
+
+  private static void requireRange(LocalDate from, LocalDate to) {
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException("Date 'from' must not be after 'to'");
+    }
+  }
+
+  private static AttendanceProfileDto toProfile(Long gymId, WeekdayHourTotals totals, LocalDate from, LocalDate to) {
+    // В HQL воскресенье - первый день недели
+    DayOfWeek dayOfWeek = DayOfWeek.SUNDAY.plus(totals.dayOfWeek() - 1);
+    long days = countDays(dayOfWeek, from, to);
+    return new AttendanceProfileDto(
+            gymId,
+            dayOfWeek,
+            totals.hour(),
+            totals.visits(),
+            days > 0 ? (double) totals.visits() / days : 0,
+            totals.closedVisits() > 0 ? (double) totals.staySeconds() / totals.closedVisits() : null
+    );
+  }
+
+  // Количество дат с этим днем недели в периоде [from, to]
+  private static long countDays(DayOfWeek dayOfWeek, LocalDate from, LocalDate to) {
+    int offset = (dayOfWeek.getValue() - from.getDayOfWeek().getValue() + 7) % 7;
+    LocalDate firstMatch = from.plusDays(offset);
+    return firstMatch.isAfter(to) ? 0 : ChronoUnit.DAYS.between(firstMatch, to) / 7 + 1;
+  }
+}
@@ -1,47 +1,196 @@
 package ru.safoev.services;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.BulkImportReportDto;
+import ru.safoev.dtorecords.BulkRowDto;
+import ru.safoev.dtorecords.CheckInDto;
+import ru.safoev.dtorecords.CheckOutDto;
+import ru.safoev.dtorecords.CursorPageDto;
+import ru.safoev.dtorecords.ImportResultDto;
 import ru.safoev.dtorecords.VisitDto;
+import ru.safoev.dtorecords.WriteBehindStatsDto;
 import ru.safoev.entity.VisitEntity;
 import ru.safoev.entity.ClientEntity;
 import ru.safoev.entity.GymEntity;
+import ru.safoev.enumlists.ExportFormat;
+import ru.safoev.enumlists.VisitEventType;
 import ru.safoev.mappers.VisitMapper;
 import ru.safoev.repositoryinterface.VisitRepository;
 import ru.safoev.repositoryinterface.ClientRepository;
 import ru.safoev.repositoryinterface.GymRepository;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class VisitService {
+  private static final int MAX_GYM_VISITS_DAYS = 31;
+  private static final BulkImportTarget<VisitDto> BULK_TARGET = new BulkImportTarget<>(
+          "bulk_visits",
+          VisitEntity.class,
+          List.of("client_id BIGINT", "gym_id BIGINT", "check_in_time TIMESTAMP", "check_out_time TIMESTAMP"),
+          dto -> new Object[]{dto.clientId(), dto.gymId(), dto.checkInTime(), dto.checkOutTime()},
+          List.of(
+                  """
+                  UPDATE bulk_visits s SET error = 'clientId: клиент не найден'
+                  WHERE s.error IS NULL AND NOT EXISTS (SELECT 1 FROM clients c WHERE c.client_id = s.client_id)
+                  """,
+                  """
+                  UPDATE bulk_visits s SET error = 'gymId: зал не найден'
+                  WHERE s.error IS NULL AND NOT EXISTS (SELECT 1 FROM gyms g WHERE g.gym_id = s.gym_id)
+                  """,
+                  "UPDATE bulk_visits SET error = 'checkOutTime: время выхода раньше времени входа'"
+                          + " WHERE error IS NULL AND check_out_time < check_in_time"
+          ),
+          """
+          INSERT INTO visits (visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time)
+          SELECT id, client_id, gym_id, check_in_time, check_out_time
+          FROM bulk_visits
+          WHERE error IS NULL
+          """
+  );
 
   private final VisitRepository visitRepository;
   private final ClientRepository clientRepository;
   private final GymRepository gymRepository;
   private final VisitMapper visitMapper;
+  private final EntityManager entityManager;
+  private final VisitWriteBehindBuffer writeBehindBuffer;
+  private final BulkCopyImporter bulkCopyImporter;
+  private final TableExporter tableExporter;
+  private final OccupancyService occupancyService;
+  private final EntityChangeBus entityChangeBus;
+  private final VisitRollupService visitRollupService;
+  private final VisitArchiveService visitArchiveService;
+  private final ClientCohortService clientCohortService;
+  private final Validator validator;
+  private final Duration openVisitLookback;
 
   @Autowired
   public VisitService(VisitRepository visitRepository,
                       ClientRepository clientRepository,
-                      GymRepository gymRepository, VisitMapper visitMapper) {
+                      GymRepository gymRepository, VisitMapper visitMapper,
+                      EntityManager entityManager,
+                      ObjectProvider<VisitWriteBehindBuffer> writeBehindBuffer,
+                      BulkCopyImporter bulkCopyImporter, TableExporter tableExporter,
+                      OccupancyService occupancyService, EntityChangeBus entityChangeBus,
+                      VisitRollupService visitRollupService, VisitArchiveService visitArchiveService,
+                      ClientCohortService clientCohortService, Validator validator,
+                      @Value("${gym.visit.open-visit-lookback:1d}") Duration openVisitLookback) {
     this.visitRepository = visitRepository;
     this.clientRepository = clientRepository;
     this.gymRepository = gymRepository;
     this.visitMapper = visitMapper;
+    this.entityManager = entityManager;
+    this.writeBehindBuffer = writeBehindBuffer.getIfAvailable();
+    this.bulkCopyImporter = bulkCopyImporter;
+    this.tableExporter = tableExporter;
+    this.occupancyService = occupancyService;
+    this.entityChangeBus = entityChangeBus;
+    this.visitRollupService = visitRollupService;
+    this.visitArchiveService = visitArchiveService;
+    this.clientCohortService = clientCohortService;
+    this.validator = validator;
+    this.openVisitLookback = openVisitLookback;
   }
 
   public VisitDto getVisitById(Long id) {
-    VisitEntity visit = visitRepository.findById(id)
+    return visitRepository.findById(id)
+            .map(visitMapper::toDto)
+            .or(() -> visitArchiveService.findById(id))
             .orElseThrow(() -> new IllegalArgumentException("Visit not found with id: " + id));
-    return visitMapper.toDto(visit);
   }
 
+  // Архивные посещения объединяются с таблицей через временную таблицу, см. VisitArchiveService#stageArchived
+  @Transactional(isolation = Isolation.REPEATABLE_READ)
   public List<VisitDto> getAllVisits() {
-    return visitRepository.findAll().stream()
-            .map(visitMapper::toDto)
-            .collect(Collectors.toList());
+    if (!visitArchiveService.stageArchived(null, null)) {
+      return visitRepository.findAllAsDto();
+    }
+    List<VisitDto> visits = new ArrayList<>();
+    tableExporter.forEach(visitsQuery(null, null, true), visits::add);
+    return visits;
+  }
+
+  public List<VisitDto> getVisitsByGym(Long gymId, LocalDate from, LocalDate to) {
+    LocalDate end = to != null ? to : LocalDate.now();
+    LocalDate start = from != null ? from : end;
+    ExportQuery.requireValidRange(start, end);
+    if (ChronoUnit.DAYS.between(start, end) >= MAX_GYM_VISITS_DAYS) {
+      throw new IllegalArgumentException("Gym visits range must not exceed " + MAX_GYM_VISITS_DAYS
+              + " days, use export for longer periods");
+    }
+    LocalDateTime startTime = start.atStartOfDay();
+    LocalDateTime endTime = end.plusDays(1).atStartOfDay();
+    List<VisitDto> visits = visitRepository.findAllAsDtoByGymIdAndCheckInTimeBetween(gymId, startTime, endTime);
+    List<VisitDto> archived = visitArchiveService.findByGym(gymId, startTime, endTime);
+    if (archived.isEmpty()) {
+      return visits;
+    }
+    // Строка, еще не удаленная из таблицы после записи в архив, берется из таблицы
+    Map<Long, VisitDto> merged = new HashMap<>();
+    archived.forEach(visit -> merged.put(visit.visitId(), visit));
+    visits.forEach(visit -> merged.put(visit.visitId(), visit));
+    return merged.values().stream()
+            .sorted(Comparator.comparing(VisitDto::checkInTime).thenComparing(VisitDto::visitId))
+            .toList();
+  }
+
+  public CursorPageDto<VisitDto> getVisitsPage(Long cursor, Integer size) {
+    int pageSize = KeysetSupport.pageSize(size);
+    long after = KeysetSupport.cursor(cursor);
+    List<VisitEntity> entities = visitRepository.findPageAfterId(after, KeysetSupport.pageable(pageSize));
+    // Архив читается после таблицы: строка, перенесенная между чтениями, найдется в архиве
+    List<VisitDto> archived = visitArchiveService.findAfterId(after, pageSize + 1);
+    if (archived.isEmpty()) {
+      return KeysetSupport.toPage(entities, pageSize, visitMapper::toDto, VisitDto::visitId);
+    }
+    // Строка, еще не удаленная из таблицы после записи в архив, берется из таблицы
+    Map<Long, VisitDto> merged = new TreeMap<>();
+    archived.forEach(visit -> merged.put(visit.visitId(), visit));
+    entities.forEach(entity -> merged.put(entity.getVisitId(), visitMapper.toDto(entity)));
+    return KeysetSupport.toPage(List.copyOf(merged.values()), pageSize, visit -> visit, VisitDto::visitId);
+  }
+
+  @Transactional(isolation = Isolation.REPEATABLE_READ)
+  public void streamAllVisits(Consumer<VisitDto> consumer) {
+    if (visitArchiveService.stageArchived(null, null)) {
+      tableExporter.forEach(visitsQuery(null, null, true), consumer);
+      return;
+    }
+    KeysetSupport.streamDetached(visitRepository.streamAllOrderedById(), entityManager, visitMapper::toDto, consumer);
+  }
+
+  @Transactional(isolation = Isolation.REPEATABLE_READ)
+  public void exportVisits(ExportFormat format, LocalDate from, LocalDate to, OutputStream out) {
+    ExportQuery.requireValidRange(from, to);
+    LocalDateTime fromTime = from != null ? from.atStartOfDay() : null;
+    LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : null;
+    boolean archived = visitArchiveService.stageArchived(fromTime, toTime);
+    tableExporter.export(visitsQuery(fromTime, toTime, archived), format, out);
   }
 
   public VisitDto createVisit(VisitDto visitDto) {
@@ -52,14 +201,236 @@ public class VisitService {
             .orElseThrow(() -> new IllegalArgumentException("Gym not found with id: " + visitDto.gymId()));
 
     VisitEntity visit = visitMapper.toEntity(visitDto, client, gym);
+    visitArchiveService.requireNotArchived(visit.getVisit_checkInTime());
 
     VisitEntity saved = visitRepository.save(visit);
-    return visitMapper.toDto(saved);
+    if (saved.getVisit_checkOutTime() == null) {
+      occupancyService.recordCheckIns(gym.getGym_id(), 1);
+    }
+    visitRollupService.visitsChanged(saved.getVisit_checkInTime());
+    clientCohortService.clientsChanged(client.getClient_id());
+    VisitDto created = visitMapper.toDto(saved);
+    entityChangeBus.created(EntityChangeBus.VISIT, created.visitId(), created);
+    return created;
+  }
+
+  @Transactional
+  public VisitDto checkIn(CheckInDto checkInDto) {
+    VisitEntity visit = toCheckInEntity(checkInDto);
+    try {
+      visitRepository.saveAndFlush(visit);
+    } catch (DataIntegrityViolationException e) {
+      throw new IllegalArgumentException("Client or gym not found: clientId=" + checkInDto.clientId()
+              + ", gymId=" + checkInDto.gymId(), e);
+    }
+    occupancyService.recordCheckIns(checkInDto.gymId(), 1);
+    visitRollupService.visitsChanged(visit.getVisit_checkInTime());
+    clientCohortService.clientsChanged(checkInDto.clientId());
+    VisitDto created = visitMapper.toDto(visit);
+    entityChangeBus.created(EntityChangeBus.VISIT, created.visitId(), created);
+    return created;
+  }
+
+  @Transactional
+  public List<VisitDto> checkInBatch(List<CheckInDto> checkIns) {
+    List<VisitEntity> visits = checkIns.stream()
+            .map(this::toCheckInEntity)
+            .toList();
+    try {
+      visitRepository.saveAll(visits);
+      visitRepository.flush();
+    } catch (DataIntegrityViolationException e) {
+      throw new IllegalArgumentException("Batch contains unknown client or gym id", e);
+    }
+    checkIns.stream()
+            .collect(Collectors.groupingBy(CheckInDto::gymId, Collectors.counting()))
+            .forEach(occupancyService::recordCheckIns);
+    visits.stream()
+            .map(VisitEntity::getVisit_checkInTime)
+            .min(Comparator.naturalOrder())
+            .ifPresent(visitRollupService::visitsChanged);
+    clientCohortService.clientsChanged(checkIns.stream().map(CheckInDto::clientId).toList());
+    List<VisitDto> created = visits.stream()
+            .map(visitMapper::toDto)
+            .toList();
+    created.forEach(dto -> entityChangeBus.created(EntityChangeBus.VISIT, dto.visitId(), dto));
+    return created;
+  }
+
+  @Transactional
+  public ImportResultDto importVisits(Iterator<VisitDto> visits) {
+    Map<Long, Long> openVisitsByGym = new HashMap<>();
+    AtomicReference<LocalDateTime> earliestCheckIn = new AtomicReference<>();
+    Set<Long> clientIds = new HashSet<>();
+    ImportResultDto result = BulkImportSupport.persistAll(visits, entityManager, validator, dto -> {
+      clientIds.add(dto.clientId());
+      if (dto.checkOutTime() == null) {
+        openVisitsByGym.merge(dto.gymId(), 1L, Long::sum);
+      }
+      visitArchiveService.requireNotArchived(dto.checkInTime());
+      if (dto.checkInTime() != null) {
+        earliestCheckIn.accumulateAndGet(dto.checkInTime(),
+                (current, next) -> current == null || next.isBefore(current) ? next : current);
+      }
+      VisitEntity visit = visitMapper.toEntity(
+              dto,
+              entityManager.getReference(ClientEntity.class, dto.clientId()),
+              entityManager.getReference(GymEntity.class, dto.gymId())
+      );
+      visit.setVisitId(null);
+      return visit;
+    });
+    openVisitsByGym.forEach(occupancyService::recordCheckIns);
+    visitRollupService.visitsChanged(earliestCheckIn.get());
+    clientCohortService.clientsChanged(clientIds);
+    entityChangeBus.reload(EntityChangeBus.VISIT);
+    return result;
+  }
+
+  @Transactional
+  public BulkImportReportDto bulkImportVisits(Iterator<BulkRowDto<VisitDto>> rows) {
+    BulkImportReportDto report = bulkCopyImporter.importRows(rejectArchived(rows), BULK_TARGET);
+    if (report.importedRows() > 0) {
+      occupancyService.resyncAfterCommit();
+      visitRollupService.rebuildAfterCommit();
+      clientCohortService.rebuildAfterCommit();
+      entityChangeBus.reload(EntityChangeBus.VISIT);
+    }
+    return report;
+  }
+
+  @Transactional
+  public void checkOut(CheckOutDto checkOutDto) {
+    LocalDateTime checkOutTime = checkOutTime(checkOutDto);
+    // Сначала ищется недавнее посещение: условие по времени входа отсекает секции прошлых месяцев
+    int closed = visitRepository.closeOpenVisitsCheckedInSince(checkOutDto.clientId(), checkOutDto.gymId(),
+            checkOutTime.minus(openVisitLookback), checkOutTime);
+    if (closed == 0) {
+      closed = visitRepository.closeOpenVisits(checkOutDto.clientId(), checkOutDto.gymId(), checkOutTime);
+    }
+    if (closed == 0) {
+      throw new IllegalArgumentException("No open visit for clientId=" + checkOutDto.clientId()
+              + ", gymId=" + checkOutDto.gymId());
+    }
+    occupancyService.recordCheckOuts(checkOutDto.gymId(), closed);
+    // Закрытые посещения обновляются одним запросом без чтения их идентификаторов
+    entityChangeBus.reload(EntityChangeBus.VISIT);
+  }
+
+  public boolean isWriteBehindEnabled() {
+    return writeBehindBuffer != null;
+  }
+
+  public void enqueueCheckIn(CheckInDto checkInDto) {
+    enqueueCheckIns(List.of(checkInDto));
+  }
+
+  public void enqueueCheckIns(List<CheckInDto> checkIns) {
+    List<VisitEvent> events = checkIns.stream()
+            .map(checkIn -> new VisitEvent(VisitEventType.CHECK_IN, checkIn.clientId(), checkIn.gymId(),
+                    checkIn.checkInTime() != null ? checkIn.checkInTime() : LocalDateTime.now()))
+            .toList();
+    events.forEach(event -> visitArchiveService.requireNotArchived(event.time()));
+    requireWriteBehindBuffer().enqueueAll(events);
+  }
+
+  public void enqueueCheckOut(CheckOutDto checkOutDto) {
+    requireWriteBehindBuffer().enqueue(VisitEventType.CHECK_OUT, checkOutDto.clientId(), checkOutDto.gymId(),
+            checkOutTime(checkOutDto));
+  }
+
+  public WriteBehindStatsDto getWriteBehindStats() {
+    if (writeBehindBuffer == null) {
+      return new WriteBehindStatsDto(false, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+    return writeBehindBuffer.getStats();
+  }
+
+  private VisitWriteBehindBuffer requireWriteBehindBuffer() {
+    if (writeBehindBuffer == null) {
+      throw new IllegalStateException("Visit write-behind mode is disabled");
+    }
+    return writeBehindBuffer;
+  }
+
+  // Посещения таблицы с временем входа в [from, to) и, если archived, подготовленные архивные посещения
+  private static ExportQuery<VisitDto> visitsQuery(LocalDateTime from, LocalDateTime to, boolean archived) {
+    StringBuilder sql = new StringBuilder("""
+            SELECT visit_id AS "visitId", client_id AS "clientId", gym_id AS "gymId",
+                   visit_check_in_time AS "checkInTime", visit_check_out_time AS "checkOutTime"
+            FROM visits
+            WHERE 1 = 1""");
+    List<Object> params = new ArrayList<>();
+    if (from != null) {
+      sql.append(" AND visit_check_in_time >= ?");
+      params.add(from);
+    }
+    if (to != null) {
+      sql.append(" AND visit_check_in_time < ?");
+      params.add(to);
+    }
+    if (archived) {
+      // Интервал уже применен при подготовке; строка, еще не удаленная из таблицы, берется из таблицы
+      sql.append("""
+
+              UNION ALL
+              SELECT visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time
+              FROM %s a
+              WHERE NOT EXISTS (SELECT 1 FROM visits v WHERE v.visit_id = a.visit_id)""".formatted(
+              VisitArchiveService.STAGED_TABLE));
+    }
+    sql.append(" ORDER BY \"visitId\"");
+    return new ExportQuery<>(sql.toString(), params, (rs, rowNum) -> new VisitDto(
+            rs.getLong(1),
+            rs.getLong(2),
+            rs.getLong(3),
+            rs.getObject(4, LocalDateTime.class),
+            rs.getObject(5, LocalDateTime.class)
+    ));
+  }
+
+  private static LocalDateTime checkOutTime(CheckOutDto checkOutDto) {
+    return checkOutDto.checkOutTime() != null ? checkOutDto.checkOutTime() : LocalDateTime.now();
+  }
+
+  // Записи с временем входа в архивном периоде отклоняются до загрузки
+  private Iterator<BulkRowDto<VisitDto>> rejectArchived(Iterator<BulkRowDto<VisitDto>> rows) {
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return rows.hasNext();
+      }
+
+      @Override
+      public BulkRowDto<VisitDto> next() {
+        BulkRowDto<VisitDto> row = rows.next();
+        if (row.error() != null || row.value() == null || !visitArchiveService.isArchived(row.value().checkInTime())) {
+          return row;
+        }
+        return new BulkRowDto<>(row.rowNumber(), row.value(), "checkInTime: посещение в архивном периоде");
+      }
+    };
+  }
+
+  private VisitEntity toCheckInEntity(CheckInDto checkInDto) {
+    LocalDateTime checkInTime = checkInDto.checkInTime() != null ? checkInDto.checkInTime() : LocalDateTime.now();
+    visitArchiveService.requireNotArchived(checkInTime);
+    return new VisitEntity(
+            null,
+            clientRepository.getReferenceById(checkInDto.clientId()),
+            gymRepository.getReferenceById(checkInDto.gymId()),
+            checkInTime,
+            null
+    );
   }
 
   public VisitDto updateVisit(Long id, VisitDto visitDto) {
     VisitEntity existingVisit = visitRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Visit not found with id: " + id));
+    boolean wasOpen = existingVisit.getVisit_checkOutTime() == null;
+    LocalDateTime previousCheckInTime = existingVisit.getVisit_checkInTime();
+    Long previousGymId = existingVisit.getGym().getGym_id();
+    Long previousClientId = existingVisit.getClient().getClient_id();
 
     ClientEntity client = null;
     if (visitDto.clientId() != null) {
@@ -74,15 +445,32 @@ public class VisitService {
     }
 
     visitMapper.updateEntityFromDto(visitDto, existingVisit, client, gym);
+    visitArchiveService.requireNotArchived(existingVisit.getVisit_checkInTime());
 
     VisitEntity updated = visitRepository.save(existingVisit);
-    return visitMapper.toDto(updated);
+    if (wasOpen) {
+      occupancyService.recordCheckOuts(previousGymId, 1);
+    }
+    if (updated.getVisit_checkOutTime() == null) {
+      occupancyService.recordCheckIns(updated.getGym().getGym_id(), 1);
+    }
+    visitRollupService.visitsChanged(updated.getVisit_checkInTime().isBefore(previousCheckInTime)
+            ? updated.getVisit_checkInTime() : previousCheckInTime);
+    VisitDto result = visitMapper.toDto(updated);
+    clientCohortService.clientsChanged(previousClientId, result.clientId());
+    entityChangeBus.updated(EntityChangeBus.VISIT, id, result);
+    return result;
   }
 
   public void deleteVisit(Long id) {
-    if (!visitRepository.existsById(id)) {
-      throw new NoSuchElementException("Visit not found with id: " + id);
+    VisitEntity visit = visitRepository.findById(id)
+            .orElseThrow(() -> new NoSuchElementException("Visit not found with id: " + id));
+    visitRepository.delete(visit);
+    if (visit.getVisit_checkOutTime() == null) {
+      occupancyService.recordCheckOuts(visit.getGym().getGym_id(), 1);
     }
-    visitRepository.deleteById(id);
+    visitRollupService.visitsChanged(visit.getVisit_checkInTime());
+    clientCohortService.clientsChanged(visit.getClient().getClient_id());
+    entityChangeBus.deleted(EntityChangeBus.VISIT, id);
   }
 }
\ No newline at end of file
@@ -0,0 +1,490 @@
+package ru.safoev.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.safoev.dtorecords.WriteBehindStatsDto;
+import ru.safoev.enumlists.VisitEventType;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Буфер отложенной записи событий турникетов (вход и выход клиентов).
+ * <p>
+ * События сначала дописываются в локальный журнал {@link VisitEventJournal},
+ * затем ставятся в ограниченную очередь. Единственный поток сброса забирает
+ * очередь каждые {@code flush-interval} или при накоплении {@code batch-size}
+ * событий и записывает ее одной транзакцией пакетными вставками и обновлениями JDBC.
+ * При заполнении буфера новые события отклоняются {@link RejectedExecutionException}.
+ * </p>
+ * <p>
+ * Гарантия доставки — "хотя бы один раз": если процесс остановился после
+ * фиксации транзакции, но до удаления сегмента журнала, при повторном запуске
+ * уже записанные входы пропускаются по совпадению клиента, зала и времени входа.
+ * </p>
+ * <p>
+ * Счетчики заполненности залов {@link OccupancyService} обновляются после фиксации
+ * транзакции сброса, то есть с задержкой не больше {@code flush-interval}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "gym.visit.write-behind.enabled", havingValue = "true")
+public class VisitWriteBehindBuffer {
+  private static final Logger log = LoggerFactory.getLogger(VisitWriteBehindBuffer.class);
+
+  private static final String CHECK_OUT_SQL = """
+          UPDATE visits SET visit_check_out_time = ?
+          WHERE client_id = ? AND gym_id = ? AND visit_check_out_time IS NULL
+          """;
+
+  // Условие по времени входа отсекает секции прошлых месяцев; более старые посещения закрывает CHECK_OUT_SQL
+  private static final String RECENT_CHECK_OUT_SQL = CHECK_OUT_SQL + "  AND visit_check_in_time >= ?\n";
+
+  private static final String VISIT_EXISTS_SQL = """
+          SELECT COUNT(*) FROM visits
+          WHERE client_id = ? AND gym_id = ? AND visit_check_in_time = ?
+          """;
+
+  private static final int ID_LOOKUP_CHUNK = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final VisitEventJournal journal;
+  private final OccupancyService occupancyService;
+  private final EntityChangeBus entityChangeBus;
+  private final VisitRollupService visitRollupService;
+  private final ClientCohortService clientCohortService;
+  private final Duration openVisitLookback;
+  private final String checkInSql;
+  private final int capacity;
+  private final int batchSize;
+  private final long flushIntervalMillis;
+  private final long offerTimeoutNanos;
+
+  private final Semaphore permits;
+  private final Object lock = new Object();
+  private List<VisitEvent> queue = new ArrayList<>();
+
+  // Состояние потока сброса: события и сегменты, которые не удалось записать в прошлый раз
+  private final List<VisitEvent> retryEvents = new ArrayList<>();
+  private final List<Path> retrySegments = new ArrayList<>();
+  private int retryPermits;
+  private boolean retryIncludesReplay;
+
+  private final LongAdder acceptedEvents = new LongAdder();
+  private final LongAdder rejectedEvents = new LongAdder();
+  private final LongAdder writtenEvents = new LongAdder();
+  private final LongAdder skippedEvents = new LongAdder();
+  private final LongAdder flushCount = new LongAdder();
+  private final LongAdder failedFlushCount = new LongAdder();
+  private final LongAdder totalFlushNanos = new LongAdder();
+  private volatile long lastFlushNanos;
+  private volatile long maxFlushNanos;
+
+  private volatile boolean running;
+  private Thread flusher;
+
+  @Autowired
+  public VisitWriteBehindBuffer(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                EntityManagerFactory entityManagerFactory,
+                                OccupancyService occupancyService,
+                                EntityChangeBus entityChangeBus,
+                                VisitRollupService visitRollupService,
+                                ClientCohortService clientCohortService,
+                                @Value("${gym.visit.write-behind.capacity:10000}") int capacity,
+                                @Value("${gym.visit.write-behind.batch-size:500}") int batchSize,
+                                @Value("${gym.visit.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                @Value("${gym.visit.write-behind.offer-timeout:50ms}") Duration offerTimeout,
+                                @Value("${gym.visit.write-behind.journal-dir:./data/visit-journal}") Path journalDir,
+                                @Value("${gym.visit.write-behind.journal-fsync:false}") boolean journalFsync,
+                                @Value("${gym.visit.open-visit-lookback:1d}") Duration openVisitLookback) {
+    if (capacity < 1 || batchSize < 1) {
+      throw new IllegalArgumentException("Write-behind capacity and batch size must be positive");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.journal = new VisitEventJournal(journalDir, journalFsync);
+    this.occupancyService = occupancyService;
+    this.entityChangeBus = entityChangeBus;
+    this.visitRollupService = visitRollupService;
+    this.clientCohortService = clientCohortService;
+    this.openVisitLookback = openVisitLookback;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.flushIntervalMillis = Math.max(1, flushInterval.toMillis());
+    this.offerTimeoutNanos = offerTimeout.toNanos();
+    this.permits = new Semaphore(capacity);
+
+    String nextVisitId = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices().getDialect().getSequenceSupport()
+            .getSelectSequenceNextValString("visits_seq");
+    this.checkInSql = "INSERT INTO visits (visit_id, client_id, gym_id, visit_check_in_time) VALUES ("
+            + nextVisitId + ", ?, ?, ?)";
+  }
+
+  @PostConstruct
+  void start() {
+    recoverJournal();
+    running = true;
+    flusher = new Thread(this::runFlusher, "visit-write-behind-flusher");
+    flusher.setDaemon(true);
+    flusher.start();
+    log.info("Visit write-behind buffer started: capacity={}, batchSize={}, flushInterval={}ms",
+            capacity, batchSize, flushIntervalMillis);
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    synchronized (lock) {
+      lock.notifyAll();
+    }
+    flusher.join(TimeUnit.SECONDS.toMillis(30));
+    flush();
+    journal.close();
+    if (!retryEvents.isEmpty()) {
+      log.warn("{} visit events were not written on shutdown and stay in the journal", retryEvents.size());
+    }
+  }
+
+  void enqueue(VisitEventType type, long clientId, long gymId, LocalDateTime time) {
+    enqueueAll(List.of(new VisitEvent(type, clientId, gymId, time)));
+  }
+
+  /**
+   * Ставит события в очередь атомарно: либо принимаются все, либо ни одного.
+   */
+  void enqueueAll(List<VisitEvent> events) {
+    if (events.size() > capacity) {
+      throw new IllegalArgumentException("Batch of " + events.size() + " events exceeds write-behind capacity " + capacity);
+    }
+    boolean acquired;
+    try {
+      acquired = permits.tryAcquire(events.size(), offerTimeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    if (!acquired) {
+      rejectedEvents.add(events.size());
+      throw new RejectedExecutionException("Visit write-behind buffer is full, retry later");
+    }
+    try {
+      synchronized (lock) {
+        for (VisitEvent event : events) {
+          journal.append(event);
+          queue.add(event);
+        }
+        if (queue.size() >= batchSize) {
+          lock.notifyAll();
+        }
+      }
+    } catch (RuntimeException e) {
+      permits.release(events.size());
+      throw e;
+    }
+    acceptedEvents.add(events.size());
+  }
+
+  public WriteBehindStatsDto getStats() {
+    long flushes = flushCount.sum();
+    return new WriteBehindStatsDto(
+            true,
+            capacity - permits.availablePermits(),
+            capacity,
+            acceptedEvents.sum(),
+            rejectedEvents.sum(),
+            writtenEvents.sum(),
+            skippedEvents.sum(),
+            flushes,
+            failedFlushCount.sum(),
+            toMillis(lastFlushNanos),
+            toMillis(maxFlushNanos),
+            flushes == 0 ? 0 : toMillis(totalFlushNanos.sum()) / flushes
+    );
+  }
+
+  private void runFlusher() {
+    while (running) {
+      try {
+        synchronized (lock) {
+          if (running && queue.size() < batchSize) {
+            lock.wait(flushIntervalMillis);
+          }
+        }
+        if (!flush()) {
+          Thread.sleep(flushIntervalMillis);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        log.error("Unexpected error in visit write-behind flusher", e);
+      }
+    }
+  }
+
+  /**
+   * Записывает накопленные события одной транзакцией.
+   *
+   * @return {@code false}, если запись не удалась и события будут повторены при следующем сбросе
+   */
+  synchronized boolean flush() {
+    List<VisitEvent> drained;
+    Path segment;
+    synchronized (lock) {
+      drained = queue;
+      queue = new ArrayList<>();
+      segment = journal.seal();
+    }
+    retryEvents.addAll(drained);
+    retryPermits += drained.size();
+    if (segment != null) {
+      retrySegments.add(segment);
+    }
+    if (retryEvents.isEmpty()) {
+      return true;
+    }
+
+    long started = System.nanoTime();
+    try {
+      int written = transactionTemplate.execute(status -> write(retryEvents, retryIncludesReplay));
+      recordFlush(System.nanoTime() - started);
+      writtenEvents.add(written);
+      skippedEvents.add(retryEvents.size() - written);
+    } catch (RuntimeException e) {
+      failedFlushCount.increment();
+      log.error("Failed to flush {} visit events, will retry", retryEvents.size(), e);
+      return false;
+    }
+    journal.delete(retrySegments);
+    permits.release(retryPermits);
+    retryEvents.clear();
+    retrySegments.clear();
+    retryPermits = 0;
+    retryIncludesReplay = false;
+    return true;
+  }
+
+  private void recoverJournal() {
+    List<Path> segments = journal.existingSegments();
+    if (segments.isEmpty()) {
+      return;
+    }
+    List<VisitEvent> recovered = new ArrayList<>();
+    for (Path segment : segments) {
+      recovered.addAll(VisitEventJournal.readSegment(segment));
+    }
+    log.info("Replaying {} visit events from {} journal segments", recovered.size(), segments.size());
+    try {
+      int written = transactionTemplate.execute(status -> write(recovered, true));
+      writtenEvents.add(written);
+      skippedEvents.add(recovered.size() - written);
+      journal.delete(segments);
+    } catch (RuntimeException e) {
+      // Восстановленные события не занимают место в очереди и будут повторены потоком сброса
+      log.error("Failed to replay visit journal, will retry", e);
+      retryEvents.addAll(recovered);
+      retrySegments.addAll(segments);
+      retryIncludesReplay = true;
+    }
+  }
+
+  /**
+   * Применяет события в исходном порядке, объединяя подряд идущие события одного типа
+   * в один пакет JDBC. Порядок важен: выход должен закрыть вход из того же сброса,
+   * но не повторный вход того же клиента после него.
+   *
+   * @return количество примененных событий
+   */
+  private int write(List<VisitEvent> events, boolean replay) {
+    Set<Long> knownClients = existingIds("clients", "client_id", events.stream().map(VisitEvent::clientId).toList());
+    Set<Long> knownGyms = existingIds("gyms", "gym_id", events.stream().map(VisitEvent::gymId).toList());
+
+    int applied = 0;
+    int runStart = 0;
+    for (int i = 1; i <= events.size(); i++) {
+      if (i == events.size() || events.get(i).type() != events.get(runStart).type()) {
+        List<VisitEvent> run = events.subList(runStart, i);
+        applied += run.getFirst().type() == VisitEventType.CHECK_IN
+                ? insertCheckIns(run, knownClients, knownGyms, replay)
+                : updateCheckOuts(run);
+        runStart = i;
+      }
+    }
+    if (applied > 0) {
+      // Идентификаторы вставленных строк не читаются, поэтому панель управления перезагружает список
+      entityChangeBus.reload(EntityChangeBus.VISIT);
+    }
+    return applied;
+  }
+
+  private int insertCheckIns(List<VisitEvent> run, Set<Long> knownClients, Set<Long> knownGyms, boolean replay) {
+    List<VisitEvent> valid = new ArrayList<>(run.size());
+    for (VisitEvent event : run) {
+      if (!knownClients.contains(event.clientId()) || !knownGyms.contains(event.gymId())) {
+        log.warn("Skipping check-in for unknown client or gym: {}", event);
+      } else if (replay && alreadyWritten(event)) {
+        log.debug("Skipping replayed check-in already present in database: {}", event);
+      } else {
+        valid.add(event);
+      }
+    }
+    if (!valid.isEmpty()) {
+      jdbcTemplate.batchUpdate(checkInSql, setter(valid));
+      valid.stream()
+              .collect(Collectors.groupingBy(VisitEvent::gymId, Collectors.counting()))
+              .forEach(occupancyService::recordCheckIns);
+      // Журнал, восстановленный после остановки, может содержать входы прошлых дней
+      valid.stream()
+              .map(VisitEvent::time)
+              .min(Comparator.naturalOrder())
+              .ifPresent(visitRollupService::visitsChanged);
+      clientCohortService.clientsChanged(valid.stream().map(VisitEvent::clientId).toList());
+    }
+    return valid.size();
+  }
+
+  private int updateCheckOuts(List<VisitEvent> run) {
+    int[] counts = jdbcTemplate.batchUpdate(RECENT_CHECK_OUT_SQL, recentCheckOutSetter(run, openVisitLookback));
+    List<Integer> missed = new ArrayList<>();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) {
+        missed.add(i);
+      }
+    }
+    if (!missed.isEmpty()) {
+      int[] olderCounts = jdbcTemplate.batchUpdate(CHECK_OUT_SQL, setter(missed.stream().map(run::get).toList()));
+      for (int j = 0; j < olderCounts.length; j++) {
+        counts[missed.get(j)] = olderCounts[j];
+      }
+    }
+    int applied = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) {
+        log.warn("Skipping check-out without open visit: {}", run.get(i));
+      } else {
+        applied++;
+        if (counts[i] > 0) {
+          occupancyService.recordCheckOuts(run.get(i).gymId(), counts[i]);
+        } else {
+          occupancyService.resyncAfterCommit();
+        }
+      }
+    }
+    return applied;
+  }
+
+  private boolean alreadyWritten(VisitEvent event) {
+    Long count = jdbcTemplate.queryForObject(VISIT_EXISTS_SQL, Long.class,
+            event.clientId(), event.gymId(), event.time());
+    return count != null && count > 0;
+  }
+
+  private Set<Long> existingIds(String table, String column, List<Long> ids) {
+    Set<Long> distinct = new HashSet<>(ids);
+    Set<Long> existing = new HashSet<>();
+    List<Long> chunk = new ArrayList<>(Math.min(distinct.size(), ID_LOOKUP_CHUNK));
+    for (Long id : distinct) {
+      chunk.add(id);
+      if (chunk.size() == ID_LOOKUP_CHUNK) {
+        existing.addAll(selectIds(table, column, chunk));
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      existing.addAll(selectIds(table, column, chunk));
+    }
+    return existing;
+  }
+
+  private List<Long> selectIds(String table, String column, List<Long> ids) {
+    return namedJdbcTemplate.queryForList(
+            "SELECT " + column + " FROM " + table + " WHERE " + column + " IN (:ids)",
+            Map.of("ids", ids),
+            Long.class
+    );
+  }
+
+  private static BatchPreparedStatementSetter setter(List<VisitEvent> events) {
+    return new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        VisitEvent event = events.get(i);
+        if (event.type() == VisitEventType.CHECK_IN) {
+          ps.setLong(1, event.clientId());
+          ps.setLong(2, event.gymId());
+          ps.setObject(3, event.time());
+        } else {
+          ps.setObject(1, event.time());
+          ps.setLong(2, event.clientId());
+          ps.setLong(3, event.gymId());
+        }
+      }
+
+      @Override
+      public int getBatchSize() {
+        return events.size();
+      }
+    };
+  }
+
+  private static BatchPreparedStatementSetter recentCheckOutSetter(List<VisitEvent> events, Duration lookback) {
+    BatchPreparedStatementSetter checkOut = setter(events);
+    return new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        checkOut.setValues(ps, i);
+        ps.setObject(4, events.get(i).time().minus(lookback));
+      }
+
+      @Override
+      public int getBatchSize() {
+        return events.size();
+      }
+    };
+  }
+
+  private void recordFlush(long nanos) {
+    flushCount.increment();
+    totalFlushNanos.add(nanos);
+    lastFlushNanos = nanos;
+    if (nanos > maxFlushNanos) {
+      maxFlushNanos = nanos;
+    }
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
@@ -0,0 +1,60 @@
+-- Выполняется после создания таблиц Hibernate (spring.jpa.defer-datasource-initialization=true).
+
+-- Триграммные индексы для поиска клиентов по фрагменту без учета регистра:
+-- обслуживают условия lower(столбец) LIKE '%фрагмент%' из ClientSpecifications.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_clients_first_name_trgm
+    ON clients USING gin (lower(client_first_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_clients_last_name_trgm
+    ON clients USING gin (lower(client_last_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_clients_email_trgm
+    ON clients USING gin (lower(client_email) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_clients_phone_trgm
+    ON clients USING gin (lower(client_phone) gin_trgm_ops);
+
+-- Таблица посещений секционируется по месяцу времени входа (RANGE по visit_check_in_time).
+-- Hibernate создает обычную таблицу, поэтому она заменяется секционированной с теми же
+-- столбцами; строки, уже попавшие в таблицу, переносятся в секцию по умолчанию.
+-- Ограничения и индексы, объявленные в VisitEntity, создаются заново.
+-- Первичный ключ секционированной таблицы обязан включать ключ секционирования,
+-- поэтому он составной; уникальность visit_id обеспечивает последовательность visits_seq.
+-- Месячные секции создает и отсоединяет VisitPartitionService.
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = ''visits''::regclass) THEN
+        CREATE TABLE visits_partitioned (LIKE visits INCLUDING DEFAULTS)
+            PARTITION BY RANGE (visit_check_in_time);
+        CREATE TABLE visits_default PARTITION OF visits_partitioned DEFAULT;
+        INSERT INTO visits_partitioned SELECT * FROM visits;
+        DROP TABLE visits;
+        ALTER TABLE visits_partitioned RENAME TO visits;
+        ALTER TABLE visits ADD CONSTRAINT visits_pkey PRIMARY KEY (visit_id, visit_check_in_time);
+        ALTER TABLE visits ADD CONSTRAINT fk_visits_client FOREIGN KEY (client_id) REFERENCES clients (client_id);
+        ALTER TABLE visits ADD CONSTRAINT fk_visits_gym FOREIGN KEY (gym_id) REFERENCES gyms (gym_id);
+        CREATE INDEX idx_visits_check_in_time ON visits (visit_check_in_time);
+        CREATE INDEX idx_visits_gym_check_in_time ON visits (gym_id, visit_check_in_time);
+        CREATE INDEX idx_visits_client_check_in_time ON visits (client_id, visit_check_in_time);
+    END IF;
+END';
+
+-- Частичный индекс открытых посещений: подсчет заполненности залов (OccupancyService),
+-- отметка выхода (VisitRepository.closeOpenVisits) и окно пересчета агрегатов
+-- посещаемости (VisitRollupService) читают только посетителей в зале.
+CREATE INDEX IF NOT EXISTS idx_visits_open
+    ON visits (gym_id, client_id) WHERE visit_check_out_time IS NULL;
+
+-- Заморозки одного абонемента не пересекаются: ограничение-исключение по диапазону дат
+-- с индексом GiST (btree_gist добавляет в GiST сравнение subscription_id на равенство).
+-- Тот же индекс пригоден для поиска заморозок по условиям daterange(...) && и @> дата.
+-- ALTER TABLE не поддерживает IF NOT EXISTS для ограничений, поэтому повторное
+-- создание пропускается в блоке DO.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO '
+BEGIN
+    ALTER TABLE subscription_freezes ADD CONSTRAINT subscription_freezes_no_overlap
+        EXCLUDE USING gist (subscription_id WITH =, daterange(freeze_start_date, freeze_end_date, ''[]'') WITH &&);
+EXCEPTION
+    WHEN duplicate_object OR duplicate_table THEN NULL;
+END';
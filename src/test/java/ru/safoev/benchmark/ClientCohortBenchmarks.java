@@ -0,0 +1,139 @@
+package ru.safoev.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.safoev.GymSystemApplication;
+import ru.safoev.dtorecords.CohortRefreshDto;
+import ru.safoev.services.ClientCohortService;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ClientCohortService} against an in-memory H2 database with {@link #COHORTS} monthly
+ * cohorts of {@link #CLIENTS_PER_COHORT} clients, each with monthly subscriptions and visits.
+ * <p>
+ * {@code incrementalRefresh} adds one visit before each call, so the refresh recomputes only
+ * the cohort of that visit's client; {@code fullRebuild} recomputes every cohort.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientCohortBenchmarks {
+
+  private static final int COHORTS = 36;
+  private static final int CLIENTS_PER_COHORT = 300;
+
+  private ConfigurableApplicationContext context;
+  private ClientCohortService clientCohortService;
+  private JdbcTemplate jdbcTemplate;
+  private long nextVisitId = 10_000_000L;
+
+  @Setup(Level.Trial)
+  public void startContext() {
+    context = new SpringApplicationBuilder(GymSystemApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:client-cohort-benchmark",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.show-sql=false",
+                    "--spring.jpa.properties.hibernate.generate_statistics=false",
+                    "--spring.sql.init.mode=never",
+                    "--gym.analytics.cohorts.refresh-interval=1h",
+                    "--logging.level.root=WARN");
+    clientCohortService = context.getBean(ClientCohortService.class);
+    jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+    jdbcTemplate.update("""
+            INSERT INTO gyms (gym_id, gym_name, gym_address, gym_open_time, gym_end_time)
+            VALUES (1, 'Gym', 'Address', ?, ?)""", LocalTime.of(7, 0), LocalTime.of(23, 0));
+    jdbcTemplate.update("""
+            INSERT INTO rates (rate_id, rate_name, rate_price, rate_duration_days)
+            VALUES (1, 'Month', 3000, 30)""");
+
+    List<Object[]> clients = new ArrayList<>();
+    List<Object[]> subscriptions = new ArrayList<>();
+    List<Object[]> visits = new ArrayList<>();
+    YearMonth first = YearMonth.now().minusMonths(COHORTS - 1);
+    long id = 1;
+    for (int cohort = 0; cohort < COHORTS; cohort++) {
+      LocalDate registered = first.plusMonths(cohort).atDay(1);
+      for (int i = 0; i < CLIENTS_PER_COHORT; i++, id++) {
+        LocalDate day = registered.plusDays(i % 28);
+        clients.add(new Object[]{id, "First" + id, "Last" + id, "+7900" + String.format("%07d", id),
+                "client" + id + "@example.com", LocalDate.of(1990, 1, 1), Timestamp.valueOf(day.atStartOfDay())});
+        // Every third client renews twice, so later months keep some subscribers
+        int renewals = i % 3 == 0 ? 3 : 1;
+        for (int s = 0; s < renewals; s++) {
+          LocalDate start = day.plusDays(30L * s);
+          subscriptions.add(new Object[]{id * 10 + s, id, start, start.plusDays(29), start.plusDays(29)});
+          LocalDateTime checkIn = start.plusDays(3).atTime(18, 0);
+          visits.add(new Object[]{id * 10 + s, id, Timestamp.valueOf(checkIn), Timestamp.valueOf(checkIn.plusHours(1))});
+        }
+      }
+    }
+    jdbcTemplate.batchUpdate("""
+            INSERT INTO clients (client_id, client_first_name, client_last_name, client_phone, client_email,
+                                 client_date_of_birth, client_registration_date)
+            VALUES (?, ?, ?, ?, ?, ?, ?)""", clients);
+    jdbcTemplate.batchUpdate("""
+            INSERT INTO subscriptions (subscription_id, client_id, rate_id, subscription_start_date,
+                                       subscription_end_date, subscription_effective_end_date, subscription_status)
+            VALUES (?, ?, 1, ?, ?, ?, 'ACTIVE')""", subscriptions);
+    jdbcTemplate.batchUpdate("""
+            INSERT INTO visits (visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time)
+            VALUES (?, ?, 1, ?, ?)""", visits);
+    clientCohortService.rebuild();
+  }
+
+  // Inserted past VisitService, so the client is marked the way the service marks it after commit
+  @Setup(Level.Invocation)
+  public void addVisit() {
+    long clientId = (long) COHORTS * CLIENTS_PER_COHORT;
+    LocalDateTime checkIn = LocalDateTime.now().withNano(0);
+    jdbcTemplate.update("""
+            INSERT INTO visits (visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time)
+            VALUES (?, ?, 1, ?, ?)""",
+            nextVisitId++, clientId, Timestamp.valueOf(checkIn), Timestamp.valueOf(checkIn));
+    clientCohortService.clientsChanged(clientId);
+  }
+
+  @TearDown(Level.Trial)
+  public void closeContext() {
+    context.close();
+  }
+
+  @Benchmark
+  public CohortRefreshDto incrementalRefresh() {
+    return clientCohortService.refresh();
+  }
+
+  @Benchmark
+  public CohortRefreshDto fullRebuild() {
+    return clientCohortService.rebuild();
+  }
+}
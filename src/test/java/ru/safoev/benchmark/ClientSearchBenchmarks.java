@@ -0,0 +1,112 @@
+package ru.safoev.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.safoev.GymSystemApplication;
+import ru.safoev.dtorecords.ClientDto;
+import ru.safoev.dtorecords.PageDto;
+import ru.safoev.filters.ClientSearchFilter;
+import ru.safoev.services.ClientService;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ClientService#searchAllClientsByFilter} against an in-memory H2 database
+ * with {@link #CLIENTS} clients: the specification, the page query and the count query.
+ * <p>
+ * H2 has no trigram indexes, so substring searches scan the table here; the numbers
+ * track regressions in the query shape and mapping, not PostgreSQL index behaviour.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientSearchBenchmarks {
+
+  private static final int CLIENTS = 20_000;
+
+  @Param({"0", "100"})
+  private int pageNumber;
+
+  private ConfigurableApplicationContext context;
+  private ClientService clientService;
+
+  @Setup(Level.Trial)
+  public void startContext() {
+    context = new SpringApplicationBuilder(GymSystemApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:client-search-benchmark",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.show-sql=false",
+                    "--spring.jpa.properties.hibernate.generate_statistics=false",
+                    "--spring.sql.init.mode=never",
+                    "--logging.level.root=WARN");
+    clientService = context.getBean(ClientService.class);
+
+    List<Object[]> rows = new ArrayList<>(CLIENTS);
+    Timestamp registered = Timestamp.valueOf(LocalDateTime.of(2025, 1, 1, 0, 0));
+    for (int i = 0; i < CLIENTS; i++) {
+      rows.add(new Object[]{(long) i + 1, "First" + i, "Last" + i, "+7900" + String.format("%07d", i),
+              "client" + i + "@example.com", LocalDate.of(1990, 1, 1).plusDays(i % 3650), registered});
+    }
+    context.getBean(JdbcTemplate.class).batchUpdate("""
+            INSERT INTO clients (client_id, client_first_name, client_last_name, client_phone, client_email,
+                                 client_date_of_birth, client_registration_date)
+            VALUES (?, ?, ?, ?, ?, ?, ?)""", rows);
+  }
+
+  @TearDown(Level.Trial)
+  public void closeContext() {
+    context.close();
+  }
+
+  @Benchmark
+  public PageDto<ClientDto> noFilter() {
+    return clientService.searchAllClientsByFilter(new ClientSearchFilter(null, null, null, null, null, 20, pageNumber));
+  }
+
+  @Benchmark
+  public PageDto<ClientDto> byId() {
+    return clientService.searchAllClientsByFilter(new ClientSearchFilter(12_345L, null, null, null, null, 20, 0));
+  }
+
+  @Benchmark
+  public PageDto<ClientDto> emailSubstring() {
+    return clientService.searchAllClientsByFilter(
+            new ClientSearchFilter(null, "example", null, null, null, 20, pageNumber));
+  }
+
+  @Benchmark
+  public PageDto<ClientDto> shortNamePrefix() {
+    return clientService.searchAllClientsByFilter(new ClientSearchFilter(null, null, null, "la", null, 20, pageNumber));
+  }
+
+  @Benchmark
+  public PageDto<ClientDto> freeTextQuery() {
+    return clientService.searchAllClientsByFilter(new ClientSearchFilter(null, null, null, null, "first1", 20, pageNumber));
+  }
+}
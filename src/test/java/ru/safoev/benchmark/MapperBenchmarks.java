@@ -0,0 +1,214 @@
+package ru.safoev.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.safoev.dtorecords.ClientDto;
+import ru.safoev.dtorecords.EmployeeDto;
+import ru.safoev.dtorecords.EquipmentDto;
+import ru.safoev.dtorecords.GymDto;
+import ru.safoev.dtorecords.RateDto;
+import ru.safoev.dtorecords.SubscriptionDto;
+import ru.safoev.dtorecords.VisitDto;
+import ru.safoev.entity.ClientEntity;
+import ru.safoev.entity.EmployeeEntity;
+import ru.safoev.entity.EquipmentEntity;
+import ru.safoev.entity.GymEntity;
+import ru.safoev.entity.RateEntity;
+import ru.safoev.entity.SubscriptionEntity;
+import ru.safoev.entity.VisitEntity;
+import ru.safoev.enumlists.EquipmentStatus;
+import ru.safoev.enumlists.SubscriptionStatus;
+import ru.safoev.mappers.ClientMapper;
+import ru.safoev.mappers.EmployeeMapper;
+import ru.safoev.mappers.EquipmentMapper;
+import ru.safoev.mappers.GymMapper;
+import ru.safoev.mappers.RateMapper;
+import ru.safoev.mappers.SubscriptionMapper;
+import ru.safoev.mappers.VisitMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * toDto / toEntity / updateEntityFromDto for every mapper, one row per call.
+ * <p>
+ * Update benchmarks apply the same DTO to the same entity on every call,
+ * which measures the null checks and setters without allocating entities.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmarks {
+
+  private final ClientMapper clientMapper = new ClientMapper();
+  private final EmployeeMapper employeeMapper = new EmployeeMapper();
+  private final EquipmentMapper equipmentMapper = new EquipmentMapper();
+  private final GymMapper gymMapper = new GymMapper();
+  private final RateMapper rateMapper = new RateMapper();
+  private final SubscriptionMapper subscriptionMapper = new SubscriptionMapper();
+  private final VisitMapper visitMapper = new VisitMapper();
+
+  private ClientEntity client;
+  private ClientDto clientDto;
+  private GymEntity gym;
+  private GymDto gymDto;
+  private RateEntity rate;
+  private RateDto rateDto;
+  private EmployeeEntity employee;
+  private EmployeeDto employeeDto;
+  private EquipmentEntity equipment;
+  private EquipmentDto equipmentDto;
+  private SubscriptionEntity subscription;
+  private SubscriptionDto subscriptionDto;
+  private VisitEntity visit;
+  private VisitDto visitDto;
+
+  @Setup
+  public void setUp() {
+    client = new ClientEntity(1L, "Ivan", "Petrov", "+79001234567", "ivan@example.com",
+            LocalDate.of(1990, 5, 17), LocalDateTime.of(2025, 1, 10, 9, 30));
+    gym = new GymEntity(2L, "Center", "Lenina 1", "+74950000000", LocalTime.of(7, 0), LocalTime.of(23, 0));
+    rate = new RateEntity(3L, "Month", new BigDecimal("2500.00"), "month", 30, "Unlimited visits");
+    employee = new EmployeeEntity(4L, "Anna", "Sidorova", "+79007654321", "anna@example.com", gym,
+            LocalDate.of(2023, 3, 1), null, "trainer", new BigDecimal("65000.00"));
+    equipment = new EquipmentEntity(5L, "Treadmill", LocalDate.of(2024, 2, 1), EquipmentStatus.ACTIVE, gym);
+    subscription = new SubscriptionEntity(6L, client, rate, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1),
+            null, SubscriptionStatus.ACTIVE);
+    visit = new VisitEntity(7L, client, gym, LocalDateTime.of(2025, 1, 11, 8, 0), LocalDateTime.of(2025, 1, 11, 9, 30));
+
+    clientDto = clientMapper.toDto(client);
+    gymDto = gymMapper.toDto(gym);
+    rateDto = rateMapper.toDto(rate);
+    employeeDto = employeeMapper.toDto(employee);
+    equipmentDto = equipmentMapper.toDto(equipment);
+    subscriptionDto = subscriptionMapper.toDto(subscription);
+    visitDto = visitMapper.toDto(visit);
+  }
+
+  @Benchmark
+  public ClientDto clientToDto() {
+    return clientMapper.toDto(client);
+  }
+
+  @Benchmark
+  public ClientEntity clientToEntity() {
+    return clientMapper.toEntity(clientDto);
+  }
+
+  @Benchmark
+  public ClientEntity clientUpdateEntity() {
+    clientMapper.updateEntityFromDto(clientDto, client);
+    return client;
+  }
+
+  @Benchmark
+  public GymDto gymToDto() {
+    return gymMapper.toDto(gym);
+  }
+
+  @Benchmark
+  public GymEntity gymToEntity() {
+    return gymMapper.toEntity(gymDto);
+  }
+
+  @Benchmark
+  public GymEntity gymUpdateEntity() {
+    gymMapper.updateEntityFromDto(gymDto, gym);
+    return gym;
+  }
+
+  @Benchmark
+  public RateDto rateToDto() {
+    return rateMapper.toDto(rate);
+  }
+
+  @Benchmark
+  public RateEntity rateToEntity() {
+    return rateMapper.toEntity(rateDto);
+  }
+
+  @Benchmark
+  public RateEntity rateUpdateEntity() {
+    rateMapper.updateEntityFromDto(rateDto, rate);
+    return rate;
+  }
+
+  @Benchmark
+  public EmployeeDto employeeToDto() {
+    return employeeMapper.toDto(employee);
+  }
+
+  @Benchmark
+  public EmployeeEntity employeeToEntity() {
+    return employeeMapper.toEntity(employeeDto);
+  }
+
+  @Benchmark
+  public EmployeeEntity employeeUpdateEntity() {
+    employeeMapper.updateEntityFromDto(employeeDto, employee);
+    return employee;
+  }
+
+  @Benchmark
+  public EquipmentDto equipmentToDto() {
+    return equipmentMapper.toDto(equipment);
+  }
+
+  @Benchmark
+  public EquipmentEntity equipmentToEntity() {
+    return equipmentMapper.toEntity(equipmentDto);
+  }
+
+  @Benchmark
+  public EquipmentEntity equipmentUpdateEntity() {
+    equipmentMapper.updateEntityFromDto(equipmentDto, equipment);
+    return equipment;
+  }
+
+  @Benchmark
+  public SubscriptionDto subscriptionToDto() {
+    return subscriptionMapper.toDto(subscription);
+  }
+
+  @Benchmark
+  public SubscriptionEntity subscriptionToEntity() {
+    return subscriptionMapper.toEntity(subscriptionDto, client, rate);
+  }
+
+  @Benchmark
+  public SubscriptionEntity subscriptionUpdateEntity() {
+    subscriptionMapper.updateEntityFromDto(subscriptionDto, subscription, client, rate);
+    return subscription;
+  }
+
+  @Benchmark
+  public VisitDto visitToDto() {
+    return visitMapper.toDto(visit);
+  }
+
+  @Benchmark
+  public VisitEntity visitToEntity() {
+    return visitMapper.toEntity(visitDto, client, gym);
+  }
+
+  @Benchmark
+  public VisitEntity visitUpdateEntity() {
+    visitMapper.updateEntityFromDto(visitDto, visit, client, gym);
+    return visit;
+  }
+}
@@ -0,0 +1,65 @@
+package ru.safoev.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.safoev.dtorecords.VisitDto;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of {@code List<VisitDto>} as returned by {@code /gym/visit/get/all}.
+ * <p>
+ * {@code toBytes} buffers the whole array like a regular response body;
+ * {@code toStream} writes into a discarding stream, which is the lower bound
+ * for a streamed response.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VisitSerializationBenchmarks {
+
+  @Param({"1000", "100000"})
+  private int rows;
+
+  private final JsonMapper jsonMapper = JsonMapper.builder().build();
+  private List<VisitDto> visits;
+
+  @Setup
+  public void setUp() {
+    visits = new ArrayList<>(rows);
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 7, 0);
+    for (int i = 0; i < rows; i++) {
+      LocalDateTime checkIn = start.plusMinutes(i);
+      visits.add(new VisitDto((long) i + 1, (long) (i % 5000) + 1, (long) (i % 20) + 1,
+              checkIn, i % 10 == 0 ? null : checkIn.plusMinutes(90)));
+    }
+  }
+
+  @Benchmark
+  public byte[] toBytes() {
+    return jsonMapper.writeValueAsBytes(visits);
+  }
+
+  @Benchmark
+  public void toStream() {
+    jsonMapper.writeValue(OutputStream.nullOutputStream(), visits);
+  }
+}
@@ -0,0 +1,309 @@
+package ru.safoev.maingym;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.safoev.maingym.LoadHarness.LoadReport;
+import ru.safoev.maingym.LoadHarness.Operation;
+import ru.safoev.maingym.LoadHarness.Request;
+import ru.safoev.services.OccupancyService;
+import ru.safoev.services.VisitRollupService;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * End-to-end load against an in-memory H2 database seeded with realistic volumes:
+ * every {@link LoadMix} drives the {@code /gym/*} endpoints over HTTP and logs
+ * throughput and p50/p99 latency per endpoint.
+ * <p>
+ * Run with {@code mvn -Pload test -Dtest=EndpointMixLoadTests}. Volumes and load are
+ * set with system properties: {@code load.mix} (comma-separated mix names, all by default),
+ * {@code load.requests}, {@code load.warmup-requests}, {@code load.concurrency},
+ * {@code load.gyms}, {@code load.clients} and {@code load.visits-per-client}.
+ * </p>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-mix",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "spring.sql.init.mode=never",
+        "gym.visit.archive.dir=target/load-visit-archive",
+        "logging.level.root=WARN"
+})
+class EndpointMixLoadTests {
+  private static final Logger log = LoggerFactory.getLogger(EndpointMixLoadTests.class);
+
+  private static final int RATES = 10;
+  private static final int SEED_BATCH = 5_000;
+  private static final int HISTORY_DAYS = 90;
+  private static final int OPEN_VISIT_EVERY = 20;
+
+  private static final String[] FIRST_NAMES = {
+          "Ivan", "Anna", "Dmitry", "Elena", "Sergey", "Olga", "Alexey", "Maria", "Pavel", "Irina",
+          "Nikolay", "Tatiana", "Andrey", "Natalia", "Mikhail", "Svetlana", "Artem", "Yulia", "Oleg", "Daria"
+  };
+  private static final String[] LAST_NAMES = {
+          "Ivanov", "Petrov", "Sidorov", "Smirnov", "Kuznetsov", "Popov", "Vasiliev", "Sokolov", "Mikhailov",
+          "Novikov", "Fedorov", "Morozov", "Volkov", "Alekseev", "Lebedev", "Semenov", "Egorov", "Pavlov",
+          "Kozlov", "Stepanov", "Nikolaev", "Orlov", "Andreev", "Makarov", "Nikitin", "Zakharov", "Zaitsev",
+          "Soloviev", "Borisov", "Yakovlev"
+  };
+
+  // The context is shared by all mixes, so the data is seeded once
+  private static boolean seeded;
+
+  // Open visits as {clientId, gymId}; check-outs take from here so they close a real visit
+  private static final Queue<long[]> openVisits = new ConcurrentLinkedQueue<>();
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private OccupancyService occupancyService;
+
+  @Autowired
+  private VisitRollupService visitRollupService;
+
+  @Value("${load.mix:}")
+  private String selectedMixes;
+
+  @Value("${load.requests:2000}")
+  private int requests;
+
+  @Value("${load.warmup-requests:300}")
+  private int warmupRequests;
+
+  @Value("${load.concurrency:32}")
+  private int concurrency;
+
+  @Value("${load.gyms:20}")
+  private int gyms;
+
+  @Value("${load.clients:20000}")
+  private int clients;
+
+  @Value("${load.visits-per-client:10}")
+  private int visitsPerClient;
+
+  @BeforeEach
+  void seed() {
+    if (!seeded) {
+      long start = System.nanoTime();
+      seedDatabase();
+      seeded = true;
+      log.warn("Seeded {} gyms, {} clients, {} subscriptions and {} visits in {} ms", gyms, clients, clients,
+              (long) clients * visitsPerClient, (System.nanoTime() - start) / 1_000_000);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(LoadMix.class)
+  void endpointMix(LoadMix mix) throws Exception {
+    assumeTrue(isSelected(mix), () -> mix + " is not listed in load.mix=" + selectedMixes);
+    LoadHarness harness = new LoadHarness(port);
+
+    // Warm up the JIT so the report reflects steady-state behaviour
+    harness.run(mix + " warmup", mix.schedule(warmupRequests, this::operation), concurrency);
+    LoadReport report = harness.run(mix.name(), mix.schedule(requests, this::operation), concurrency);
+    report.log(log);
+
+    for (String endpoint : report.endpoints()) {
+      assertThat(report.statuses(endpoint).keySet())
+              .as(endpoint)
+              .allMatch(status -> status < 300 || status == 503
+                      // A client checked in twice at one gym closes both visits with one check-out
+                      || (status == 400 && endpoint.equals(LoadMix.CHECK_OUT)));
+      assertThat(report.percentileMillis(endpoint, 50)).as(endpoint).isNotNegative();
+    }
+  }
+
+  private boolean isSelected(LoadMix mix) {
+    return selectedMixes.isBlank() || Arrays.stream(selectedMixes.split(","))
+            .map(name -> name.trim().toUpperCase(Locale.ROOT).replace('-', '_'))
+            .anyMatch(mix.name()::equals);
+  }
+
+  private Operation operation(String endpoint) {
+    return new Operation(endpoint, switch (endpoint) {
+      case LoadMix.CHECK_IN -> () -> {
+        long clientId = randomClientId();
+        long gymId = randomGymId();
+        openVisits.add(new long[]{clientId, gymId});
+        return post("/gym/visit/checkin", "{\"clientId\":" + clientId + ",\"gymId\":" + gymId + "}");
+      };
+      case LoadMix.CHECK_OUT -> () -> {
+        long[] visit = openVisits.poll();
+        long clientId = visit != null ? visit[0] : randomClientId();
+        long gymId = visit != null ? visit[1] : randomGymId();
+        return post("/gym/visit/checkout", "{\"clientId\":" + clientId + ",\"gymId\":" + gymId + "}");
+      };
+      case LoadMix.OCCUPANCY -> () -> get("/gym/" + randomGymId() + "/occupancy");
+      case LoadMix.ALL_OCCUPANCY -> () -> get("/gym/occupancy");
+      case LoadMix.CLIENT_READ -> () -> get("/gym/client/get/" + randomClientId());
+      case LoadMix.CLIENT_SEARCH -> () -> get("/gym/client/search/filter?pageSize=20&query="
+              + random(LAST_NAMES).substring(0, 4).toLowerCase(Locale.ROOT));
+      case LoadMix.CLIENT_NAME_PREFIX -> () -> get("/gym/client/search/filter?pageSize=20&client_name="
+              + random(FIRST_NAMES).substring(0, 2));
+      case LoadMix.CLIENT_PAGE -> () -> get("/gym/client/get/page?size=100&cursor=" + randomClientId());
+      case LoadMix.STATS -> () -> get("/gym/stats");
+      case LoadMix.ATTENDANCE_PROFILE -> () -> get("/gym/analytics/attendance/" + randomGymId() + "/profile?from="
+              + LocalDate.now().minusDays(HISTORY_DAYS));
+      case LoadMix.VISIT_EXPORT -> () -> {
+        LocalDate day = LocalDate.now().minusDays(ThreadLocalRandom.current().nextInt(HISTORY_DAYS));
+        return get("/gym/visit/export?format=csv&from=" + day + "&to=" + day);
+      };
+      case LoadMix.SUBSCRIPTION_EXPORT -> () -> {
+        LocalDate from = LocalDate.now().minusDays(ThreadLocalRandom.current().nextInt(HISTORY_DAYS));
+        return get("/gym/subscription/export?format=ndjson&from=" + from + "&to=" + from.plusDays(6));
+      };
+      case LoadMix.VISIT_PAGE -> () -> get("/gym/visit/get/page?size=100&cursor="
+              + ThreadLocalRandom.current().nextLong(1, (long) clients * visitsPerClient));
+      default -> throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+    });
+  }
+
+  private static Request get(String path) {
+    return new Request("GET", path, null);
+  }
+
+  private static Request post(String path, String body) {
+    return new Request("POST", path, body);
+  }
+
+  private long randomClientId() {
+    return ThreadLocalRandom.current().nextLong(1, clients + 1);
+  }
+
+  private long randomGymId() {
+    return ThreadLocalRandom.current().nextLong(1, gyms + 1);
+  }
+
+  private static String random(String[] values) {
+    return values[ThreadLocalRandom.current().nextInt(values.length)];
+  }
+
+  private long gymOf(int client) {
+    return client % gyms + 1;
+  }
+
+  /**
+   * Inserts rows with explicit ids over JDBC (much faster than the API for these volumes)
+   * and moves the id sequences past them so that requests can create new rows.
+   */
+  private void seedDatabase() {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < gyms; i++) {
+      rows.add(new Object[]{i + 1, "Gym " + i, "Load street " + i, "+7495" + String.format("%07d", i),
+              Time.valueOf(LocalTime.of(6, 0)), Time.valueOf(LocalTime.of(23, 0))});
+    }
+    insert("INSERT INTO gyms (gym_id, gym_name, gym_address, gym_phone, gym_open_time, gym_end_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+    for (int i = 0; i < RATES; i++) {
+      rows.add(new Object[]{i + 1, "Rate " + i, BigDecimal.valueOf(1500 + 500L * i), "month", 30 * (i % 3 + 1),
+              "Load test rate"});
+    }
+    insert("INSERT INTO rates (rate_id, rate_name, rate_price, rate_price_period, rate_duration_days, "
+            + "rate_description) VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+    LocalDate today = LocalDate.now();
+    for (int i = 0; i < clients; i++) {
+      String firstName = FIRST_NAMES[i % FIRST_NAMES.length];
+      String lastName = LAST_NAMES[i / FIRST_NAMES.length % LAST_NAMES.length];
+      rows.add(new Object[]{i + 1, firstName, lastName, "+7900" + String.format("%07d", i),
+              (firstName + "." + lastName + i + "@example.com").toLowerCase(Locale.ROOT),
+              Date.valueOf(today.minusYears(18 + i % 40).minusDays(i % 365)),
+              Timestamp.valueOf(today.minusDays(i % 730).atTime(12, 0))});
+      flushIfFull("INSERT INTO clients (client_id, client_first_name, client_last_name, client_phone, "
+              + "client_email, client_date_of_birth, client_registration_date) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+    insert("INSERT INTO clients (client_id, client_first_name, client_last_name, client_phone, "
+            + "client_email, client_date_of_birth, client_registration_date) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+
+    String subscriptionSql = "INSERT INTO subscriptions (subscription_id, client_id, rate_id, "
+            + "subscription_start_date, subscription_end_date, subscription_effective_end_date, subscription_status) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    for (int i = 0; i < clients; i++) {
+      LocalDate start = today.minusDays(i % HISTORY_DAYS);
+      LocalDate end = start.plusDays(30L * (i % 3 + 1));
+      rows.add(new Object[]{i + 1, i + 1, i % RATES + 1, Date.valueOf(start), Date.valueOf(end), Date.valueOf(end),
+              end.isBefore(today) ? "NOT_ACTIVE" : "ACTIVE"});
+      flushIfFull(subscriptionSql, rows);
+    }
+    insert(subscriptionSql, rows);
+
+    String visitSql = "INSERT INTO visits (visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    long visitId = 0;
+    for (int v = 0; v < visitsPerClient; v++) {
+      for (int i = 0; i < clients; i++) {
+        LocalDateTime checkIn = today.minusDays((long) (visitsPerClient - v) * HISTORY_DAYS / visitsPerClient)
+                .atTime(7 + i % 14, i % 60);
+        // The latest visit of every OPEN_VISIT_EVERY-th client is still open
+        boolean open = v == visitsPerClient - 1 && i % OPEN_VISIT_EVERY == 0;
+        rows.add(new Object[]{++visitId, i + 1, gymOf(i), Timestamp.valueOf(checkIn),
+                open ? null : Timestamp.valueOf(checkIn.plusMinutes(60 + i % 60))});
+        flushIfFull(visitSql, rows);
+        if (open) {
+          openVisits.add(new long[]{i + 1, gymOf(i)});
+        }
+      }
+    }
+    insert(visitSql, rows);
+
+    Map<String, Long> sequences = Map.of(
+            "gyms_seq", (long) gyms,
+            "rates_seq", (long) RATES,
+            "clients_seq", (long) clients,
+            "subscriptions_seq", (long) clients,
+            "visits_seq", visitId);
+    sequences.forEach((sequence, lastId) ->
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (lastId + 1)));
+    occupancyService.rebuild();
+    visitRollupService.rebuild();
+  }
+
+  private void flushIfFull(String sql, List<Object[]> rows) {
+    if (rows.size() >= SEED_BATCH) {
+      insert(sql, rows);
+    }
+  }
+
+  private void insert(String sql, List<Object[]> rows) {
+    jdbcTemplate.batchUpdate(sql, rows);
+    rows.clear();
+  }
+}
@@ -0,0 +1,140 @@
+package ru.safoev.maingym;
+
+import org.slf4j.Logger;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP load driver for the running application: sends a schedule of requests from
+ * a fixed pool of client threads and reports throughput and latency per endpoint.
+ */
+final class LoadHarness {
+
+  /**
+   * One HTTP call; {@code body} is JSON or null.
+   */
+  record Request(String method, String path, String body) {}
+
+  /**
+   * A named endpoint and the supplier of its next request.
+   */
+  record Operation(String endpoint, Supplier<Request> request) {}
+
+  record Sample(String endpoint, int status, long nanos) {}
+
+  record LoadReport(String name, long elapsedNanos, List<Sample> samples) {
+
+    double throughput() {
+      return samples.size() / (elapsedNanos / 1e9);
+    }
+
+    double throughput(String endpoint) {
+      return samples(endpoint).size() / (elapsedNanos / 1e9);
+    }
+
+    List<String> endpoints() {
+      return samples.stream().map(Sample::endpoint).distinct().sorted().toList();
+    }
+
+    Map<Integer, Long> statuses() {
+      return countStatuses(samples);
+    }
+
+    Map<Integer, Long> statuses(String endpoint) {
+      return countStatuses(samples(endpoint));
+    }
+
+    /**
+     * Latency percentile of successful responses, or -1 if there were none.
+     */
+    long percentileMillis(String endpoint, double percentile) {
+      List<Long> sorted = samples(endpoint).stream()
+              .filter(sample -> sample.status() < 300)
+              .map(Sample::nanos)
+              .sorted(Comparator.naturalOrder())
+              .toList();
+      if (sorted.isEmpty()) {
+        return -1;
+      }
+      int index = (int) Math.ceil(percentile / 100 * sorted.size()) - 1;
+      return sorted.get(Math.max(0, index)) / 1_000_000;
+    }
+
+    void log(Logger log) {
+      log.warn("{}: {} requests in {} ms, {} req/s, statuses {}", name, samples.size(),
+              elapsedNanos / 1_000_000, Math.round(throughput()), statuses());
+      for (String endpoint : endpoints()) {
+        log.warn("{}: {} {} req/s p50={} ms p99={} ms statuses {}", name, endpoint,
+                Math.round(throughput(endpoint)), percentileMillis(endpoint, 50),
+                percentileMillis(endpoint, 99), statuses(endpoint));
+      }
+    }
+
+    private List<Sample> samples(String endpoint) {
+      return samples.stream().filter(sample -> sample.endpoint().equals(endpoint)).toList();
+    }
+
+    private static Map<Integer, Long> countStatuses(List<Sample> samples) {
+      return samples.stream().collect(Collectors.groupingBy(Sample::status, TreeMap::new, Collectors.counting()));
+    }
+  }
+
+  private final int port;
+  private final HttpClient http = HttpClient.newBuilder()
+          .connectTimeout(Duration.ofSeconds(30))
+          .build();
+
+  LoadHarness(int port) {
+    this.port = port;
+  }
+
+  /**
+   * Sends every operation of the schedule once, at most {@code concurrency} at a time.
+   */
+  LoadReport run(String name, List<Operation> schedule, int concurrency) throws Exception {
+    List<Sample> samples = new ArrayList<>(schedule.size());
+    long start = System.nanoTime();
+    // Platform threads on the client side keep the load generator off the virtual-thread scheduler under test
+    try (ExecutorService driver = Executors.newFixedThreadPool(concurrency)) {
+      List<Future<Sample>> futures = new ArrayList<>(schedule.size());
+      for (Operation operation : schedule) {
+        futures.add(driver.submit(() -> call(operation)));
+      }
+      for (Future<Sample> future : futures) {
+        samples.add(future.get());
+      }
+    }
+    return new LoadReport(name, System.nanoTime() - start, samples);
+  }
+
+  HttpResponse<String> send(String method, String path, String body) throws Exception {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .timeout(Duration.ofSeconds(60))
+            .header("Content-Type", "application/json");
+    request.method(method, body != null
+            ? HttpRequest.BodyPublishers.ofString(body)
+            : HttpRequest.BodyPublishers.noBody());
+    return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private Sample call(Operation operation) throws Exception {
+    Request request = operation.request().get();
+    long start = System.nanoTime();
+    HttpResponse<String> response = send(request.method(), request.path(), request.body());
+    return new Sample(operation.endpoint(), response.statusCode(), System.nanoTime() - start);
+  }
+}
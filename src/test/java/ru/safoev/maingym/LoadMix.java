@@ -0,0 +1,90 @@
+package ru.safoev.maingym;
+
+import ru.safoev.maingym.LoadHarness.Operation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Request mixes for {@link EndpointMixLoadTests}: the share of each endpoint in percent.
+ */
+enum LoadMix {
+
+  /**
+   * Turnstiles at peak hours: check-ins and check-outs with the occupancy display.
+   */
+  CHECK_IN_HEAVY(Map.of(
+          LoadMix.CHECK_IN, 45,
+          LoadMix.CHECK_OUT, 30,
+          LoadMix.OCCUPANCY, 15,
+          LoadMix.CLIENT_READ, 10)),
+
+  /**
+   * Front desk looking clients up by name, email or phone.
+   */
+  SEARCH_HEAVY(Map.of(
+          LoadMix.CLIENT_SEARCH, 40,
+          LoadMix.CLIENT_NAME_PREFIX, 20,
+          LoadMix.CLIENT_READ, 20,
+          LoadMix.CLIENT_PAGE, 10,
+          LoadMix.CHECK_IN, 10)),
+
+  /**
+   * Managers and exports: statistics, attendance reports, day exports and paging through history.
+   */
+  REPORTING_HEAVY(Map.of(
+          LoadMix.STATS, 20,
+          LoadMix.ATTENDANCE_PROFILE, 10,
+          LoadMix.VISIT_EXPORT, 20,
+          LoadMix.SUBSCRIPTION_EXPORT, 10,
+          LoadMix.VISIT_PAGE, 15,
+          LoadMix.ALL_OCCUPANCY, 15,
+          LoadMix.CHECK_IN, 10));
+
+  static final String CHECK_IN = "POST /gym/visit/checkin";
+  static final String CHECK_OUT = "POST /gym/visit/checkout";
+  static final String OCCUPANCY = "GET /gym/{id}/occupancy";
+  static final String ALL_OCCUPANCY = "GET /gym/occupancy";
+  static final String CLIENT_READ = "GET /gym/client/get/{id}";
+  static final String CLIENT_SEARCH = "GET /gym/client/search/filter?query";
+  static final String CLIENT_NAME_PREFIX = "GET /gym/client/search/filter?client_name";
+  static final String CLIENT_PAGE = "GET /gym/client/get/page";
+  static final String STATS = "GET /gym/stats";
+  static final String ATTENDANCE_PROFILE = "GET /gym/analytics/attendance/{id}/profile";
+  static final String VISIT_EXPORT = "GET /gym/visit/export";
+  static final String SUBSCRIPTION_EXPORT = "GET /gym/subscription/export";
+  static final String VISIT_PAGE = "GET /gym/visit/get/page";
+
+  private final Map<String, Integer> weights;
+
+  LoadMix(Map<String, Integer> weights) {
+    this.weights = new TreeMap<>(weights);
+  }
+
+  /**
+   * Builds {@code requests} operations in the proportions of the mix, in a shuffled
+   * but repeatable order.
+   */
+  List<Operation> schedule(int requests, Function<String, Operation> operations) {
+    int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+    List<Operation> schedule = new ArrayList<>(requests);
+    weights.forEach((endpoint, weight) -> {
+      Operation operation = operations.apply(endpoint);
+      for (long i = 0, count = (long) requests * weight / total; i < count; i++) {
+        schedule.add(operation);
+      }
+    });
+    // Rounding leftovers go to the most frequent endpoint
+    Operation heaviest = operations.apply(Collections.max(weights.entrySet(), Map.Entry.comparingByValue()).getKey());
+    while (schedule.size() < requests) {
+      schedule.add(heaviest);
+    }
+    Collections.shuffle(schedule, new Random(ordinal()));
+    return schedule;
+  }
+}
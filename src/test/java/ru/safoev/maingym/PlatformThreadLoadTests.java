@@ -0,0 +1,20 @@
+package ru.safoev.maingym;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Baseline: requests served by Tomcat's default pool of 200 platform threads.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-platform",
+        "spring.threads.virtual.enabled=false",
+        "server.tomcat.threads.max=200"
+})
+class PlatformThreadLoadTests extends ThreadModelLoadTestSupport {
+
+  @Test
+  void mixedLoadOnPlatformThreads() throws Exception {
+    runMixedLoad("platform");
+  }
+}
@@ -0,0 +1,184 @@
+package ru.safoev.maingym;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.jackson.autoconfigure.JacksonAutoConfiguration;
+import org.springframework.boot.validation.autoconfigure.ValidationAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.safoev.entity.ClientEntity;
+import ru.safoev.entity.EmployeeEntity;
+import ru.safoev.entity.EquipmentEntity;
+import ru.safoev.entity.GymEntity;
+import ru.safoev.entity.RateEntity;
+import ru.safoev.entity.SubscriptionEntity;
+import ru.safoev.entity.VisitEntity;
+import ru.safoev.enumlists.EquipmentStatus;
+import ru.safoev.enumlists.SubscriptionStatus;
+import ru.safoev.mappers.ClientMapper;
+import ru.safoev.mappers.EmployeeMapper;
+import ru.safoev.mappers.EquipmentMapper;
+import ru.safoev.mappers.GymMapper;
+import ru.safoev.mappers.RateMapper;
+import ru.safoev.mappers.SubscriptionMapper;
+import ru.safoev.mappers.VisitMapper;
+import ru.safoev.services.BulkCopyImporter;
+import ru.safoev.services.ClientCohortService;
+import ru.safoev.services.EmployeeService;
+import ru.safoev.services.EntityChangeBus;
+import ru.safoev.services.EquipmentService;
+import ru.safoev.services.OccupancyService;
+import ru.safoev.services.SubscriptionAccessService;
+import ru.safoev.services.SubscriptionService;
+import ru.safoev.services.TableExporter;
+import ru.safoev.services.VisitArchiveService;
+import ru.safoev.services.VisitRollupService;
+import ru.safoev.services.VisitService;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that list read paths issue a constant number of SQL statements
+ * regardless of how many distinct clients, gyms and rates the rows reference.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({
+        VisitService.class, SubscriptionService.class, EmployeeService.class, EquipmentService.class,
+        BulkCopyImporter.class, TableExporter.class, OccupancyService.class, EntityChangeBus.class,
+        SubscriptionAccessService.class, VisitRollupService.class, VisitArchiveService.class, ClientCohortService.class,
+        ClientMapper.class, GymMapper.class, RateMapper.class, VisitMapper.class, SubscriptionMapper.class,
+        EmployeeMapper.class, EquipmentMapper.class
+})
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+class ReadPathStatementCountTests {
+
+  private static final int ROWS = 10_000;
+  private static final int CLIENTS = 500;
+  private static final int GYMS = 20;
+  private static final int RATES = 10;
+
+  @TempDir
+  static Path archiveDirectory;
+
+  @Autowired
+  private TestEntityManager testEntityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private VisitService visitService;
+
+  @Autowired
+  private SubscriptionService subscriptionService;
+
+  @Autowired
+  private EmployeeService employeeService;
+
+  @Autowired
+  private EquipmentService equipmentService;
+
+  private Statistics statistics;
+
+  @DynamicPropertySource
+  static void archiveProperties(DynamicPropertyRegistry registry) {
+    registry.add("gym.visit.archive.dir", () -> archiveDirectory.toString());
+  }
+
+  @BeforeEach
+  void seed() {
+    List<GymEntity> gyms = new ArrayList<>();
+    for (int i = 0; i < GYMS; i++) {
+      gyms.add(testEntityManager.persist(new GymEntity(null, "Gym " + i, "Address " + i, null,
+              LocalTime.of(7, 0), LocalTime.of(23, 0))));
+    }
+    List<RateEntity> rates = new ArrayList<>();
+    for (int i = 0; i < RATES; i++) {
+      rates.add(testEntityManager.persist(new RateEntity(null, "Rate " + i, BigDecimal.valueOf(1000 + i),
+              "month", 30, null)));
+    }
+    List<ClientEntity> clients = new ArrayList<>();
+    for (int i = 0; i < CLIENTS; i++) {
+      clients.add(testEntityManager.persist(new ClientEntity(null, "First" + i, "Last" + i,
+              "+7900" + i, "client" + i + "@example.com", LocalDate.of(1990, 1, 1), null)));
+    }
+
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+    for (int i = 0; i < ROWS; i++) {
+      ClientEntity client = clients.get(i % CLIENTS);
+      GymEntity gym = gyms.get(i % GYMS);
+      testEntityManager.persist(new VisitEntity(null, client, gym, start.plusMinutes(i), null));
+      testEntityManager.persist(new SubscriptionEntity(null, client, rates.get(i % RATES),
+              LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1), null, SubscriptionStatus.ACTIVE));
+      testEntityManager.persist(new EmployeeEntity(null, "Emp" + i, "Loyee" + i, null, null, gym,
+              LocalDate.of(2024, 1, 1), null, "trainer", BigDecimal.valueOf(50000)));
+      testEntityManager.persist(new EquipmentEntity(null, "Treadmill " + i, LocalDate.of(2024, 1, 1),
+              EquipmentStatus.ACTIVE, gym));
+      if (i % 1000 == 0) {
+        testEntityManager.flush();
+      }
+    }
+    testEntityManager.flush();
+    testEntityManager.clear();
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void getAllVisitsUsesSingleStatement() {
+    assertThat(visitService.getAllVisits()).hasSize(ROWS);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  void getAllSubscriptionsUsesSingleStatement() {
+    assertThat(subscriptionService.getAllSubscriptions())
+            .hasSize(ROWS)
+            .allSatisfy(dto -> assertThat(dto.subscriptionStatus()).isEqualTo("ACTIVE"));
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  void getAllEmployeesDoesNotLoadGyms() {
+    assertThat(employeeService.getAllEmployees())
+            .hasSize(ROWS)
+            .allSatisfy(dto -> assertThat(dto.gymId()).isNotNull());
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  void getAllEquipmentDoesNotLoadGyms() {
+    assertThat(equipmentService.getAllEquipment())
+            .hasSize(ROWS)
+            .allSatisfy(dto -> assertThat(dto.gymId()).isNotNull());
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  void visitPageUsesSingleStatement() {
+    assertThat(visitService.getVisitsPage(null, 1000).content()).hasSize(1000);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,155 @@
+package ru.safoev.maingym;
+
+import org.junit.jupiter.api.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import ru.safoev.maingym.LoadHarness.LoadReport;
+import ru.safoev.maingym.LoadHarness.Operation;
+import ru.safoev.maingym.LoadHarness.Request;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mixed turnstile/app workload against a database that answers every statement
+ * after {@link #STATEMENT_LATENCY_MS}, with the pool and the repository limiter
+ * sized far below the number of concurrent requests.
+ * <p>
+ * A third of the requests are check-ins, a third read a client and a third read
+ * the in-memory gym occupancy. Subclasses only switch the request thread model,
+ * so comparing their reports shows what virtual threads change: with platform
+ * threads the in-memory requests queue behind threads parked on the limiter.
+ * </p>
+ * Run with {@code mvn -Pload test}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=10",
+        "spring.datasource.hikari.minimum-idle=10",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "spring.sql.init.mode=never",
+        "gym.visit.archive.dir=target/load-visit-archive",
+        "gym.db.limiter.permits=10",
+        "gym.db.limiter.acquire-timeout=60s",
+        "logging.level.root=WARN"
+})
+@Import(ThreadModelLoadTestSupport.SlowDatabaseConfig.class)
+abstract class ThreadModelLoadTestSupport {
+  private static final Logger log = LoggerFactory.getLogger(ThreadModelLoadTestSupport.class);
+
+  static final long STATEMENT_LATENCY_MS = 50;
+  static final int WARMUP_REQUESTS = 150;
+  static final int REQUESTS = 900;
+  static final int CONCURRENCY = 400;
+  static final int CLIENTS = 50;
+
+  static final String CHECK_IN = "check-in";
+  static final String CLIENT_READ = "client read";
+  static final String OCCUPANCY = "occupancy";
+
+  @LocalServerPort
+  private int port;
+
+  LoadReport runMixedLoad(String mode) throws Exception {
+    LoadHarness harness = new LoadHarness(port);
+    long gymId = seed(harness);
+    // Warm up the JIT so the report reflects steady-state behaviour
+    harness.run(mode + " warmup", schedule(gymId, WARMUP_REQUESTS), CONCURRENCY);
+    LoadReport report = harness.run(mode + " threads", schedule(gymId, REQUESTS), CONCURRENCY);
+    report.log(log);
+    assertThat(report.statuses().keySet()).allMatch(status -> status == 200 || status == 201 || status == 503);
+    assertThat(report.statuses()).containsKey(200);
+    return report;
+  }
+
+  private static List<Operation> schedule(long gymId, int requests) {
+    List<Operation> schedule = new ArrayList<>(requests);
+    for (int i = 0; i < requests; i++) {
+      schedule.add(switch (i % 3) {
+        case 0 -> new Operation(CHECK_IN, () -> new Request("POST", "/gym/visit/checkin",
+                "{\"clientId\":" + randomClientId() + ",\"gymId\":" + gymId + "}"));
+        case 1 -> new Operation(CLIENT_READ, () -> new Request("GET", "/gym/client/get/" + randomClientId(), null));
+        default -> new Operation(OCCUPANCY, () -> new Request("GET", "/gym/" + gymId + "/occupancy", null));
+      });
+    }
+    return schedule;
+  }
+
+  private static long randomClientId() {
+    return ThreadLocalRandom.current().nextLong(1, CLIENTS + 1);
+  }
+
+  private static long seed(LoadHarness harness) throws Exception {
+    String gym = harness.send("POST", "/gym/create", """
+            {"gymName":"Load","address":"Test street 1","openTime":"06:00:00","closeTime":"23:00:00"}""").body();
+    for (int i = 0; i < CLIENTS; i++) {
+      harness.send("POST", "/gym/client/create", """
+              {"firstName":"Load","lastName":"Client%d","phone":"+7999%07d","email":"load%d@example.com",\
+              "dateOfBirth":"1990-01-01"}""".formatted(i, i, i));
+    }
+    return Long.parseLong(gym.replaceAll(".*\"gymId\":(\\d+).*", "$1"));
+  }
+
+  /**
+   * Delays every prepared statement to stand in for a database across the network.
+   */
+  @TestConfiguration
+  static class SlowDatabaseConfig {
+
+    @Bean
+    static BeanPostProcessor slowDataSourcePostProcessor() {
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          return bean instanceof DataSource dataSource ? slow(dataSource) : bean;
+        }
+      };
+    }
+
+    private static DataSource slow(DataSource dataSource) {
+      return proxy(DataSource.class, dataSource, (method, result) ->
+              result instanceof Connection connection ? slow(connection) : result);
+    }
+
+    private static Connection slow(Connection connection) {
+      return proxy(Connection.class, connection, (method, result) -> {
+        if (method.startsWith("prepare")) {
+          Thread.sleep(STATEMENT_LATENCY_MS);
+        }
+        return result;
+      });
+    }
+
+    private interface ResultHandler {
+      Object handle(String method, Object result) throws Exception;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, ResultHandler handler) {
+      return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+        try {
+          return handler.handle(method.getName(), method.invoke(target, args));
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      }));
+    }
+  }
+}
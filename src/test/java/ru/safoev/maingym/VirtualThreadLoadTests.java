@@ -0,0 +1,30 @@
+package ru.safoev.maingym;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import ru.safoev.maingym.LoadHarness.LoadReport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Requests served by virtual threads: database work is still bounded by the
+ * limiter, but requests that do not touch the database are never stuck behind it.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-virtual",
+        "spring.threads.virtual.enabled=true"
+})
+class VirtualThreadLoadTests extends ThreadModelLoadTestSupport {
+
+  @Test
+  void mixedLoadOnVirtualThreads() throws Exception {
+    LoadReport report = runMixedLoad("virtual");
+
+    // With one or two cores the run is CPU-bound and the virtual-thread scheduler
+    // (no time slicing) says nothing about blocking, so only the report is kept
+    assumeTrue(Runtime.getRuntime().availableProcessors() >= 4, "needs at least 4 cores to compare latencies");
+    assertThat(report.percentileMillis(OCCUPANCY, 99))
+            .isLessThan(report.percentileMillis(CLIENT_READ, 50));
+  }
+}
@@ -0,0 +1,130 @@
+package ru.safoev.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jackson.autoconfigure.JacksonAutoConfiguration;
+import org.springframework.boot.validation.autoconfigure.ValidationAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.CohortRetentionDto;
+import ru.safoev.mappers.ClientMapper;
+import ru.safoev.mappers.GymMapper;
+import ru.safoev.mappers.VisitMapper;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Cohort months whose visits are archived against H2: the visitor counts stay as they
+ * were before archiving, while subscribers, churn and revenue follow subscription and
+ * rate changes, which are never archived.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        VisitService.class, BulkCopyImporter.class, TableExporter.class, OccupancyService.class, EntityChangeBus.class,
+        VisitRollupService.class, VisitArchiveService.class, ClientCohortService.class,
+        ClientMapper.class, GymMapper.class, VisitMapper.class
+})
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+class ClientCohortServiceTests {
+
+  // Well past the default archive horizon of 180 days
+  private static final YearMonth COHORT = YearMonth.now().minusMonths(14);
+
+  @TempDir
+  static Path archiveDirectory;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ClientCohortService clientCohortService;
+
+  @Autowired
+  private VisitArchiveService visitArchiveService;
+
+  @DynamicPropertySource
+  static void archiveProperties(DynamicPropertyRegistry registry) {
+    registry.add("gym.visit.archive.dir", () -> archiveDirectory.toString());
+  }
+
+  @BeforeEach
+  void seed() {
+    jdbcTemplate.update("INSERT INTO gyms (gym_id, gym_name, gym_address, gym_open_time, gym_end_time)"
+            + " VALUES (1, 'Gym', 'Address 1', ?, ?)", LocalTime.of(7, 0), LocalTime.of(23, 0));
+    jdbcTemplate.update("INSERT INTO rates (rate_id, rate_name, rate_price, rate_duration_days)"
+            + " VALUES (1, 'Month', 3000, 30)");
+    for (long clientId = 1; clientId <= 2; clientId++) {
+      jdbcTemplate.update("INSERT INTO clients (client_id, client_first_name, client_last_name, client_registration_date)"
+              + " VALUES (?, 'First', 'Last', ?)", clientId, COHORT.atDay(1).atStartOfDay());
+      jdbcTemplate.update("INSERT INTO visits (visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time)"
+              + " VALUES (?, ?, 1, ?, ?)", clientId, clientId, COHORT.atDay(10).atTime(9, 0), COHORT.atDay(10).atTime(10, 0));
+    }
+    clientCohortService.rebuild();
+    visitArchiveService.archive();
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits", Long.class)).isZero();
+  }
+
+  @AfterEach
+  void cleanUp() {
+    jdbcTemplate.update("DELETE FROM client_cohort_months");
+    jdbcTemplate.update("DELETE FROM client_cohorts");
+    jdbcTemplate.update("DELETE FROM subscriptions");
+    jdbcTemplate.update("DELETE FROM visits");
+    jdbcTemplate.update("DELETE FROM clients");
+    jdbcTemplate.update("DELETE FROM rates");
+    jdbcTemplate.update("DELETE FROM gyms");
+  }
+
+  @Test
+  void subscriptionInArchivedMonthIsCountedByRebuild() {
+    // Runs from the 15th for 30 days and is not renewed
+    jdbcTemplate.update("""
+            INSERT INTO subscriptions (subscription_id, client_id, rate_id, subscription_start_date,
+                                       subscription_end_date, subscription_effective_end_date, subscription_status)
+            VALUES (1, 1, 1, ?, ?, ?, 'ACTIVE')""",
+            COHORT.atDay(15), COHORT.atDay(15).plusDays(30), COHORT.atDay(15).plusDays(30));
+
+    clientCohortService.rebuild();
+
+    assertThat(firstMonths())
+            .extracting(CohortRetentionDto::visitors, CohortRetentionDto::subscribers, CohortRetentionDto::churned)
+            .containsExactly(tuple(2L, 1L, 0L), tuple(0L, 1L, 1L));
+    assertThat(firstMonths().getFirst().revenue()).isEqualByComparingTo("3000");
+
+    jdbcTemplate.update("UPDATE rates SET rate_price = 3600 WHERE rate_id = 1");
+    clientCohortService.rateChanged(1L);
+    clientCohortService.refresh();
+    assertThat(firstMonths().getFirst().revenue()).isEqualByComparingTo("3600");
+
+    jdbcTemplate.update("DELETE FROM subscriptions");
+    clientCohortService.clientsChanged(1L);
+    clientCohortService.refresh();
+    assertThat(firstMonths())
+            .extracting(CohortRetentionDto::visitors, CohortRetentionDto::subscribers, CohortRetentionDto::revenue)
+            .containsExactly(tuple(2L, 0L, new BigDecimal("0.00")), tuple(0L, 0L, new BigDecimal("0.00")));
+  }
+
+  private List<CohortRetentionDto> firstMonths() {
+    return clientCohortService.getRetention(COHORT, COHORT).subList(0, 2);
+  }
+}
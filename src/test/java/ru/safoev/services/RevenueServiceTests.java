@@ -0,0 +1,191 @@
+package ru.safoev.services;
+
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.GymRevenueDto;
+import ru.safoev.dtorecords.RateRevenueDto;
+import ru.safoev.dtorecords.RevenueMonthDto;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Revenue reports against H2: prices prorated by the days of a subscription inside each
+ * month, subscriptions attributed to the gym visited most often, past months closed into
+ * {@code revenue_monthly} on first read and the current month computed live.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RevenueService.class, VisitArchiveService.class, OccupancyService.class, EntityChangeBus.class})
+class RevenueServiceTests {
+
+  // 2024 is a leap year: January has 31 days, February 29
+  private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+  private static final YearMonth FEBRUARY = YearMonth.of(2024, 2);
+  private static final YearMonth MARCH = YearMonth.of(2024, 3);
+
+  // Money compares by value, shares within rounding of the database division
+  private static final RecursiveComparisonConfiguration BY_VALUE = RecursiveComparisonConfiguration.builder()
+          .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+          .withComparatorForType((a, b) -> Math.abs(a - b) < 1e-9 ? 0 : Double.compare(a, b), Double.class)
+          .build();
+
+  @TempDir
+  static Path archiveDirectory;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private RevenueService revenueService;
+
+  @DynamicPropertySource
+  static void archiveProperties(DynamicPropertyRegistry registry) {
+    registry.add("gym.visit.archive.dir", () -> archiveDirectory.toString());
+  }
+
+  @BeforeEach
+  void seed() {
+    for (long gymId = 1; gymId <= 2; gymId++) {
+      jdbcTemplate.update("INSERT INTO gyms (gym_id, gym_name, gym_address, gym_open_time, gym_end_time)"
+              + " VALUES (?, ?, ?, ?, ?)", gymId, "Gym " + gymId, "Address " + gymId, LocalTime.of(7, 0), LocalTime.of(23, 0));
+    }
+    // 100 and 80 per day
+    jdbcTemplate.update("INSERT INTO rates (rate_id, rate_name, rate_price, rate_duration_days)"
+            + " VALUES (1, 'Month', 3000, 30), (2, 'Two months', 4800, 60)");
+    for (long clientId = 1; clientId <= 3; clientId++) {
+      jdbcTemplate.update("INSERT INTO clients (client_id, client_first_name, client_last_name, client_registration_date)"
+              + " VALUES (?, 'First', 'Last', ?)", clientId, JANUARY.atDay(1).atStartOfDay());
+    }
+    // 11 days in January, 19 in February
+    insertSubscription(1, 1, 1, LocalDate.of(2024, 1, 21));
+    // 21 days in January, 29 in February, 10 in March
+    insertSubscription(2, 2, 2, LocalDate.of(2024, 1, 11));
+    // 20 days in February, 10 in March
+    insertSubscription(3, 3, 1, LocalDate.of(2024, 2, 10));
+
+    // January: client 1 mostly visits gym 2, client 2 visits both gyms once and goes to the lower id
+    insertVisit(1, 1, 2, LocalDate.of(2024, 1, 22));
+    insertVisit(2, 1, 2, LocalDate.of(2024, 1, 24));
+    insertVisit(3, 1, 1, LocalDate.of(2024, 1, 26));
+    insertVisit(4, 2, 2, LocalDate.of(2024, 1, 12));
+    insertVisit(5, 2, 1, LocalDate.of(2024, 1, 31));
+    // February: client 1 does not come and falls to gym 0
+    insertVisit(6, 2, 2, LocalDate.of(2024, 2, 5));
+    insertVisit(7, 3, 1, LocalDate.of(2024, 2, 11));
+  }
+
+  @AfterEach
+  void cleanUp() {
+    jdbcTemplate.update("DELETE FROM revenue_monthly");
+    jdbcTemplate.update("DELETE FROM revenue_month_closes");
+    jdbcTemplate.update("DELETE FROM visits");
+    jdbcTemplate.update("DELETE FROM subscriptions");
+    jdbcTemplate.update("DELETE FROM clients");
+    jdbcTemplate.update("DELETE FROM rates");
+    jdbcTemplate.update("DELETE FROM gyms");
+  }
+
+  @Test
+  void monthlyTotalsProrateSubscriptionsAcrossMonths() {
+    assertThat(revenueService.getMonthly(JANUARY, MARCH))
+            .usingRecursiveFieldByFieldElementComparator(BY_VALUE)
+            .containsExactly(
+                    new RevenueMonthDto(JANUARY.atDay(1), 2, 2, money(7800), money(2780), money(2780), true),
+                    new RevenueMonthDto(FEBRUARY.atDay(1), 3, 1, money(3000), money(6220), money(9000), true),
+                    new RevenueMonthDto(MARCH.atDay(1), 2, 0, money(0), money(1800), money(10800), true));
+  }
+
+  @Test
+  void rateTotalsSplitTheMonth() {
+    assertThat(revenueService.getByRate(FEBRUARY, FEBRUARY))
+            .usingRecursiveFieldByFieldElementComparator(BY_VALUE)
+            .containsExactly(
+                    new RateRevenueDto(FEBRUARY.atDay(1), 1L, "Month", 2, 1, money(3000), money(3900), 3900 / 6220.0),
+                    new RateRevenueDto(FEBRUARY.atDay(1), 2L, "Two months", 1, 0, money(0), money(2320), 2320 / 6220.0));
+  }
+
+  @Test
+  void gymTotalsFollowTheMostVisitedGym() {
+    assertThat(revenueService.getByGym(JANUARY, FEBRUARY))
+            .usingRecursiveFieldByFieldElementComparator(BY_VALUE)
+            .containsExactly(
+                    new GymRevenueDto(JANUARY.atDay(1), 1L, "Gym 1", 1, 1, money(4800), money(1680), 1680 / 2780.0),
+                    new GymRevenueDto(JANUARY.atDay(1), 2L, "Gym 2", 1, 1, money(3000), money(1100), 1100 / 2780.0),
+                    new GymRevenueDto(FEBRUARY.atDay(1), 2L, "Gym 2", 1, 0, money(0), money(2320), 2320 / 6220.0),
+                    new GymRevenueDto(FEBRUARY.atDay(1), 1L, "Gym 1", 1, 1, money(3000), money(2000), 2000 / 6220.0),
+                    new GymRevenueDto(FEBRUARY.atDay(1), null, null, 1, 0, money(0), money(1900), 1900 / 6220.0));
+  }
+
+  @Test
+  void closedMonthIsReadBackUntilClosedAgain() {
+    revenueService.getMonthly(JANUARY, FEBRUARY);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revenue_month_closes", Long.class)).isEqualTo(2);
+    assertThat(jdbcTemplate.queryForObject("SELECT SUM(revenue_recognized) FROM revenue_monthly WHERE revenue_month = ?",
+            BigDecimal.class, FEBRUARY.atDay(1))).isEqualByComparingTo("6220");
+
+    // Closed months keep the prices they were closed with
+    jdbcTemplate.update("UPDATE rates SET rate_price = 6000 WHERE rate_id = 1");
+    assertThat(revenueService.getMonthly(FEBRUARY, FEBRUARY).getFirst().recognized()).isEqualByComparingTo("6220");
+
+    // 19 and 20 days at 200 per day, the other rate unchanged
+    RevenueMonthDto reclosed = revenueService.closeMonth(FEBRUARY);
+    assertThat(reclosed.billed()).isEqualByComparingTo("6000");
+    assertThat(reclosed.recognized()).isEqualByComparingTo("10120");
+    assertThat(revenueService.getMonthly(JANUARY, JANUARY).getFirst().recognized()).isEqualByComparingTo("2780");
+  }
+
+  @Test
+  void currentMonthIsComputedLive() {
+    YearMonth current = YearMonth.now();
+    insertSubscription(4, 1, 1, current.atDay(1));
+    int days = Math.min(30, current.lengthOfMonth());
+
+    RevenueMonthDto live = revenueService.getMonthly(current, current).getFirst();
+    assertThat(live.closed()).isFalse();
+    assertThat(live.newSubscriptions()).isEqualTo(1);
+    assertThat(live.recognized()).isEqualByComparingTo(money(100L * days));
+
+    jdbcTemplate.update("UPDATE rates SET rate_price = 6000 WHERE rate_id = 1");
+    assertThat(revenueService.getMonthly(current, current).getFirst().recognized())
+            .isEqualByComparingTo(money(200L * days));
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revenue_month_closes WHERE revenue_month = ?",
+            Long.class, current.atDay(1))).isZero();
+  }
+
+  private void insertSubscription(long subscriptionId, long clientId, long rateId, LocalDate start) {
+    jdbcTemplate.update("""
+            INSERT INTO subscriptions (subscription_id, client_id, rate_id, subscription_start_date,
+                                       subscription_end_date, subscription_effective_end_date, subscription_status)
+            VALUES (?, ?, ?, ?, ?, ?, 'ACTIVE')""",
+            subscriptionId, clientId, rateId, start, start.plusDays(30), start.plusDays(30));
+  }
+
+  private void insertVisit(long visitId, long clientId, long gymId, LocalDate day) {
+    jdbcTemplate.update("INSERT INTO visits (visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time)"
+            + " VALUES (?, ?, ?, ?, ?)", 1_000_000 + visitId, clientId, gymId, day.atTime(9, 0), day.atTime(10, 0));
+  }
+
+  private static BigDecimal money(long amount) {
+    return BigDecimal.valueOf(amount);
+  }
+}
@@ -0,0 +1,163 @@
+package ru.safoev.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.repositoryinterface.SubscriptionFreezeRepository;
+import ru.safoev.repositoryinterface.SubscriptionRepository;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Access index against H2: a change committed while {@code rebuild()} is between its
+ * query and the swap must not be overwritten by the older snapshot, because index hits
+ * are never re-checked against the database.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SubscriptionAccessServiceTests {
+
+  private static final LocalDate TODAY = LocalDate.now();
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private SubscriptionRepository subscriptionRepository;
+
+  @Autowired
+  private SubscriptionFreezeRepository subscriptionFreezeRepository;
+
+  // Runs after the rebuild query and before the index is swapped
+  private Runnable duringRebuild = () -> { };
+  private final AtomicInteger clientLoads = new AtomicInteger();
+  private SubscriptionAccessService accessService;
+
+  @BeforeEach
+  void seed() {
+    jdbcTemplate.update("INSERT INTO rates (rate_id, rate_name, rate_price, rate_duration_days)"
+            + " VALUES (1, 'Month', 3000, 30)");
+    for (long clientId = 1; clientId <= 2; clientId++) {
+      jdbcTemplate.update("INSERT INTO clients (client_id, client_first_name, client_last_name, client_registration_date)"
+              + " VALUES (?, 'First', 'Last', ?)", clientId, TODAY.minusDays(30).atStartOfDay());
+    }
+    insertSubscription(10, 1);
+    accessService = new SubscriptionAccessService(racing(subscriptionRepository), subscriptionFreezeRepository);
+    accessService.rebuild();
+    clientLoads.set(0);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    jdbcTemplate.update("DELETE FROM subscription_freezes");
+    jdbcTemplate.update("DELETE FROM subscriptions");
+    jdbcTemplate.update("DELETE FROM clients");
+    jdbcTemplate.update("DELETE FROM rates");
+  }
+
+  @Test
+  void deleteDuringRebuildIsNotUndone() {
+    duringRebuild = () -> {
+      jdbcTemplate.update("DELETE FROM subscriptions WHERE subscription_id = 10");
+      accessService.subscriptionDeleted(10L);
+    };
+
+    accessService.rebuild();
+
+    assertThat(accessService.checkAccess(1L, TODAY).allowed()).isFalse();
+  }
+
+  @Test
+  void deactivationDuringRebuildIsNotUndone() {
+    duringRebuild = () -> {
+      jdbcTemplate.update("UPDATE subscriptions SET subscription_status = 'NOT_ACTIVE' WHERE subscription_id = 10");
+      accessService.subscriptionSaved(10L, 1L);
+    };
+
+    accessService.rebuild();
+
+    assertThat(accessService.checkAccess(1L, TODAY).allowed()).isFalse();
+  }
+
+  @Test
+  void freezeDuringRebuildIsNotUndone() {
+    duringRebuild = () -> {
+      jdbcTemplate.update("INSERT INTO subscription_freezes (freeze_id, subscription_id, freeze_start_date, freeze_end_date)"
+              + " VALUES (1, 10, ?, ?)", TODAY, TODAY.plusDays(7));
+      accessService.subscriptionSaved(10L, 1L);
+    };
+
+    accessService.rebuild();
+
+    assertThat(accessService.checkAccess(1L, TODAY).allowed()).isFalse();
+    assertThat(accessService.checkAccess(1L, TODAY.plusDays(8)).allowed()).isTrue();
+  }
+
+  @Test
+  void subscriptionCreatedDuringRebuildStaysIndexed() {
+    duringRebuild = () -> {
+      insertSubscription(20, 2);
+      accessService.subscriptionSaved(20L, 2L);
+    };
+
+    accessService.rebuild();
+
+    assertThat(accessService.checkAccess(2L, TODAY).subscriptionId()).isEqualTo(20L);
+    // Answered from the index, not by reloading the client after a miss
+    assertThat(clientLoads).hasValue(1);
+  }
+
+  @Test
+  void rebuildStillCorrectsChangesMadePastTheService() {
+    jdbcTemplate.update("UPDATE subscriptions SET subscription_status = 'NOT_ACTIVE' WHERE subscription_id = 10");
+    insertSubscription(20, 2);
+
+    accessService.rebuild();
+    // The next rebuild starts without marks left by the previous one
+    accessService.rebuild();
+
+    assertThat(accessService.checkAccess(1L, TODAY).allowed()).isFalse();
+    assertThat(accessService.checkAccess(2L, TODAY).allowed()).isTrue();
+    assertThat(clientLoads).hasValue(1);
+  }
+
+  private void insertSubscription(long subscriptionId, long clientId) {
+    jdbcTemplate.update("""
+            INSERT INTO subscriptions (subscription_id, client_id, rate_id, subscription_start_date,
+                                       subscription_end_date, subscription_effective_end_date, subscription_status)
+            VALUES (?, ?, 1, ?, ?, ?, 'ACTIVE')""",
+            subscriptionId, clientId, TODAY.minusDays(5), TODAY.plusDays(25), TODAY.plusDays(25));
+  }
+
+  // Repository that runs duringRebuild right after the rebuild query and counts single-client loads
+  private SubscriptionRepository racing(SubscriptionRepository delegate) {
+    return (SubscriptionRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{SubscriptionRepository.class}, (proxy, method, args) -> {
+              Object result;
+              try {
+                result = method.invoke(delegate, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+              if (method.getName().equals("findValidities")) {
+                duringRebuild.run();
+              } else if (method.getName().equals("findValiditiesByClient")) {
+                clientLoads.incrementAndGet();
+              }
+              return result;
+            });
+  }
+}
@@ -0,0 +1,178 @@
+package ru.safoev.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jackson.autoconfigure.JacksonAutoConfiguration;
+import org.springframework.boot.validation.autoconfigure.ValidationAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.CursorPageDto;
+import ru.safoev.dtorecords.VisitDto;
+import ru.safoev.enumlists.ExportFormat;
+import ru.safoev.mappers.ClientMapper;
+import ru.safoev.mappers.GymMapper;
+import ru.safoev.mappers.VisitMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Visit reads after an archive run against H2: list, pages, stream and export return
+ * archived visits together with the table rows, ordered by id, without duplicates.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never",
+        "gym.visit.archive.batch-size=3"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        VisitService.class, BulkCopyImporter.class, TableExporter.class, OccupancyService.class, EntityChangeBus.class,
+        VisitRollupService.class, VisitArchiveService.class, ClientCohortService.class,
+        ClientMapper.class, GymMapper.class, VisitMapper.class
+})
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+class VisitArchiveServiceTests {
+
+  private static final LocalDate OLD = LocalDate.now().minusDays(400);
+  private static final LocalDate RECENT = LocalDate.now().minusDays(10);
+
+  @TempDir
+  static Path archiveDirectory;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private VisitService visitService;
+
+  @Autowired
+  private VisitArchiveService visitArchiveService;
+
+  private final List<VisitDto> visits = new ArrayList<>();
+
+  @DynamicPropertySource
+  static void archiveProperties(DynamicPropertyRegistry registry) {
+    registry.add("gym.visit.archive.dir", () -> archiveDirectory.toString());
+  }
+
+  @BeforeEach
+  void seed() {
+    for (long gymId = 1; gymId <= 2; gymId++) {
+      jdbcTemplate.update("INSERT INTO gyms (gym_id, gym_name, gym_address, gym_open_time, gym_end_time)"
+              + " VALUES (?, 'Gym', ?, ?, ?)", gymId, "Address " + gymId, LocalTime.of(7, 0), LocalTime.of(23, 0));
+    }
+    jdbcTemplate.update("INSERT INTO clients (client_id, client_first_name, client_last_name, client_registration_date)"
+            + " VALUES (1, 'First', 'Last', ?)", OLD.minusDays(30).atStartOfDay());
+    // Identifiers interleave old and recent visits, so the merge is not a simple concatenation
+    long id = 1;
+    for (int i = 0; i < 4; i++) {
+      insertVisit(id++, 1 + i % 2, OLD.plusDays(i * 35L).atTime(9, 0), OLD.plusDays(i * 35L).atTime(10, 0));
+      insertVisit(id++, 1 + i % 2, RECENT.plusDays(i).atTime(18, 0), i == 3 ? null : RECENT.plusDays(i).atTime(19, 0));
+    }
+    // Still open when archived
+    insertVisit(id, 1, OLD.plusDays(1).atTime(12, 0), null);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    jdbcTemplate.update("DELETE FROM visits");
+    jdbcTemplate.update("DELETE FROM clients");
+    jdbcTemplate.update("DELETE FROM gyms");
+  }
+
+  @Test
+  void archiveMovesOldVisitsOutOfTheTable() {
+    assertThat(visitArchiveService.archive().archivedVisits()).isEqualTo(5);
+
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits", Long.class)).isEqualTo(4);
+    assertThat(visitArchiveService.getArchivedBefore()).isAfter(OLD.plusDays(105));
+  }
+
+  @Test
+  void listPagesStreamAndExportIncludeArchivedVisits() {
+    visitArchiveService.archive();
+
+    assertThat(visitService.getAllVisits()).isEqualTo(visits);
+
+    List<VisitDto> streamed = new ArrayList<>();
+    visitService.streamAllVisits(streamed::add);
+    assertThat(streamed).isEqualTo(visits);
+
+    assertThat(pages(2)).isEqualTo(visits);
+    assertThat(pages(100)).isEqualTo(visits);
+
+    String csv = export(ExportFormat.CSV, null, null);
+    assertThat(csv.lines()).hasSize(visits.size() + 1);
+    assertThat(csv.lines().skip(1).map(line -> Long.parseLong(line.substring(0, line.indexOf(',')))))
+            .containsExactlyElementsOf(visits.stream().map(VisitDto::visitId).toList());
+    assertThat(export(ExportFormat.NDJSON, null, null).lines()).hasSize(visits.size());
+  }
+
+  @Test
+  void exportRangeSelectsArchivedAndRecentVisits() {
+    visitArchiveService.archive();
+
+    assertThat(export(ExportFormat.NDJSON, OLD.plusDays(35), RECENT.plusDays(1)).lines())
+            .hasSize(5)
+            .allMatch(line -> line.contains("\"visitId\""));
+    assertThat(export(ExportFormat.NDJSON, OLD.plusDays(36), OLD.plusDays(100)).lines()).hasSize(1);
+    assertThat(export(ExportFormat.NDJSON, RECENT, null).lines()).hasSize(4);
+  }
+
+  @Test
+  void visitLeftInTheTableAfterArchivingIsReadFromTheTableOnce() {
+    visitArchiveService.archive();
+    // As if the process stopped after publishing the chunk but before the delete committed
+    VisitDto archived = visits.getFirst();
+    LocalDateTime checkOut = archived.checkOutTime().plusMinutes(30);
+    insertVisit(archived.visitId(), archived.gymId(), archived.checkInTime(), checkOut);
+    visits.removeLast();
+    visits.set(0, new VisitDto(archived.visitId(), 1L, archived.gymId(), archived.checkInTime(), checkOut));
+
+    assertThat(visitService.getAllVisits()).isEqualTo(visits);
+    assertThat(pages(1)).isEqualTo(visits);
+    assertThat(export(ExportFormat.CSV, null, null).lines()).hasSize(visits.size() + 1);
+  }
+
+  private void insertVisit(long visitId, long gymId, LocalDateTime checkIn, LocalDateTime checkOut) {
+    jdbcTemplate.update("INSERT INTO visits (visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time)"
+            + " VALUES (?, 1, ?, ?, ?)", visitId, gymId, checkIn, checkOut);
+    visits.add(new VisitDto(visitId, 1L, gymId, checkIn, checkOut));
+  }
+
+  private List<VisitDto> pages(int size) {
+    List<VisitDto> result = new ArrayList<>();
+    Long cursor = null;
+    CursorPageDto<VisitDto> page;
+    do {
+      page = visitService.getVisitsPage(cursor, size);
+      result.addAll(page.content());
+      cursor = page.nextCursor();
+    } while (page.hasNext());
+    return result;
+  }
+
+  private String export(ExportFormat format, LocalDate from, LocalDate to) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    visitService.exportVisits(format, from, to, out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+}
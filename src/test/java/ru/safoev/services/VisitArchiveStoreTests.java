@@ -0,0 +1,179 @@
+package ru.safoev.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.safoev.dtorecords.VisitDto;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Round trip of the visit archive chunk format: the files are the only copy of
+ * archived visits once their rows are deleted from the database.
+ */
+class VisitArchiveStoreTests {
+
+  private static final YearMonth MARCH = YearMonth.of(2025, 3);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void writeAndReadKeepsEveryColumn() {
+    VisitArchiveStore store = new VisitArchiveStore(directory);
+    List<VisitDto> visits = List.of(
+            visit(205, 7, at(10, 18, 0), at(10, 19, 30)),
+            visit(101, 3, at(1, 7, 0), at(1, 8, 15)),
+            visit(150, 3, at(5, 12, 0), null),
+            visit(120, Long.MAX_VALUE, at(5, 12, 0), at(5, 12, 0))
+    );
+
+    VisitArchiveStore.Chunk chunk = store.write(1, MARCH, visits);
+
+    assertThat(chunk.minVisitId()).isEqualTo(101);
+    assertThat(chunk.maxVisitId()).isEqualTo(205);
+    assertThat(chunk.visits()).isEqualTo(4);
+    assertThat(chunk.path().getFileName()).hasToString("visits-101-205.gz");
+    // Sorted by check-in time, then by id
+    assertThat(store.read(chunk)).containsExactly(visits.get(1), visits.get(3), visits.get(2), visits.get(0));
+  }
+
+  @Test
+  void truncatesTimesToMicroseconds() {
+    VisitArchiveStore store = new VisitArchiveStore(directory);
+    LocalDateTime checkIn = at(2, 9, 0).withNano(123_456_789);
+    LocalDateTime checkOut = at(2, 10, 0).withNano(987_654_321);
+
+    VisitDto read = store.read(store.write(1, MARCH, List.of(visit(1, 1, checkIn, checkOut)))).getFirst();
+
+    assertThat(read.checkInTime()).isEqualTo(checkIn.withNano(123_456_000));
+    assertThat(read.checkOutTime()).isEqualTo(checkOut.withNano(987_654_000));
+  }
+
+  @Test
+  void keepsTimesBeforeEpochAndLongStays() {
+    VisitArchiveStore store = new VisitArchiveStore(directory);
+    VisitDto old = visit(1, 1, LocalDateTime.of(1969, 12, 31, 23, 59), LocalDateTime.of(1970, 1, 1, 0, 1));
+    VisitDto forgotten = visit(2, 1, at(3, 8, 0), at(3, 8, 0).plus(Duration.ofDays(40)));
+
+    assertThat(store.read(store.write(1, MARCH, List.of(forgotten, old)))).containsExactly(old, forgotten);
+  }
+
+  @Test
+  void publishedChunksAreFoundByGymMonthAndId() {
+    VisitArchiveStore store = new VisitArchiveStore(directory);
+    VisitArchiveStore.Chunk march = store.write(1, MARCH, List.of(visit(10, 1, at(1, 9, 0), null)));
+    VisitArchiveStore.Chunk april = store.write(1, MARCH.plusMonths(1),
+            List.of(visit(20, 1, at(1, 9, 0).plusMonths(1), null)));
+    VisitArchiveStore.Chunk otherGym = store.write(2, MARCH, List.of(visit(30, 1, at(1, 9, 0), null)));
+
+    // Not visible before publishing
+    assertThat(store.allChunks()).isEmpty();
+
+    store.publish(march);
+    store.publish(april);
+    store.publish(otherGym);
+
+    assertThat(store.chunks(1, MARCH, MARCH)).containsExactly(march);
+    assertThat(store.chunks(1, MARCH, MARCH.plusMonths(1))).containsExactly(march, april);
+    assertThat(store.chunks(1, MARCH.plusMonths(1), MARCH)).isEmpty();
+    assertThat(store.chunks(3, MARCH, MARCH)).isEmpty();
+    assertThat(store.chunksContaining(30)).containsExactly(otherGym);
+    assertThat(store.chunksContaining(15)).isEmpty();
+  }
+
+  @Test
+  void reloadsPublishedChunksAndMarkerFromDisk() {
+    VisitArchiveStore store = new VisitArchiveStore(directory);
+    List<VisitDto> visits = List.of(visit(1, 1, at(1, 9, 0), at(1, 10, 0)), visit(2, 2, at(2, 9, 0), null));
+    VisitArchiveStore.Chunk chunk = store.write(1, MARCH, visits);
+    store.publish(chunk);
+    store.setArchivedBefore(LocalDate.of(2025, 4, 1));
+
+    VisitArchiveStore reloaded = new VisitArchiveStore(directory);
+
+    assertThat(reloaded.archivedBefore()).isEqualTo(LocalDate.of(2025, 4, 1));
+    assertThat(reloaded.allChunks()).containsExactly(chunk);
+    assertThat(reloaded.read(reloaded.allChunks().getFirst())).isEqualTo(visits);
+  }
+
+  @Test
+  void reloadDeletesUnfinishedChunks() throws Exception {
+    VisitArchiveStore.Chunk chunk = new VisitArchiveStore(directory)
+            .write(1, MARCH, List.of(visit(1, 1, at(1, 9, 0), null)));
+    Path unfinished = chunk.path().resolveSibling("visits-2-2.gz.tmp");
+    Files.write(unfinished, new byte[]{1, 2, 3});
+
+    VisitArchiveStore reloaded = new VisitArchiveStore(directory);
+
+    assertThat(unfinished).doesNotExist();
+    assertThat(reloaded.allChunks()).containsExactly(chunk);
+  }
+
+  @Test
+  void archivingTheSameRangeAgainReplacesTheChunk() {
+    VisitArchiveStore store = new VisitArchiveStore(directory);
+    VisitArchiveStore.Chunk first = store.write(1, MARCH, List.of(
+            visit(1, 1, at(1, 9, 0), null), visit(3, 1, at(3, 9, 0), null)));
+    store.publish(first);
+
+    // Retry after a failed delete: the visit was closed in the meantime
+    List<VisitDto> retried = List.of(visit(1, 1, at(1, 9, 0), at(1, 11, 0)), visit(3, 1, at(3, 9, 0), null));
+    VisitArchiveStore.Chunk second = store.write(1, MARCH, retried);
+    store.publish(second);
+
+    assertThat(second.path()).isEqualTo(first.path());
+    assertThat(store.allChunks()).containsExactly(second);
+    assertThat(store.read(second)).isEqualTo(retried);
+    assertThat(new VisitArchiveStore(directory).allChunks()).hasSize(1);
+  }
+
+  @Test
+  void discardRemovesChunkFromIndexAndDisk() {
+    VisitArchiveStore store = new VisitArchiveStore(directory);
+    VisitArchiveStore.Chunk kept = store.write(1, MARCH, List.of(visit(1, 1, at(1, 9, 0), null)));
+    VisitArchiveStore.Chunk discarded = store.write(1, MARCH, List.of(visit(2, 1, at(2, 9, 0), null)));
+    store.publish(kept);
+    store.publish(discarded);
+
+    store.discard(discarded);
+
+    assertThat(store.allChunks()).containsExactly(kept);
+    assertThat(discarded.path()).doesNotExist();
+    assertThat(new VisitArchiveStore(directory).allChunks()).containsExactly(kept);
+  }
+
+  @Test
+  void serviceReadsVisitsArchivedTwiceOnce() {
+    VisitArchiveStore store = new VisitArchiveStore(directory);
+    // Overlapping chunks, e.g. a batch split differently on retry
+    store.publish(store.write(1, MARCH, List.of(visit(1, 1, at(1, 9, 0), null), visit(2, 1, at(2, 9, 0), null))));
+    store.publish(store.write(1, MARCH, List.of(visit(2, 1, at(2, 9, 0), null), visit(3, 1, at(3, 9, 0), null))));
+    VisitArchiveService service = new VisitArchiveService(null, null, null, null,
+            directory, Duration.ofDays(180), 100);
+
+    assertThat(service.findByGym(1L, MARCH.atDay(1).atStartOfDay(), MARCH.plusMonths(1).atDay(1).atStartOfDay()))
+            .extracting(VisitDto::visitId)
+            .containsExactly(1L, 2L, 3L);
+    assertThat(service.findByGym(1L, at(2, 0, 0), at(3, 0, 0)))
+            .extracting(VisitDto::visitId)
+            .containsExactly(2L);
+    assertThat(service.findById(2L)).contains(visit(2, 1, at(2, 9, 0), null));
+    assertThat(service.findById(4L)).isEmpty();
+  }
+
+  private static VisitDto visit(long id, long clientId, LocalDateTime checkIn, LocalDateTime checkOut) {
+    return new VisitDto(id, clientId, 1L, checkIn, checkOut);
+  }
+
+  private static LocalDateTime at(int day, int hour, int minute) {
+    return MARCH.atDay(day).atTime(hour, minute);
+  }
+}
@@ -0,0 +1,171 @@
+package ru.safoev.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jackson.autoconfigure.JacksonAutoConfiguration;
+import org.springframework.boot.validation.autoconfigure.ValidationAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.dtorecords.AttendanceDto;
+import ru.safoev.dtorecords.CheckOutDto;
+import ru.safoev.dtorecords.VisitDto;
+import ru.safoev.mappers.ClientMapper;
+import ru.safoev.mappers.GymMapper;
+import ru.safoev.mappers.VisitMapper;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Refresh window of the hourly visit rollups against H2: back-dated visits and
+ * check-outs of visits opened on earlier days are picked up by the next {@code refresh()},
+ * which must agree with a full {@code rebuild()}.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never",
+        // Keeps a visit opened yesterday inside the window regardless of the time the test runs
+        "gym.analytics.rollup.open-visit-horizon=48h"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        VisitService.class, BulkCopyImporter.class, TableExporter.class, OccupancyService.class, EntityChangeBus.class,
+        VisitRollupService.class, VisitArchiveService.class, ClientCohortService.class,
+        ClientMapper.class, GymMapper.class, VisitMapper.class
+})
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+class VisitRollupServiceTests {
+
+  private static final LocalDate TODAY = LocalDate.now();
+  private static final LocalDate YESTERDAY = TODAY.minusDays(1);
+
+  @TempDir
+  static Path archiveDirectory;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private VisitService visitService;
+
+  @Autowired
+  private VisitRollupService visitRollupService;
+
+  @DynamicPropertySource
+  static void archiveProperties(DynamicPropertyRegistry registry) {
+    registry.add("gym.visit.archive.dir", () -> archiveDirectory.toString());
+  }
+
+  @BeforeEach
+  void seed() {
+    for (long gymId = 1; gymId <= 2; gymId++) {
+      jdbcTemplate.update("INSERT INTO gyms (gym_id, gym_name, gym_address, gym_open_time, gym_end_time)"
+              + " VALUES (?, 'Gym', ?, ?, ?)", gymId, "Address " + gymId, LocalTime.of(7, 0), LocalTime.of(23, 0));
+    }
+    for (long clientId = 1; clientId <= 3; clientId++) {
+      jdbcTemplate.update("INSERT INTO clients (client_id, client_first_name, client_last_name, client_registration_date)"
+              + " VALUES (?, 'First', 'Last', ?)", clientId, TODAY.minusDays(60).atStartOfDay());
+    }
+    // Clears marks and the open-visit window left by other tests sharing the context
+    visitRollupService.rebuild();
+  }
+
+  @AfterEach
+  void cleanUp() {
+    jdbcTemplate.update("DELETE FROM visits");
+    jdbcTemplate.update("DELETE FROM visit_hourly_rollups");
+    jdbcTemplate.update("DELETE FROM clients");
+    jdbcTemplate.update("DELETE FROM gyms");
+  }
+
+  @Test
+  void backDatedVisitIsRecomputedByNextRefresh() {
+    LocalDate day = TODAY.minusDays(5);
+    insertVisit(1, 1, day.atTime(9, 0), day.atTime(10, 0));
+    visitRollupService.rebuild();
+    assertThat(visitRollupService.getDaily(1L, day, day)).singleElement()
+            .extracting(AttendanceDto::visits).isEqualTo(1L);
+
+    visitService.createVisit(new VisitDto(null, 2L, 1L, day.atTime(18, 0), day.atTime(20, 0)));
+    visitRollupService.refresh();
+
+    assertThat(visitRollupService.getDaily(1L, day, day)).containsExactly(
+            new AttendanceDto(1L, day, null, 2, 2, 5400.0));
+    assertThat(visitRollupService.getHourly(1L, day, day))
+            .extracting(AttendanceDto::hour, AttendanceDto::visits)
+            .containsExactly(tuple(9, 1L), tuple(18, 1L));
+  }
+
+  @Test
+  void checkOutOfVisitOpenedYesterdayUpdatesYesterdayOnNextRefresh() {
+    LocalDateTime checkIn = YESTERDAY.atTime(12, 0);
+    insertVisit(1, 1, checkIn, null);
+    insertVisit(2, 1, YESTERDAY.atTime(12, 30), YESTERDAY.atTime(13, 30));
+    visitRollupService.rebuild();
+    assertThat(visitRollupService.getDaily(1L, YESTERDAY, YESTERDAY)).containsExactly(
+            new AttendanceDto(1L, YESTERDAY, null, 2, 1, 3600.0));
+
+    LocalDateTime checkOut = LocalDateTime.now().withNano(0);
+    visitService.checkOut(new CheckOutDto(1L, 1L, checkOut));
+    visitRollupService.refresh();
+
+    long stay = Duration.between(checkIn, checkOut).toSeconds();
+    assertThat(visitRollupService.getDaily(1L, YESTERDAY, YESTERDAY)).containsExactly(
+            new AttendanceDto(1L, YESTERDAY, null, 2, 2, (stay + 3600) / 2.0));
+  }
+
+  @Test
+  void refreshFromScratchMatchesRebuild() {
+    jdbcTemplate.update("DELETE FROM visit_hourly_rollups");
+    long clientId = 1;
+    for (int daysAgo = 12; daysAgo >= 0; daysAgo--) {
+      LocalDate day = TODAY.minusDays(daysAgo);
+      for (int hour = 7; hour < 22; hour += 1 + daysAgo % 4) {
+        LocalDateTime checkIn = day.atTime(hour, daysAgo * 3 % 60);
+        // Visits starting at 10:00, 15:00 and 20:00 stay open
+        LocalDateTime checkOut = hour % 5 == 0 ? null : checkIn.plusMinutes(40 + hour * 6L);
+        if (!checkIn.isAfter(LocalDateTime.now())) {
+          visitService.createVisit(new VisitDto(null, clientId, 1 + (long) hour % 2, checkIn, checkOut));
+          clientId = clientId % 3 + 1;
+        }
+      }
+    }
+
+    visitRollupService.refresh();
+    List<Map<String, Object>> refreshed = rollups();
+    visitRollupService.rebuild();
+
+    assertThat(refreshed).hasSizeGreaterThan(50);
+    assertThat(rollups()).isEqualTo(refreshed);
+  }
+
+  // Identifiers far above the sequence, which createVisit draws from
+  private void insertVisit(long visitId, long clientId, LocalDateTime checkIn, LocalDateTime checkOut) {
+    jdbcTemplate.update("INSERT INTO visits (visit_id, client_id, gym_id, visit_check_in_time, visit_check_out_time)"
+            + " VALUES (?, ?, 1, ?, ?)", 1_000_000 + visitId, clientId, checkIn, checkOut);
+  }
+
+  private List<Map<String, Object>> rollups() {
+    return jdbcTemplate.queryForList("""
+            SELECT gym_id, rollup_date, rollup_hour, rollup_visit_count, rollup_closed_count, rollup_stay_seconds
+            FROM visit_hourly_rollups
+            ORDER BY gym_id, rollup_date, rollup_hour""");
+  }
+}
@@ -0,0 +1,280 @@
+package ru.safoev.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jackson.autoconfigure.JacksonAutoConfiguration;
+import org.springframework.boot.validation.autoconfigure.ValidationAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.safoev.enumlists.VisitEventType;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Write-behind buffer against H2: events reach the visits table exactly once,
+ * survive failed flushes and restarts through the journal, and are rejected when
+ * the buffer is full.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+        OccupancyService.class, EntityChangeBus.class, VisitRollupService.class, VisitArchiveService.class,
+        ClientCohortService.class
+})
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+class VisitWriteBehindBufferTests {
+
+  private static final LocalDateTime CHECK_IN = LocalDateTime.now().withNano(0).minusHours(1);
+
+  @TempDir
+  static Path archiveDirectory;
+
+  @TempDir
+  Path journalDirectory;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private OccupancyService occupancyService;
+
+  @Autowired
+  private EntityChangeBus entityChangeBus;
+
+  @Autowired
+  private VisitRollupService visitRollupService;
+
+  @Autowired
+  private ClientCohortService clientCohortService;
+
+  private FailingTransactionManager failingTransactionManager;
+  private VisitWriteBehindBuffer buffer;
+
+  @DynamicPropertySource
+  static void archiveProperties(DynamicPropertyRegistry registry) {
+    registry.add("gym.visit.archive.dir", () -> archiveDirectory.toString());
+  }
+
+  @BeforeEach
+  void seed() {
+    jdbcTemplate.update("INSERT INTO gyms (gym_id, gym_name, gym_address, gym_open_time, gym_end_time)"
+            + " VALUES (1, 'Gym', 'Address', ?, ?)", LocalTime.of(7, 0), LocalTime.of(23, 0));
+    for (long clientId = 1; clientId <= 2; clientId++) {
+      jdbcTemplate.update("INSERT INTO clients (client_id, client_first_name, client_last_name, client_registration_date)"
+              + " VALUES (?, 'First', 'Last', ?)", clientId, CHECK_IN.minusDays(30));
+    }
+    failingTransactionManager = new FailingTransactionManager(transactionManager);
+  }
+
+  @AfterEach
+  void cleanUp() throws InterruptedException {
+    if (buffer != null) {
+      buffer.stop();
+    }
+    jdbcTemplate.update("DELETE FROM visits");
+    jdbcTemplate.update("DELETE FROM clients");
+    jdbcTemplate.update("DELETE FROM gyms");
+  }
+
+  @Test
+  void flushWritesCheckInsAndCheckOuts() {
+    buffer = startBuffer(100);
+
+    buffer.enqueue(VisitEventType.CHECK_IN, 1, 1, CHECK_IN);
+    buffer.enqueue(VisitEventType.CHECK_IN, 2, 1, CHECK_IN.plusMinutes(5));
+    buffer.enqueue(VisitEventType.CHECK_OUT, 1, 1, CHECK_IN.plusMinutes(50));
+    assertThat(visits()).isEmpty();
+
+    assertThat(buffer.flush()).isTrue();
+
+    assertThat(visits()).containsExactly(
+            Map.of("client_id", 1L, "check_out", CHECK_IN.plusMinutes(50)),
+            Map.of("client_id", 2L, "check_out", "open"));
+    assertThat(buffer.getStats().writtenEvents()).isEqualTo(3);
+    assertThat(buffer.getStats().queueDepth()).isZero();
+    assertThat(journalDirectory).isEmptyDirectory();
+  }
+
+  @Test
+  void failedFlushKeepsEventsAndJournalUntilTheNextFlushWritesThemOnce() {
+    buffer = startBuffer(100);
+    buffer.enqueue(VisitEventType.CHECK_IN, 1, 1, CHECK_IN);
+    buffer.enqueue(VisitEventType.CHECK_IN, 2, 1, CHECK_IN);
+
+    failingTransactionManager.failing = true;
+    assertThat(buffer.flush()).isFalse();
+
+    assertThat(visits()).isEmpty();
+    assertThat(journalDirectory).isNotEmptyDirectory();
+    assertThat(buffer.getStats().failedFlushCount()).isEqualTo(1);
+    // Permits of unwritten events stay taken
+    assertThat(buffer.getStats().queueDepth()).isEqualTo(2);
+
+    failingTransactionManager.failing = false;
+    buffer.enqueue(VisitEventType.CHECK_OUT, 1, 1, CHECK_IN.plusMinutes(30));
+    assertThat(buffer.flush()).isTrue();
+    assertThat(buffer.flush()).isTrue();
+
+    assertThat(visits()).containsExactly(
+            Map.of("client_id", 1L, "check_out", CHECK_IN.plusMinutes(30)),
+            Map.of("client_id", 2L, "check_out", "open"));
+    assertThat(journalDirectory).isEmptyDirectory();
+    assertThat(buffer.getStats().queueDepth()).isZero();
+  }
+
+  @Test
+  void startReplaysJournalLeftByStoppedProcess() throws Exception {
+    // Committed before the process stopped, but its segment was not deleted
+    jdbcTemplate.update("INSERT INTO visits (visit_id, client_id, gym_id, visit_check_in_time) VALUES (900, 1, 1, ?)",
+            CHECK_IN);
+    Files.write(journalDirectory.resolve("visits-7.log"), List.of(
+            new VisitEvent(VisitEventType.CHECK_IN, 1, 1, CHECK_IN).toJournalLine(),
+            new VisitEvent(VisitEventType.CHECK_IN, 2, 1, CHECK_IN.plusMinutes(1)).toJournalLine(),
+            new VisitEvent(VisitEventType.CHECK_OUT, 2, 1, CHECK_IN.plusMinutes(40)).toJournalLine(),
+            "CHECK_IN,2,1"), StandardCharsets.UTF_8);
+
+    buffer = startBuffer(100);
+
+    assertThat(visits()).containsExactly(
+            Map.of("client_id", 1L, "check_out", "open"),
+            Map.of("client_id", 2L, "check_out", CHECK_IN.plusMinutes(40)));
+    assertThat(buffer.getStats().writtenEvents()).isEqualTo(2);
+    assertThat(buffer.getStats().skippedEvents()).isEqualTo(1);
+    assertThat(journalDirectory).isEmptyDirectory();
+  }
+
+  @Test
+  void failedReplayIsRetriedByTheNextFlush() throws Exception {
+    Files.write(journalDirectory.resolve("visits-1.log"), List.of(
+            new VisitEvent(VisitEventType.CHECK_IN, 1, 1, CHECK_IN).toJournalLine()), StandardCharsets.UTF_8);
+    failingTransactionManager.failing = true;
+
+    buffer = startBuffer(100);
+    assertThat(visits()).isEmpty();
+
+    failingTransactionManager.failing = false;
+    assertThat(buffer.flush()).isTrue();
+
+    assertThat(visits()).containsExactly(Map.of("client_id", 1L, "check_out", "open"));
+    assertThat(journalDirectory).isEmptyDirectory();
+  }
+
+  @Test
+  void rejectsEventsWhenPermitsRunOut() {
+    buffer = startBuffer(2);
+    buffer.enqueue(VisitEventType.CHECK_IN, 1, 1, CHECK_IN);
+
+    assertThatThrownBy(() -> buffer.enqueueAll(List.of(
+            new VisitEvent(VisitEventType.CHECK_IN, 2, 1, CHECK_IN),
+            new VisitEvent(VisitEventType.CHECK_IN, 2, 1, CHECK_IN.plusMinutes(1)))))
+            .isInstanceOf(RejectedExecutionException.class);
+    assertThatThrownBy(() -> buffer.enqueueAll(List.of(
+            new VisitEvent(VisitEventType.CHECK_IN, 1, 1, CHECK_IN),
+            new VisitEvent(VisitEventType.CHECK_IN, 1, 1, CHECK_IN),
+            new VisitEvent(VisitEventType.CHECK_IN, 1, 1, CHECK_IN))))
+            .isInstanceOf(IllegalArgumentException.class);
+    assertThat(buffer.getStats().rejectedEvents()).isEqualTo(2);
+
+    // The rejected batch was not half-accepted: one permit is still free
+    buffer.enqueue(VisitEventType.CHECK_IN, 2, 1, CHECK_IN);
+    assertThatThrownBy(() -> buffer.enqueue(VisitEventType.CHECK_IN, 2, 1, CHECK_IN.plusMinutes(2)))
+            .isInstanceOf(RejectedExecutionException.class);
+
+    buffer.flush();
+    buffer.enqueue(VisitEventType.CHECK_IN, 2, 1, CHECK_IN.plusMinutes(2));
+    assertThat(buffer.getStats().queueDepth()).isEqualTo(1);
+  }
+
+  @Test
+  void skipsEventsOfUnknownClientsAndGyms() {
+    buffer = startBuffer(100);
+    buffer.enqueue(VisitEventType.CHECK_IN, 1, 1, CHECK_IN);
+    buffer.enqueue(VisitEventType.CHECK_IN, 999, 1, CHECK_IN);
+    buffer.enqueue(VisitEventType.CHECK_IN, 2, 999, CHECK_IN);
+
+    assertThat(buffer.flush()).isTrue();
+
+    assertThat(visits()).containsExactly(Map.of("client_id", 1L, "check_out", "open"));
+    assertThat(buffer.getStats().writtenEvents()).isEqualTo(1);
+    assertThat(buffer.getStats().skippedEvents()).isEqualTo(2);
+    assertThat(journalDirectory).isEmptyDirectory();
+  }
+
+  // Long interval and large batch keep the flusher thread idle, so the test drives flush()
+  private VisitWriteBehindBuffer startBuffer(int capacity) {
+    VisitWriteBehindBuffer started = new VisitWriteBehindBuffer(jdbcTemplate, failingTransactionManager,
+            entityManagerFactory, occupancyService, entityChangeBus, visitRollupService, clientCohortService,
+            capacity, 10_000, Duration.ofHours(1), Duration.ZERO, journalDirectory, false, Duration.ofDays(1));
+    started.start();
+    return started;
+  }
+
+  private List<Map<String, Object>> visits() {
+    return jdbcTemplate.query("SELECT client_id, visit_check_out_time FROM visits ORDER BY client_id, visit_check_in_time",
+            (rs, rowNum) -> {
+              LocalDateTime checkOut = rs.getObject(2, LocalDateTime.class);
+              return Map.of("client_id", rs.getLong(1), "check_out", checkOut != null ? checkOut : "open");
+            });
+  }
+
+  private static final class FailingTransactionManager implements PlatformTransactionManager {
+    private final PlatformTransactionManager delegate;
+    private volatile boolean failing;
+
+    private FailingTransactionManager(PlatformTransactionManager delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) {
+      if (failing) {
+        throw new CannotCreateTransactionException("Database unavailable");
+      }
+      return delegate.getTransaction(definition);
+    }
+
+    @Override
+    public void commit(TransactionStatus status) {
+      delegate.commit(status);
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) {
+      delegate.rollback(status);
+    }
+  }
+}